@@ -1,12 +1,13 @@
 package app;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import util.ThreadLocalMatcher;
+
 public class AppVersion
 {
 	private static final Pattern pattern = Pattern.compile("v?(\\d+)\\.(\\d+)\\.(\\d+)(?:-(\\w+))?");
-	private static final Matcher matcher = pattern.matcher("");
+	private static final ThreadLocalMatcher matcher = new ThreadLocalMatcher(pattern);
 
 	public static enum VersionLevel
 	{
@@ -191,9 +191,12 @@ public class AssetManager
 			return MOD_MAP_BUILD.toFile();
 	}
 
-	public static List<StringResource> getStringAssets() throws IOException
+	/**
+	 * Lists the files for all string assets without parsing them.
+	 */
+	public static List<File> getStringAssetFiles() throws IOException
 	{
-		ArrayList<StringResource> assets = new ArrayList<>();
+		ArrayList<File> files = new ArrayList<>();
 
 		if (Environment.project.isDecomp) {
 			ArrayList<String> relativePaths = new ArrayList<>();
@@ -212,23 +215,32 @@ public class AssetManager
 					// Files with the same name override old ones
 					int idx = relativePaths.indexOf(relativePath);
 					if (idx != -1) {
-						assets.remove(idx);
+						files.remove(idx);
 						relativePaths.remove(idx);
 					}
 
-					assets.add(new StringResource(file));
+					files.add(file);
 					relativePaths.add(relativePath);
 				}
 			}
 		}
 		else {
 			for (File file : IOUtils.getFilesWithExtension(MOD_STRINGS_SRC, new String[] { "str", "msg" }, true))
-				assets.add(new StringResource(file));
+				files.add(file);
 
 			for (File file : IOUtils.getFilesWithExtension(MOD_STRINGS_PATCH, new String[] { "str", "msg" }, true))
-				assets.add(new StringResource(file));
+				files.add(file);
 		}
 
+		return files;
+	}
+
+	public static List<StringResource> getStringAssets() throws IOException
+	{
+		ArrayList<StringResource> assets = new ArrayList<>();
+		for (File file : getStringAssetFiles())
+			assets.add(new StringResource(file));
+
 		return assets;
 	}
 }
@@ -233,6 +233,7 @@ public enum Directories
 	MOD_SYSTEM			(Root.MOD, MOD_GLOBALS,		"/system/"),
 
 	MOD_RESOURCE		(Root.MOD, 				"/res/"),
+	MOD_BUILD_CACHE		(Root.MOD, 				"/cache/", true),	// content-addressed outputs of build stages
 	MOD_OUT 			(Root.MOD, 				"/out/");
 
 	// @formatter:on
@@ -12,6 +12,9 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
 import java.security.CodeSource;
 import java.util.Properties;
 import java.util.jar.Attributes;
@@ -215,6 +218,7 @@ public abstract class Environment
 
 	public static void exit(int status)
 	{
+		Logger.flush();
 		System.exit(status);
 	}
 
@@ -571,6 +575,14 @@ public abstract class Environment
 		return IOUtils.getDirectBuffer(baseRom);
 	}
 
+	// only allow read-only references to the base ROM
+	public static ByteBuffer getBaseRomMapping() throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(baseRom.toPath(), StandardOpenOption.READ)) {
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
 	// only allow read-only references to the base ROM
 	public static byte[] getBaseRomBytes() throws IOException
 	{
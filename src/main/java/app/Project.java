@@ -121,10 +121,10 @@ public final class Project
 		Environment.copyBaseRom(targetRom);
 	}
 
-	public RomPatcher getTargetRomPatcher(int bufferSize) throws IOException
+	public RomPatcher getTargetRomPatcher() throws IOException
 	{
 		File targetRom = new File(MOD_OUT + Environment.getBaseRomName());
-		return new RomPatcher(bufferSize, targetRom);
+		return new RomPatcher(Environment.getBaseRomMapping(), targetRom);
 	}
 
 	public File getTargetRom()
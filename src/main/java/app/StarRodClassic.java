@@ -76,6 +76,7 @@ import game.map.compiler.BuildException;
 import game.map.compiler.CollisionCompiler;
 import game.map.compiler.GeometryCompiler;
 import game.map.config.LevelEditor;
+import game.map.config.MapConfigTable;
 import game.map.editor.MapEditor;
 import game.map.editor.ui.dialogs.ChooseDialogResult;
 import game.map.editor.ui.dialogs.DirChooser;
@@ -104,6 +105,8 @@ import game.world.partner.PartnerWorldDumper;
 import game.worldmap.WorldMapEditor;
 import game.worldmap.WorldMapModder;
 import net.miginfocom.swing.MigLayout;
+import patcher.BuildScheduler;
+import patcher.BuildCache;
 import patcher.Patcher;
 import reports.BattleMapTracker;
 import reports.EffectTypeTracker;
@@ -693,16 +696,76 @@ public class StarRodClassic extends JFrame
 			SpriteShadingEditor.dumpShading();
 			ProjectDatabase.reload(false);
 
-			if (fullDump || cfg.getBoolean(DumpMessages)) {
+			// dumps log heavily from several threads, let a background thread handle output
+			Logger.setAsynchronous(true);
+			try {
+				BuildScheduler scheduler = scheduleDump(cfg, fullDump);
+				scheduler.run();
+
+				if (cfg.getBoolean(DumpProfiling))
+					scheduler.printReport();
+			}
+			finally {
+				Logger.setAsynchronous(false);
+			}
+
+			if (cfg.getBoolean(CleanDump)) {
+				cfg.setBoolean(CleanDump, false);
+				cfg.saveConfigFile();
+			}
+
+			Environment.createNewDumpConfig();
+			Environment.dumpConfig.setString(Options.DumpVersion, Environment.getVersionString());
+			Environment.dumpConfig.saveConfigFile();
+			Environment.dumpVersion = Environment.getVersion();
+			Environment.hasCurrentDump = true;
+
+			Logger.log("Finished ROM dump: " + new java.util.Date().toString(), Priority.IMPORTANT);
+		}
+		catch (Throwable e) {
+			displayStackTrace(e);
+			return false;
+		}
+		finally {
+			if (dumpLog != null)
+				dumpLog.close();
+			ScriptVariable.clearSettings();
+		}
+
+		return true;
+	}
+
+	// resources shared between dump phases, see BuildScheduler
+	private static final String DUMP_DATABASE = "Database"; // project database, call trackers, and script settings
+	private static final String DUMP_CONSTANTS = "Constants"; // enums read by sprites and audio
+	private static final String DUMP_MAP_ASSETS = "MapAssets"; // raw and compressed map resources
+
+	/**
+	 * Schedules the stages of a dump. Stages which decode scripts share the project database
+	 * and call trackers, so they keep their serial order. Map resources, textures, sprites,
+	 * and audio only need the ROM and the files dumped before them, so they run alongside the
+	 * scripts when parallel dumping is enabled. Every stage reads the ROM through its own view
+	 * of a single read-only mapping.
+	 */
+	private static BuildScheduler scheduleDump(Config cfg, boolean fullDump) throws IOException
+	{
+		boolean parallel = cfg.getBoolean(ParallelDump);
+		BuildScheduler scheduler = new BuildScheduler(parallel);
+		ByteBuffer romBuffer = Environment.getBaseRomMapping();
+
+		if (fullDump || cfg.getBoolean(DumpMessages)) {
+			scheduler.addPhase("Strings", () -> {
 				Logger.log("Dumping strings...", Priority.MILESTONE);
 				StringDumper.dumpAllStrings();
 				Logger.log("Dumping font...", Priority.MILESTONE);
 				FontManager.dump();
 				Logger.log("Dumping message boxes...", Priority.MILESTONE);
 				MessageBoxes.dump();
-			}
+			}).writes(DUMP_DATABASE);
+		}
 
-			if (fullDump || cfg.getBoolean(DumpTables)) {
+		if (fullDump || cfg.getBoolean(DumpTables)) {
+			scheduler.addPhase("Globals", () -> {
 				Logger.log("Dumping globals...", Priority.MILESTONE);
 
 				ArrayList<MoveRecord> moves = MoveModder.dumpTable();
@@ -710,8 +773,10 @@ public class StarRodClassic extends JFrame
 
 				ProjectDatabase.images.dumpAll();
 				ImageScriptModder.dumpAll();
-			}
+			}).writes(DUMP_DATABASE);
+		}
 
+		scheduler.addPhase("Globals Loaded", () -> {
 			ProjectDatabase.loadGlobals(false);
 
 			FileUtils.copyFile(
@@ -721,122 +786,137 @@ public class StarRodClassic extends JFrame
 			FileUtils.copyFile(
 				new File(DATABASE + FN_GAME_FLAGS),
 				new File(DUMP_GLOBALS + FN_GAME_FLAGS));
+		}).writes(DUMP_DATABASE, DUMP_CONSTANTS);
 
-			if (fullDump || cfg.getBoolean(DumpMaps)) {
-				Logger.log("Dumping maps...", Priority.MILESTONE);
-				MapDumper.dumpMaps(fullDump, cfg.getBoolean(RecompressMaps));
+		if (fullDump || cfg.getBoolean(DumpMaps)) {
+			MapConfigTable mapTable;
+			try (RandomAccessFile raf = Environment.getBaseRomReader()) {
+				mapTable = MapDumper.readMapTable(ProjectDatabase.rom, raf);
+			}
+
+			if (fullDump) {
+				scheduler.addPhase("Map Assets", () -> {
+					MapDumper.dumpMapAssets(mapTable, romBuffer.duplicate(), cfg.getBoolean(RecompressMaps), parallel);
+				}).writes(DUMP_MAP_ASSETS);
 			}
 
-			// start dumping battle scripts
-			ByteBuffer fileBuffer = Environment.getBaseRomBuffer();
+			scheduler.addPhase("Maps", () -> {
+				Logger.log("Dumping maps...", Priority.MILESTONE);
+				MapDumper.dumpMapSources(ProjectDatabase.rom, mapTable, romBuffer.duplicate());
+			}).reads(DUMP_MAP_ASSETS).writes(DUMP_DATABASE);
+		}
+
+		scheduler.addPhase("Battles", () -> {
 			FunctionCallTracker.clear();
 
 			ActorTypesEditor.dump();
 
 			if (fullDump || cfg.getBoolean(DumpBattles)) {
 				Logger.log("Dumping battles...", Priority.MILESTONE);
-				BattleDumper.dumpBattles(fileBuffer);
+				BattleDumper.dumpBattles(romBuffer.duplicate());
 			}
+		}).writes(DUMP_DATABASE);
 
-			if (fullDump || cfg.getBoolean(DumpMoves)) {
+		if (fullDump || cfg.getBoolean(DumpMoves)) {
+			scheduler.addPhase("Moves", () -> {
+				ByteBuffer fileBuffer = romBuffer.duplicate();
 				Logger.log("Dumping moves...", Priority.MILESTONE);
 				AuxBattleDumper.dumpMoves(fileBuffer);
 				AuxBattleDumper.dumpPartnerMoves(fileBuffer);
 				AuxBattleDumper.dumpStarPowers(fileBuffer);
 				AuxBattleDumper.dumpItemScripts(fileBuffer);
 				AuxBattleDumper.dumpActionCommands(fileBuffer); //these dont dump well atm
-			}
+			}).writes(DUMP_DATABASE);
+		}
 
-			if (fullDump || cfg.getBoolean(DumpPartners)) {
+		if (fullDump || cfg.getBoolean(DumpPartners)) {
+			scheduler.addPhase("Partners", () -> {
 				Logger.log("Dumping partner data...", Priority.MILESTONE);
-				PartnerWorldDumper.dumpPartners(fileBuffer);
-			}
+				PartnerWorldDumper.dumpPartners(romBuffer.duplicate());
+			}).writes(DUMP_DATABASE);
+		}
 
-			if (fullDump || cfg.getBoolean(DumpWorld)) {
+		if (fullDump || cfg.getBoolean(DumpWorld)) {
+			scheduler.addPhase("World", () -> {
+				ByteBuffer fileBuffer = romBuffer.duplicate();
 				Logger.log("Dumping world data...", Priority.MILESTONE);
 				ActionEditor.dumpWorldActions(fileBuffer);
 				EntityEditor.dumpWorldEntities(fileBuffer);
 				EntityDecompiler.decompileAll();
-			}
-
-			if (cfg.getBoolean(DumpReports)) {
-				PrintWriter pw = IOUtils.getBufferedPrintWriter(Directories.DUMP_REPORTS + "enemy_names.txt");
-				for (int i = 0; i < 0xD4; i++) {
-					fileBuffer.position(0x1AF9E4 + 4 * i);
-					int nameStringID = fileBuffer.getInt();
-
-					fileBuffer.position(0x1B1478 + 4 * i);
-					int tattleStringID = fileBuffer.getInt();
-
-					String actorName = ProjectDatabase.getActorName(i);
-					String origin = (Actor.nameIDs[i] == null) ? "unused" : Actor.nameIDs[i];
-
-					pw.printf("%02X  %08X %08X  %% %-16s (%s)%n", i, nameStringID, tattleStringID, actorName, origin);
-				}
-				pw.close();
-
-				FileUtils.forceMkdir(DUMP_REQUESTS.toFile());
-				SpecialRequestDumper.dumpRequestedScripts();
-				SpecialRequestDumper.dumpRequestedFunctions();
-
-				FunctionCallTracker.printCalls(
-					ProjectDatabase.rom.getLibrary(LibScope.Battle),
-					new PrintWriter(DUMP_REPORTS + "battle_func_list.txt"));
-
-				BattleMapTracker.printBattles();
-				BattleMapTracker.printMaps();
+			}).writes(DUMP_DATABASE);
+		}
 
-				EffectTypeTracker.printEffects(
-					new PrintWriter(DUMP_REPORTS + "used_effects.txt"));
-			}
-			// done with battle scripts
+		if (cfg.getBoolean(DumpReports)) {
+			scheduler.addPhase("Reports", () -> {
+				dumpReports(romBuffer.duplicate());
+			}).writes(DUMP_DATABASE);
+		}
 
-			if (fullDump || cfg.getBoolean(DumpTextures)) {
+		if (fullDump || cfg.getBoolean(DumpTextures)) {
+			scheduler.addPhase("Textures", () -> {
 				Logger.log("Dumping textures...", Priority.MILESTONE);
 				CompressedImageDumper.dumpTextures();
-			}
+			}).reads(DUMP_MAP_ASSETS);
+		}
 
-			if (fullDump || cfg.getBoolean(DumpSprites)) {
+		if (fullDump || cfg.getBoolean(DumpSprites)) {
+			scheduler.addPhase("Sprites", () -> {
 				SpriteDumper.dumpSprites();
-			}
+			}).reads(DUMP_CONSTANTS);
+		}
 
-			if (fullDump || cfg.getBoolean(DumpAudio)) {
+		if (fullDump || cfg.getBoolean(DumpAudio)) {
+			scheduler.addPhase("Audio", () -> {
 				Logger.log("Dumping audio...", Priority.MILESTONE);
 				AudioEditor.dumpAudio();
-			}
+			}).reads(DUMP_CONSTANTS);
+		}
 
+		scheduler.addPhase("World Map", () -> {
 			WorldMapModder.dump();
+		}).writes(DUMP_DATABASE);
 
-			if (fullDump || cfg.getBoolean(DumpLibrary)) {
+		if (fullDump || cfg.getBoolean(DumpLibrary)) {
+			scheduler.addPhase("Libraries", () -> {
 				Logger.log("Dumping libraries...", Priority.MILESTONE);
 				LibraryScriptDumper.dumpAll();
-				EffectEditor.dumpEffects(fileBuffer);
-			}
+				EffectEditor.dumpEffects(romBuffer.duplicate());
+			}).writes(DUMP_DATABASE);
+		}
 
-			if (cfg.getBoolean(CleanDump)) {
-				cfg.setBoolean(CleanDump, false);
-				cfg.saveConfigFile();
-			}
+		return scheduler;
+	}
 
-			Environment.createNewDumpConfig();
-			Environment.dumpConfig.setString(Options.DumpVersion, Environment.getVersionString());
-			Environment.dumpConfig.saveConfigFile();
-			Environment.dumpVersion = Environment.getVersion();
-			Environment.hasCurrentDump = true;
+	private static void dumpReports(ByteBuffer fileBuffer) throws IOException
+	{
+		PrintWriter pw = IOUtils.getBufferedPrintWriter(Directories.DUMP_REPORTS + "enemy_names.txt");
+		for (int i = 0; i < 0xD4; i++) {
+			fileBuffer.position(0x1AF9E4 + 4 * i);
+			int nameStringID = fileBuffer.getInt();
 
-			Logger.log("Finished ROM dump: " + new java.util.Date().toString(), Priority.IMPORTANT);
-		}
-		catch (Throwable e) {
-			displayStackTrace(e);
-			return false;
-		}
-		finally {
-			if (dumpLog != null)
-				dumpLog.close();
-			ScriptVariable.clearSettings();
+			fileBuffer.position(0x1B1478 + 4 * i);
+			int tattleStringID = fileBuffer.getInt();
+
+			String actorName = ProjectDatabase.getActorName(i);
+			String origin = (Actor.nameIDs[i] == null) ? "unused" : Actor.nameIDs[i];
+
+			pw.printf("%02X  %08X %08X  %% %-16s (%s)%n", i, nameStringID, tattleStringID, actorName, origin);
 		}
+		pw.close();
 
-		return true;
+		FileUtils.forceMkdir(DUMP_REQUESTS.toFile());
+		SpecialRequestDumper.dumpRequestedScripts();
+		SpecialRequestDumper.dumpRequestedFunctions();
+
+		FunctionCallTracker.printCalls(
+			ProjectDatabase.rom.getLibrary(LibScope.Battle),
+			new PrintWriter(DUMP_REPORTS + "battle_func_list.txt"));
+
+		BattleMapTracker.printBattles();
+		BattleMapTracker.printMaps();
+
+		EffectTypeTracker.printEffects(
+			new PrintWriter(DUMP_REPORTS + "used_effects.txt"));
 	}
 
 	public static boolean copyAssets() //TEMP 0.5 update
@@ -1167,8 +1247,7 @@ public class StarRodClassic extends JFrame
 
 				case "-COMPILETEXTURES":
 					try {
-						CompressedImagePatcher imgPatcher = new CompressedImagePatcher();
-						imgPatcher.buildTextureArchives();
+						CompressedImagePatcher.buildTextureArchives();
 					}
 					catch (IOException e) {
 						e.printStackTrace();
@@ -1177,8 +1256,11 @@ public class StarRodClassic extends JFrame
 
 				case "-COMPILEBACKGROUNDS":
 					try {
-						CompressedImagePatcher imgPatcher = new CompressedImagePatcher();
+						BuildCache cache = new BuildCache(Directories.MOD_BUILD_CACHE,
+							Environment.project.config.getInteger(Options.BuildCacheSize) * 1024L * 1024L);
+						CompressedImagePatcher imgPatcher = new CompressedImagePatcher(cache);
 						imgPatcher.buildBackgrounds();
+						cache.save();
 					}
 					catch (IOException e) {
 						e.printStackTrace();
@@ -107,6 +107,8 @@ public class BuildOptionsPanel extends JPanel
 		addCheckbox(tab, Options.ClearMapCache, "growx");
 		addCheckbox(tab, Options.ClearSpriteCache, "growx");
 		addCheckbox(tab, Options.ClearTextureCache, "growx");
+		addCheckbox(tab, Options.ClearBuildCache, "growx");
+		addCheckbox(tab, Options.ParallelBuild, "growx");
 		addCheckbox(tab, Options.CaptureThumbnails, "growx");
 
 		return tab;
@@ -96,6 +96,7 @@ public class DumpOptionsPanel extends JPanel
 		JPanel tab = new JPanel(new MigLayout("wrap, fillx, " + TAB_INSETS));
 
 		addCheckbox(tab, Options.DumpReports, "growx");
+		addCheckbox(tab, Options.ParallelDump, "growx");
 		addCheckbox(tab, Options.RecompressMaps, "growx, gapbottom 16");
 
 		addCheckbox(tab, Options.UseTabIndents, "growx");
@@ -39,6 +39,8 @@ public enum Options
 			"Includes configuration files, scripts, and maps."),
 	RecompressMaps		(true, Scope.Main, Type.Boolean, "RecompressMapAssets", "False", "Recompress Map Data",
 			"Attempt to compress map data more thoroughly than the originals."),
+	ParallelDump		(true, Scope.Main, Type.Boolean, "ParallelDump", "True", "Parallel Dump",
+			"Independent dump stages and map assets are processed concurrently on all available processors."),
 	DumpBattles			(true, Scope.Main, Type.Boolean, "DumpBattles", "True", "Battle Scripts",
 			"Includes configuration files and scripts."),
 	DumpMoves			(true, Scope.Main, Type.Boolean, "DumpMoves", "True", "Move and Item Scripts",
@@ -85,6 +87,10 @@ public enum Options
 			"Delete previously-cached sprite before building."),
 	ClearTextureCache	(true, Scope.Patch, Type.Boolean, "ClearTextureCache", "False", "Clear Texture Cache",
 			"Delete previously-cached texture archives before building."),
+	ClearBuildCache		(true, Scope.Patch, Type.Boolean, "ClearBuildCache", "False", "Clear Build Cache",
+			"Delete all cached build outputs before building."),
+	BuildCacheSize		(true, Scope.Patch, Type.Integer, "BuildCacheSize", "512", "Build Cache Size (MB)",
+			"Least recently used build outputs are removed from the cache when it grows beyond this size.", 16.0, 65536.0, 16.0),
 
 	CompressBattleData	(true, Scope.Patch, Type.Boolean, "CompressBattleData", "True", "Compress Battle Data",
 			"(Recommended) Save space by compressing battle data + modifying the battle loading code."),
@@ -140,6 +146,9 @@ public enum Options
 	AutoBuildMapAssets	(true, Scope.Patch, Type.Boolean, "AutoBuildMapAssets",	"True", "Automatically Build Map Assets",
 								"Missing shape and hit files will be built automatically at compile time."),
 
+	ParallelBuild		(true, Scope.Patch, Type.Boolean, "ParallelBuild", "True", "Parallel Build",
+								"Independent build phases will run concurrently on all available processors."),
+
 	InitialMap			(true, Scope.Patch, Type.String, "InitialMap", "kmr_20"),
 	InitialEntry		(true, Scope.Patch, Type.String, "InitialEntry", "Entry0"),
 
@@ -179,7 +188,12 @@ public enum Options
 	EditorDebugMode		(false, Scope.MapEditor, Type.Boolean, "EditorDebugMode", "False"),
 	Author				(false, Scope.MapEditor, Type.String, "Author", "unnamed", "Author Name", ""),
 	ShowCurrentMode		(true, Scope.MapEditor, Type.Boolean, "ShowCurrentMode", "True", "Show Mode in Viewport", ""),
-	UndoLimit			(true, Scope.MapEditor, Type.Integer, "UndoLimit", "32", "Undo Limit", "", 1.0),
+	UndoLimit			(true, Scope.MapEditor, Type.Integer, "UndoLimit", "256", "Undo Limit",
+			"Most steps kept in the undo history, however little memory they hold.", 1.0, 4096.0, 1.0),
+	UndoMemoryLimit		(true, Scope.MapEditor, Type.Integer, "UndoMemoryLimit", "256", "Undo Memory Limit (MB)",
+			"Older steps are dropped from the undo history once it holds more than this much memory.", 1.0, 8192.0, 1.0),
+	CompressUndoHistory	(true, Scope.MapEditor, Type.Boolean, "CompressUndoHistory", "True", "Compress Undo History",
+			"Compress older steps in the undo history so more of them fit within the memory limit."),
 	BackupInterval		(true, Scope.MapEditor, Type.Integer, "BackupInterval", "-1", "Backup Interval",
 			"How often (in mintues) to automatically save backups. Negative values mean 'never'."),
 	AngleSnap			(true, Scope.MapEditor, Type.Float,  "AngleSnap", "15.0", "Angle Snap Increment",
@@ -45,6 +45,17 @@ public class PreferencesPanel extends JPanel
 		add(new JLabel(Options.UndoLimit.guiName));
 		add(is);
 
+		is = new ConfigIntSpinner(Options.UndoMemoryLimit);
+		optEditors.add(is);
+		add(new JLabel(Options.UndoMemoryLimit.guiName));
+		add(is);
+
+		cb = new ConfigCheckBox(Options.CompressUndoHistory);
+		cb.setText("");
+		optEditors.add(cb);
+		add(new JLabel(Options.CompressUndoHistory.guiName));
+		add(cb);
+
 		is = new ConfigIntSpinner(Options.BackupInterval);
 		optEditors.add(is);
 		add(new JLabel(Options.BackupInterval.guiName));
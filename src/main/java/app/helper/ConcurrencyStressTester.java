@@ -0,0 +1,140 @@
+package app.helper;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import app.Environment;
+import app.input.Line;
+import asm.MIPS;
+import game.shared.struct.script.ScriptVariable;
+import game.string.StringEncoder;
+import game.string.editor.Presets;
+
+/**
+ * Runs the string encoder, MIPS assembler, and script variable parser from many threads at
+ * once and checks every result against a single-threaded reference. These parsers share
+ * static state, so any mismatch indicates something is not thread-confined.
+ */
+public class ConcurrencyStressTester
+{
+	private static final int THREADS = 16;
+	private static final int ROUNDS = 500;
+
+	private static interface Operation
+	{
+		public String apply(String input) throws Exception;
+	}
+
+	private static final String[] STRINGS = {
+			"Hello world![BR][Wait][Next]Goodbye![End]",
+			"Line one[BR]Line two[BR]Line three[Wait][End]",
+			Presets.CHOICE_2,
+			Presets.CHOICE_3,
+			Presets.CHOICE_5,
+			Presets.ANIMATION + "[End]"
+	};
+
+	private static final String[] ASSEMBLY = {
+			"ADDIU SP, SP, FFE8",
+			"SW RA, 0010 (SP)",
+			"LW RA, 0010 (SP)",
+			"LUI A0, 8011",
+			"ORI A0, A0, 1234",
+			"JAL 800E9894",
+			"J 802B4000",
+			"LWC1 F0, 10 (A1)",
+			"MUL.S F0, F2, F4",
+			"CVT.S.W F6, F6",
+			"SLL V0, A0, 2",
+			"JR RA"
+	};
+
+	private static final String[] VARIABLES = {
+			"*Var[0]",
+			"*Var[F]",
+			"*MapVar[A]",
+			"*Flag[1F]",
+			"*MapFlag[3]",
+			"*GameFlag[1F0]",
+			"*GameByte[0AB]",
+			"*AreaFlag[7]",
+			"*AreaByte[2]",
+			"*Fixed[1.5]",
+			"*Fixed[-42.25]"
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		Environment.initialize();
+
+		boolean passed = true;
+		passed &= check("String encoding", STRINGS, (s) -> toHex(StringEncoder.encode(s)));
+		passed &= check("MIPS assembly", ASSEMBLY, (s) -> MIPS.assemble(new Line(null, 0, s)).str);
+		passed &= check("Script variables", VARIABLES, ScriptVariable::parseScriptVariable);
+
+		System.out.println(passed ? "All checks passed." : "FAILED: results depend on thread interleaving!");
+		Environment.exit();
+	}
+
+	private static boolean check(String name, String[] inputs, Operation op) throws Exception
+	{
+		String[] expected = new String[inputs.length];
+		for (int i = 0; i < inputs.length; i++)
+			expected[i] = op.apply(inputs[i]);
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch startSignal = new CountDownLatch(1);
+		List<Future<Integer>> results = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			Random rng = new Random(t);
+			results.add(pool.submit(() -> {
+				startSignal.await();
+
+				int mismatches = 0;
+				for (int round = 0; round < ROUNDS; round++) {
+					// visit inputs in a different order on each thread to vary the interleaving
+					int start = rng.nextInt(inputs.length);
+					for (int i = 0; i < inputs.length; i++) {
+						int j = (start + i) % inputs.length;
+						if (!expected[j].equals(op.apply(inputs[j])))
+							mismatches++;
+					}
+				}
+				return mismatches;
+			}));
+		}
+
+		long t0 = System.nanoTime();
+		startSignal.countDown();
+
+		int mismatches = 0;
+		for (Future<Integer> result : results)
+			mismatches += result.get();
+
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+		long t1 = System.nanoTime();
+
+		int total = THREADS * ROUNDS * inputs.length;
+		System.out.printf("%-18s %8d calls on %d threads in %7.1f ms: %d mismatches%n",
+			name, total, THREADS, (t1 - t0) / 1e6, mismatches);
+
+		return mismatches == 0;
+	}
+
+	private static String toHex(ByteBuffer bb)
+	{
+		StringBuilder sb = new StringBuilder();
+		while (bb.hasRemaining())
+			sb.append(String.format("%02X", bb.get()));
+		return sb.toString();
+	}
+}
@@ -4,7 +4,6 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.Environment;
@@ -12,14 +11,15 @@ import app.StarRodException;
 import app.input.IOUtils;
 import game.shared.ProjectDatabase;
 import game.shared.lib.LibEntry;
+import util.ThreadLocalMatcher;
 
 public class DecompDiffer
 {
 	private static final Pattern LinePattern = Pattern.compile("(\\S+)\\s*=\\s*0x(\\S+); // ?(.+)?");
-	private static final Matcher LineMatcher = LinePattern.matcher("");
+	private static final ThreadLocalMatcher LineMatcher = new ThreadLocalMatcher(LinePattern);
 
 	private static final Pattern InfoPattern = Pattern.compile("(\\S+):(\\S+)");
-	private static final Matcher InfoMatcher = InfoPattern.matcher("");
+	private static final ThreadLocalMatcher InfoMatcher = new ThreadLocalMatcher(InfoPattern);
 
 	public static void main(String[] args) throws IOException
 	{
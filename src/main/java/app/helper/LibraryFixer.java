@@ -4,7 +4,6 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
@@ -16,6 +15,7 @@ import app.input.InvalidInputException;
 import game.ROM;
 import game.ROM.LibScope;
 import game.ROM_JP;
+import util.ThreadLocalMatcher;
 
 public class LibraryFixer
 {
@@ -40,10 +40,10 @@ public class LibraryFixer
 	}
 
 	private static final Pattern EntryLinePattern = Pattern.compile("(\\s*(?:asm|api|scr)\\s*:\\s*)(.+?)(\\s*:.+)");
-	private static final Matcher EntryLineMatcher = EntryLinePattern.matcher("");
+	private static final ThreadLocalMatcher EntryLineMatcher = new ThreadLocalMatcher(EntryLinePattern);
 
 	private static final Pattern DataLinePattern = Pattern.compile("(\\s*(?:dat|lbl)\\s*:\\s*)(.+?)(\\s*:.+)");
-	private static final Matcher DataLineMatcher = DataLinePattern.matcher("");
+	private static final ThreadLocalMatcher DataLineMatcher = new ThreadLocalMatcher(DataLinePattern);
 
 	private static void updateLib(String filename, ROM rom, LibScope scope) throws IOException, InvalidInputException
 	{
@@ -13,6 +13,7 @@ import app.Directories;
 import app.Environment;
 import app.StarRodClassic;
 import util.CaseInsensitiveMap;
+import util.ThreadLocalMatcher;
 
 public class PatchFileParser
 {
@@ -443,7 +444,7 @@ public class PatchFileParser
 	}
 
 	private static final Pattern PPDirectivePattern = Pattern.compile("##\\[([\\w:]+)\\]");
-	private static final Matcher PPDirectiveMatcher = PPDirectivePattern.matcher("");
+	private static final ThreadLocalMatcher PPDirectiveMatcher = new ThreadLocalMatcher(PPDirectivePattern);
 
 	private static List<Line> doPreprocessor(List<Line> in, CaseInsensitiveMap<String> rules)
 	{
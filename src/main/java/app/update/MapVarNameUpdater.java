@@ -20,12 +20,13 @@ import app.input.InvalidInputException;
 import game.shared.VarNameDictionary;
 import game.shared.struct.script.ScriptVariable;
 import util.Logger;
+import util.ThreadLocalMatcher;
 
 // 800DBD70
 public class MapVarNameUpdater
 {
 	private static final Pattern VarPattern = Pattern.compile("(\\*[\\w?:]+)");
-	private static final Matcher VarMatcher = VarPattern.matcher("");
+	private static final ThreadLocalMatcher VarMatcher = new ThreadLocalMatcher(VarPattern);
 
 	public static void main(String[] args)
 	{
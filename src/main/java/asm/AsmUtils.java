@@ -5,7 +5,6 @@ import java.util.LinkedList;
 import java.util.List;
 
 import app.input.DummySource;
-import app.input.InputFileException;
 import app.input.Line;
 import asm.pseudoinstruction.PseudoInstruction;
 import patcher.RomPatcher;
@@ -93,14 +92,7 @@ public abstract class AsmUtils
 		if (usePIs)
 			lines = PseudoInstruction.removeAll(lines);
 
-		for (Line line : MIPS.assemble(lines)) {
-			try {
-				rp.writeInt((int) Long.parseLong(line.str, 16));
-			}
-			catch (NumberFormatException e) {
-				throw new InputFileException(line, "Could not parse integer: %s", line.str);
-			}
-		}
+		rp.write(BinaryAssembler.assemble(lines));
 	}
 
 	public static void assembleAndWrite(String sourceName, int offset, RomPatcher rp, String ... strings)
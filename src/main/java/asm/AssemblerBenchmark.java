@@ -0,0 +1,237 @@
+package asm;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import app.Directories;
+import app.Environment;
+import app.input.IOUtils;
+import app.input.Line;
+import app.input.Token;
+import asm.pseudoinstruction.PseudoInstruction;
+
+/**
+ * Compares the string-based assembler in {@link MIPS} with {@link BinaryAssembler} over every
+ * function in the dumped script sources. Symbolic operands cannot be resolved without an
+ * encoder, so they are replaced with zero before pseudoinstructions are expanded. Functions
+ * which cannot be prepared this way, or which both assemblers reject, are skipped. Outputs are
+ * checked against each other before measuring, and a function rejected by only one of the
+ * assemblers counts as a difference.
+ */
+public class AssemblerBenchmark
+{
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int MEASURED_ROUNDS = 10;
+
+	private static final String[] SCRIPT_EXTENSIONS = { "mscr", "bscr", "wscr", "fscr", "pscr" };
+	private static final Directories[] SCRIPT_DIRECTORIES = {
+			Directories.DUMP_MAP_SRC, Directories.DUMP_BATTLE, Directories.DUMP_WORLD };
+
+	private static final class LoadResult
+	{
+		private final List<List<Line>> functions = new ArrayList<>();
+		private int skipped = 0;
+		private int rejectedByString = 0;
+		private int rejectedByBinary = 0;
+	}
+
+	public static void main(String args[]) throws IOException
+	{
+		Environment.initialize();
+
+		LoadResult loaded = loadFunctions();
+		List<List<Line>> functions = loaded.functions;
+		int skipped = loaded.skipped;
+		int rejected = loaded.rejectedByString + loaded.rejectedByBinary;
+
+		int totalInstructions = 0;
+		int maxSize = 0;
+		for (List<Line> func : functions) {
+			int size = BinaryAssembler.getSize(func);
+			totalInstructions += size / 4;
+			maxSize = Math.max(maxSize, size);
+		}
+
+		System.out.printf("Loaded %d functions (%d instructions), skipped %d%n", functions.size(), totalInstructions, skipped);
+
+		ByteBuffer out = ByteBuffer.allocate(maxSize);
+		int mismatches = 0;
+		for (List<Line> func : functions) {
+			out.clear();
+			BinaryAssembler.assemble(func, out);
+			out.flip();
+			if (!out.equals(assembleStrings(copy(func))))
+				mismatches++;
+		}
+		System.out.printf("Only the string assembler rejects %d functions, only the binary assembler rejects %d%n",
+			loaded.rejectedByString, loaded.rejectedByBinary);
+		System.out.printf("String and binary assemblers differ for %d of %d functions%n",
+			mismatches + rejected, functions.size() + rejected);
+
+		// string assembler modifies its input, so each round needs a fresh copy of the lines
+		long elapsed = 0;
+		long allocated = 0;
+		for (int i = 0; i < WARMUP_ROUNDS + MEASURED_ROUNDS; i++) {
+			List<List<Line>> copies = new ArrayList<>(functions.size());
+			for (List<Line> func : functions)
+				copies.add(copy(func));
+
+			long allocStart = getAllocatedBytes();
+			long t0 = System.nanoTime();
+			for (List<Line> func : copies)
+				assembleStrings(func);
+			long t1 = System.nanoTime();
+
+			if (i >= WARMUP_ROUNDS) {
+				elapsed += t1 - t0;
+				allocated += getAllocatedBytes() - allocStart;
+			}
+		}
+		printResult("String", totalInstructions, elapsed, allocated);
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			for (List<Line> func : functions) {
+				out.clear();
+				BinaryAssembler.assemble(func, out);
+			}
+		}
+
+		long allocStart = getAllocatedBytes();
+		long t0 = System.nanoTime();
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			for (List<Line> func : functions) {
+				out.clear();
+				BinaryAssembler.assemble(func, out);
+			}
+		}
+		long t1 = System.nanoTime();
+		printResult("Binary", totalInstructions, t1 - t0, getAllocatedBytes() - allocStart);
+
+		Environment.exit();
+	}
+
+	/**
+	 * Assembles with {@link MIPS#assemble(List)} and converts the result to binary,
+	 * as callers of the string assembler must.
+	 */
+	private static ByteBuffer assembleStrings(List<Line> lines)
+	{
+		List<Line> assembled = MIPS.assemble(lines);
+		ByteBuffer bb = ByteBuffer.allocate(4 * assembled.size());
+		for (Line line : assembled)
+			bb.putInt((int) Long.parseLong(line.str, 16));
+		bb.flip();
+		return bb;
+	}
+
+	private static List<Line> copy(List<Line> lines)
+	{
+		List<Line> copies = new ArrayList<>(lines.size());
+		for (Line line : lines)
+			copies.add(line.createLine(line.str));
+		return copies;
+	}
+
+	private static LoadResult loadFunctions() throws IOException
+	{
+		LoadResult result = new LoadResult();
+
+		for (Directories dir : SCRIPT_DIRECTORIES) {
+			if (!dir.toFile().exists())
+				continue;
+
+			for (File f : IOUtils.getFilesWithExtension(dir, SCRIPT_EXTENSIONS, true)) {
+				List<Line> body = null;
+				for (Line line : IOUtils.readFormattedInputFile(f, false)) {
+					if (body == null) {
+						if (line.str.startsWith("#new:Function"))
+							body = new ArrayList<>();
+					}
+					else if (line.str.equals("}")) {
+						addFunction(result, body);
+						body = null;
+					}
+					else if (!line.str.equals("{"))
+						body.add(line);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private static void addFunction(LoadResult result, List<Line> body)
+	{
+		List<Line> func = prepareFunction(body);
+		if (func == null) {
+			result.skipped++;
+			return;
+		}
+
+		boolean binaryAccepts = accepts(() -> BinaryAssembler.assemble(func));
+		boolean stringAccepts = accepts(() -> assembleStrings(copy(func)));
+
+		if (binaryAccepts && stringAccepts)
+			result.functions.add(func);
+		else if (binaryAccepts)
+			result.rejectedByString++;
+		else if (stringAccepts)
+			result.rejectedByBinary++;
+		else
+			result.skipped++;
+	}
+
+	private static boolean accepts(Runnable assembler)
+	{
+		try {
+			assembler.run();
+			return true;
+		}
+		catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private static List<Line> prepareFunction(List<Line> body)
+	{
+		try {
+			for (Line line : body)
+				line.tokenize();
+
+			MIPS.removeVarNames(body);
+
+			for (Line line : body) {
+				for (Token t : line.tokens) {
+					char c = t.str.charAt(0);
+					if (c == '$' || c == '~' || c == '*' || t.str.contains(":"))
+						t.str = "0";
+				}
+				line.gather();
+			}
+
+			return PseudoInstruction.removeAll(body);
+		}
+		catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static void printResult(String name, int instructions, long nanos, long allocated)
+	{
+		double seconds = nanos * 1e-9;
+		double count = (double) MEASURED_ROUNDS * instructions;
+		System.out.printf("%-8s %10.0f instructions/s  %8.1f bytes allocated per instruction%n",
+			name, count / seconds, allocated / count);
+	}
+
+	private static long getAllocatedBytes()
+	{
+		// measures allocations on the benchmark thread only
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
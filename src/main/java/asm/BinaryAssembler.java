@@ -0,0 +1,717 @@
+package asm;
+
+import static asm.MIPS.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import app.input.InputFileException;
+import app.input.Line;
+import asm.MIPS.AssemblerException;
+import asm.MIPS.Format;
+import asm.MIPS.Instruction;
+import asm.MIPS.InstructionType;
+
+/**
+ * Assembles MIPS instructions straight to binary. Each line is tokenized once into a
+ * {@link Statement} holding typed operands, and statements are then encoded into the output
+ * buffer without producing or parsing any intermediate hex strings. Mnemonics and register
+ * names are found with perfect hash tables built from {@link Instruction} and the register
+ * name tables in {@link MIPS}, so lookups never allocate.
+ * <p>
+ * Accepts the same syntax as {@link MIPS#assemble(List)}, including local labels for branches.
+ */
+public final class BinaryAssembler
+{
+	private static final int MAX_TOKENS = 8;
+
+	// instruction table values for NOP and B, all others are Instruction ordinals
+	private static final int NOP_INDEX = -2;
+	private static final int BRANCH_INDEX = -3;
+
+	private static final Instruction[] instructions = Instruction.values();
+	private static final NameTable instructionTable;
+	private static final NameTable cpuRegTable;
+	private static final NameTable fpuRegTable;
+	private static final NameTable fpuCondTable;
+	private static final NameTable cop0RegTable;
+	private static final NameTable fpuFormatTable;
+
+	// registers and other named operands are shared, only immediates need to be allocated
+	private static final Operand[] cpuRegs = createOperands(OperandType.CPU_REG, 32);
+	private static final Operand[] fpuRegs = createOperands(OperandType.FPU_REG, 32);
+	private static final Operand[] cop0Regs = createOperands(OperandType.COP0_REG, 32);
+	private static final Operand[] fpuConds = createOperands(OperandType.FPU_COND, 16);
+	private static final Operand[] fpuFormats = createOperands(OperandType.FPU_FORMAT, 32);
+
+	static {
+		String[] insNames = new String[instructions.length + 2];
+		int[] insValues = new int[insNames.length];
+		for (int i = 0; i < instructions.length; i++) {
+			insNames[i] = instructions[i].name;
+			insValues[i] = i;
+		}
+		insNames[instructions.length] = "NOP";
+		insValues[instructions.length] = NOP_INDEX;
+		insNames[instructions.length + 1] = "B";
+		insValues[instructions.length + 1] = BRANCH_INDEX;
+		instructionTable = new NameTable(insNames, insValues);
+
+		String[] cpuNames = Arrays.copyOf(cpuRegNames, cpuRegNames.length + 1);
+		int[] cpuValues = identity(cpuNames.length);
+		cpuNames[cpuRegNames.length] = "FP";
+		cpuValues[cpuRegNames.length] = 30; // same as S8
+		cpuRegTable = new NameTable(cpuNames, cpuValues);
+
+		fpuRegTable = new NameTable(fpuRegNames, identity(fpuRegNames.length));
+		fpuCondTable = new NameTable(fpuCondNames, identity(fpuCondNames.length));
+		fpuFormatTable = new NameTable(
+			new String[] { "S", "D", "W", "L" },
+			new int[] { FMT_S, FMT_D, FMT_W, FMT_L });
+
+		List<String> cop0Names = new ArrayList<>();
+		List<Integer> cop0Values = new ArrayList<>();
+		for (int i = 0; i < cop0RegNames.length; i++) {
+			if (cop0RegNames[i] != null) {
+				cop0Names.add(cop0RegNames[i]);
+				cop0Values.add(i);
+			}
+		}
+		cop0RegTable = new NameTable(cop0Names.toArray(new String[cop0Names.size()]),
+			cop0Values.stream().mapToInt(Integer::intValue).toArray());
+	}
+
+	private static int[] identity(int n)
+	{
+		int[] values = new int[n];
+		for (int i = 0; i < n; i++)
+			values[i] = i;
+		return values;
+	}
+
+	private static Operand[] createOperands(OperandType type, int n)
+	{
+		Operand[] operands = new Operand[n];
+		for (int i = 0; i < n; i++)
+			operands[i] = new Operand(type, i, null);
+		return operands;
+	}
+
+	private BinaryAssembler()
+	{}
+
+	private static enum OperandType
+	{
+		CPU_REG, FPU_REG, COP0_REG, FPU_COND, FPU_FORMAT,
+		IMMEDIATE, // parsed as with DataUtils.parseIntString
+		JUMP_TARGET, // absolute address with optional [offset]
+		BRANCH_TARGET // immediate byte offset or local label
+	}
+
+	private static final class Operand
+	{
+		private final OperandType type;
+		private final int value;
+		private final String label;
+
+		private Operand(OperandType type, int value, String label)
+		{
+			this.type = type;
+			this.value = value;
+			this.label = label;
+		}
+	}
+
+	/**
+	 * A single tokenized instruction. Operands are stored in the order they appear in the
+	 * source, which is also the order expected by the instruction {@link Format}.
+	 */
+	private static final class Statement
+	{
+		private final Line line;
+		private final Instruction ins; // null for NOP
+		private final Operand[] operands;
+
+		private Statement(Line line, Instruction ins, Operand[] operands)
+		{
+			this.line = line;
+			this.ins = ins;
+			this.operands = operands;
+		}
+	}
+
+	/**
+	 * Returns the number of bytes the assembled lines will occupy.
+	 */
+	public static int getSize(List<Line> lines)
+	{
+		int size = 0;
+		for (Line line : lines) {
+			if (!isLabel(line.str))
+				size += 4;
+		}
+		return size;
+	}
+
+	/**
+	 * Assembles a list of lines into a new buffer, which is returned ready for reading.
+	 */
+	public static ByteBuffer assemble(List<Line> lines) throws AssemblerException
+	{
+		ByteBuffer bb = ByteBuffer.allocate(getSize(lines));
+		assemble(lines, bb);
+		bb.flip();
+		return bb;
+	}
+
+	/**
+	 * Assembles a list of lines, writing each instruction to the buffer at its current position.
+	 * @return number of bytes written
+	 */
+	public static int assemble(List<Line> lines, ByteBuffer out) throws AssemblerException
+	{
+		List<Statement> statements = new ArrayList<>(lines.size());
+		HashMap<String, Integer> labelMap = null;
+
+		int[] spans = new int[2 * MAX_TOKENS];
+		int currentOffset = 0;
+
+		for (Line line : lines) {
+			String s = line.str;
+			if (s.indexOf('$') >= 0)
+				s = s.replace("$", "");
+
+			int count = tokenize(line, s, spans);
+
+			if (count > 0 && s.charAt(spans[0]) == '.') {
+				String label = s.substring(spans[0], spans[1]).toUpperCase();
+				if (labelMap == null)
+					labelMap = new HashMap<>();
+				if (labelMap.containsKey(label))
+					throw new InputFileException(line, "Duplicate label: %s%nLabels within a function must be unique!", label);
+				labelMap.put(label, currentOffset);
+				continue;
+			}
+
+			statements.add(parse(line, s, spans, count));
+			currentOffset += 4;
+		}
+
+		int start = out.position();
+		currentOffset = 0;
+
+		for (Statement stmt : statements) {
+			out.putInt(encode(stmt, labelMap, currentOffset));
+			currentOffset += 4;
+		}
+
+		return out.position() - start;
+	}
+
+	private static boolean isLabel(String s)
+	{
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (!isSeparator(c))
+				return c == '.';
+		}
+		return false;
+	}
+
+	private static boolean isSeparator(char c)
+	{
+		switch (c) {
+			case ' ':
+			case '\t':
+			case ',':
+			case '(':
+			case ')':
+			case '\r':
+			case '\n':
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Splits a line into tokens, storing the start and end of each token in spans.
+	 * @return number of tokens found
+	 */
+	private static int tokenize(Line line, String s, int[] spans)
+	{
+		int count = 0;
+		int len = s.length();
+		int pos = 0;
+
+		while (pos < len) {
+			if (isSeparator(s.charAt(pos))) {
+				pos++;
+				continue;
+			}
+
+			int start = pos;
+			while (pos < len && !isSeparator(s.charAt(pos)))
+				pos++;
+
+			if (count == MAX_TOKENS)
+				throw new AssemblerException(line, "Too many operands for instruction: %n%s", line.trimmedInput());
+
+			spans[2 * count] = start;
+			spans[2 * count + 1] = pos;
+			count++;
+		}
+
+		return count;
+	}
+
+	private static Statement parse(Line line, String s, int[] spans, int count)
+	{
+		if (count == 0)
+			throw new AssemblerException(line, "Missing instruction: %n%s", line.trimmedInput());
+
+		int mnemonicStart = spans[0];
+		int mnemonicEnd = spans[1];
+
+		// operand tokens, some of which may come from the instruction suffix
+		int[] argSpans = new int[2 * MAX_TOKENS];
+		int argc = 0;
+
+		int nameEnd = mnemonicEnd;
+		if (mnemonicEnd - mnemonicStart > 2 && s.regionMatches(true, mnemonicStart, "C.", 0, 2)) {
+			// C.cond.fmt -- condition and format are both operands
+			nameEnd = mnemonicStart + 2;
+			int pos = nameEnd;
+			while (pos <= mnemonicEnd) {
+				int next = s.indexOf('.', pos);
+				if (next < 0 || next > mnemonicEnd)
+					next = mnemonicEnd;
+				if (next > pos) {
+					if (argc == MAX_TOKENS)
+						throw new AssemblerException(line, "Too many operands for instruction: %n%s", line.trimmedInput());
+					argSpans[2 * argc] = pos;
+					argSpans[2 * argc + 1] = next;
+					argc++;
+				}
+				pos = next + 1;
+			}
+		}
+		else {
+			int lastDot = s.lastIndexOf('.', mnemonicEnd - 1);
+			if (lastDot > mnemonicStart) {
+				// ADD.S, CVT.S.W, etc -- the format is the first operand
+				nameEnd = lastDot + 1;
+				if (nameEnd < mnemonicEnd) {
+					argSpans[0] = nameEnd;
+					argSpans[1] = mnemonicEnd;
+					argc++;
+				}
+			}
+		}
+
+		for (int i = 1; i < count; i++) {
+			if (argc == MAX_TOKENS)
+				throw new AssemblerException(line, "Too many operands for instruction: %n%s", line.trimmedInput());
+			argSpans[2 * argc] = spans[2 * i];
+			argSpans[2 * argc + 1] = spans[2 * i + 1];
+			argc++;
+		}
+
+		int index = instructionTable.get(s, mnemonicStart, nameEnd);
+		if (index == -1)
+			throw new AssemblerException(line, "Unrecognized instruction:%n\"%s\" from line \"%s\"",
+				s.substring(mnemonicStart, nameEnd), line.trimmedInput());
+
+		if (index == NOP_INDEX) {
+			if (argc != 0)
+				throw new AssemblerException(line, "Incorrect format for instruction: \"NOP\" from line \"%s\"", line.trimmedInput());
+			return new Statement(line, null, null);
+		}
+
+		Instruction ins;
+		Operand[] operands;
+		int first = 0;
+
+		if (index == BRANCH_INDEX) {
+			// B offset --> BEQ R0, R0, offset
+			ins = Instruction.BEQ;
+			operands = new Operand[ins.format.argc];
+			operands[0] = cpuRegs[0];
+			operands[1] = cpuRegs[0];
+			first = 2;
+		}
+		else {
+			ins = instructions[index];
+			operands = new Operand[argc];
+		}
+
+		OperandType[] types = getOperandTypes(ins);
+		if (first + argc != types.length)
+			throw new AssemblerException(line, "Incorrect format for instruction: \"%s\" from line \"%s\"",
+				s.substring(mnemonicStart, nameEnd), line.trimmedInput());
+
+		for (int i = 0; i < argc; i++)
+			operands[first + i] = parseOperand(line, ins, types[first + i], s, argSpans[2 * i], argSpans[2 * i + 1]);
+
+		return new Statement(line, ins, operands);
+	}
+
+	private static final OperandType[] NO_OPERANDS = {};
+	private static final OperandType[] CPU = { OperandType.CPU_REG };
+	private static final OperandType[] CPU_CPU = { OperandType.CPU_REG, OperandType.CPU_REG };
+	private static final OperandType[] CPU_CPU_CPU = { OperandType.CPU_REG, OperandType.CPU_REG, OperandType.CPU_REG };
+	private static final OperandType[] CPU_CPU_IMM = { OperandType.CPU_REG, OperandType.CPU_REG, OperandType.IMMEDIATE };
+	private static final OperandType[] CPU_IMM = { OperandType.CPU_REG, OperandType.IMMEDIATE };
+	private static final OperandType[] CPU_IMM_CPU = { OperandType.CPU_REG, OperandType.IMMEDIATE, OperandType.CPU_REG };
+	private static final OperandType[] FPU_IMM_CPU = { OperandType.FPU_REG, OperandType.IMMEDIATE, OperandType.CPU_REG };
+	private static final OperandType[] IMM_IMM_CPU = { OperandType.IMMEDIATE, OperandType.IMMEDIATE, OperandType.CPU_REG };
+	private static final OperandType[] IMM = { OperandType.IMMEDIATE };
+	private static final OperandType[] JUMP = { OperandType.JUMP_TARGET };
+	private static final OperandType[] BRANCH = { OperandType.BRANCH_TARGET };
+	private static final OperandType[] CPU_BRANCH = { OperandType.CPU_REG, OperandType.BRANCH_TARGET };
+	private static final OperandType[] CPU_CPU_BRANCH = { OperandType.CPU_REG, OperandType.CPU_REG, OperandType.BRANCH_TARGET };
+	private static final OperandType[] CPU_FPU = { OperandType.CPU_REG, OperandType.FPU_REG };
+	private static final OperandType[] CPU_COP0 = { OperandType.CPU_REG, OperandType.COP0_REG };
+	private static final OperandType[] FMT_FPU_FPU = { OperandType.FPU_FORMAT, OperandType.FPU_REG, OperandType.FPU_REG };
+	private static final OperandType[] FMT_FPU_FPU_FPU = { OperandType.FPU_FORMAT, OperandType.FPU_REG, OperandType.FPU_REG, OperandType.FPU_REG };
+	private static final OperandType[] COND_FMT_FPU_FPU = { OperandType.FPU_COND, OperandType.FPU_FORMAT, OperandType.FPU_REG, OperandType.FPU_REG };
+
+	private static OperandType[] getOperandTypes(Instruction ins)
+	{
+		switch (ins.format) {
+			// @formatter:off
+			case RS_OFFSET:				return CPU_BRANCH;
+			case RS_RT_OFFSET:			return CPU_CPU_BRANCH;
+			case RT_OFFSET_BASE:		return CPU_IMM_CPU;
+			case FPU_RT_OFFSET_BASE:	return FPU_IMM_CPU;
+			case LUI_FMT:				return CPU_IMM;
+			case RT_RS_IMMEDIATE:		return CPU_CPU_IMM;
+			case J_TARGET:				return JUMP;
+			case CACHE_FMT:				return IMM_IMM_CPU;
+			case RD_RS_RT:				return CPU_CPU_CPU;
+			case RS_RT:					return CPU_CPU;
+			case RD:					return CPU;
+			case RS:					return CPU;
+			case RD_RT_SA:				return CPU_CPU_IMM;
+			case RD_RT_RS:				return CPU_CPU_CPU;
+			case JALR_FMT:				return CPU_CPU;
+			case JR_FMT:				return CPU;
+			case SYSCALL_FMT:			return IMM;
+			case FPU_OFFSET:			return BRANCH;
+			case FD_FS:					return FMT_FPU_FPU;
+			case FD_FS_FT:				return FMT_FPU_FPU_FPU;
+			case COND_FMT:				return COND_FMT_FPU_FPU;
+			case RT_FS:					return (ins.type == InstructionType.COP0) ? CPU_COP0 : CPU_FPU;
+			case COP0_FMT:				return NO_OPERANDS;
+			// @formatter:on
+		}
+		throw new IllegalStateException("No operands defined for format " + ins.format);
+	}
+
+	private static Operand parseOperand(Line line, Instruction ins, OperandType type, String s, int start, int end)
+	{
+		int id;
+		switch (type) {
+			case CPU_REG:
+				if ((id = cpuRegTable.get(s, start, end)) >= 0)
+					return cpuRegs[id];
+				throw operandError(line, ins, "No such CPU register: " + s.substring(start, end));
+			case FPU_REG:
+				if ((id = fpuRegTable.get(s, start, end)) >= 0)
+					return fpuRegs[id];
+				throw operandError(line, ins, "No such COP1 register: " + s.substring(start, end));
+			case COP0_REG:
+				if ((id = cop0RegTable.get(s, start, end)) >= 0)
+					return cop0Regs[id];
+				throw operandError(line, ins, "No such COP0 register: " + s.substring(start, end));
+			case FPU_COND:
+				if ((id = fpuCondTable.get(s, start, end)) >= 0)
+					return fpuConds[id];
+				throw operandError(line, ins, "No such FPU comparison: " + s.substring(start, end));
+			case FPU_FORMAT:
+				if ((id = fpuFormatTable.get(s, start, end)) >= 0)
+					return fpuFormats[id];
+				throw operandError(line, ins, "Invalid FPU format " + s.substring(start, end));
+			case BRANCH_TARGET:
+				if (s.charAt(start) == '.')
+					return new Operand(type, 0, s.substring(start, end).toUpperCase());
+				// fall through
+			case IMMEDIATE:
+				return new Operand(type, parseInt(line, ins, s, start, end), null);
+			case JUMP_TARGET:
+				return new Operand(type, parseIntWithOffset(line, ins, s, start, end), null);
+		}
+		throw new IllegalStateException("Unknown operand type " + type);
+	}
+
+	/**
+	 * Same rules as {@link game.shared.DataUtils#parseIntString(String)}: hexadecimal
+	 * unless suffixed with ` or ' for decimal.
+	 */
+	private static int parseInt(Line line, Instruction ins, String s, int start, int end)
+	{
+		long v = parseLong(s, start, end);
+		if (v == Long.MIN_VALUE)
+			throw operandError(line, ins, "Could not parse " + s.substring(start, end) + " as an integer.");
+		return (int) v;
+	}
+
+	private static int parseIntWithOffset(Line line, Instruction ins, String s, int start, int end)
+	{
+		int open = s.indexOf('[', start);
+		if (open < 0 || open >= end)
+			return parseUnsigned(line, ins, s, start, end);
+
+		if (s.charAt(end - 1) != ']')
+			throw operandError(line, ins, "Could not parse " + s.substring(start, end) + " as an integer.");
+
+		return parseUnsigned(line, ins, s, start, open) + parseUnsigned(line, ins, s, open + 1, end - 1);
+	}
+
+	private static int parseUnsigned(Line line, Instruction ins, String s, int start, int end)
+	{
+		char c = (start < end) ? s.charAt(start) : 0;
+		if (c == '-' || c == '+')
+			throw operandError(line, ins, "Could not parse " + s.substring(start, end) + " as an integer.");
+		return parseInt(line, ins, s, start, end);
+	}
+
+	/**
+	 * @return the parsed value, or {@link Long#MIN_VALUE} if the text is not a valid integer
+	 */
+	private static long parseLong(String s, int start, int end)
+	{
+		int radix = 16;
+		char last = (end > start) ? s.charAt(end - 1) : 0;
+		if (last == '`' || last == '\'') {
+			radix = 10;
+			end--;
+		}
+
+		boolean negative = false;
+		if (start < end && (s.charAt(start) == '-' || s.charAt(start) == '+')) {
+			negative = s.charAt(start) == '-';
+			start++;
+		}
+
+		if (start == end)
+			return Long.MIN_VALUE;
+
+		long limit = Long.MAX_VALUE / radix;
+		long v = 0;
+		for (int i = start; i < end; i++) {
+			int digit = Character.digit(s.charAt(i), radix);
+			if (digit < 0 || v > limit)
+				return Long.MIN_VALUE;
+			v = v * radix + digit;
+			if (v < 0)
+				return Long.MIN_VALUE;
+		}
+
+		return negative ? -v : v;
+	}
+
+	private static AssemblerException operandError(Line line, Instruction ins, String msg)
+	{
+		return new AssemblerException(line, "%s%n\"%s\" from line \"%s\"", msg, ins.name, line.trimmedInput());
+	}
+
+	private static int encode(Statement stmt, HashMap<String, Integer> labelMap, int currentOffset)
+	{
+		Instruction ins = stmt.ins;
+		if (ins == null)
+			return 0; // NOP
+
+		Operand[] args = stmt.operands;
+
+		switch (ins.format) {
+			// normal formats
+			case RS_RT_OFFSET:
+				return ins.id << 26 | args[0].value << 21 | args[1].value << 16
+					| getBranchOffset(stmt, args[2], labelMap, currentOffset);
+			case RS_OFFSET:
+				if (ins.type == InstructionType.REGIMM)
+					return REGIMM_OPCODE << 26 | args[0].value << 21 | ins.id << 16
+						| getBranchOffset(stmt, args[1], labelMap, currentOffset);
+				else
+					return ins.id << 26 | args[0].value << 21
+						| getBranchOffset(stmt, args[1], labelMap, currentOffset);
+			case J_TARGET:
+				return ins.id << 26 | ((args[0].value - getSegment()) >> 2);
+			case RT_RS_IMMEDIATE:
+				return ins.id << 26 | args[1].value << 21 | args[0].value << 16 | (args[2].value & 0xFFFF);
+			case LUI_FMT:
+				return ins.id << 26 | args[0].value << 16 | (args[1].value & 0xFFFF);
+			case RT_OFFSET_BASE:
+			case FPU_RT_OFFSET_BASE:
+				return ins.id << 26 | args[2].value << 21 | args[0].value << 16 | (args[1].value & 0xFFFF);
+			case CACHE_FMT:
+				return ins.id << 26 | args[2].value << 21 | (args[0].value & 0x1F) << 16 | (args[1].value & 0xFFFF);
+
+			// special formats
+			case RD_RT_SA:
+				return SPECIAL_OPCODE << 26 | args[1].value << 16 | args[0].value << 11 | args[2].value << 6 | ins.id;
+			case RD_RT_RS:
+				return SPECIAL_OPCODE << 26 | args[2].value << 21 | args[1].value << 16 | args[0].value << 11 | ins.id;
+			case JR_FMT:
+				return args[0].value << 21 | ins.id;
+			case JALR_FMT:
+				return args[0].value << 21 | args[1].value << 11 | ins.id;
+			case SYSCALL_FMT:
+				return (args[0].value & 0x000FFFFF) << 6 | ins.id;
+			case RS_RT:
+				return SPECIAL_OPCODE << 26 | args[0].value << 21 | args[1].value << 16 | ins.id;
+			case RD:
+				return SPECIAL_OPCODE << 26 | args[0].value << 11 | ins.id;
+			case RS:
+				return SPECIAL_OPCODE << 26 | args[0].value << 21 | ins.id;
+			case RD_RS_RT:
+				return SPECIAL_OPCODE << 26 | args[1].value << 21 | args[2].value << 16 | args[0].value << 11 | ins.id;
+
+			// COP1 formats
+			case FD_FS_FT:
+				return COP1_OPCODE << 26 | args[0].value << 21 | args[3].value << 16 | args[2].value << 11 | args[1].value << 6 | ins.id;
+			case FD_FS:
+				return COP1_OPCODE << 26 | args[0].value << 21 | args[2].value << 11 | args[1].value << 6 | ins.id;
+			case RT_FS:
+				int opcode = (ins.type == InstructionType.COP0) ? COP0_OPCODE : COP1_OPCODE;
+				return opcode << 26 | ins.id << 21 | args[0].value << 16 | args[1].value << 11;
+			case FPU_OFFSET:
+				return COP1_OPCODE << 26 | 8 << 21 | ins.id << 16 | getBranchOffset(stmt, args[0], labelMap, currentOffset);
+			case COND_FMT:
+				return COP1_OPCODE << 26 | args[1].value << 21 | args[3].value << 16 | args[2].value << 11 | 3 << 4 | args[0].value;
+
+			// COP0 formats
+			case COP0_FMT:
+				return COP0_OPCODE << 26 | 1 << 25 | ins.id;
+		}
+
+		throw new AssemblerException(stmt.line, "Assembler error on instruction type: " + ins.name);
+	}
+
+	private static int getBranchOffset(Statement stmt, Operand target, HashMap<String, Integer> labelMap, int currentOffset)
+	{
+		int offset = target.value;
+		if (target.label != null) {
+			Integer labelOffset = (labelMap == null) ? null : labelMap.get(target.label);
+			if (labelOffset == null)
+				throw new AssemblerException(stmt.line, "Unknown label: %s %n%s", target.label, stmt.line.trimmedInput());
+			offset = labelOffset - currentOffset - 4;
+		}
+
+		if (Math.abs(offset) >= 0x40000)
+			throw new AssemblerException(stmt.line, "Branch target meets or exceeds maxmimum range (0x40000): %X%n%s",
+				offset, stmt.line.trimmedInput());
+
+		return (offset / 4) & 0xFFFF;
+	}
+
+	/**
+	 * Perfect hash table for a fixed set of case-insensitive names, built with the hash and
+	 * displace method: names are grouped into buckets by a first hash, and each bucket is
+	 * assigned a seed for a second hash which places all of its names in empty slots.
+	 * Lookups take two hashes and a single comparison.
+	 */
+	private static final class NameTable
+	{
+		private final String[] keys;
+		private final int[] values;
+		private final int[] seeds;
+		private final int mask;
+		private final int bucketMask;
+
+		private NameTable(String[] names, int[] ids)
+		{
+			int size = Integer.highestOneBit(Math.max(2 * names.length - 1, 1)) << 1;
+			int numBuckets = Math.max(size / 4, 1);
+
+			keys = new String[size];
+			values = new int[size];
+			seeds = new int[numBuckets];
+			mask = size - 1;
+			bucketMask = numBuckets - 1;
+
+			List<List<Integer>> buckets = new ArrayList<>(numBuckets);
+			for (int i = 0; i < numBuckets; i++)
+				buckets.add(new ArrayList<>());
+			for (int i = 0; i < names.length; i++)
+				buckets.get(hash(names[i], 0, names[i].length(), 0) & bucketMask).add(i);
+
+			Integer[] order = new Integer[numBuckets];
+			for (int i = 0; i < numBuckets; i++)
+				order[i] = i;
+			Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+			int[] slots = new int[names.length];
+			for (int b : order) {
+				List<Integer> bucket = buckets.get(b);
+				if (bucket.isEmpty())
+					break;
+
+				for (int seed = 1;; seed++) {
+					if (seed == Integer.MAX_VALUE)
+						throw new IllegalStateException("Could not build perfect hash table for " + names[bucket.get(0)]);
+
+					if (tryPlace(names, bucket, seed, slots)) {
+						seeds[b] = seed;
+						for (int i = 0; i < bucket.size(); i++) {
+							int k = bucket.get(i);
+							keys[slots[i]] = names[k];
+							values[slots[i]] = ids[k];
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		private boolean tryPlace(String[] names, List<Integer> bucket, int seed, int[] slots)
+		{
+			for (int i = 0; i < bucket.size(); i++) {
+				String name = names[bucket.get(i)];
+				int slot = hash(name, 0, name.length(), seed) & mask;
+				if (keys[slot] != null)
+					return false;
+				for (int j = 0; j < i; j++) {
+					if (slots[j] == slot)
+						return false;
+				}
+				slots[i] = slot;
+			}
+			return true;
+		}
+
+		/**
+		 * @return the value for the name spanning [start,end) in s, or -1 if there is none
+		 */
+		private int get(String s, int start, int end)
+		{
+			int seed = seeds[hash(s, start, end, 0) & bucketMask];
+			int slot = hash(s, start, end, seed) & mask;
+
+			String key = keys[slot];
+			int len = end - start;
+			if (key != null && key.length() == len && s.regionMatches(true, start, key, 0, len))
+				return values[slot];
+			return -1;
+		}
+
+		private static int hash(String s, int start, int end, int seed)
+		{
+			int h = seed * 0x9E3779B9 + 0x811C9DC5;
+			for (int i = start; i < end; i++) {
+				char c = s.charAt(i);
+				if (c >= 'a' && c <= 'z')
+					c -= 32;
+				h = (h ^ c) * 0x01000193;
+			}
+			h ^= h >>> 16;
+			h *= 0x85EBCA6B;
+			h ^= h >>> 13;
+			return h;
+		}
+	}
+}
@@ -7,7 +7,6 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.StarRodException;
@@ -17,13 +16,14 @@ import app.input.Line;
 import game.shared.DataUtils;
 import util.CaseInsensitiveMap;
 import util.DualHashMap;
+import util.ThreadLocalMatcher;
 
 public class MIPS
 {
 	private static final String NOP = "NOP";
 	private static final String BRANCH = "B";
 
-	private static final String[] cpuRegNames = {
+	static final String[] cpuRegNames = {
 			"R0", "AT", "V0", "V1", "A0", "A1", "A2", "A3",
 			"T0", "T1", "T2", "T3", "T4", "T5", "T6", "T7",
 			"S0", "S1", "S2", "S3", "S4", "S5", "S6", "S7",
@@ -31,7 +31,7 @@ public class MIPS
 	};
 	private static final CaseInsensitiveMap<Integer> cpuRegMap;
 
-	private static final String[] fpuRegNames = {
+	static final String[] fpuRegNames = {
 			"F0", "F1", "F2", "F3", "F4", "F5", "F6", "F7",
 			"F8", "F9", "F10", "F11", "F12", "F13", "F14", "F15",
 			"F16", "F17", "F18", "F19", "F20", "F21", "F22", "F23",
@@ -39,13 +39,13 @@ public class MIPS
 	};
 	private static final CaseInsensitiveMap<Integer> fpuRegMap;
 
-	private static final String[] fpuCondNames = {
+	static final String[] fpuCondNames = {
 			"F", "UN", "EQ", "UEQ", "OLT", "ULT", "OLE", "ULE",
 			"SF", "NGLE", "SEQ", "NGL", "LT", "NGE", "LE", "NGT"
 	};
 	private static final CaseInsensitiveMap<Integer> fpuCondMap;
 
-	private static final String[] cop0RegNames = {
+	static final String[] cop0RegNames = {
 			"Index", "Random", "EntryLo0", "EntryLo1", "Context", "PageMask", "Wired", null,
 			"BadVAddr", "Count", "EntryHi", "Compare", "Status", "Cause", "EPC", "PRevID",
 			"Config", "LLAddr", "WatchLo", "WatchHi", "XContext", null, null, null,
@@ -114,11 +114,11 @@ public class MIPS
 		}
 	}
 
-	private static final int SPECIAL_OPCODE = 0;
-	private static final int REGIMM_OPCODE = 1;
-	private static final int COP0_OPCODE = 16; // MMU
-	private static final int COP1_OPCODE = 17; // FPU
-	private static final int COP2_OPCODE = 18; // RCP
+	static final int SPECIAL_OPCODE = 0;
+	static final int REGIMM_OPCODE = 1;
+	static final int COP0_OPCODE = 16; // MMU
+	static final int COP1_OPCODE = 17; // FPU
+	static final int COP2_OPCODE = 18; // RCP
 
 	protected static enum InstructionType
 	{
@@ -171,7 +171,7 @@ public class MIPS
 		// COP0 (MMU) format
 		COP0_FMT (1);
 
-		private final int argc;
+		final int argc;
 
 		private Format(int argc)
 		{
@@ -348,10 +348,10 @@ public class MIPS
 		TLBWR	("TLBWR", COP0_C0, COP0_FMT, 6);
 		// @formatter:on
 
-		private final String name;
-		private final int id;
-		private final InstructionType type;
-		private final Format format;
+		final String name;
+		final int id;
+		final InstructionType type;
+		final Format format;
 
 		private Instruction(String name, Format fmt, int id)
 		{
@@ -372,7 +372,8 @@ public class MIPS
 		}
 	}
 
-	private static int SEGMENT = 0x80000000;
+	// each thread may assemble code for a different segment
+	private static final ThreadLocal<Integer> SEGMENT = ThreadLocal.withInitial(() -> 0x80000000);
 
 	public static void useSegmentOfPointer(int addr)
 	{
@@ -382,16 +383,21 @@ public class MIPS
 	public static void setSegment(int value)
 	{
 		if ((value & 0xF) == value)
-			SEGMENT = value << 28;
+			SEGMENT.set(value << 28);
 		else if ((value & 0x80000000) == value)
-			SEGMENT = value;
+			SEGMENT.set(value);
 		else
 			throw new IllegalArgumentException("Invalid segment provided: " + value);
 	}
 
+	static int getSegment()
+	{
+		return SEGMENT.get();
+	}
+
 	public static void resetSegment()
 	{
-		SEGMENT = 0x80000000;
+		SEGMENT.set(0x80000000);
 	}
 
 	public static class AssemblerException extends InputFileException
@@ -506,7 +512,7 @@ public class MIPS
 				line = AsmUtils.getFormattedLine(ins.name, "%s, %X", cpuRegNames[rs], 4 * immediate);
 				break;
 			case J_TARGET:
-				jmpoffset = (jmpoffset << 2) + SEGMENT;
+				jmpoffset = (jmpoffset << 2) + SEGMENT.get();
 				line = AsmUtils.getFormattedLine(ins.name, "%X", jmpoffset);
 				break;
 			case RT_RS_IMMEDIATE:
@@ -633,10 +639,10 @@ public class MIPS
 		return line;
 	}
 
-	private static final int FMT_S = 16;
-	private static final int FMT_D = 17;
-	private static final int FMT_W = 20;
-	private static final int FMT_L = 21;
+	static final int FMT_S = 16;
+	static final int FMT_D = 17;
+	static final int FMT_W = 20;
+	static final int FMT_L = 21;
 	private static final int FMT_BC1 = 8;
 
 	private static String disassembleCop1(int v)
@@ -963,7 +969,7 @@ public class MIPS
 
 	private static final Pattern IntWithOffsetPattern = Pattern.compile(
 		"((?:[0-9]+[`'])|(?:[0-9A-F]+))(?:\\[((?:[0-9]+[`'])|(?:[0-9A-F]+))\\])?");
-	private static final Matcher IntWithOffsetMatcher = IntWithOffsetPattern.matcher("");
+	private static final ThreadLocalMatcher IntWithOffsetMatcher = new ThreadLocalMatcher(IntWithOffsetPattern);
 
 	private static int parseIntWithOffset(String s) throws InvalidInputException
 	{
@@ -1098,7 +1104,7 @@ public class MIPS
 				break;
 			case J_TARGET:
 				jmpoffset = parseIntWithOffset(args[0]);
-				jmpoffset = (jmpoffset - SEGMENT) >> 2;
+				jmpoffset = (jmpoffset - SEGMENT.get()) >> 2;
 				v = ins.id << 26 | jmpoffset;
 				break;
 			case RT_RS_IMMEDIATE:
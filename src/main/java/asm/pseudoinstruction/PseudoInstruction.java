@@ -15,7 +15,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Stack;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
@@ -32,6 +31,7 @@ import asm.MIPS.Instruction;
 import asm.pseudoinstruction.PatternMatch.PIPattern;
 import game.shared.DataUtils;
 import game.shared.decoder.BaseDataDecoder;
+import util.ThreadLocalMatcher;
 
 public class PseudoInstruction
 {
@@ -1067,10 +1067,10 @@ public class PseudoInstruction
 	}
 
 	private static final Pattern PushPopOpcodePattern = Pattern.compile("(?i)(PUSH|POP|JPOP)(?:\\[([0-9A-F]+`?)\\])?");
-	private static final Matcher PushPopOpcodeMatcher = PushPopOpcodePattern.matcher("");
+	private static final ThreadLocalMatcher PushPopOpcodeMatcher = new ThreadLocalMatcher(PushPopOpcodePattern);
 
 	private static final Pattern PushPopLinePattern = Pattern.compile("(?i)(PUSH|POP|JPOP)(?:\\[([0-9A-F]+`?)\\])?\\s+(.+)");
-	private static final Matcher PushPopLineMatcher = PushPopLinePattern.matcher("");
+	private static final ThreadLocalMatcher PushPopLineMatcher = new ThreadLocalMatcher(PushPopLinePattern);
 
 	/**
 	 * Removes all pseudoinstrucions from a list of lines, replacing them with ordinary ASM.
@@ -12,12 +12,13 @@ import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 
+import app.StarRodException;
 import app.input.IOUtils;
 import app.input.InputFileException;
 import asm.AsmUtils;
 import game.battle.formations.BattleSectionEncoder;
 import game.shared.struct.Struct;
-import game.yay0.Yay0Helper;
+import patcher.BuildCache;
 import patcher.Patcher;
 import patcher.RomPatcher;
 import util.Logger;
@@ -206,9 +207,16 @@ public final class BattlePatcher
 
 		if (compressBattleData) {
 			Logger.log("Compressing formation data...", Priority.MILESTONE);
+			BuildCache cache = patcher.getBuildCache();
 			configs.parallelStream().forEach((cfg) -> {
-				if (!cfg.empty)
-					cfg.data = Yay0Helper.encode(cfg.data);
+				if (!cfg.empty) {
+					try {
+						cfg.data = cache.compress(cfg.data);
+					}
+					catch (IOException e) {
+						throw new StarRodException("Could not compress %s: %s", cfg.name, e.getMessage());
+					}
+				}
 			});
 		}
 
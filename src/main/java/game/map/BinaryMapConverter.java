@@ -0,0 +1,50 @@
+package game.map;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import app.Environment;
+import util.xml.XmlWrapper.XmlWriter;
+
+/**
+ * Converts a map between XML and the {@link BinaryMapFormat}. The direction is chosen by the
+ * extension of the input file. XML is converted without loading it as a {@link Map}.
+ */
+public class BinaryMapConverter
+{
+	public static void main(String args[]) throws IOException
+	{
+		if (args.length != 2) {
+			System.out.println("Usage: BinaryMapConverter <input> <output>");
+			System.out.println("Converts .xml maps to " + BinaryMapFormat.EXTENSION + " and back.");
+			return;
+		}
+
+		Environment.initialize();
+
+		File in = new File(args[0]);
+		File out = new File(args[1]);
+
+		if (BinaryMapFormat.isBinary(in))
+			toXML(in, out);
+		else
+			BinaryMapFormat.convert(in, out);
+
+		System.out.printf("Converted %s (%d bytes) to %s (%d bytes)%n", in.getName(), in.length(), out.getName(), out.length());
+
+		Environment.exit();
+	}
+
+	public static void toXML(File binaryFile, File xmlFile) throws IOException
+	{
+		Map map = Map.readBinary(binaryFile);
+		try (Writer w = Files.newBufferedWriter(xmlFile.toPath(), StandardCharsets.UTF_8);
+			XmlWriter xmw = new XmlWriter(w)) {
+			map.toXML(xmw);
+			xmw.save();
+		}
+	}
+}
@@ -0,0 +1,574 @@
+package game.map;
+
+import static game.map.MapKey.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+
+import app.Directories;
+import app.input.InputFileException;
+import game.map.mesh.PackedGeometry;
+import util.Logger;
+
+/**
+ * Binary encoding of map files. The element structure of the XML is kept as a tree of indices
+ * into a string table, while the contents of every TriangleBatch are moved into flat arrays of
+ * vertex positions, UVs, colors, and triangle indices. Loading these arrays needs no text parsing,
+ * and everything outside of triangle batches is small enough that rebuilding its elements is cheap.
+ * Files are read through a memory mapping by {@link BinaryMapReader} and written by
+ * {@link BinaryMapWriter}, or converted directly from XML with {@link #convert(File, File)}.
+ * <p>
+ * Layout, all values big-endian and every section aligned to four bytes:
+ * <pre>
+ * header     magic, version, source length, source timestamp, section count, (offset, size) per section
+ * STRINGS    count, then (UTF-8 length, bytes) per string
+ * ELEMENTS   pre-order tree of elements: name, attribute count, (key, value) per attribute,
+ *            batch index, children, then END. Text content is stored as TEXT followed by its string.
+ * BATCHES    (first vertex, vertex count, first triangle, triangle count) per batch
+ * POSITIONS  (x, y, z) per vertex
+ * UVS        (u, v) per vertex
+ * COLORS     (r, g, b, a) bytes per vertex
+ * TRIANGLES  (i, j, k) per triangle, relative to the first vertex of its batch
+ * FLAGS      one byte per triangle
+ * </pre>
+ * Source length and timestamp are only set for copies cached from an XML source, see {@link #getCachedCopy(File)}.
+ */
+public final class BinaryMapFormat
+{
+	public static final String EXTENSION = ".bmap";
+
+	static final int MAGIC = 0x53524D42; // SRMB
+	static final int VERSION = 1;
+
+	static final int STRINGS = 0;
+	static final int ELEMENTS = 1;
+	static final int BATCHES = 2;
+	static final int POSITIONS = 3;
+	static final int UVS = 4;
+	static final int COLORS = 5;
+	static final int TRIANGLES = 6;
+	static final int FLAGS = 7;
+	static final int SECTION_COUNT = 8;
+
+	static final int HEADER_SIZE = 28 + 8 * SECTION_COUNT;
+
+	static final int NODE_TEXT = -1;
+	static final int NODE_END = -2;
+	static final int NO_BATCH = -1;
+
+	static final int FLAG_DOUBLE_SIDED = PackedGeometry.FLAG_DOUBLE_SIDED;
+
+	private static final ThreadLocal<XMLInputFactory> FACTORIES = ThreadLocal.withInitial(() -> {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	});
+
+	private BinaryMapFormat()
+	{}
+
+	public static boolean isBinary(File f)
+	{
+		return f.getName().endsWith(EXTENSION);
+	}
+
+	/**
+	 * Converts an XML map file to the binary format without loading it as a {@link Map}.
+	 */
+	public static void convert(File xmlFile, File binaryFile) throws IOException
+	{
+		transcode(xmlFile, binaryFile, -1, -1);
+	}
+
+	private static void transcode(File xmlFile, File binaryFile, long sourceLength, long sourceModified) throws IOException
+	{
+		Encoder encoder = new Encoder(xmlFile);
+		try (InputStream in = new BufferedInputStream(new FileInputStream(xmlFile))) {
+			XMLStreamReader reader = FACTORIES.get().createXMLStreamReader(in);
+			try {
+				encoder.encodeDocument(reader, true);
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (XMLStreamException e) {
+			throw new InputFileException(xmlFile, e.getMessage());
+		}
+		encoder.write(binaryFile, sourceLength, sourceModified);
+	}
+
+	/**
+	 * Returns a binary copy of an XML map from the map cache, converting the XML first if the cached
+	 * copy is missing or the XML has changed since it was made. Copies are matched to their source by
+	 * path, length, and modification time.
+	 * @return null if no copy could be written, in which case the XML should be read directly
+	 */
+	public static File getCachedCopy(File xmlFile)
+	{
+		if (Directories.getModPath() == null)
+			return null;
+
+		String key = String.format("%s_%08X", FilenameUtils.getBaseName(xmlFile.getName()),
+			xmlFile.getAbsolutePath().hashCode());
+		File cached = new File(Directories.MOD_MAP_CACHE + key + EXTENSION);
+
+		// read before converting, so an edit made during conversion leaves the copy stale
+		long sourceLength = xmlFile.length();
+		long sourceModified = xmlFile.lastModified();
+
+		if (isCopyOf(cached, sourceLength, sourceModified))
+			return cached;
+
+		try {
+			FileUtils.forceMkdir(cached.getParentFile());
+			transcode(xmlFile, cached, sourceLength, sourceModified);
+			return cached;
+		}
+		catch (IOException e) {
+			Logger.logWarning("Could not cache binary copy of " + xmlFile.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static boolean isCopyOf(File binaryFile, long sourceLength, long sourceModified)
+	{
+		if (!binaryFile.exists())
+			return false;
+
+		try (DataInputStream in = new DataInputStream(new FileInputStream(binaryFile))) {
+			return in.readInt() == MAGIC
+				&& in.readInt() == VERSION
+				&& in.readLong() == sourceLength
+				&& in.readLong() == sourceModified;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Collects strings, elements, and geometry, then writes them as a binary map.
+	 * Geometry is either parsed from TriangleBatch elements or supplied directly
+	 * through {@link #addVertex}, {@link #addTriangle}, and {@link #endBatch}.
+	 */
+	static final class Encoder
+	{
+		private final File source;
+
+		private final HashMap<String, Integer> stringIndices = new HashMap<>();
+		private final List<String> strings = new ArrayList<>();
+
+		private int[] nodes = new int[1024];
+		private int nodeLength = 0;
+
+		private int[] batches = new int[4 * 64];
+		private int batchCount = 0;
+		private int encodedBatches = 0;
+
+		private int[] positions = new int[3 * 1024];
+		private int[] uvs = new int[2 * 1024];
+		private byte[] colors = new byte[4 * 1024];
+		private int vertexCount = 0;
+
+		private int[] indices = new int[3 * 1024];
+		private byte[] flags = new byte[1024];
+		private int triangleCount = 0;
+
+		Encoder(File source)
+		{
+			this.source = source;
+		}
+
+		int getVertexCount()
+		{
+			return vertexCount;
+		}
+
+		int getTriangleCount()
+		{
+			return triangleCount;
+		}
+
+		void addVertex(int x, int y, int z, int u, int v, int r, int g, int b, int a)
+		{
+			if (3 * vertexCount + 3 > positions.length) {
+				positions = Arrays.copyOf(positions, 2 * positions.length);
+				uvs = Arrays.copyOf(uvs, 2 * uvs.length);
+				colors = Arrays.copyOf(colors, 2 * colors.length);
+			}
+
+			int i = vertexCount++;
+			positions[3 * i] = x;
+			positions[3 * i + 1] = y;
+			positions[3 * i + 2] = z;
+			uvs[2 * i] = u;
+			uvs[2 * i + 1] = v;
+			colors[4 * i] = (byte) r;
+			colors[4 * i + 1] = (byte) g;
+			colors[4 * i + 2] = (byte) b;
+			colors[4 * i + 3] = (byte) a;
+		}
+
+		void addTriangle(int i, int j, int k, boolean doubleSided)
+		{
+			if (3 * triangleCount + 3 > indices.length) {
+				indices = Arrays.copyOf(indices, 2 * indices.length);
+				flags = Arrays.copyOf(flags, 2 * flags.length);
+			}
+
+			int t = triangleCount++;
+			indices[3 * t] = i;
+			indices[3 * t + 1] = j;
+			indices[3 * t + 2] = k;
+			flags[t] = (byte) (doubleSided ? FLAG_DOUBLE_SIDED : 0);
+		}
+
+		/**
+		 * Closes a batch holding every vertex and triangle added since the given counts.
+		 */
+		void endBatch(int firstVertex, int firstTriangle)
+		{
+			if (4 * batchCount + 4 > batches.length)
+				batches = Arrays.copyOf(batches, 2 * batches.length);
+
+			int b = batchCount++;
+			batches[4 * b] = firstVertex;
+			batches[4 * b + 1] = vertexCount - firstVertex;
+			batches[4 * b + 2] = firstTriangle;
+			batches[4 * b + 3] = triangleCount - firstTriangle;
+		}
+
+		/**
+		 * Encodes the root element of a document and everything beneath it.
+		 * @param parseBatches whether TriangleBatch elements contain their geometry, rather than
+		 * referring in order to batches which were already supplied
+		 */
+		void encodeDocument(XMLStreamReader reader, boolean parseBatches) throws XMLStreamException
+		{
+			while (reader.next() != XMLStreamConstants.START_ELEMENT)
+				;
+
+			encodeElement(reader, parseBatches);
+
+			if (encodedBatches != batchCount)
+				throw new IllegalStateException(String.format("Encoded %d triangle batches, but %d were supplied!", encodedBatches, batchCount));
+		}
+
+		private void encodeElement(XMLStreamReader reader, boolean parseBatches) throws XMLStreamException
+		{
+			String name = reader.getLocalName();
+			push(intern(name));
+
+			int attributeCount = reader.getAttributeCount();
+			push(attributeCount);
+			for (int i = 0; i < attributeCount; i++) {
+				push(intern(reader.getAttributeLocalName(i)));
+				push(intern(reader.getAttributeValue(i)));
+			}
+
+			if (name.equals(TAG_TRIANGLE_BATCH.toString())) {
+				push(encodedBatches++);
+
+				if (parseBatches)
+					encodeBatchContents(reader);
+				else if (encodedBatches > batchCount)
+					throw new IllegalStateException("Geometry was not supplied for every triangle batch!");
+				else
+					skipElement(reader);
+
+				push(NODE_END);
+				return;
+			}
+
+			push(NO_BATCH);
+
+			while (true) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						encodeElement(reader, parseBatches);
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+						if (!reader.isWhiteSpace()) {
+							push(NODE_TEXT);
+							push(intern(reader.getText()));
+						}
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						push(NODE_END);
+						return;
+				}
+			}
+		}
+
+		// mirrors TriangleBatch.fromXML, leaving the reader at the end of the batch
+		private void encodeBatchContents(XMLStreamReader reader) throws XMLStreamException
+		{
+			int firstVertex = vertexCount;
+			int firstTriangle = triangleCount;
+			int vertexTables = 0;
+			int triangleLists = 0;
+
+			while (nextChild(reader)) {
+				String name = reader.getLocalName();
+				if (name.equals(TAG_VERTEX_TABLE.toString())) {
+					vertexTables++;
+					while (nextChild(reader)) {
+						if (reader.getLocalName().equals(TAG_VERTEX.toString()))
+							readVertex(reader);
+						skipElement(reader);
+					}
+				}
+				else if (name.equals(TAG_TRIANGLE_LIST.toString())) {
+					triangleLists++;
+					while (nextChild(reader)) {
+						if (reader.getLocalName().equals(TAG_TRIANGLE.toString()))
+							readTriangle(reader);
+						skipElement(reader);
+					}
+				}
+				else {
+					skipElement(reader);
+				}
+			}
+
+			checkUnique(vertexTables, TAG_VERTEX_TABLE);
+			checkUnique(triangleLists, TAG_TRIANGLE_LIST);
+
+			endBatch(firstVertex, firstTriangle);
+		}
+
+		private void checkUnique(int count, MapKey key)
+		{
+			if (count < 1)
+				complain(TAG_TRIANGLE_BATCH + " is missing required tag: " + key);
+			if (count != 1)
+				complain(TAG_TRIANGLE_BATCH + " cannot have more than one " + key);
+		}
+
+		private void readVertex(XMLStreamReader reader)
+		{
+			int[] xyz = readIntArray(reader, TAG_VERTEX, ATTR_VERT_XYZ, 3, true);
+			int[] uv = readIntArray(reader, TAG_VERTEX, ATTR_VERT_UV, 2, false);
+			int[] rgba = readIntArray(reader, TAG_VERTEX, ATTR_VERT_COLOR, 4, false);
+
+			if (uv == null)
+				uv = new int[] { 0, 0 };
+			if (rgba == null)
+				rgba = new int[] { 255, 255, 255, 255 };
+
+			addVertex(xyz[0], xyz[1], xyz[2], uv[0], uv[1], rgba[0], rgba[1], rgba[2], rgba[3]);
+		}
+
+		private void readTriangle(XMLStreamReader reader)
+		{
+			int[] ijk = readIntArray(reader, TAG_TRIANGLE, ATTR_TRI_IJK, 3, true);
+
+			boolean doubleSided = false;
+			String value = reader.getAttributeValue(null, ATTR_TRI_TWOSIDE.toString());
+			if (value != null && !value.isBlank()) {
+				if (value.equalsIgnoreCase("true"))
+					doubleSided = true;
+				else if (!value.equalsIgnoreCase("false"))
+					complain("Invalid boolean value for " + ATTR_TRI_TWOSIDE + ": " + value);
+			}
+
+			addTriangle(ijk[0], ijk[1], ijk[2], doubleSided);
+		}
+
+		// same rules as XmlReader.readIntArray, returns null for missing optional attributes
+		private int[] readIntArray(XMLStreamReader reader, MapKey tag, MapKey key, int len, boolean required)
+		{
+			String value = reader.getAttributeValue(null, key.toString());
+			if (value == null || value.isBlank()) {
+				if (required)
+					complain(tag + " is missing required attribute: " + key);
+				return null;
+			}
+
+			String[] tokens = value.split("\\s*,\\s*");
+			if (tokens.length != len)
+				complain("Length of array does not equal " + len + ": " + value);
+
+			int[] values = new int[len];
+			try {
+				for (int i = 0; i < len; i++)
+					values[i] = Integer.parseInt(tokens[i]);
+			}
+			catch (NumberFormatException e) {
+				complain("Invalid integer value for " + key + " array: " + value);
+			}
+			return values;
+		}
+
+		private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException
+		{
+			while (true) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						return true;
+					case XMLStreamConstants.END_ELEMENT:
+					case XMLStreamConstants.END_DOCUMENT:
+						return false;
+				}
+			}
+		}
+
+		private static void skipElement(XMLStreamReader reader) throws XMLStreamException
+		{
+			int depth = 0;
+			while (true) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						depth++;
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						if (depth-- == 0)
+							return;
+						break;
+				}
+			}
+		}
+
+		private void complain(String message)
+		{
+			throw new InputFileException(source, message);
+		}
+
+		private int intern(String s)
+		{
+			Integer index = stringIndices.get(s);
+			if (index == null) {
+				index = strings.size();
+				stringIndices.put(s, index);
+				strings.add(s);
+			}
+			return index;
+		}
+
+		private void push(int value)
+		{
+			if (nodeLength == nodes.length)
+				nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+			nodes[nodeLength++] = value;
+		}
+
+		/**
+		 * Encodes an XML document held in memory, whose batches have already been supplied.
+		 */
+		void encodeStructure(Reader xml) throws IOException
+		{
+			try {
+				XMLStreamReader reader = FACTORIES.get().createXMLStreamReader(xml);
+				try {
+					encodeDocument(reader, false);
+				}
+				finally {
+					reader.close();
+				}
+			}
+			catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		/**
+		 * Writes everything encoded so far. The file is written under a temporary name
+		 * and then moved into place, so readers never see a partial file.
+		 * @param sourceLength -1 unless this is a cached copy of an XML file
+		 * @param sourceModified -1 unless this is a cached copy of an XML file
+		 */
+		void write(File f, long sourceLength, long sourceModified) throws IOException
+		{
+			byte[][] encodedStrings = new byte[strings.size()][];
+			int stringBytes = 4;
+			for (int i = 0; i < encodedStrings.length; i++) {
+				encodedStrings[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+				stringBytes += 4 + encodedStrings[i].length;
+			}
+
+			int[] sizes = new int[SECTION_COUNT];
+			sizes[STRINGS] = stringBytes;
+			sizes[ELEMENTS] = 4 * nodeLength;
+			sizes[BATCHES] = 16 * batchCount;
+			sizes[POSITIONS] = 12 * vertexCount;
+			sizes[UVS] = 8 * vertexCount;
+			sizes[COLORS] = 4 * vertexCount;
+			sizes[TRIANGLES] = 12 * triangleCount;
+			sizes[FLAGS] = triangleCount;
+
+			int[] offsets = new int[SECTION_COUNT];
+			int totalSize = HEADER_SIZE;
+			for (int i = 0; i < SECTION_COUNT; i++) {
+				offsets[i] = totalSize;
+				totalSize += (sizes[i] + 3) & ~3;
+			}
+
+			ByteBuffer bb = ByteBuffer.allocate(totalSize);
+			bb.putInt(MAGIC);
+			bb.putInt(VERSION);
+			bb.putLong(sourceLength);
+			bb.putLong(sourceModified);
+			bb.putInt(SECTION_COUNT);
+			for (int i = 0; i < SECTION_COUNT; i++) {
+				bb.putInt(offsets[i]);
+				bb.putInt(sizes[i]);
+			}
+
+			bb.position(offsets[STRINGS]);
+			bb.putInt(encodedStrings.length);
+			for (byte[] s : encodedStrings) {
+				bb.putInt(s.length);
+				bb.put(s);
+			}
+
+			bb.position(offsets[ELEMENTS]);
+			bb.asIntBuffer().put(nodes, 0, nodeLength);
+			bb.position(offsets[BATCHES]);
+			bb.asIntBuffer().put(batches, 0, 4 * batchCount);
+			bb.position(offsets[POSITIONS]);
+			bb.asIntBuffer().put(positions, 0, 3 * vertexCount);
+			bb.position(offsets[UVS]);
+			bb.asIntBuffer().put(uvs, 0, 2 * vertexCount);
+			bb.position(offsets[COLORS]);
+			bb.put(colors, 0, 4 * vertexCount);
+			bb.position(offsets[TRIANGLES]);
+			bb.asIntBuffer().put(indices, 0, 3 * triangleCount);
+			bb.position(offsets[FLAGS]);
+			bb.put(flags, 0, triangleCount);
+
+			File temp = new File(f.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+			try {
+				Files.write(temp.toPath(), bb.array());
+				Files.move(temp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException | RuntimeException e) {
+				FileUtils.deleteQuietly(temp);
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package game.map;
+
+import static game.map.BinaryMapFormat.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import app.input.InputFileException;
+import game.map.mesh.PackedGeometry;
+import game.map.shape.TriangleBatch;
+import util.xml.XmlWrapper.XmlReader;
+
+/**
+ * Reads a map written in the {@link BinaryMapFormat}. The file is read into memory and decoded in one
+ * pass: elements are rebuilt as a DOM, except that TriangleBatch elements are left empty and their
+ * geometry is copied straight from the flat arrays when {@link TriangleBatch#fromXML} asks for it
+ * with {@link #readGeometry(Element)}.
+ */
+public class BinaryMapReader extends XmlReader
+{
+	private static final class Contents
+	{
+		private Element root;
+		private final IdentityHashMap<Element, Integer> batchIndices = new IdentityHashMap<>();
+
+		private int[] batches;
+		private int[] positions;
+		private int[] uvs;
+		private byte[] colors;
+		private int[] indices;
+		private byte[] flags;
+	}
+
+	private final IdentityHashMap<Element, Integer> batchIndices;
+	private final int[] batches;
+	private final int[] positions;
+	private final int[] uvs;
+	private final byte[] colors;
+	private final int[] indices;
+	private final byte[] flags;
+
+	public BinaryMapReader(File binaryFile)
+	{
+		this(binaryFile, read(binaryFile));
+	}
+
+	private BinaryMapReader(File binaryFile, Contents contents)
+	{
+		super(binaryFile, contents.root);
+
+		batchIndices = contents.batchIndices;
+		batches = contents.batches;
+		positions = contents.positions;
+		uvs = contents.uvs;
+		colors = contents.colors;
+		indices = contents.indices;
+		flags = contents.flags;
+	}
+
+	private static Contents read(File binaryFile)
+	{
+		try (FileChannel channel = FileChannel.open(binaryFile.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new InputFileException(binaryFile, "Binary map is too large.");
+
+			// read onto the heap rather than mapping, so the file is not held open or locked afterwards
+			ByteBuffer bb = ByteBuffer.allocate((int) size);
+			while (bb.hasRemaining()) {
+				if (channel.read(bb) < 0)
+					throw new InputFileException(binaryFile, "Unexpected end of file.");
+			}
+			bb.flip();
+			return decode(binaryFile, bb);
+		}
+		catch (IOException e) {
+			throw new InputFileException(binaryFile, e.getMessage());
+		}
+		catch (RuntimeException e) {
+			if (e instanceof InputFileException)
+				throw e;
+			// truncated or damaged file
+			throw new InputFileException(binaryFile, "Could not decode binary map: " + e);
+		}
+	}
+
+	private static Contents decode(File binaryFile, ByteBuffer bb)
+	{
+		if (bb.getInt() != MAGIC)
+			throw new InputFileException(binaryFile, "Not a binary map file.");
+
+		int version = bb.getInt();
+		if (version != VERSION)
+			throw new InputFileException(binaryFile, "Unsupported binary map version: " + version);
+
+		bb.getLong(); // source length
+		bb.getLong(); // source timestamp
+
+		if (bb.getInt() != SECTION_COUNT)
+			throw new InputFileException(binaryFile, "Unexpected number of sections.");
+
+		ByteBuffer[] sections = new ByteBuffer[SECTION_COUNT];
+		for (int i = 0; i < SECTION_COUNT; i++) {
+			int offset = bb.getInt();
+			int size = bb.getInt();
+			sections[i] = bb.slice(offset, size);
+		}
+
+		ByteBuffer stringSection = sections[STRINGS];
+		String[] strings = new String[stringSection.getInt()];
+		for (int i = 0; i < strings.length; i++) {
+			byte[] bytes = new byte[stringSection.getInt()];
+			stringSection.get(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		Contents contents = new Contents();
+
+		Document document = getDocumentBuilder().newDocument();
+		IntBuffer nodes = sections[ELEMENTS].asIntBuffer();
+		contents.root = decodeElement(document, nodes, strings, contents.batchIndices);
+		document.appendChild(contents.root);
+
+		contents.batches = getInts(sections[BATCHES]);
+		contents.positions = getInts(sections[POSITIONS]);
+		contents.uvs = getInts(sections[UVS]);
+		contents.colors = getBytes(sections[COLORS]);
+		contents.indices = getInts(sections[TRIANGLES]);
+		contents.flags = getBytes(sections[FLAGS]);
+
+		return contents;
+	}
+
+	private static Element decodeElement(Document document, IntBuffer nodes, String[] strings, IdentityHashMap<Element, Integer> batchIndices)
+	{
+		Element elem = document.createElement(strings[nodes.get()]);
+
+		int attributeCount = nodes.get();
+		for (int i = 0; i < attributeCount; i++)
+			elem.setAttribute(strings[nodes.get()], strings[nodes.get()]);
+
+		int batch = nodes.get();
+		if (batch != NO_BATCH)
+			batchIndices.put(elem, batch);
+
+		while (true) {
+			int node = nodes.get(nodes.position());
+			if (node == NODE_END) {
+				nodes.get();
+				return elem;
+			}
+			else if (node == NODE_TEXT) {
+				nodes.get();
+				elem.appendChild(document.createTextNode(strings[nodes.get()]));
+			}
+			else {
+				elem.appendChild(decodeElement(document, nodes, strings, batchIndices));
+			}
+		}
+	}
+
+	private static int[] getInts(ByteBuffer section)
+	{
+		int[] values = new int[section.remaining() / 4];
+		section.asIntBuffer().get(values);
+		return values;
+	}
+
+	private static byte[] getBytes(ByteBuffer section)
+	{
+		byte[] values = new byte[section.remaining()];
+		section.get(values);
+		return values;
+	}
+
+	/**
+	 * @return true if the element was written with its geometry stored in flat arrays
+	 */
+	public boolean hasGeometry(Element batchElem)
+	{
+		return batchIndices.containsKey(batchElem);
+	}
+
+	/**
+	 * Reads the geometry of a TriangleBatch element. Vertices are shared between triangles
+	 * exactly as they are when reading the XML.
+	 */
+	public PackedGeometry readGeometry(Element batchElem)
+	{
+		int b = 4 * batchIndices.get(batchElem);
+		int firstVertex = batches[b];
+		int vertexCount = batches[b + 1];
+		int firstTriangle = batches[b + 2];
+		int triangleCount = batches[b + 3];
+
+		if (firstVertex < 0 || vertexCount < 0 || 3 * (firstVertex + vertexCount) > positions.length)
+			complain("Vertex range is out of bounds for triangle batch " + (b / 4));
+		if (firstTriangle < 0 || triangleCount < 0 || firstTriangle + triangleCount > flags.length)
+			complain("Triangle range is out of bounds for triangle batch " + (b / 4));
+
+		int[] batchIndices = Arrays.copyOfRange(indices, 3 * firstTriangle, 3 * (firstTriangle + triangleCount));
+		for (int vi : batchIndices) {
+			if (vi < 0 || vi >= vertexCount)
+				complain("Vertex index is out of bounds: " + vi);
+		}
+
+		return new PackedGeometry(
+			Arrays.copyOfRange(positions, 3 * firstVertex, 3 * (firstVertex + vertexCount)),
+			Arrays.copyOfRange(uvs, 2 * firstVertex, 2 * (firstVertex + vertexCount)),
+			Arrays.copyOfRange(colors, 4 * firstVertex, 4 * (firstVertex + vertexCount)),
+			batchIndices,
+			Arrays.copyOfRange(flags, firstTriangle, firstTriangle + triangleCount));
+	}
+}
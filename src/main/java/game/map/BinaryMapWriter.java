@@ -0,0 +1,101 @@
+package game.map;
+
+import static game.map.MapKey.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import game.map.BinaryMapFormat.Encoder;
+import game.map.mesh.PackedGeometry;
+import game.map.mesh.Triangle;
+import game.map.mesh.Vertex;
+import game.map.shape.TriangleBatch;
+import util.xml.XmlWrapper.XmlTag;
+import util.xml.XmlWrapper.XmlWriter;
+
+/**
+ * Writes a map in the {@link BinaryMapFormat}. Objects write themselves through the usual
+ * {@link XmlWriter} methods, except that {@link TriangleBatch#toXML} hands its vertices and
+ * triangles to {@link #printBatch} and only an empty element is printed in their place.
+ * The remaining text is small and is encoded once {@link #write(File)} is called.
+ */
+public class BinaryMapWriter extends XmlWriter
+{
+	private final StringWriter structure;
+	private final Encoder encoder;
+
+	public BinaryMapWriter()
+	{
+		this(new StringWriter());
+	}
+
+	private BinaryMapWriter(StringWriter structure)
+	{
+		super(structure);
+		this.structure = structure;
+		this.encoder = new Encoder(null);
+	}
+
+	/**
+	 * Adds the geometry of a batch to the flat arrays and prints an empty TriangleBatch element.
+	 * @param vertexTable from {@link TriangleBatch#generateVertexTable()}, so triangle indices are current
+	 */
+	public void printBatch(int version, Vertex[] vertexTable, List<Triangle> triangles)
+	{
+		int firstVertex = encoder.getVertexCount();
+		int firstTriangle = encoder.getTriangleCount();
+
+		for (Vertex v : vertexTable) {
+			MutablePoint pos = v.getLocalPosition();
+			encoder.addVertex(pos.getX(), pos.getY(), pos.getZ(),
+				v.uv.getU(), v.uv.getV(), v.r, v.g, v.b, v.a);
+		}
+
+		for (Triangle t : triangles)
+			encoder.addTriangle(t.ijk[0], t.ijk[1], t.ijk[2], t.doubleSided);
+
+		encoder.endBatch(firstVertex, firstTriangle);
+
+		XmlTag batchTag = createTag(TAG_TRIANGLE_BATCH, true);
+		addInt(batchTag, ATTR_VERSION, version);
+		printTag(batchTag);
+	}
+
+	/**
+	 * Adds packed geometry to the flat arrays and prints an empty TriangleBatch element.
+	 * @param vertexTable from {@link PackedGeometry#generateVertexTable(int[])}, along with the triangle indices into it
+	 */
+	public void printBatch(int version, PackedGeometry geometry, int[] vertexTable, int[] ijk)
+	{
+		int firstVertex = encoder.getVertexCount();
+		int firstTriangle = encoder.getTriangleCount();
+
+		for (int vi : vertexTable) {
+			encoder.addVertex(geometry.getLocalX(vi), geometry.getLocalY(vi), geometry.getLocalZ(vi),
+				geometry.getU(vi), geometry.getV(vi), geometry.getColor(vi, 0), geometry.getColor(vi, 1),
+				geometry.getColor(vi, 2), geometry.getColor(vi, 3));
+		}
+
+		for (int t = 0; t < geometry.getTriangleCount(); t++)
+			encoder.addTriangle(ijk[3 * t], ijk[3 * t + 1], ijk[3 * t + 2], geometry.isDoubleSided(t));
+
+		encoder.endBatch(firstVertex, firstTriangle);
+
+		XmlTag batchTag = createTag(TAG_TRIANGLE_BATCH, true);
+		addInt(batchTag, ATTR_VERSION, version);
+		printTag(batchTag);
+	}
+
+	/**
+	 * Encodes everything which has been written and saves it to a file.
+	 */
+	public void write(File f) throws IOException
+	{
+		save();
+		encoder.encodeStructure(new StringReader(structure.toString()));
+		encoder.write(f, -1, -1);
+	}
+}
@@ -8,9 +8,10 @@ import common.Vector3f;
 import game.map.editor.geometry.GUVertex;
 import game.map.editor.selection.SelectablePoint;
 import game.map.mesh.AbstractMesh;
-import game.map.mesh.Triangle;
+import game.map.mesh.TriangleView;
 import game.map.mesh.Vertex;
 import game.map.shape.TransformMatrix;
+import game.map.shape.TriangleBatch;
 import renderer.buffers.DeferredLineRenderer;
 import renderer.buffers.LineBatch;
 import renderer.buffers.LineRenderQueue;
@@ -217,9 +218,10 @@ public class BoundingBox implements XmlSerializable
 
 	public void encompass(AbstractMesh mesh)
 	{
-		for (Triangle t : mesh)
-			for (Vertex v : t.vert)
-				encompass(v);
+		for (TriangleBatch batch : mesh.getBatches())
+			for (TriangleView t : batch.viewTriangles())
+				for (int k = 0; k < 3; k++)
+					encompass(t.getX(k), t.getY(k), t.getZ(k));
 	}
 
 	public void render()
@@ -307,7 +309,7 @@ public class BoundingBox implements XmlSerializable
 
 	public boolean overlaps(BoundingBox other)
 	{
-		return (min.getX() <= other.max.getX() && other.min.getX() <= max.getY() &&
+		return (min.getX() <= other.max.getX() && other.min.getX() <= max.getX() &&
 			min.getY() <= other.max.getY() && other.min.getY() <= max.getY() &&
 			min.getZ() <= other.max.getZ() && other.min.getZ() <= max.getZ());
 	}
@@ -3,18 +3,28 @@ package game.map;
 import static app.Directories.MOD_IMG_TEX;
 import static game.map.MapKey.*;
 
+import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.Stack;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
@@ -22,6 +32,8 @@ import org.apache.commons.io.FilenameUtils;
 import org.w3c.dom.Element;
 
 import app.AssetManager;
+import app.input.InputFileException;
+import common.Vector3f;
 import game.map.MapObject.MapObjectType;
 import game.map.editor.EditorObject;
 import game.map.editor.MapEditor;
@@ -31,7 +43,9 @@ import game.map.editor.commands.CommandBatch;
 import game.map.editor.commands.CreateObjects;
 import game.map.editor.render.TextureManager;
 import game.map.editor.selection.PickRay;
+import game.map.editor.selection.ObjectPickIndex;
 import game.map.editor.selection.PickRay.PickHit;
+import game.map.editor.selection.TrianglePickTree;
 import game.map.hit.Collider;
 import game.map.hit.Zone;
 import game.map.impex.AssimpImporter;
@@ -40,9 +54,9 @@ import game.map.impex.ObjExporter;
 import game.map.impex.ObjImporter;
 import game.map.marker.Marker;
 import game.map.marker.Marker.MarkerType;
-import game.map.mesh.AbstractMesh;
 import game.map.mesh.TexturedMesh;
 import game.map.mesh.Triangle;
+import game.map.mesh.TriangleView;
 import game.map.mesh.Vertex;
 import game.map.scripts.LightingPanel;
 import game.map.scripts.ScriptData;
@@ -50,6 +64,7 @@ import game.map.shape.LightSet;
 import game.map.shape.LightSet.LightSetDigest;
 import game.map.shape.Model;
 import game.map.shape.TexturePanner;
+import game.map.shape.TriangleBatch;
 import game.map.shape.UV;
 import game.map.tree.ColliderTreeModel;
 import game.map.tree.MapObjectNode;
@@ -62,6 +77,7 @@ import util.Logger;
 import util.Priority;
 import util.identity.IdentityHashSet;
 import util.xml.XmlKey;
+import util.xml.XmlStreamReader;
 import util.xml.XmlWrapper.XmlReader;
 import util.xml.XmlWrapper.XmlSerializable;
 import util.xml.XmlWrapper.XmlTag;
@@ -72,6 +88,11 @@ public class Map implements XmlSerializable
 	private static final int latestVersion = 2;
 	private int instanceVersion = latestVersion;
 
+	// children of the map element which are read whole when streaming
+	private static final Set<String> STREAMED_UNIQUE_TAGS = Set.of(
+		TAG_LIGHTSETS.toString(), TAG_SCRIPT_DATA.toString(), TAG_EDITOR.toString(),
+		TAG_MODEL_TREE.toString(), TAG_COLLIDER_TREE.toString(), TAG_ZONE_TREE.toString(), TAG_MARKER_TREE.toString());
+
 	private String author;
 	public MapEditorMetadata editorData = null;
 
@@ -108,6 +129,111 @@ public class Map implements XmlSerializable
 
 	@Override
 	public void fromXML(XmlReader xmr, Element mapElem)
+	{
+		readAttributes(xmr, mapElem);
+
+		readLightSets(xmr, xmr.getUniqueRequiredTag(mapElem, TAG_LIGHTSETS));
+
+		modelTree = new ModelTreeModel(MapObjectTreeModel.load(xmr, xmr.getUniqueRequiredTag(mapElem, TAG_MODEL_TREE),
+			readObjects((elem) -> Model.read(xmr, elem), xmr, mapElem, TAG_MODELS, TAG_MODEL)));
+
+		colliderTree = new ColliderTreeModel(MapObjectTreeModel.load(xmr, xmr.getUniqueRequiredTag(mapElem, TAG_COLLIDER_TREE),
+			readObjects((elem) -> Collider.read(xmr, elem), xmr, mapElem, TAG_COLLIDERS, TAG_COLLIDER)));
+
+		zoneTree = new ZoneTreeModel(MapObjectTreeModel.load(xmr, xmr.getUniqueRequiredTag(mapElem, TAG_ZONE_TREE),
+			readObjects((elem) -> Zone.read(xmr, elem), xmr, mapElem, TAG_ZONES, TAG_ZONE)));
+
+		markerTree = new MarkerTreeModel(MapObjectTreeModel.load(xmr, xmr.getUniqueRequiredTag(mapElem, TAG_MARKER_TREE),
+			readObjects((elem) -> Marker.read(xmr, elem), xmr, mapElem, TAG_MARKERS, TAG_MARKER)));
+
+		readScriptsAndEditorData(xmr, xmr.getUniqueTag(mapElem, TAG_SCRIPT_DATA), xmr.getUniqueTag(mapElem, TAG_EDITOR));
+	}
+
+	/**
+	 * Reads a map with a pull parser instead of building a DOM for the whole file.
+	 * Each model, collider, zone, and marker is read into its own small element and
+	 * discarded once the object is built, so dense meshes are never held as DOM and
+	 * as objects at the same time. The object trees precede the objects in saved maps,
+	 * so their elements are kept until all objects have been read.
+	 */
+	private void fromStream(XmlStreamReader xsr)
+	{
+		Element mapElem = xsr.getRootElement();
+		readAttributes(xsr, mapElem);
+
+		HashMap<String, Element> uniqueTags = new HashMap<>();
+		HashMap<Integer, Model> models = null;
+		HashMap<Integer, Collider> colliders = null;
+		HashMap<Integer, Zone> zones = null;
+		HashMap<Integer, Marker> markers = null;
+
+		while (xsr.nextChild()) {
+			if (xsr.isElement(TAG_MODELS))
+				models = readUniqueObjects(models, (elem) -> Model.read(xsr, elem), xsr, TAG_MODELS, TAG_MODEL);
+			else if (xsr.isElement(TAG_COLLIDERS))
+				colliders = readUniqueObjects(colliders, (elem) -> Collider.read(xsr, elem), xsr, TAG_COLLIDERS, TAG_COLLIDER);
+			else if (xsr.isElement(TAG_ZONES))
+				zones = readUniqueObjects(zones, (elem) -> Zone.read(xsr, elem), xsr, TAG_ZONES, TAG_ZONE);
+			else if (xsr.isElement(TAG_MARKERS))
+				markers = readUniqueObjects(markers, (elem) -> Marker.read(xsr, elem), xsr, TAG_MARKERS, TAG_MARKER);
+			else if (STREAMED_UNIQUE_TAGS.contains(xsr.getElementName())) {
+				if (uniqueTags.containsKey(xsr.getElementName()))
+					xsr.complain(mapElem.getTagName() + " cannot have more than one " + xsr.getElementName());
+				uniqueTags.put(xsr.getElementName(), xsr.readElement());
+			}
+			else
+				xsr.skipElement();
+		}
+
+		readLightSets(xsr, getRequired(xsr, mapElem, uniqueTags, TAG_LIGHTSETS));
+
+		modelTree = new ModelTreeModel(MapObjectTreeModel.load(xsr, getRequired(xsr, mapElem, uniqueTags, TAG_MODEL_TREE),
+			getRequired(xsr, mapElem, models, TAG_MODELS)));
+
+		colliderTree = new ColliderTreeModel(MapObjectTreeModel.load(xsr, getRequired(xsr, mapElem, uniqueTags, TAG_COLLIDER_TREE),
+			getRequired(xsr, mapElem, colliders, TAG_COLLIDERS)));
+
+		zoneTree = new ZoneTreeModel(MapObjectTreeModel.load(xsr, getRequired(xsr, mapElem, uniqueTags, TAG_ZONE_TREE),
+			getRequired(xsr, mapElem, zones, TAG_ZONES)));
+
+		markerTree = new MarkerTreeModel(MapObjectTreeModel.load(xsr, getRequired(xsr, mapElem, uniqueTags, TAG_MARKER_TREE),
+			getRequired(xsr, mapElem, markers, TAG_MARKERS)));
+
+		readScriptsAndEditorData(xsr, uniqueTags.get(TAG_SCRIPT_DATA.toString()), uniqueTags.get(TAG_EDITOR.toString()));
+	}
+
+	private <T extends MapObject> HashMap<Integer, T> readUniqueObjects(HashMap<Integer, T> previous,
+		Function<Element, T> supplier, XmlStreamReader xsr, XmlKey listKey, XmlKey objKey)
+	{
+		if (previous != null)
+			xsr.complain(xsr.getRootElement().getTagName() + " cannot have more than one " + listKey);
+
+		HashMap<Integer, T> objMap = new HashMap<>();
+		xsr.enter();
+		while (xsr.nextChild()) {
+			if (xsr.isElement(objKey)) {
+				T obj = supplier.apply(xsr.readElement());
+				objMap.put(obj.deserializationID, obj);
+			}
+			else
+				xsr.skipElement();
+		}
+		return objMap;
+	}
+
+	private static <V> V getRequired(XmlReader xmr, Element mapElem, V value, XmlKey key)
+	{
+		if (value == null)
+			xmr.complain(mapElem.getTagName() + " is missing required tag: " + key);
+		return value;
+	}
+
+	private static Element getRequired(XmlReader xmr, Element mapElem, HashMap<String, Element> tags, XmlKey key)
+	{
+		return getRequired(xmr, mapElem, tags.get(key.toString()), key);
+	}
+
+	private void readAttributes(XmlReader xmr, Element mapElem)
 	{
 		if (xmr.hasAttribute(mapElem, ATTR_MAP_STAGE))
 			isStage = xmr.readBoolean(mapElem, ATTR_MAP_STAGE);
@@ -124,41 +250,28 @@ public class Map implements XmlSerializable
 		hasBackground = xmr.hasAttribute(mapElem, ATTR_MAP_BG);
 		if (hasBackground)
 			bgName = xmr.getAttribute(mapElem, ATTR_MAP_BG);
+	}
 
+	private void readLightSets(XmlReader xmr, Element lightsetList)
+	{
 		lightSets = new IterableListModel<>();
-		Element lightsetList = xmr.getUniqueRequiredTag(mapElem, TAG_LIGHTSETS);
 		for (Element lightsetElem : xmr.getTags(lightsetList, TAG_LIGHTSET))
 			lightSets.addElement(LightSet.read(xmr, lightsetElem));
 
 		if (lightSets.isEmpty())
 			lightSets.addElement(LightSet.createEmptySet());
+	}
 
-		MapObjectNode<Model> modelRoot = readTree((elem) -> Model.read(xmr, elem),
-			xmr, mapElem, TAG_MODELS, TAG_MODEL, TAG_MODEL_TREE);
-		modelTree = new ModelTreeModel(modelRoot);
-
-		MapObjectNode<Collider> colliderRoot = readTree((elem) -> Collider.read(xmr, elem),
-			xmr, mapElem, TAG_COLLIDERS, TAG_COLLIDER, TAG_COLLIDER_TREE);
-		colliderTree = new ColliderTreeModel(colliderRoot);
-
-		MapObjectNode<Zone> zoneRoot = readTree((elem) -> Zone.read(xmr, elem),
-			xmr, mapElem, TAG_ZONES, TAG_ZONE, TAG_ZONE_TREE);
-		zoneTree = new ZoneTreeModel(zoneRoot);
-
-		MapObjectNode<Marker> markerRoot = readTree((elem) -> Marker.read(xmr, elem),
-			xmr, mapElem, TAG_MARKERS, TAG_MARKER, TAG_MARKER_TREE);
-		markerTree = new MarkerTreeModel(markerRoot);
-
+	private void readScriptsAndEditorData(XmlReader xmr, Element scriptsElem, Element editorElem)
+	{
 		for (Model mdl : modelTree.getList())
 			mdl.lights.set(lightSets.get(mdl.lightsIndex));
 
 		scripts = new ScriptData();
 
-		Element scriptsElem = xmr.getUniqueTag(mapElem, TAG_SCRIPT_DATA);
 		if (scriptsElem != null)
 			scripts.fromXML(xmr, scriptsElem);
 
-		Element editorElem = xmr.getUniqueTag(mapElem, TAG_EDITOR);
 		if (editorElem != null) {
 			editorData = new MapEditorMetadata(null);
 			editorData.fromXML(xmr, editorElem);
@@ -166,16 +279,15 @@ public class Map implements XmlSerializable
 	}
 
 	/**
-	 * Reads the nodes for a complete MapObjectTreeModel from XML, along with its
-	 * constituent MapObjects. Does not construct the tree itself. Takes a Function
-	 * argument to create MapObjects via their static deserialization methods.
-	 * @return root of the MapObjectTreeModel
+	 * Reads all MapObjects in a list element. Takes a Function argument to create
+	 * MapObjects via their static deserialization methods.
+	 * @return objects by their deserialization ID
 	 */
-	private <T extends MapObject> MapObjectNode<T> readTree(
+	private <T extends MapObject> HashMap<Integer, T> readObjects(
 		Function<Element, T> supplier,
 		XmlReader xmr,
 		Element mapElem,
-		XmlKey listKey, XmlKey objKey, XmlKey treeKey)
+		XmlKey listKey, XmlKey objKey)
 	{
 		Element elemList = xmr.getUniqueRequiredTag(mapElem, listKey);
 		List<Element> objNodes = xmr.getTags(elemList, objKey);
@@ -184,9 +296,7 @@ public class Map implements XmlSerializable
 			T obj = supplier.apply(objElement);
 			objMap.put(obj.deserializationID, obj);
 		}
-
-		Element objTreeElement = xmr.getUniqueRequiredTag(mapElem, treeKey);
-		return MapObjectTreeModel.load(xmr, objTreeElement, objMap);
+		return objMap;
 	}
 
 	@Override
@@ -381,20 +491,14 @@ public class Map implements XmlSerializable
 
 	public List<MapObject> getObjectsWithinRegion(BoundingBox selectionBox, List<EditorObject> editorObjects)
 	{
-		List<MapObject> objs = new LinkedList<>();
+		List<MapObject> objs = new ArrayList<>();
 
 		for (MapObject o : editorObjects)
 			if (!o.hidden && selectionBox.contains(o.AABB.getCenter()))
 				objs.add(o);
-		for (MapObject o : modelTree)
-			if (!o.hidden && selectionBox.contains(o.AABB.getCenter()))
-				objs.add(o);
-		for (MapObject o : colliderTree)
-			if (!o.hidden && selectionBox.contains(o.AABB.getCenter()))
-				objs.add(o);
-		for (MapObject o : zoneTree)
-			if (!o.hidden && selectionBox.contains(o.AABB.getCenter()))
-				objs.add(o);
+		getObjectsWithinRegion(modelTree, selectionBox, objs);
+		getObjectsWithinRegion(colliderTree, selectionBox, objs);
+		getObjectsWithinRegion(zoneTree, selectionBox, objs);
 		for (MapObject o : markerTree)
 			if (!o.hidden && selectionBox.contains(o.AABB.getCenter()))
 				objs.add(o);
@@ -402,68 +506,72 @@ public class Map implements XmlSerializable
 		return objs;
 	}
 
+	private static <T extends MapObject> void getObjectsWithinRegion(MapObjectTreeModel<T> tree, BoundingBox selectionBox, List<MapObject> objs)
+	{
+		List<T> within = new ArrayList<>();
+		tree.getPickIndex().getCenteredWithin(selectionBox, within);
+
+		for (T o : within)
+			if (!o.hidden)
+				objs.add(o);
+	}
+
+	// selection priority when nothing is favored
+	private static final MapObjectType[] PICK_ORDER = {
+			MapObjectType.EDITOR, MapObjectType.MODEL, MapObjectType.COLLIDER, MapObjectType.ZONE, MapObjectType.MARKER
+	};
+
 	public PickHit pickNearestObject(PickRay pickRay, MapObjectType favoredType, List<EditorObject> editorObjects)
 	{
-		// list order = selection priority!
-		LinkedList<MapObject> candidates = new LinkedList<>();
+		// favored type wins ties, then the others in order
+		PickHit closestHit = pickNearestObject(pickRay, favoredType, editorObjects, null);
+		for (MapObjectType type : PICK_ORDER) {
+			if (type != favoredType)
+				closestHit = pickNearestObject(pickRay, type, editorObjects, closestHit);
+		}
+		return closestHit;
+	}
 
-		switch (favoredType) {
+	private PickHit pickNearestObject(PickRay pickRay, MapObjectType type, List<EditorObject> editorObjects, PickHit closestHit)
+	{
+		PickHit hit;
+		switch (type) {
 			case MODEL:
-				for (MapObject o : modelTree)
-					if (!o.hidden && o.shouldTryPick(pickRay))
-						candidates.add(o);
+				hit = pickCandidate(pickRay, modelTree);
 				break;
 			case COLLIDER:
-				for (MapObject o : colliderTree)
-					if (!o.hidden && o.shouldTryPick(pickRay))
-						candidates.add(o);
+				hit = pickCandidate(pickRay, colliderTree);
 				break;
 			case ZONE:
-				for (MapObject o : zoneTree)
-					if (!o.hidden && o.shouldTryPick(pickRay))
-						candidates.add(o);
+				hit = pickCandidate(pickRay, zoneTree);
 				break;
 			case MARKER:
-				for (MapObject o : markerTree)
-					if (!o.hidden && o.shouldTryPick(pickRay))
-						candidates.add(o);
+				hit = pickCandidate(pickRay, markerTree);
 				break;
 			case EDITOR:
-				for (MapObject o : editorObjects)
-					if (!o.hidden && o.shouldTryPick(pickRay))
-						candidates.add(o);
+				hit = pickCandidate(pickRay, editorObjects);
 				break;
+			default:
+				hit = new PickHit(pickRay);
 		}
 
-		if (favoredType != MapObjectType.EDITOR) {
-			for (MapObject o : editorObjects)
-				if (!o.hidden && o.shouldTryPick(pickRay))
-					candidates.add(o);
-		}
-
-		if (favoredType != MapObjectType.MODEL) {
-			for (MapObject o : modelTree)
-				if (!o.hidden && o.shouldTryPick(pickRay))
-					candidates.add(o);
-		}
-
-		if (favoredType != MapObjectType.COLLIDER) {
-			for (MapObject o : colliderTree)
-				if (!o.hidden && o.shouldTryPick(pickRay))
-					candidates.add(o);
-		}
+		if (closestHit == null || hit.dist < closestHit.dist)
+			return hit;
+		return closestHit;
+	}
 
-		if (favoredType != MapObjectType.ZONE) {
-			for (MapObject o : zoneTree)
-				if (!o.hidden && o.shouldTryPick(pickRay))
-					candidates.add(o);
+	private static PickHit pickCandidate(PickRay pickRay, Iterable<? extends MapObject> objects)
+	{
+		if (objects instanceof MapObjectTreeModel<?> tree) {
+			ObjectPickIndex<?> index = tree.getPickIndex();
+			if (index != null)
+				return index.pickObject(pickRay, (o) -> !o.hidden && o.shouldTryPick(pickRay));
 		}
 
-		if (favoredType != MapObjectType.MARKER) {
-			for (MapObject o : markerTree)
-				if (!o.hidden && o.shouldTryPick(pickRay))
-					candidates.add(o);
-		}
+		List<MapObject> candidates = new ArrayList<>();
+		for (MapObject o : objects)
+			if (!o.hidden && o.shouldTryPick(pickRay))
+				candidates.add(o);
 
 		return pickObjectFromSet(pickRay, candidates);
 	}
@@ -475,6 +583,12 @@ public class Map implements XmlSerializable
 
 	public static <T extends MapObject> PickHit pickObjectFromSet(PickRay pickRay, Iterable<T> candidates, boolean skipHidden)
 	{
+		if (candidates instanceof MapObjectTreeModel<?> tree) {
+			ObjectPickIndex<?> index = tree.getPickIndex();
+			if (index != null)
+				return index.pickObject(pickRay, (obj) -> !skipHidden || !obj.hidden);
+		}
+
 		PickHit closestHit = new PickHit(pickRay);
 		for (T obj : candidates) {
 			if (skipHidden && obj.hidden)
@@ -492,59 +606,48 @@ public class Map implements XmlSerializable
 
 	public PickHit pickNearestTriangle(PickRay pickRay)
 	{
-		ArrayList<MapObject> candidates = new ArrayList<>();
-		for (Model mdl : modelTree)
-			if (!mdl.hidden && mdl.shouldTryPick(pickRay))
-				candidates.add(mdl);
-		for (Collider c : colliderTree)
-			if (!c.hidden && c.shouldTryPick(pickRay))
-				candidates.add(c);
-		for (Zone z : zoneTree)
-			if (!z.hidden && z.shouldTryPick(pickRay))
-				candidates.add(z);
+		Predicate<MapObject> filter = (obj) -> !obj.hidden && obj.shouldTryPick(pickRay);
 
-		return pickTriangleFromObjectList(pickRay, candidates);
+		PickHit closestHit = modelTree.getPickIndex().pickTriangle(pickRay, filter);
+		for (MapObjectTreeModel<?> tree : List.of(colliderTree, zoneTree)) {
+			PickHit hit = tree.getPickIndex().pickTriangle(pickRay, filter);
+			if (hit.dist < closestHit.dist)
+				closestHit = hit;
+		}
+		return closestHit;
 	}
 
 	public List<Triangle> getTrianglesWithinRegion(BoundingBox box)
 	{
-		List<Triangle> triangleList = new ArrayList<>();
+		List<MapObject> objects = new ArrayList<>();
+		getObjectsWithinVolume(modelTree, box, objects);
+		getObjectsWithinVolume(colliderTree, box, objects);
+		getObjectsWithinVolume(zoneTree, box, objects);
 
-		ArrayList<AbstractMesh> meshes = new ArrayList<>();
-		for (Model mdl : modelTree)
-			if (!mdl.hidden && mdl.hasMesh())
-				meshes.add(mdl.getMesh());
-		for (Collider c : colliderTree)
-			if (!c.hidden && c.hasMesh())
-				meshes.add(c.mesh);
-		for (Zone z : zoneTree)
-			if (!z.hidden && z.hasMesh())
-				meshes.add(z.mesh);
-
-		for (AbstractMesh m : meshes) {
-			for (Triangle t : m) {
-				if (box.contains(t.getCenter()) && !triangleList.contains(t))
-					triangleList.add(t);
-			}
-		}
+		// every triangle belongs to exactly one mesh, so there are no duplicates
+		List<Triangle> triangleList = new ArrayList<>();
+		for (MapObject obj : objects)
+			TrianglePickTree.getCenteredWithin(obj.getMesh(), box, triangleList);
 
 		return triangleList;
 	}
 
 	public static PickHit pickTriangleFromObjectList(PickRay pickRay, Iterable<? extends MapObject> candidates)
 	{
+		if (candidates instanceof MapObjectTreeModel<?> tree) {
+			ObjectPickIndex<?> index = tree.getPickIndex();
+			if (index != null)
+				return index.pickTriangle(pickRay, (obj) -> !obj.hidden);
+		}
+
 		PickHit closestHit = new PickHit(pickRay, Float.MAX_VALUE);
 		for (MapObject obj : candidates) {
 			if (obj.hidden)
 				continue;
 
-			for (Triangle t : obj.getMesh()) {
-				PickHit hit = PickRay.getIntersection(pickRay, t);
-				if (hit.dist < closestHit.dist) {
-					closestHit = hit;
-					closestHit.obj = t;
-				}
-			}
+			PickHit hit = TrianglePickTree.pick(pickRay, obj.getMesh());
+			if (hit.dist < closestHit.dist)
+				closestHit = hit;
 		}
 		return closestHit;
 	}
@@ -588,68 +691,55 @@ public class Map implements XmlSerializable
 		return closestHit;
 	}
 
-	public Iterable<Vertex> getVerticesWithinVolume(BoundingBox viewingVolume)
+	/**
+	 * Finds the distinct positions of unselected vertices inside a volume, for vertex snapping.
+	 * This does not create the triangles of packed batches.
+	 */
+	public Collection<Vector3f> getVertexPositionsWithinVolume(BoundingBox viewingVolume)
 	{
-		LinkedList<MapObject> objects = new LinkedList<>();
-
-		for (MapObject o : modelTree)
-			if (!o.hidden && o.hasMesh() && o.AABB.overlaps(viewingVolume))
-				objects.add(o);
-
-		for (MapObject o : colliderTree)
-			if (!o.hidden && o.hasMesh() && o.AABB.overlaps(viewingVolume))
-				objects.add(o);
-
-		for (MapObject o : zoneTree)
-			if (!o.hidden && o.hasMesh() && o.AABB.overlaps(viewingVolume))
-				objects.add(o);
-
-		IdentityHashSet<Vertex> vertices = new IdentityHashSet<>();
-		for (MapObject obj : objects) {
-			for (Triangle t : obj.getMesh()) {
-				for (Vertex v : t.vert) {
-					if (viewingVolume.contains(v))
-						vertices.add(v);
-				}
-			}
-		}
-		return vertices;
+		List<MapObject> objects = new ArrayList<>();
+		getObjectsWithinVolume(modelTree, viewingVolume, objects);
+		getObjectsWithinVolume(colliderTree, viewingVolume, objects);
+		getObjectsWithinVolume(zoneTree, viewingVolume, objects);
+
+		Set<Vector3f> positions = new LinkedHashSet<>();
+		for (MapObject obj : objects)
+			TrianglePickTree.getVertexPositionsWithin(obj.getMesh(), viewingVolume, positions);
+		return positions;
 	}
 
-	public Iterable<Vertex> getVerticesWithinVolume(BoundingBox viewingVolume, MapObjectType category)
+	public Collection<Vector3f> getVertexPositionsWithinVolume(BoundingBox viewingVolume, MapObjectType category)
 	{
-		LinkedList<MapObject> objects = new LinkedList<>();
+		List<MapObject> objects = new ArrayList<>();
 
 		switch (category) {
 			case MODEL:
-				for (MapObject o : modelTree)
-					if (!o.hidden && o.hasMesh() && o.AABB.overlaps(viewingVolume))
-						objects.add(o);
+				getObjectsWithinVolume(modelTree, viewingVolume, objects);
 				break;
 			case COLLIDER:
-				for (MapObject o : colliderTree)
-					if (!o.hidden && o.hasMesh() && o.AABB.overlaps(viewingVolume))
-						objects.add(o);
+				getObjectsWithinVolume(colliderTree, viewingVolume, objects);
 				break;
 			case ZONE:
-				for (MapObject o : zoneTree)
-					if (!o.hidden && o.hasMesh() && o.AABB.overlaps(viewingVolume))
-						objects.add(o);
+				getObjectsWithinVolume(zoneTree, viewingVolume, objects);
 				break;
 			default:
 				break;
 		}
 
-		IdentityHashSet<Vertex> vertices = new IdentityHashSet<>();
-		for (MapObject obj : objects) {
-			for (Triangle t : obj.getMesh()) {
-				for (Vertex v : t.vert) {
-					if (viewingVolume.contains(v))
-						vertices.add(v);
-				}
-			}
-		}
-		return vertices;
+		Set<Vector3f> positions = new LinkedHashSet<>();
+		for (MapObject obj : objects)
+			TrianglePickTree.getVertexPositionsWithin(obj.getMesh(), viewingVolume, positions);
+		return positions;
+	}
+
+	private static <T extends MapObject> void getObjectsWithinVolume(MapObjectTreeModel<T> tree, BoundingBox volume, List<MapObject> objects)
+	{
+		List<T> overlapping = new ArrayList<>();
+		tree.getPickIndex().getOverlapping(volume, overlapping);
+
+		for (T o : overlapping)
+			if (!o.hidden && o.hasMesh())
+				objects.add(o);
 	}
 
 	public static Map loadMap(File f)
@@ -692,11 +782,7 @@ public class Map implements XmlSerializable
 	private static Map load(File f)
 	{
 		long t0 = System.nanoTime();
-		Map map = null;
-
-		XmlReader xmr = new XmlReader(f);
-		map = new Map();
-		map.fromXML(xmr, xmr.getRootElement());
+		Map map = BinaryMapFormat.isBinary(f) ? readBinary(f) : readCached(f);
 
 		long t1 = System.nanoTime();
 		double sec = (t1 - t0) / 1e9;
@@ -708,6 +794,52 @@ public class Map implements XmlSerializable
 		return map;
 	}
 
+	static Map readStream(File f)
+	{
+		try (XmlStreamReader xsr = new XmlStreamReader(f)) {
+			Map map = new Map();
+			map.fromStream(xsr);
+			return map;
+		}
+		catch (IOException e) {
+			throw new InputFileException(f, e.getMessage());
+		}
+	}
+
+	static Map readDocument(File f)
+	{
+		XmlReader xmr = new XmlReader(f);
+		Map map = new Map();
+		map.fromXML(xmr, xmr.getRootElement());
+		return map;
+	}
+
+	static Map readBinary(File f)
+	{
+		BinaryMapReader bmr = new BinaryMapReader(f);
+		Map map = new Map();
+		map.fromXML(bmr, bmr.getRootElement());
+		return map;
+	}
+
+	/**
+	 * Reads an XML map through its binary copy in the map cache, which is converted again
+	 * whenever the XML changes. Falls back to reading the XML if the copy cannot be used.
+	 */
+	static Map readCached(File f)
+	{
+		File cached = BinaryMapFormat.getCachedCopy(f);
+		if (cached != null) {
+			try {
+				return readBinary(cached);
+			}
+			catch (InputFileException e) {
+				Logger.logWarning("Could not read cached copy of " + f.getName() + ": " + e.getMessage());
+			}
+		}
+		return readStream(f);
+	}
+
 	public static void validateObjectData(Map map)
 	{
 		if (map.modelTree == null)
@@ -747,6 +879,64 @@ public class Map implements XmlSerializable
 			obj.initialize();
 	}
 
+	/**
+	 * Averages the triangle normals of each model, then averages those over all models.
+	 * Only the horizontal components are computed. This does not create the triangles of
+	 * packed batches.
+	 * @return the average normal, or null if no model has any triangles
+	 */
+	public Vector3f getAverageModelNormal()
+	{
+		int numMeshes = 0;
+		Vector3f normalSum = new Vector3f();
+		for (Model mdl : modelTree) {
+			int numTriangles = 0;
+			Vector3f mdlNormalSum = new Vector3f();
+			for (TriangleBatch batch : mdl.getMesh().getBatches()) {
+				for (TriangleView t : batch.viewTriangles()) {
+					Vector3f normal = t.getNormal();
+					if (normal == null)
+						continue;
+
+					mdlNormalSum.x += normal.x;
+					mdlNormalSum.z += normal.z;
+					numTriangles++;
+				}
+			}
+
+			if (numTriangles > 0) {
+				normalSum.x += (mdlNormalSum.x / numTriangles);
+				normalSum.z += (mdlNormalSum.z / numTriangles);
+				numMeshes++;
+			}
+		}
+
+		if (numMeshes == 0)
+			return null;
+
+		normalSum.x /= numMeshes;
+		normalSum.z /= numMeshes;
+		return normalSum;
+	}
+
+	/**
+	 * Passes the color of each opaque vertex of each model triangle to the action, in the order
+	 * the triangles are stored. This does not create the triangles of packed batches.
+	 */
+	public void forEachOpaqueVertexColor(Consumer<Color> action)
+	{
+		for (Model mdl : modelTree) {
+			for (TriangleBatch batch : mdl.getMesh().getBatches()) {
+				for (TriangleView t : batch.viewTriangles()) {
+					for (int k = 0; k < 3; k++) {
+						if (t.getColor(k, 3) == 255)
+							action.accept(new Color(t.getColor(k, 0), t.getColor(k, 1), t.getColor(k, 2), 255));
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Scans through all MapObjects and rebuilds bounding boxes for any marked
 	 * with dirtyAABB. Bounding box changes are propagated up the tree hierarchy.
@@ -805,13 +995,27 @@ public class Map implements XmlSerializable
 
 		markerTree.recalculateIndicies();
 
-		try (XmlWriter xmw = new XmlWriter(tempFile)) {
-			toXML(xmw);
-			xmw.save();
-		} // flushed on auto-close
+		try {
+			if (BinaryMapFormat.isBinary(file)) {
+				BinaryMapWriter bmw = new BinaryMapWriter();
+				toXML(bmw);
+				bmw.write(tempFile);
+			}
+			else {
+				try (Writer out = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8);
+					XmlWriter xmw = new XmlWriter(out)) {
+					toXML(xmw);
+					xmw.save();
+				} // flushed on auto-close
+			}
 
-		FileUtils.copyFile(tempFile, file);
-		FileUtils.deleteQuietly(tempFile);
+			// replace the old file only once the new one is complete
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (Exception e) {
+			FileUtils.deleteQuietly(tempFile);
+			throw e;
+		}
 		source = file;
 		saveFile = file;
 
@@ -1450,6 +1654,13 @@ public class Map implements XmlSerializable
 			map.bgImage = oldImage;
 			editor.needsBackgroundReload = true;
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			// whichever image is not in use is only held here
+			return DEFAULT_MEMORY_USAGE + getImageMemoryUsage(oldImage) + getImageMemoryUsage(newImage);
+		}
 	}
 
 	private static final int[][] BATTLE_ENEMY_POSITIONS = {
@@ -1,25 +1,34 @@
 package game.map;
 
 import static app.Directories.MOD_MAP_BUILD;
+import static game.map.MapKey.TAG_MARKER;
+import static game.map.MapKey.TAG_MARKERS;
 
-import java.io.Externalizable;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectOutput;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
+import org.w3c.dom.Element;
+
 import game.map.hit.Collider;
 import game.map.hit.Zone;
 import game.map.marker.Marker;
 import game.map.marker.Marker.MarkerType;
 import game.map.shape.Model;
 import util.Logger;
+import util.xml.XmlWrapper.XmlReader;
+import util.xml.XmlWrapper.XmlTag;
+import util.xml.XmlWrapper.XmlWriter;
 
-public class MapIndex implements Externalizable
+public class MapIndex
 {
 	private String mapName;
 	private String bgName;
@@ -35,6 +44,10 @@ public class MapIndex implements Externalizable
 
 	private ArrayList<Marker> entryList = new ArrayList<>();
 
+	private ArrayList<Marker> markerList = new ArrayList<>();
+	private byte[] markerData = null;
+	private volatile boolean markersLoaded = true;
+
 	public static File getFile()
 	{
 		return new File(MOD_MAP_BUILD + "index.bin");
@@ -69,24 +82,29 @@ public class MapIndex implements Externalizable
 			zoneIDLookup.put(indexed.id, indexed);
 		}
 
-		for (Marker m : map.markerTree) {
-			markerNameLookup.put(m.getName(), m);
-			if (m.getType() == MarkerType.Entry) {
-				m.entryID = entryList.size();
-				entryList.add(m);
-			}
-			else
-				m.entryID = -1;
-		}
+		for (Marker m : map.markerTree)
+			markerList.add(m);
+		indexMarkers();
 	}
 
 	// dumper want to use this, but defer markers until later
 	public void refreshMarkers(Map map)
+	{
+		markerList.clear();
+		for (Marker m : map.markerTree)
+			markerList.add(m);
+
+		indexMarkers();
+		markerData = null;
+		markersLoaded = true;
+	}
+
+	private void indexMarkers()
 	{
 		markerNameLookup.clear();
 		entryList.clear();
 
-		for (Marker m : map.markerTree) {
+		for (Marker m : markerList) {
 			markerNameLookup.put(m.getName(), m);
 			if (m.getType() == MarkerType.Entry) {
 				m.entryID = entryList.size();
@@ -144,6 +162,8 @@ public class MapIndex implements Externalizable
 
 	public Marker getMarker(String name)
 	{
+		if (!markersLoaded)
+			loadMarkers();
 		return markerNameLookup.get(name);
 	}
 
@@ -196,172 +216,173 @@ public class MapIndex implements Externalizable
 
 	public int getEntryCount()
 	{
+		if (!markersLoaded)
+			loadMarkers();
 		return entryList.size();
 	}
 
 	public List<Marker> getEntryList()
 	{
+		if (!markersLoaded)
+			loadMarkers();
 		return entryList;
 	}
 
-	@Override
-	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+	/**
+	 * Writes this index as a single record for {@link MapIndexStore}. Markers are stored
+	 * using their map XML representation so the record does not depend on Java serialization.
+	 */
+	public void write(DataOutputStream out) throws IOException
 	{
-		mapName = in.readUTF();
-		bgName = in.readUTF();
-		lastModified = in.readLong();
+		out.writeUTF(mapName);
+		out.writeUTF(bgName);
+		out.writeLong(lastModified);
+
+		Collection<IndexedModel> models = modelNameLookup.values();
+		out.writeInt(models.size());
+		for (IndexedModel indexed : models) {
+			out.writeInt(indexed.id);
+			out.writeUTF(indexed.name);
+		}
+
+		Collection<IndexedCollider> colliders = colliderNameLookup.values();
+		out.writeInt(colliders.size());
+		for (IndexedCollider indexed : colliders) {
+			out.writeInt(indexed.id);
+			out.writeUTF(indexed.name);
+		}
+
+		Collection<IndexedZone> zones = zoneNameLookup.values();
+		out.writeInt(zones.size());
+		for (IndexedZone indexed : zones) {
+			out.writeInt(indexed.id);
+			out.writeUTF(indexed.name);
+		}
+
+		byte[] markers = getMarkerData();
+		out.writeInt(markers.length);
+		out.write(markers);
+	}
+
+	public static MapIndex read(DataInputStream in) throws IOException
+	{
+		MapIndex index = new MapIndex();
+		index.mapName = in.readUTF();
+		index.bgName = in.readUTF();
+		index.lastModified = in.readLong();
 
 		int numModels = in.readInt();
 		for (int i = 0; i < numModels; i++) {
-			IndexedModel indexed = (IndexedModel) in.readObject();
-			modelNameLookup.put(indexed.name, indexed);
-			modelIDLookup.put(indexed.id, indexed);
+			IndexedModel indexed = new IndexedModel(in.readInt(), in.readUTF());
+			index.modelNameLookup.put(indexed.name, indexed);
+			index.modelIDLookup.put(indexed.id, indexed);
 		}
 
 		int numColliders = in.readInt();
 		for (int i = 0; i < numColliders; i++) {
-			IndexedCollider indexed = (IndexedCollider) in.readObject();
-			colliderNameLookup.put(indexed.name, indexed);
-			colliderIDLookup.put(indexed.id, indexed);
+			IndexedCollider indexed = new IndexedCollider(in.readInt(), in.readUTF());
+			index.colliderNameLookup.put(indexed.name, indexed);
+			index.colliderIDLookup.put(indexed.id, indexed);
 		}
 
 		int numZones = in.readInt();
 		for (int i = 0; i < numZones; i++) {
-			IndexedZone indexed = (IndexedZone) in.readObject();
-			zoneNameLookup.put(indexed.name, indexed);
-			zoneIDLookup.put(indexed.id, indexed);
+			IndexedZone indexed = new IndexedZone(in.readInt(), in.readUTF());
+			index.zoneNameLookup.put(indexed.name, indexed);
+			index.zoneIDLookup.put(indexed.id, indexed);
 		}
 
-		int numMarkers = in.readInt();
-		for (int i = 0; i < numMarkers; i++) {
-			Marker indexed = (Marker) in.readObject();
-			markerNameLookup.put(indexed.getName(), indexed);
-		}
+		// markers are only parsed if they are used
+		index.markerData = new byte[in.readInt()];
+		in.readFully(index.markerData);
+		index.markersLoaded = false;
 
-		int numEntries = in.readInt();
-		for (int i = 0; i < numEntries; i++) {
-			Marker indexed = (Marker) in.readObject();
-			entryList.add(indexed);
-		}
+		return index;
 	}
 
-	@Override
-	public void writeExternal(ObjectOutput out) throws IOException
+	private byte[] getMarkerData()
 	{
-		out.writeUTF(mapName);
-		out.writeUTF(bgName);
-		out.writeLong(lastModified);
-
-		Collection<IndexedModel> models = modelNameLookup.values();
-		out.writeInt(models.size());
-		for (IndexedModel indexed : models)
-			out.writeObject(indexed);
-
-		Collection<IndexedCollider> colliders = colliderNameLookup.values();
-		out.writeInt(colliders.size());
-		for (IndexedCollider indexed : colliders)
-			out.writeObject(indexed);
+		if (!markersLoaded)
+			return markerData;
+
+		StringWriter sw = new StringWriter();
+		XmlWriter xmw = new XmlWriter(sw);
+		XmlTag markersTag = xmw.createTag(TAG_MARKERS, false);
+		xmw.openTag(markersTag);
+		for (Marker m : markerList)
+			m.toXML(xmw);
+		xmw.closeTag(markersTag);
+		xmw.save();
+
+		return sw.toString().getBytes(StandardCharsets.UTF_8);
+	}
 
-		Collection<IndexedZone> zones = zoneNameLookup.values();
-		out.writeInt(zones.size());
-		for (IndexedZone indexed : zones)
-			out.writeObject(indexed);
+	private synchronized void loadMarkers()
+	{
+		if (markersLoaded)
+			return;
 
-		Collection<Marker> markers = markerNameLookup.values();
-		out.writeInt(markers.size());
-		for (Marker indexed : markers)
-			out.writeObject(indexed);
+		XmlReader xmr = new XmlReader(getFile(), new ByteArrayInputStream(markerData));
+		for (Element markerElem : xmr.getTags(xmr.getRootElement(), TAG_MARKER))
+			markerList.add(Marker.read(xmr, markerElem));
 
-		out.writeInt(entryList.size());
-		for (Marker indexed : entryList)
-			out.writeObject(indexed);
+		indexMarkers();
+		markerData = null;
+		markersLoaded = true;
 	}
 
-	public static class IndexedModel implements Externalizable
+	public static class IndexedModel
 	{
-		private int id;
-		private String name;
+		private final int id;
+		private final String name;
 
-		public IndexedModel()
-		{}
+		private IndexedModel(int id, String name)
+		{
+			this.id = id;
+			this.name = name;
+		}
 
 		public IndexedModel(Model mdl)
 		{
 			this.id = mdl.getNode().getTreeIndex();
 			this.name = mdl.getName();
 		}
-
-		@Override
-		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
-		{
-			id = in.readInt();
-			name = in.readUTF();
-		}
-
-		@Override
-		public void writeExternal(ObjectOutput out) throws IOException
-		{
-			out.writeInt(id);
-			out.writeUTF(name);
-		}
 	}
 
-	public static class IndexedCollider implements Externalizable
+	public static class IndexedCollider
 	{
-		private int id;
-		private String name;
+		private final int id;
+		private final String name;
 
-		public IndexedCollider()
-		{}
+		private IndexedCollider(int id, String name)
+		{
+			this.id = id;
+			this.name = name;
+		}
 
 		public IndexedCollider(Collider c)
 		{
 			this.id = c.getNode().getTreeIndex();
 			this.name = c.getName();
 		}
-
-		@Override
-		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
-		{
-			id = in.readInt();
-			name = in.readUTF();
-		}
-
-		@Override
-		public void writeExternal(ObjectOutput out) throws IOException
-		{
-			out.writeInt(id);
-			out.writeUTF(name);
-		}
 	}
 
-	public static class IndexedZone implements Externalizable
+	public static class IndexedZone
 	{
-		private int id;
-		private String name;
+		private final int id;
+		private final String name;
 
-		public IndexedZone()
-		{}
+		private IndexedZone(int id, String name)
+		{
+			this.id = id;
+			this.name = name;
+		}
 
 		public IndexedZone(Zone z)
 		{
 			this.id = z.getNode().getTreeIndex();
 			this.name = z.getName();
 		}
-
-		@Override
-		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
-		{
-			id = in.readInt();
-			name = in.readUTF();
-		}
-
-		@Override
-		public void writeExternal(ObjectOutput out) throws IOException
-		{
-			out.writeInt(id);
-			out.writeUTF(name);
-		}
 	}
 
 	/*
@@ -0,0 +1,227 @@
+package game.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import util.Logger;
+
+/**
+ * Persistent store for {@link MapIndex} records. The file is a short header followed by
+ * one slot per map:
+ * <pre>
+ * int capacity
+ * int length (zero for free slots)
+ * byte[capacity] record
+ * </pre>
+ * Slots are allocated with some spare room so a reindexed map can usually be rewritten
+ * in place. Records which no longer fit are moved to the end of the file, and the file is
+ * compacted once more than half of it is unused.
+ */
+public class MapIndexStore implements AutoCloseable
+{
+	private static final int MAGIC = 0x4D494458; // MIDX
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int SLOT_HEADER_SIZE = 8;
+
+	private static class Slot
+	{
+		private final long offset;
+		private final int capacity;
+		private int length;
+		private MapIndex index;
+
+		private Slot(long offset, int capacity, int length)
+		{
+			this.offset = offset;
+			this.capacity = capacity;
+			this.length = length;
+		}
+	}
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final LinkedHashMap<String, Slot> slots = new LinkedHashMap<>();
+	private long unusedBytes = 0;
+
+	public MapIndexStore(File file) throws IOException
+	{
+		this.file = file;
+		raf = new RandomAccessFile(file, "rw");
+
+		try {
+			if (!readSlots())
+				reset();
+		}
+		catch (IOException e) {
+			Logger.logWarning("Map index is corrupt and will be rebuilt: " + e.getMessage());
+			reset();
+		}
+	}
+
+	private boolean readSlots() throws IOException
+	{
+		if (raf.length() < HEADER_SIZE)
+			return false;
+
+		raf.seek(0);
+		if (raf.readInt() != MAGIC || raf.readInt() != FORMAT_VERSION)
+			return false;
+
+		long fileLength = raf.length();
+		long pos = HEADER_SIZE;
+
+		while (pos + SLOT_HEADER_SIZE <= fileLength) {
+			raf.seek(pos);
+			int capacity = raf.readInt();
+			int length = raf.readInt();
+
+			if (capacity < 0 || length < 0 || length > capacity || pos + SLOT_HEADER_SIZE + capacity > fileLength)
+				throw new IOException("Invalid slot at " + pos);
+
+			Slot slot = new Slot(pos, capacity, length);
+			pos += SLOT_HEADER_SIZE + capacity;
+
+			if (length == 0) {
+				unusedBytes += SLOT_HEADER_SIZE + capacity;
+				continue;
+			}
+
+			byte[] record = new byte[length];
+			raf.readFully(record);
+			slot.index = MapIndex.read(new DataInputStream(new ByteArrayInputStream(record)));
+			unusedBytes += capacity - length;
+
+			Slot previous = slots.put(slot.index.getMapName(), slot);
+			if (previous != null)
+				free(previous);
+		}
+
+		return true;
+	}
+
+	private void reset() throws IOException
+	{
+		slots.clear();
+		unusedBytes = 0;
+
+		raf.setLength(0);
+		raf.seek(0);
+		raf.writeInt(MAGIC);
+		raf.writeInt(FORMAT_VERSION);
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	public MapIndex get(String mapName)
+	{
+		Slot slot = slots.get(mapName);
+		return (slot == null) ? null : slot.index;
+	}
+
+	public Collection<String> getMapNames()
+	{
+		return slots.keySet();
+	}
+
+	/**
+	 * Adds or replaces the record for a map, rewriting its slot in place if the new record fits.
+	 */
+	public void put(MapIndex index) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		index.write(new DataOutputStream(bytes));
+		byte[] record = bytes.toByteArray();
+
+		String name = index.getMapName();
+		Slot slot = slots.get(name);
+
+		if (slot != null && record.length <= slot.capacity) {
+			unusedBytes += slot.length - record.length;
+		}
+		else {
+			if (slot != null)
+				free(slot);
+
+			// leave room to grow, since maps tend to be edited more than once
+			int capacity = record.length + record.length / 4;
+			slot = new Slot(raf.length(), capacity, 0);
+			unusedBytes += capacity - record.length;
+			slots.put(name, slot);
+		}
+
+		slot.length = record.length;
+		slot.index = index;
+
+		raf.seek(slot.offset);
+		raf.writeInt(slot.capacity);
+		raf.writeInt(slot.length);
+		raf.write(record);
+	}
+
+	/**
+	 * Frees the records for any maps not contained in <code>mapNames</code>.
+	 */
+	public void retainAll(Collection<String> mapNames) throws IOException
+	{
+		HashSet<String> keep = new HashSet<>(mapNames);
+		Iterator<java.util.Map.Entry<String, Slot>> iter = slots.entrySet().iterator();
+		while (iter.hasNext()) {
+			java.util.Map.Entry<String, Slot> e = iter.next();
+			if (!keep.contains(e.getKey())) {
+				free(e.getValue());
+				iter.remove();
+			}
+		}
+	}
+
+	private void free(Slot slot) throws IOException
+	{
+		unusedBytes += SLOT_HEADER_SIZE + slot.length;
+		slot.length = 0;
+
+		raf.seek(slot.offset + 4);
+		raf.writeInt(0);
+	}
+
+	/**
+	 * Rewrites the file without free space if more than half of it is unused.
+	 */
+	private void compactIfNeeded() throws IOException
+	{
+		if (unusedBytes * 2 <= raf.length())
+			return;
+
+		HashMap<String, MapIndex> indices = new LinkedHashMap<>();
+		for (Slot slot : slots.values())
+			indices.put(slot.index.getMapName(), slot.index);
+
+		reset();
+		for (MapIndex index : indices.values())
+			put(index);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try {
+			compactIfNeeded();
+		}
+		finally {
+			raf.close();
+		}
+	}
+}
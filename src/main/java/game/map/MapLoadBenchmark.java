@@ -0,0 +1,198 @@
+package game.map;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+
+import app.Directories;
+import app.Environment;
+import app.input.IOUtils;
+import util.xml.XmlWrapper.XmlWriter;
+
+/**
+ * Compares loading maps through a full DOM with {@link Map#readDocument(File)}, the streaming
+ * reader used by {@link Map#readStream(File)}, and the {@link BinaryMapFormat} read by
+ * {@link Map#readBinary(File)}, then compares saving maps as XML and as binary. Every map is
+ * converted to binary both from its XML and from the loaded map, and all readers must produce
+ * maps which save identically before anything is measured. Peak heap is sampled from the memory
+ * pools, so it is only indicative and should be compared between runs on the same machine.
+ */
+public class MapLoadBenchmark
+{
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int MEASURED_ROUNDS = 5;
+
+	private static interface MapSaver
+	{
+		public void save(Map map, File f) throws IOException;
+	}
+
+	public static void main(String args[]) throws IOException
+	{
+		Environment.initialize();
+
+		Collection<File> xmlFiles = IOUtils.getFilesWithExtension(Directories.DUMP_MAP_SRC, "xml", false);
+		List<File> files = new ArrayList<>(xmlFiles);
+		System.out.printf("Found %d maps%n", files.size());
+
+		File tempDir = Files.createTempDirectory("StarRod_maps").toFile();
+		try {
+			List<File> binaryFiles = new ArrayList<>(files.size());
+			List<Map> maps = new ArrayList<>(files.size());
+			long xmlBytes = 0;
+			long binaryBytes = 0;
+
+			int mismatches = 0;
+			for (File f : files) {
+				File converted = new File(tempDir, FilenameUtils.getBaseName(f.getName()) + BinaryMapFormat.EXTENSION);
+				File written = new File(tempDir, FilenameUtils.getBaseName(f.getName()) + "_saved" + BinaryMapFormat.EXTENSION);
+				BinaryMapFormat.convert(f, converted);
+
+				Map map = Map.readStream(f);
+				saveBinary(map, written);
+
+				String expected = save(map);
+				if (!expected.equals(save(Map.readDocument(f)))
+					|| !expected.equals(save(Map.readBinary(converted)))
+					|| !expected.equals(save(Map.readBinary(written)))) {
+					System.out.println("Readers differ for " + f.getName());
+					mismatches++;
+				}
+
+				binaryFiles.add(converted);
+				maps.add(map);
+				xmlBytes += f.length();
+				binaryBytes += converted.length();
+			}
+			System.out.printf("Readers differ for %d of %d maps%n", mismatches, files.size());
+			System.out.printf("XML %.1f MB, binary %.1f MB%n", xmlBytes / (1024.0 * 1024.0), binaryBytes / (1024.0 * 1024.0));
+
+			measure("DOM", files, Map::readDocument);
+			measure("Stream", files, Map::readStream);
+			measure("Binary", binaryFiles, Map::readBinary);
+
+			measureSave("Save XML", maps, new File(tempDir, "save.xml"), MapLoadBenchmark::saveXML);
+			measureSave("Save bin", maps, new File(tempDir, "save" + BinaryMapFormat.EXTENSION), MapLoadBenchmark::saveBinary);
+		}
+		finally {
+			FileUtils.deleteDirectory(tempDir);
+		}
+
+		Environment.exit();
+	}
+
+	private static String save(Map map)
+	{
+		StringWriter sw = new StringWriter();
+		XmlWriter xmw = new XmlWriter(sw);
+		map.toXML(xmw);
+		xmw.save();
+		return sw.toString();
+	}
+
+	private static void saveXML(Map map, File f) throws IOException
+	{
+		try (Writer w = Files.newBufferedWriter(f.toPath(), StandardCharsets.UTF_8);
+			XmlWriter xmw = new XmlWriter(w)) {
+			map.toXML(xmw);
+			xmw.save();
+		}
+	}
+
+	private static void saveBinary(Map map, File f) throws IOException
+	{
+		BinaryMapWriter bmw = new BinaryMapWriter();
+		map.toXML(bmw);
+		bmw.write(f);
+	}
+
+	private static void measure(String name, List<File> files, Function<File, Map> reader)
+	{
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			for (File f : files)
+				reader.apply(f);
+		}
+
+		List<MemoryPoolMXBean> pools = resetPeakUsage();
+
+		long allocStart = getAllocatedBytes();
+		long t0 = System.nanoTime();
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			for (File f : files)
+				reader.apply(f);
+		}
+		long t1 = System.nanoTime();
+		long allocated = getAllocatedBytes() - allocStart;
+
+		printResult(name, files.size(), t1 - t0, allocated, getPeakUsage(pools));
+	}
+
+	private static void measureSave(String name, List<Map> maps, File f, MapSaver saver) throws IOException
+	{
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			for (Map map : maps)
+				saver.save(map, f);
+		}
+
+		List<MemoryPoolMXBean> pools = resetPeakUsage();
+
+		long allocStart = getAllocatedBytes();
+		long t0 = System.nanoTime();
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			for (Map map : maps)
+				saver.save(map, f);
+		}
+		long t1 = System.nanoTime();
+		long allocated = getAllocatedBytes() - allocStart;
+
+		printResult(name, maps.size(), t1 - t0, allocated, getPeakUsage(pools));
+	}
+
+	private static List<MemoryPoolMXBean> resetPeakUsage()
+	{
+		System.gc();
+		List<MemoryPoolMXBean> pools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+
+	private static long getPeakUsage(List<MemoryPoolMXBean> pools)
+	{
+		long peak = 0;
+		for (MemoryPoolMXBean pool : pools)
+			peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+
+	private static void printResult(String name, int mapCount, long nanos, long allocated, long peak)
+	{
+		double count = (double) MEASURED_ROUNDS * mapCount;
+		System.out.printf("%-8s %8.2f ms per map  %8.1f MB allocated per map  %8.1f MB peak heap%n",
+			name, 1e-6 * nanos / count, allocated / count / (1024.0 * 1024.0), peak / (1024.0 * 1024.0));
+	}
+
+	private static long getAllocatedBytes()
+	{
+		// measures allocations on the benchmark thread only
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
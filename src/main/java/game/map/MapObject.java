@@ -12,6 +12,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.w3c.dom.Element;
 
@@ -42,12 +44,13 @@ public abstract class MapObject extends UpdateProvider implements Selectable, Ex
 	private int instanceVersion = latestVersion;
 	private static final int latestVersion = 1;
 
-	private static int nextID = 0;
+	// maps may be loaded concurrently during indexing
+	private static final AtomicInteger nextID = new AtomicInteger();
 	public final int uniqueID;
 
 	public MapObject(MapObjectType type)
 	{
-		uniqueID = nextID++;
+		uniqueID = nextID.getAndIncrement();
 	}
 
 	private transient boolean transforming = false;
@@ -59,6 +62,9 @@ public abstract class MapObject extends UpdateProvider implements Selectable, Ex
 	 */
 	public transient BoundingBox AABB = new BoundingBox();
 
+	// stamped on bounding boxes when they are recalculated, so picking structures can tell when to refit
+	private static final AtomicLong aabbRevision = new AtomicLong();
+
 	/**
 	 * Many things can cause the bounding box of a mesh to change.
 	 * Rather than meticulously recalculating them every time the mesh changes, simply
@@ -320,6 +326,7 @@ public abstract class MapObject extends UpdateProvider implements Selectable, Ex
 		AABB.clear();
 		if (hasMesh())
 			AABB.encompass(getMesh());
+		AABB.lastRecalculated = aabbRevision.incrementAndGet();
 	}
 
 	@Override
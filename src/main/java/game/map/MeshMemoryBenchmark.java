@@ -0,0 +1,271 @@
+package game.map;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.StringWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import app.Directories;
+import app.Environment;
+import app.input.IOUtils;
+import common.Vector3f;
+import game.map.editor.selection.PickRay;
+import game.map.editor.selection.PickRay.Channel;
+import game.map.editor.selection.PickRay.PickHit;
+import game.map.mesh.AbstractMesh;
+import game.map.shape.Model;
+import game.map.shape.TriangleBatch;
+import util.xml.XmlWrapper.XmlWriter;
+
+/**
+ * Compares maps whose triangle batches stay packed with the same maps after every batch has created
+ * its triangle objects, as happens once geometry is edited. For the largest dumped maps this reports
+ * the heap retained by the loaded maps, and the garbage collections during loading, during the work
+ * the map editor does on every mesh when it opens a map, and during a number of simulated editor
+ * frames which update transforms and bounding boxes. Both versions of each map must save identically,
+ * open with the same camera and palette, and give the same picks and vertex snapping positions before
+ * anything is measured. Neither opening nor picking may create the triangles of any packed batch.
+ */
+public class MeshMemoryBenchmark
+{
+	private static final int MAP_COUNT = 20;
+	private static final int FRAMES = 200;
+
+	private static class GCStats
+	{
+		private long count;
+		private long millis;
+
+		private static GCStats sample()
+		{
+			GCStats stats = new GCStats();
+			for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+				stats.count += Math.max(0, bean.getCollectionCount());
+				stats.millis += Math.max(0, bean.getCollectionTime());
+			}
+			return stats;
+		}
+
+		private GCStats since(GCStats start)
+		{
+			GCStats stats = new GCStats();
+			stats.count = count - start.count;
+			stats.millis = millis - start.millis;
+			return stats;
+		}
+	}
+
+	public static void main(String args[])
+	{
+		Environment.initialize();
+
+		Collection<File> xmlFiles = IOUtils.getFilesWithExtension(Directories.DUMP_MAP_SRC, "xml", false);
+		List<File> files = new ArrayList<>(xmlFiles);
+		files.sort(Comparator.comparingLong(File::length).reversed());
+		if (files.size() > MAP_COUNT)
+			files = files.subList(0, MAP_COUNT);
+		System.out.printf("Using the %d largest maps%n", files.size());
+
+		int mismatches = 0;
+		int unpacked = 0;
+		for (File f : files) {
+			Map packed = Map.readStream(f);
+			Map expanded = Map.readStream(f);
+			expandAll(expanded);
+
+			int packedBatches = countPacked(packed);
+			String packedOpen = open(packed);
+			String expandedOpen = open(expanded);
+
+			simulateFrames(packed, 1);
+			simulateFrames(expanded, 1);
+
+			String packedPick = pick(packed);
+			String expandedPick = pick(expanded);
+			unpacked += packedBatches - countPacked(packed);
+
+			if (!packedOpen.equals(expandedOpen) || !packedPick.equals(expandedPick) || !save(packed).equals(save(expanded))) {
+				System.out.println("Packed map differs for " + f.getName());
+				mismatches++;
+			}
+		}
+		System.out.printf("Packed maps differ for %d of %d maps%n", mismatches, files.size());
+		System.out.printf("Opening and picking from the maps unpacked %d batches%n", unpacked);
+
+		// warm up both paths before measuring
+		for (int i = 0; i < 2; i++) {
+			measure(files, false, false);
+			measure(files, true, false);
+		}
+
+		measure(files, false, true);
+		measure(files, true, true);
+
+		Environment.exit();
+	}
+
+	private static void measure(List<File> files, boolean expand, boolean print)
+	{
+		long baseline = getRetainedHeap();
+
+		GCStats loadStart = GCStats.sample();
+		long t0 = System.nanoTime();
+		List<Map> maps = new ArrayList<>(files.size());
+		for (File f : files) {
+			Map map = Map.readStream(f);
+			if (expand)
+				expandAll(map);
+			maps.add(map);
+		}
+		long t1 = System.nanoTime();
+		GCStats loadGC = GCStats.sample().since(loadStart);
+
+		GCStats openStart = GCStats.sample();
+		long t4 = System.nanoTime();
+		for (Map map : maps)
+			open(map);
+		long t5 = System.nanoTime();
+		GCStats openGC = GCStats.sample().since(openStart);
+
+		long retained = getRetainedHeap() - baseline;
+
+		GCStats frameStart = GCStats.sample();
+		long t2 = System.nanoTime();
+		for (Map map : maps)
+			simulateFrames(map, FRAMES);
+		long t3 = System.nanoTime();
+		GCStats frameGC = GCStats.sample().since(frameStart);
+
+		if (!print)
+			return;
+
+		String name = expand ? "Expanded" : "Packed";
+		System.out.printf("%-8s %8.1f MB retained  load %8.1f ms (%d GCs, %d ms)  open %8.1f ms (%d GCs, %d ms)  frames %8.3f ms per frame (%d GCs, %d ms)%n",
+			name, retained / (1024.0 * 1024.0),
+			1e-6 * (t1 - t0), loadGC.count, loadGC.millis,
+			1e-6 * (t5 - t4), openGC.count, openGC.millis,
+			1e-6 * (t3 - t2) / FRAMES, frameGC.count, frameGC.millis);
+	}
+
+	private static void expandAll(Map map)
+	{
+		for (MapObject obj : map.modelTree.getList())
+			expand(obj);
+		for (MapObject obj : map.colliderTree.getList())
+			expand(obj);
+		for (MapObject obj : map.zoneTree.getList())
+			expand(obj);
+	}
+
+	private static void expand(MapObject obj)
+	{
+		if (!obj.hasMesh())
+			return;
+
+		AbstractMesh mesh = obj.getMesh();
+		for (TriangleBatch batch : mesh.getBatches())
+			batch.getTriangles();
+	}
+
+	private static int countPacked(Map map)
+	{
+		return countPacked(map.modelTree.getList()) + countPacked(map.colliderTree.getList()) + countPacked(map.zoneTree.getList());
+	}
+
+	private static int countPacked(List<? extends MapObject> objects)
+	{
+		int count = 0;
+		for (MapObject obj : objects) {
+			if (!obj.hasMesh())
+				continue;
+			for (TriangleBatch batch : obj.getMesh().getBatches()) {
+				if (batch.isPacked())
+					count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Does the work MapEditor does for every mesh when it opens a map, minus anything needing a GL context.
+	 * @return a summary of the results, which must not depend on whether batches are packed
+	 */
+	private static String open(Map map)
+	{
+		map.initializeAllObjects();
+
+		Vector3f normal = map.getAverageModelNormal();
+
+		List<Color> colors = new ArrayList<>();
+		map.forEachOpaqueVertexColor(colors::add);
+
+		return String.valueOf(normal) + " " + colors.size() + " " + colors.hashCode();
+	}
+
+	/**
+	 * Does the picking the map editor does for clicks, color picks, and vertex snapping, with a ray
+	 * down through the center of every object with a mesh and a snapping volume around it. Selecting
+	 * triangles is left out, since that needs the triangles of the batches holding them.
+	 * @return a summary of the results, which must not depend on whether batches are packed
+	 */
+	private static String pick(Map map)
+	{
+		List<MapObject> objects = new ArrayList<>();
+		objects.addAll(map.modelTree.getList());
+		objects.addAll(map.colliderTree.getList());
+		objects.addAll(map.zoneTree.getList());
+
+		StringBuilder sb = new StringBuilder();
+		for (MapObject obj : objects) {
+			if (!obj.hasMesh() || obj.AABB.isEmpty())
+				continue;
+
+			Vector3f center = obj.AABB.getCenter();
+			Vector3f start = new Vector3f(center.x, obj.AABB.max.getY() + 100, center.z);
+			PickRay ray = new PickRay(Channel.SELECTION, start, PickRay.DOWN);
+
+			PickHit modelHit = Map.pickObjectFromSet(ray, map.modelTree);
+			PickHit colliderHit = Map.pickObjectFromSet(ray, map.colliderTree);
+			PickHit zoneHit = Map.pickObjectFromSet(ray, map.zoneTree);
+			PickHit triangleHit = map.pickNearestTriangle(ray);
+			PickHit colorHit = Map.pickTriangleFromObjectList(ray, map.modelTree);
+			Collection<Vector3f> positions = map.getVertexPositionsWithinVolume(obj.AABB);
+
+			sb.append(modelHit.dist).append(' ').append(colliderHit.dist).append(' ').append(zoneHit.dist)
+				.append(' ').append(triangleHit.dist).append(' ').append(colorHit.dist)
+				.append(' ').append(positions.size()).append(' ').append(positions.hashCode()).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static void simulateFrames(Map map, int frames)
+	{
+		Model root = map.modelTree.getRoot().getUserObject();
+		for (int i = 0; i < frames; i++) {
+			root.updateTransformHierarchy();
+			map.recalculateBoundingBoxes();
+		}
+	}
+
+	private static String save(Map map)
+	{
+		StringWriter sw = new StringWriter();
+		XmlWriter xmw = new XmlWriter(sw);
+		map.toXML(xmw);
+		xmw.save();
+		return sw.toString();
+	}
+
+	private static long getRetainedHeap()
+	{
+		// a few collections to settle finalizers and soft references
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
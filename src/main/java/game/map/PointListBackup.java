@@ -1,40 +1,113 @@
 package game.map;
 
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
 import game.map.MutablePoint.PointBackup;
-import util.identity.IdentityHashSet;
+import util.CompressibleIntArray;
 
+/**
+ * Old and new positions for a set of points, kept as one reference per point and a packed array
+ * of coordinates. Points added more than once are stored once, which matters for meshes where each
+ * vertex is reached through every triangle sharing it. The coordinates may be compressed while the
+ * backup sits in the undo history.
+ */
 public class PointListBackup extends ReversibleTransform
 {
-	private IdentityHashSet<PointBackup> backupList;
+	// per point: old x, y, z, new x, y, z
+	private static final int STRIDE = 6;
+
+	private MutablePoint[] points;
+	private int[] coords;
+	private int count = 0;
+
+	// only needed while points are being added
+	private IdentityHashMap<MutablePoint, Integer> indexMap;
+
+	private CompressibleIntArray packedCoords;
 
 	public PointListBackup()
 	{
-		backupList = new IdentityHashSet<>();
+		points = new MutablePoint[16];
+		coords = new int[STRIDE * 16];
+		indexMap = new IdentityHashMap<>();
 	}
 
 	public PointListBackup(PointBackup pb)
 	{
-		backupList = new IdentityHashSet<>();
-		backupList.add(pb);
+		this();
+		addPoint(pb);
 	}
 
 	public void addPoint(PointBackup pb)
 	{
-		backupList.add(pb);
+		if (packedCoords != null)
+			throw new IllegalStateException("Can't add points to a backup after it has been used.");
+
+		Integer index = indexMap.get(pb.pos);
+		if (index == null) {
+			index = count++;
+			indexMap.put(pb.pos, index);
+
+			if (count > points.length) {
+				points = Arrays.copyOf(points, 2 * points.length);
+				coords = Arrays.copyOf(coords, STRIDE * points.length);
+			}
+			points[index] = pb.pos;
+		}
+
+		int i = STRIDE * index;
+		coords[i] = pb.oldx;
+		coords[i + 1] = pb.oldy;
+		coords[i + 2] = pb.oldz;
+		coords[i + 3] = pb.newx;
+		coords[i + 4] = pb.newy;
+		coords[i + 5] = pb.newz;
+	}
+
+	private void pack()
+	{
+		if (packedCoords == null) {
+			points = Arrays.copyOf(points, count);
+			packedCoords = new CompressibleIntArray(Arrays.copyOf(coords, STRIDE * count));
+			coords = null;
+			indexMap = null;
+		}
+	}
+
+	private int[] getCoords()
+	{
+		pack();
+		return packedCoords.get();
 	}
 
 	@Override
 	public void transform()
 	{
-		for (PointBackup b : backupList)
-			b.pos.setPosition(b.newx, b.newy, b.newz);
+		int[] c = getCoords();
+		for (int i = 0; i < count; i++)
+			points[i].setPosition(c[STRIDE * i + 3], c[STRIDE * i + 4], c[STRIDE * i + 5]);
 	}
 
 	@Override
 	public void revert()
 	{
-		for (PointBackup b : backupList)
-			b.pos.setPosition(b.oldx, b.oldy, b.oldz);
+		int[] c = getCoords();
+		for (int i = 0; i < count; i++)
+			points[i].setPosition(c[STRIDE * i], c[STRIDE * i + 1], c[STRIDE * i + 2]);
+	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		pack();
+		return DEFAULT_MEMORY_USAGE + 16 + 4L * points.length + packedCoords.getMemoryUsage();
 	}
 
+	@Override
+	public void compress()
+	{
+		pack();
+		packedCoords.compress();
+	}
 }
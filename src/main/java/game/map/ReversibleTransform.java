@@ -2,7 +2,24 @@ package game.map;
 
 public abstract class ReversibleTransform
 {
+	// rough size of a transform holding a few fields, used when nothing better is known
+	public static final long DEFAULT_MEMORY_USAGE = 64;
+
 	public abstract void transform();
 
 	public abstract void revert();
+
+	/**
+	 * @return approximate number of bytes held for transforming and reverting
+	 */
+	public long getMemoryUsage()
+	{
+		return DEFAULT_MEMORY_USAGE;
+	}
+
+	/**
+	 * Compresses any saved state which can be restored the next time it is used.
+	 */
+	public void compress()
+	{}
 }
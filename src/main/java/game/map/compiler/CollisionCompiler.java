@@ -21,6 +21,7 @@ import game.map.mesh.Triangle;
 import game.map.mesh.Vertex;
 import game.map.tree.MapObjectNode;
 import game.yay0.Yay0Helper;
+import game.yay0.Yay0Helper.EncodeMode;
 import util.Logger;
 import util.Priority;
 
@@ -51,7 +52,7 @@ public class CollisionCompiler
 		raf.close();
 
 		byte[] complete = FileUtils.readFileToByteArray(build_dec);
-		byte[] encoded = Yay0Helper.encode(complete);
+		byte[] encoded = Yay0Helper.encode(complete, EncodeMode.OPTIMAL);
 
 		if (!isDecomp) {
 			File build = new File(Directories.MOD_MAP_BUILD + map.name + "_hit");
@@ -152,7 +153,7 @@ public class CollisionCompiler
 			raf.writeShort(c.c_ChildIndex);
 
 			if (c.hasMesh()) {
-				int triangleCount = c.mesh.batch.triangles.size();
+				int triangleCount = c.mesh.batch.getTriangleCount();
 				raf.writeShort(triangleCount);
 				raf.writeInt(c.c_TriangleOffset);
 			}
@@ -291,7 +292,7 @@ public class CollisionCompiler
 			raf.writeShort(z.c_ChildIndex);
 
 			if (z.hasMesh()) {
-				int triangleCount = z.mesh.batch.triangles.size();
+				int triangleCount = z.mesh.batch.getTriangleCount();
 				raf.writeShort(triangleCount);
 				raf.writeInt(z.c_TriangleOffset);
 			}
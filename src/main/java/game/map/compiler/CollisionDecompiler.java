@@ -93,7 +93,7 @@ public class CollisionDecompiler
 				bb.position(triangleOffset);
 				for (int j = 0; j < numTriangles; j++) {
 					Triangle t = makeTriangle(vertexList, bb.getInt());
-					c.mesh.batch.triangles.add(t);
+					c.mesh.batch.getTriangles().add(t);
 				}
 			}
 
@@ -213,7 +213,7 @@ public class CollisionDecompiler
 				bb.position(bb.getInt());
 				for (int j = 0; j < numTriangles; j++) {
 					Triangle t = makeTriangle(vertexList, bb.getInt());
-					z.mesh.batch.triangles.add(t);
+					z.mesh.batch.getTriangles().add(t);
 				}
 			}
 
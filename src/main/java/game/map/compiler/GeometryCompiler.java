@@ -29,6 +29,7 @@ import game.map.shape.TriangleBatch;
 import game.map.shape.commands.DisplayCommand;
 import game.map.tree.MapObjectNode;
 import game.yay0.Yay0Helper;
+import game.yay0.Yay0Helper.EncodeMode;
 import util.Logger;
 import util.Priority;
 
@@ -169,7 +170,7 @@ public class GeometryCompiler
 		}
 
 		if (!isDecomp) {
-			byte[] encoded = Yay0Helper.encode(complete);
+			byte[] encoded = Yay0Helper.encode(complete, EncodeMode.OPTIMAL);
 
 			File buildFile = new File(Directories.MOD_MAP_BUILD + map.name + "_shape");
 			FileUtils.writeByteArrayToFile(buildFile, encoded);
@@ -303,7 +304,7 @@ public class GeometryCompiler
 		for (int i = 0; i < mesh.displayListModel.size(); i++) {
 			DisplayCommand cmd = mesh.displayListModel.getElementAt(i);
 			if (cmd instanceof TriangleBatch) {
-				writeTriangleList(((TriangleBatch) cmd).triangles);
+				writeTriangleList(((TriangleBatch) cmd).getTriangles());
 			}
 			else {
 				int[] v = cmd.getF3DEX2Command();
@@ -542,17 +542,17 @@ public class GeometryDecompiler
 
 				case F3DEX2_DRAW_TRIS:
 					Triangle t1 = buildTriangle(code);
-					currentBatch.triangles.add(t1);
+					currentBatch.getTriangles().add(t1);
 
 					Triangle t2 = buildTriangle(arg);
-					currentBatch.triangles.add(t2);
+					currentBatch.getTriangles().add(t2);
 
 					readingTriangles = true;
 					break;
 
 				case F3DEX2_DRAW_TRI:
 					Triangle t = buildTriangle(code);
-					currentBatch.triangles.add(t);
+					currentBatch.getTriangles().add(t);
 					assert (arg == 0);
 
 					readingTriangles = true;
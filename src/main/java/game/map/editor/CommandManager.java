@@ -1,25 +1,97 @@
 package game.map.editor;
 
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 
 import game.map.editor.commands.AbstractCommand;
-import util.EvictingStack;
 import util.Logger;
 
+/**
+ * Undo and redo history for the map editor. The history is limited by the memory its commands
+ * report holding: the oldest commands are dropped once the total exceeds the budget, though the
+ * most recent command is always kept. The number of commands is also capped, since commands which
+ * do not know their size only report a small default. Commands which have been in the undo history
+ * for a while may be asked to compress their saved state.
+ * <p>
+ * Commands run on the editor thread, while the GUI may read a snapshot of the history at any time.
+ */
 public class CommandManager
 {
-	private EvictingStack<AbstractCommand> undoStack;
-	private Stack<AbstractCommand> redoStack;
+	public static final int DEFAULT_MEMORY_LIMIT_MB = 256;
+	public static final int DEFAULT_UNDO_LIMIT = 256;
+
+	// this many of the most recent commands are never compressed
+	private static final int RECENT_COMMANDS = 4;
+
+	public static final class HistoryEntry
+	{
+		public final AbstractCommand cmd;
+		private long memoryUsage;
+		private boolean compressed;
+
+		private HistoryEntry(AbstractCommand cmd)
+		{
+			this.cmd = cmd;
+			update();
+		}
+
+		private void update()
+		{
+			memoryUsage = cmd.getMemoryUsage();
+		}
+
+		public long getMemoryUsage()
+		{
+			return memoryUsage;
+		}
+
+		public boolean isCompressed()
+		{
+			return compressed;
+		}
+	}
+
+	// most recent commands are last
+	private final Deque<HistoryEntry> undoStack;
+	private final Deque<HistoryEntry> redoStack;
+
+	private long memoryLimit;
+	private int undoLimit;
+	private boolean compressHistory;
+
+	public CommandManager()
+	{
+		this(DEFAULT_UNDO_LIMIT);
+	}
 
 	public CommandManager(int undoLimit)
 	{
-		undoStack = new EvictingStack<>(undoLimit);
-		redoStack = new Stack<>();
+		undoStack = new ArrayDeque<>();
+		redoStack = new ArrayDeque<>();
+		memoryLimit = DEFAULT_MEMORY_LIMIT_MB * 1024L * 1024L;
+		this.undoLimit = Math.max(1, undoLimit);
+		compressHistory = true;
 	}
 
-	public void setUndoLimit(int undoLimit)
+	public synchronized void setUndoLimit(int undoLimit)
 	{
-		undoStack.setCapacity(undoLimit);
+		this.undoLimit = Math.max(1, undoLimit);
+		evict();
+	}
+
+	public synchronized void setMemoryLimit(long bytes)
+	{
+		memoryLimit = bytes;
+		evict();
+	}
+
+	public synchronized void setCompressHistory(boolean compress)
+	{
+		compressHistory = compress;
+		compressOlder();
 	}
 
 	public void executeCommand(AbstractCommand cmd)
@@ -28,8 +100,7 @@ public class CommandManager
 			return;
 
 		cmd.exec();
-		undoStack.push(cmd);
-		redoStack.clear();
+		pushCommand(cmd);
 
 		if (cmd.modifiesMap())
 			MapEditor.instance().map.modified = true;
@@ -43,16 +114,35 @@ public class CommandManager
 	 */
 	public void pushCommand(AbstractCommand cmd)
 	{
-		undoStack.push(cmd);
-		redoStack.clear();
+		HistoryEntry entry = new HistoryEntry(cmd);
+
+		synchronized (this) {
+			undoStack.addLast(entry);
+			redoStack.clear();
+			compressOlder();
+			evict();
+		}
+
+		Logger.logfDetail("%s holds %s, undo history holds %s", cmd.getName(),
+			formatBytes(entry.memoryUsage), formatBytes(getMemoryUsage()));
 	}
 
 	public void action_Undo()
 	{
-		if (undoStack.size() > 0) {
-			AbstractCommand cmd = undoStack.pop();
-			cmd.undo();
-			redoStack.push(cmd);
+		HistoryEntry entry;
+		synchronized (this) {
+			entry = undoStack.pollLast();
+		}
+
+		if (entry != null) {
+			entry.cmd.undo();
+			entry.compressed = false;
+			entry.update();
+
+			synchronized (this) {
+				redoStack.addLast(entry);
+				evict();
+			}
 		}
 		else {
 			Logger.log("Can't undo any more.");
@@ -61,19 +151,116 @@ public class CommandManager
 
 	public void action_Redo()
 	{
-		if (redoStack.size() > 0) {
-			AbstractCommand cmd = redoStack.pop();
-			cmd.exec();
-			undoStack.push(cmd);
+		HistoryEntry entry;
+		synchronized (this) {
+			entry = redoStack.pollLast();
+		}
+
+		if (entry != null) {
+			entry.cmd.exec();
+			entry.compressed = false;
+			entry.update();
+
+			synchronized (this) {
+				undoStack.addLast(entry);
+				compressOlder();
+				evict();
+			}
 		}
 		else {
 			Logger.log("Can't redo anything.");
 		}
 	}
 
-	public void flush()
+	public synchronized void flush()
 	{
 		undoStack.clear();
 		redoStack.clear();
 	}
+
+	/**
+	 * @return approximate number of bytes held by all commands in the history
+	 */
+	public synchronized long getMemoryUsage()
+	{
+		long total = 0;
+		for (HistoryEntry entry : undoStack)
+			total += entry.memoryUsage;
+		for (HistoryEntry entry : redoStack)
+			total += entry.memoryUsage;
+		return total;
+	}
+
+	public synchronized long getMemoryLimit()
+	{
+		return memoryLimit;
+	}
+
+	/**
+	 * @return commands which can be undone, most recent first
+	 */
+	public synchronized List<HistoryEntry> getUndoHistory()
+	{
+		List<HistoryEntry> history = new ArrayList<>(undoStack.size());
+		Iterator<HistoryEntry> iter = undoStack.descendingIterator();
+		while (iter.hasNext())
+			history.add(iter.next());
+		return history;
+	}
+
+	/**
+	 * @return commands which can be redone, next to redo first
+	 */
+	public synchronized List<HistoryEntry> getRedoHistory()
+	{
+		List<HistoryEntry> history = new ArrayList<>(redoStack.size());
+		Iterator<HistoryEntry> iter = redoStack.descendingIterator();
+		while (iter.hasNext())
+			history.add(iter.next());
+		return history;
+	}
+
+	private void compressOlder()
+	{
+		if (!compressHistory)
+			return;
+
+		int recent = 0;
+		Iterator<HistoryEntry> iter = undoStack.descendingIterator();
+		while (iter.hasNext()) {
+			HistoryEntry entry = iter.next();
+			if (recent++ < RECENT_COMMANDS || entry.compressed)
+				continue;
+
+			entry.cmd.compress();
+			entry.compressed = true;
+			entry.update();
+		}
+	}
+
+	private void evict()
+	{
+		long total = getMemoryUsage();
+
+		// the redo history is dropped on the next command anyway, so it goes first
+		while (total > memoryLimit && !redoStack.isEmpty())
+			total -= redoStack.pollFirst().memoryUsage;
+
+		while (total > memoryLimit && undoStack.size() > 1)
+			total -= undoStack.pollFirst().memoryUsage;
+
+		// redo history can only grow by undoing, so it never exceeds this either
+		while (undoStack.size() > undoLimit)
+			undoStack.pollFirst();
+	}
+
+	public static String formatBytes(long bytes)
+	{
+		if (bytes < 1024)
+			return bytes + " B";
+		else if (bytes < 1024 * 1024)
+			return String.format("%.1f KB", bytes / 1024.0);
+		else
+			return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+	}
 }
@@ -246,7 +246,7 @@ public class DrawTrianglesManager
 						if (pointList.size() > 2) {
 							Axis viewportAxis = workingViewport.camera.getRotationAxis();
 							TriangleBatch createBatch = GeometryUtils.getDelaunayBatch(pointList, viewportAxis, currentType == MapObjectType.MODEL);
-							for (Triangle t : createBatch.triangles)
+							for (Triangle t : createBatch.getTriangles())
 								t.flipNormal(); // just live with it.
 							createTriangles(createBatch);
 						}
@@ -21,6 +21,7 @@ import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.IdentityHashMap;
 import java.util.LinkedList;
@@ -137,6 +138,7 @@ import game.map.hit.Zone;
 import game.map.marker.Marker;
 import game.map.marker.Marker.MarkerType;
 import game.map.mesh.Triangle;
+import game.map.mesh.TriangleView;
 import game.map.mesh.Vertex;
 import game.map.scripts.DecompScriptGenerator;
 import game.map.scripts.ScriptGenerator;
@@ -564,7 +566,7 @@ public class MapEditor extends GLEditor implements MouseManagerListener, Keyboar
 		drawGeometryPreview = new PreviewGeometry();
 
 		selectionManager = new SelectionManager(this);
-		commandManager = new CommandManager(32);
+		commandManager = new CommandManager();
 		drawTriManager = new DrawTrianglesManager(this, drawGeometryPreview);
 
 		KeyboardFocusManager manager = KeyboardFocusManager.getCurrentKeyboardFocusManager();
@@ -1074,7 +1076,7 @@ public class MapEditor extends GLEditor implements MouseManagerListener, Keyboar
 		selectionPaintRadius = 16.0f;
 
 		selectionManager = new SelectionManager(this);
-		commandManager = new CommandManager(32);
+		commandManager = new CommandManager();
 
 		if (changeMapState == ChangeMapState.NONE) {
 			showModels = true;
@@ -1183,32 +1185,9 @@ public class MapEditor extends GLEditor implements MouseManagerListener, Keyboar
 	 */
 	private void setInitialCameraOrientation()
 	{
-		int numMeshes = 0;
-		Vector3f normalSum = new Vector3f();
-		for (Model mdl : getGeometryMap().modelTree) {
-			int numTriangles = 0;
-			Vector3f mdlNormalSum = new Vector3f();
-			for (Triangle t : mdl.getMesh()) {
-				Vector3f normal = t.getNormal();
-				if (normal == null)
-					continue;
-
-				mdlNormalSum.x += normal.x;
-				mdlNormalSum.z += normal.z;
-				numTriangles++;
-			}
-
-			if (numTriangles > 0) {
-				normalSum.x += (mdlNormalSum.x / numTriangles);
-				normalSum.z += (mdlNormalSum.z / numTriangles);
-				numMeshes++;
-			}
-		}
-
-		if (numMeshes > 0) {
-			normalSum.x /= numMeshes;
-			normalSum.z /= numMeshes;
+		Vector3f normalSum = getGeometryMap().getAverageModelNormal();
 
+		if (normalSum != null) {
 			if (normalSum.length() < MathUtil.SMALL_NUMBER)
 				normalSum = new Vector3f(1.0f, 0.0f, 0.0f);
 			else
@@ -1497,6 +1476,11 @@ public class MapEditor extends GLEditor implements MouseManagerListener, Keyboar
 		});
 	}
 
+	public CommandManager getCommandManager()
+	{
+		return commandManager;
+	}
+
 	public void submitGuiCommand(GuiCommand cmd)
 	{
 		guiEventQueue.add(() -> {
@@ -1864,17 +1848,12 @@ public class MapEditor extends GLEditor implements MouseManagerListener, Keyboar
 				if (rescaling)
 					selection.updateScale(activeView, vec);
 				else if (vertexSnap && activeView instanceof OrthographicViewport ortho) {
-					Iterable<Vertex> vertices;
+					Collection<Vector3f> positions;
 					if (vertexSnapLimit)
-						vertices = map.getVerticesWithinVolume(ortho.getViewingVolume(), selectionManager.getObjectType());
+						positions = map.getVertexPositionsWithinVolume(ortho.getViewingVolume(), selectionManager.getObjectType());
 					else
-						vertices = map.getVerticesWithinVolume(ortho.getViewingVolume());
+						positions = map.getVertexPositionsWithinVolume(ortho.getViewingVolume());
 
-					ArrayList<Vector3f> positions = new ArrayList<>();
-					for (Vertex v : vertices) {
-						if (!v.isSelected())
-							positions.add(v.getCurrentPos());
-					}
 					selection.updateTranslation(activeView, vec, rawDx, rawDy, deltaTime, ortho, positions);
 				}
 				else
@@ -3712,12 +3691,7 @@ public class MapEditor extends GLEditor implements MouseManagerListener, Keyboar
 
 		TextureManager.assignModelTextures(map);
 
-		for (Model mdl : map.modelTree)
-			for (Triangle t : mdl.getMesh())
-				for (Vertex v : t.vert) {
-					if ((v.a & 0xFF) == 255)
-						PaintManager.pushColor(new java.awt.Color((v.r & 0xFF), (v.g & 0xFF), (v.b & 0xFF), (v.a & 0xFF)));
-				}
+		map.forEachOpaqueVertexColor(PaintManager::pushColor);
 
 		try {
 			if (map.hasBackground) {
@@ -3788,28 +3762,28 @@ public class MapEditor extends GLEditor implements MouseManagerListener, Keyboar
 		if (hit.missed())
 			return;
 
-		Triangle t = (Triangle) hit.obj;
+		TriangleView t = (TriangleView) hit.obj;
 
-		Vertex closest = null;
+		int closest = -1;
 		float closestDist = Float.MAX_VALUE;
-		for (Vertex v : t.vert) {
-			float dx = hit.point.x - v.getCurrentX();
-			float dy = hit.point.y - v.getCurrentY();
-			float dz = hit.point.z - v.getCurrentZ();
+		for (int k = 0; k < 3; k++) {
+			float dx = hit.point.x - t.getX(k);
+			float dy = hit.point.y - t.getY(k);
+			float dz = hit.point.z - t.getZ(k);
 			float distSquared = dx * dx + dy * dy + dz * dz;
 
 			if (distSquared < closestDist) {
 				closestDist = distSquared;
-				closest = v;
+				closest = k;
 			}
 		}
 
-		if (closest != null) {
+		if (closest >= 0) {
 			java.awt.Color c = new java.awt.Color(
-				closest.r & 0xFF,
-				closest.g & 0xFF,
-				closest.b & 0xFF,
-				closest.a & 0xFF);
+				t.getColor(closest, 0),
+				t.getColor(closest, 1),
+				t.getColor(closest, 2),
+				t.getColor(closest, 3));
 			PaintManager.setSelectedColor(c);
 			PaintManager.pushSelectedColor();
 		}
@@ -4710,8 +4684,11 @@ public class MapEditor extends GLEditor implements MouseManagerListener, Keyboar
 		uvScale = editorConfig.getFloat(Options.uvScale);
 		normalsLength = editorConfig.getFloat(Options.NormalsLength);
 
-		int undoLimit = editorConfig.getInteger(Options.UndoLimit);
-		commandManager.setUndoLimit(undoLimit);
+		commandManager.setUndoLimit(editorConfig.getInteger(Options.UndoLimit));
+
+		int undoMemoryLimit = editorConfig.getInteger(Options.UndoMemoryLimit);
+		commandManager.setMemoryLimit(undoMemoryLimit * 1024L * 1024L);
+		commandManager.setCompressHistory(editorConfig.getBoolean(Options.CompressUndoHistory));
 
 		rotationSnapIncrement = editorConfig.getFloat(Options.AngleSnap);
 
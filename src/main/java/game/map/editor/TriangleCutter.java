@@ -49,7 +49,7 @@ public class TriangleCutter
 		IdentityArrayList<Triangle> positive = new IdentityArrayList<>();
 		IdentityArrayList<Triangle> negative = new IdentityArrayList<>();
 
-		for (Triangle t : batch.triangles) {
+		for (Triangle t : batch.getTriangles()) {
 			IntersectionResult result = intersectsPlane(t);
 			List<Triangle> cutTris = new LinkedList<>();
 
@@ -91,7 +91,7 @@ public class TriangleCutter
 		TriangleBatch cutBatch = new TriangleBatch(null);
 
 		for (Triangle t : positive) {
-			cutBatch.triangles.add(t.deepCopy());
+			cutBatch.getTriangles().add(t.deepCopy());
 			t.parentBatch = cutBatch;
 		}
 
@@ -241,7 +241,7 @@ public class TriangleCutter
 			super("Replace Triangles");
 
 			this.batch = batch;
-			oldTriangles = new IdentityArrayList<>(batch.triangles);
+			oldTriangles = new IdentityArrayList<>(batch.getTriangles());
 			newTriangles = new IdentityArrayList<>(triangles);
 		}
 
@@ -249,14 +249,22 @@ public class TriangleCutter
 		public void exec()
 		{
 			super.exec();
-			batch.triangles = newTriangles;
+			batch.setTriangles(newTriangles);
 		}
 
 		@Override
 		public void undo()
 		{
 			super.undo();
-			batch.triangles = oldTriangles;
+			batch.setTriangles(oldTriangles);
+		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			// whichever list is not in the batch is only held here, both are about the same size
+			return DEFAULT_MEMORY_USAGE + getListMemoryUsage(oldTriangles.size())
+				+ getListMemoryUsage(newTriangles.size()) + getTriangleMemoryUsage(newTriangles);
 		}
 	}
 
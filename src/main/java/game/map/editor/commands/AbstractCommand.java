@@ -1,9 +1,17 @@
 package game.map.editor.commands;
 
+import java.awt.image.BufferedImage;
+
 import javax.swing.SwingUtilities;
 
+import game.map.MapObject;
 import game.map.editor.MapEditor;
+import game.map.mesh.AbstractMesh;
+import game.map.mesh.Triangle;
+import game.map.mesh.Vertex;
+import game.map.shape.TriangleBatch;
 import util.Logger;
+import util.identity.IdentityHashSet;
 
 public abstract class AbstractCommand
 {
@@ -12,6 +20,19 @@ public abstract class AbstractCommand
 		READY, EXECUTED, UNDONE
 	}
 
+	/*
+	 * Rough sizes for estimating how much memory a command holds, for a 64-bit JVM
+	 * with compressed references. Vertices include their positions and UV. Map objects
+	 * include their fields, transform and tree node, but not their mesh.
+	 */
+	protected static final long DEFAULT_MEMORY_USAGE = 64;
+	protected static final long REFERENCE_SIZE = 4;
+	protected static final long ARRAY_HEADER_SIZE = 16;
+	protected static final long LINKED_NODE_SIZE = 24;
+	protected static final long TRIANGLE_SIZE = 104;
+	protected static final long VERTEX_SIZE = 256;
+	protected static final long MAP_OBJECT_SIZE = 2048;
+
 	private STATE state;
 	private final String name;
 	private boolean silent;
@@ -68,4 +89,96 @@ public abstract class AbstractCommand
 	{
 		return state;
 	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Estimates the memory held by this command for undo and redo, counting objects which would
+	 * be unreachable if the command were dropped from the history.
+	 * @return approximate number of bytes
+	 */
+	public long getMemoryUsage()
+	{
+		return DEFAULT_MEMORY_USAGE;
+	}
+
+	/**
+	 * Called once the command has been in the undo history for a while and is unlikely to be
+	 * needed soon. Commands may compress their saved state here, as long as exec and undo
+	 * restore it when they next run.
+	 */
+	public void compress()
+	{}
+
+	protected static long getListMemoryUsage(int size)
+	{
+		return ARRAY_HEADER_SIZE + 24 + REFERENCE_SIZE * size;
+	}
+
+	protected static long getLinkedListMemoryUsage(int size)
+	{
+		return 24 + LINKED_NODE_SIZE * size;
+	}
+
+	/**
+	 * @return approximate number of bytes held by the triangles of a batch and their vertices
+	 */
+	protected static long getBatchMemoryUsage(TriangleBatch batch)
+	{
+		if (batch.isPacked())
+			return batch.getPackedGeometry().getMemoryUsage();
+		else
+			return getListMemoryUsage(batch.getTriangleCount()) + getTriangleMemoryUsage(batch.getTriangles());
+	}
+
+	/**
+	 * @return approximate number of bytes held by the triangles and their vertices, counting
+	 * each one once no matter how many times it appears
+	 */
+	protected static long getTriangleMemoryUsage(Iterable<Triangle> triangles)
+	{
+		IdentityHashSet<Triangle> uniqueTriangles = new IdentityHashSet<>();
+		IdentityHashSet<Vertex> uniqueVertices = new IdentityHashSet<>();
+		for (Triangle t : triangles) {
+			if (uniqueTriangles.add(t)) {
+				for (Vertex v : t.vert)
+					uniqueVertices.add(v);
+			}
+		}
+		return TRIANGLE_SIZE * uniqueTriangles.size() + VERTEX_SIZE * uniqueVertices.size();
+	}
+
+	protected static long getMeshMemoryUsage(AbstractMesh mesh)
+	{
+		long bytes = 0;
+		for (TriangleBatch batch : mesh.getBatches())
+			bytes += getBatchMemoryUsage(batch);
+		return bytes;
+	}
+
+	protected static long getObjectMemoryUsage(MapObject obj)
+	{
+		if (obj.hasMesh())
+			return MAP_OBJECT_SIZE + getMeshMemoryUsage(obj.getMesh());
+		else
+			return MAP_OBJECT_SIZE;
+	}
+
+	protected static long getObjectMemoryUsage(Iterable<? extends MapObject> objs)
+	{
+		long bytes = 0;
+		for (MapObject obj : objs)
+			bytes += getObjectMemoryUsage(obj);
+		return bytes;
+	}
+
+	protected static long getImageMemoryUsage(BufferedImage img)
+	{
+		if (img == null)
+			return 0;
+		return 128 + 4L * img.getWidth() * img.getHeight();
+	}
 }
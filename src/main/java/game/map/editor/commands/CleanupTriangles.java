@@ -8,7 +8,7 @@ import util.MathUtil;
 
 public class CleanupTriangles extends AbstractCommand
 {
-	private final List<Triangle> targets;
+	private final ArrayList<Triangle> targets;
 
 	private final AbstractCommand deselectCommand;
 
@@ -22,6 +22,7 @@ public class CleanupTriangles extends AbstractCommand
 			if (MathUtil.veryNearlyZero(t.getArea()))
 				targets.add(t);
 		}
+		targets.trimToSize();
 
 		deselectCommand = editor.selectionManager.getModifyTriangles(null, targets, true);
 		deselectCommand.silence();
@@ -41,7 +42,7 @@ public class CleanupTriangles extends AbstractCommand
 		deselectCommand.exec();
 
 		for (Triangle t : targets)
-			t.parentBatch.triangles.remove(t);
+			t.parentBatch.getTriangles().remove(t);
 	}
 
 	@Override
@@ -49,8 +50,16 @@ public class CleanupTriangles extends AbstractCommand
 	{
 		super.undo();
 		for (Triangle t : targets)
-			t.parentBatch.triangles.add(t);
+			t.parentBatch.getTriangles().add(t);
 
 		deselectCommand.undo();
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		// vertices may still be shared with remaining triangles, only count the triangles
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(targets.size())
+			+ TRIANGLE_SIZE * targets.size() + deselectCommand.getMemoryUsage();
+	}
 }
@@ -56,4 +56,11 @@ public class CloneObjects extends AbstractCommand
 		for (MapObject obj : originals)
 			editor.selectionManager.selectObject(obj);
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(copies.size()) + getListMemoryUsage(originals.size())
+			+ getObjectMemoryUsage(copies);
+	}
 }
@@ -30,6 +30,8 @@ public class CloneTriangles extends AbstractCommand
 
 			copies.add(copy);
 		}
+		copies.trimToSize();
+		originals.trimToSize();
 	}
 
 	@Override
@@ -39,7 +41,7 @@ public class CloneTriangles extends AbstractCommand
 		selection.clear();
 
 		for (Triangle t : copies)
-			t.parentBatch.triangles.add(t);
+			t.parentBatch.getTriangles().add(t);
 
 		selection.addAndSelect(copies);
 	}
@@ -51,8 +53,16 @@ public class CloneTriangles extends AbstractCommand
 		selection.clear();
 
 		for (Triangle t : copies)
-			t.parentBatch.triangles.remove(t);
+			t.parentBatch.getTriangles().remove(t);
 
 		selection.addAndSelect(originals);
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		// each copy has its own vertices
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(copies.size()) + getListMemoryUsage(originals.size())
+			+ (TRIANGLE_SIZE + 3 * VERTEX_SIZE) * copies.size();
+	}
 }
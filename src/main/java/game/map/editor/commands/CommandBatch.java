@@ -75,4 +75,19 @@ public class CommandBatch extends AbstractCommand
 		}
 	}
 
+	@Override
+	public long getMemoryUsage()
+	{
+		long bytes = DEFAULT_MEMORY_USAGE + getListMemoryUsage(commands.size());
+		for (AbstractCommand cmd : commands)
+			bytes += cmd.getMemoryUsage();
+		return bytes;
+	}
+
+	@Override
+	public void compress()
+	{
+		for (AbstractCommand cmd : commands)
+			cmd.compress();
+	}
 }
@@ -98,4 +98,12 @@ public abstract class ConvertHitObjects<T extends HitObject, S extends HitObject
 			editor.selectionManager.createObject(obj);
 		}
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		// either the old or the new objects are in the map, the copies are about the same size
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(oldObjects.size()) + getListMemoryUsage(newObjects.size())
+			+ getObjectMemoryUsage(newObjects);
+	}
 }
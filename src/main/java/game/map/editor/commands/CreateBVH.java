@@ -11,6 +11,7 @@ import game.map.MapObject;
 import game.map.MapObject.HitType;
 import game.map.hit.Collider;
 import game.map.tree.MapObjectNode;
+import util.identity.IdentityHashSet;
 
 //XXX just bad overall
 public class CreateBVH extends AbstractCommand
@@ -63,6 +64,19 @@ public class CreateBVH extends AbstractCommand
 			c.getNode().parentNode = oldParents.get(c);
 	}
 
+	@Override
+	public long getMemoryUsage()
+	{
+		IdentityHashSet<MapObjectNode<Collider>> leaves = new IdentityHashSet<>();
+		for (MapObjectNode<Collider> node : newParents.values())
+			leaves.add(node);
+
+		// a binary hierarchy has one fewer split group than leaf groups
+		long groups = 2L * leaves.size() - 1;
+		long parentMaps = 2 * (48 + 32L * colliders.size());
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(colliders.size()) + parentMaps + MAP_OBJECT_SIZE * groups;
+	}
+
 	private static class BoundingHierarchy
 	{
 		private BoundingHierarchy[] children;
@@ -35,4 +35,10 @@ public class CreateObject extends AbstractCommand
 
 		Map.validateObjectData(editor.map);
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		return DEFAULT_MEMORY_USAGE + getObjectMemoryUsage(obj);
+	}
 }
@@ -38,4 +38,10 @@ public class CreateObjects extends AbstractCommand
 
 		Map.validateObjectData(editor.map);
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		return DEFAULT_MEMORY_USAGE + getObjectMemoryUsage(objs);
+	}
 }
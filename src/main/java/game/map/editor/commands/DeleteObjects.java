@@ -48,4 +48,12 @@ public class DeleteObjects extends AbstractCommand
 			editor.selectionManager.createObject(obj);
 		}
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		// once executed, this command holds the only references to the deleted objects
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(deleteList.size())
+			+ getObjectMemoryUsage(deleteList);
+	}
 }
@@ -24,7 +24,7 @@ public class DeleteTriangles extends AbstractCommand
 		super.exec();
 
 		for (Triangle t : targets)
-			t.parentBatch.triangles.remove(t);
+			t.parentBatch.getTriangles().remove(t);
 
 		selection.removeAndDeselect(targets);
 		selection.updateAABB();
@@ -35,9 +35,16 @@ public class DeleteTriangles extends AbstractCommand
 	{
 		super.undo();
 		for (Triangle t : targets)
-			t.parentBatch.triangles.add(t);
+			t.parentBatch.getTriangles().add(t);
 
 		selection.addAndSelect(targets);
 		selection.updateAABB();
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		// vertices may still be shared with remaining triangles, only count the triangles
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(targets.size()) + TRIANGLE_SIZE * targets.size();
+	}
 }
@@ -1,18 +1,25 @@
 package game.map.editor.commands;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
 import game.map.mesh.Triangle;
 import game.map.mesh.Vertex;
 import game.map.shape.TriangleBatch;
+import util.CompressibleIntArray;
 
+/**
+ * Only corners whose vertex actually changes are kept, as a packed list of corner positions
+ * with the old and new vertex for each.
+ */
 public class FuseVertices extends AbstractCommand
 {
-	private List<Triangle> triangles;
-	private List<Vertex> oldVertices;
-	private List<Vertex> newVertices;
+	private final Triangle[] triangles;
+	private final CompressibleIntArray corners; // 3 * index in triangles + corner
+	private final Vertex[] oldVertices;
+	private final Vertex[] newVertices;
 
 	private static class FusionWrapper
 	{
@@ -51,10 +58,6 @@ public class FuseVertices extends AbstractCommand
 	{
 		super("Fuse Vertices");
 
-		this.triangles = triangles;
-		oldVertices = new ArrayList<>(triangles.size() * 3);
-		newVertices = new ArrayList<>(triangles.size() * 3);
-
 		HashMap<FusionWrapper, FusionWrapper> vertexMap = new HashMap<>();
 		HashMap<Vertex, TriangleBatch> batchMap = new HashMap<>();
 
@@ -63,51 +66,75 @@ public class FuseVertices extends AbstractCommand
 				FusionWrapper wrapped = new FusionWrapper(v);
 				vertexMap.put(wrapped, wrapped);
 				batchMap.put(v, t.parentBatch);
-				oldVertices.add(v);
 			}
 		}
 
+		List<Triangle> changedTriangles = new ArrayList<>();
+		List<Vertex> changedOld = new ArrayList<>();
+		List<Vertex> changedNew = new ArrayList<>();
+		int[] changedCorners = new int[3 * triangles.size()];
+
 		for (Triangle t : triangles) {
-			for (Vertex v : t.vert) {
+			boolean changed = false;
+			for (int j = 0; j < 3; j++) {
+				Vertex v = t.vert[j];
+
 				// retrieve vertex with the same hashcode
 				Vertex v2 = vertexMap.get(new FusionWrapper(v)).v;
 
 				// only fuse vertices among the same triangle batch
-				if (t.parentBatch == batchMap.get(v))
-					newVertices.add(v2);
-				else
-					newVertices.add(v);
+				if (t.parentBatch != batchMap.get(v) || v2 == v)
+					continue;
+
+				if (!changed) {
+					changedTriangles.add(t);
+					changed = true;
+				}
+
+				changedCorners[changedOld.size()] = 3 * (changedTriangles.size() - 1) + j;
+				changedOld.add(v);
+				changedNew.add(v2);
 			}
 		}
+
+		this.triangles = changedTriangles.toArray(new Triangle[changedTriangles.size()]);
+		corners = new CompressibleIntArray(Arrays.copyOf(changedCorners, changedOld.size()));
+		oldVertices = changedOld.toArray(new Vertex[changedOld.size()]);
+		newVertices = changedNew.toArray(new Vertex[changedNew.size()]);
 	}
 
 	@Override
 	public void exec()
 	{
 		super.exec();
-
-		for (int i = 0; i < triangles.size(); i++) {
-			Triangle t = triangles.get(i);
-
-			for (int j = 0; j < 3; j++) {
-				Vertex v = newVertices.get(3 * i + j);
-				t.vert[j] = v;
-			}
-		}
+		setVertices(newVertices);
 	}
 
 	@Override
 	public void undo()
 	{
 		super.undo();
+		setVertices(oldVertices);
+	}
 
-		for (int i = 0; i < triangles.size(); i++) {
-			Triangle t = triangles.get(i);
+	private void setVertices(Vertex[] vertices)
+	{
+		int[] c = corners.get();
+		for (int i = 0; i < c.length; i++)
+			triangles[c[i] / 3].vert[c[i] % 3] = vertices[i];
+	}
 
-			for (int j = 0; j < 3; j++) {
-				Vertex v = oldVertices.get(3 * i + j);
-				t.vert[j] = v;
-			}
-		}
+	@Override
+	public long getMemoryUsage()
+	{
+		return DEFAULT_MEMORY_USAGE + corners.getMemoryUsage()
+			+ ARRAY_HEADER_SIZE + REFERENCE_SIZE * triangles.length
+			+ 2 * (ARRAY_HEADER_SIZE + REFERENCE_SIZE * oldVertices.length);
+	}
+
+	@Override
+	public void compress()
+	{
+		corners.compress();
 	}
 }
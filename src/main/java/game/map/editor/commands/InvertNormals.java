@@ -31,4 +31,10 @@ public class InvertNormals extends AbstractCommand
 		for (Triangle t : triangles)
 			t.flipNormal();
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(triangles.size());
+	}
 }
@@ -38,7 +38,7 @@ public abstract class JoinHitObjects<T extends HitObject> extends AbstractComman
 		newBatch = new TriangleBatch(null);
 
 		for (HitObject hit : objs)
-			newBatch.triangles.addAll(hit.mesh.batch.triangles);
+			newBatch.getTriangles().addAll(hit.mesh.batch.getTriangles());
 	}
 
 	@Override
@@ -76,4 +76,12 @@ public abstract class JoinHitObjects<T extends HitObject> extends AbstractComman
 			obj.updateMeshHierarchy();
 		}
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		// the triangles themselves are shared between the old and new batches
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(objs.size())
+			+ MAP_OBJECT_SIZE * (objs.size() - 1) + getListMemoryUsage(newBatch.getTriangleCount());
+	}
 }
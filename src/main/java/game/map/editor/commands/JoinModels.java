@@ -82,4 +82,15 @@ public class JoinModels extends AbstractCommand
 			mdl.dirtyAABB = true;
 		}
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		// the batches themselves are always held by one of the models
+		long bytes = DEFAULT_MEMORY_USAGE + getListMemoryUsage(models.size())
+			+ MAP_OBJECT_SIZE * (models.size() - 1);
+		for (List<DisplayCommand> displayList : oldDisplayLists)
+			bytes += getListMemoryUsage(displayList.size());
+		return bytes;
+	}
 }
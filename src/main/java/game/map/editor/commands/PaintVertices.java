@@ -4,44 +4,81 @@ import java.util.IdentityHashMap;
 
 import game.map.editor.render.Color4d;
 import game.map.mesh.Vertex;
+import util.CompressibleIntArray;
 
+/**
+ * Old and new colors are packed into one array, eight channels per painted vertex.
+ */
 public class PaintVertices extends AbstractCommand
 {
-	IdentityHashMap<Vertex, Color4d> oldColorMap;
-	IdentityHashMap<Vertex, Color4d> newColorMap;
+	// per vertex: old r, g, b, a, new r, g, b, a
+	private static final int STRIDE = 8;
+
+	private final Vertex[] vertices;
+	private final CompressibleIntArray colors;
 
 	public PaintVertices(IdentityHashMap<Vertex, Color4d> oldColorMap, IdentityHashMap<Vertex, Color4d> newColorMap)
 	{
 		super("Painting " + newColorMap.size() + " Vertices");
-		this.oldColorMap = oldColorMap;
-		this.newColorMap = newColorMap;
+
+		vertices = new Vertex[newColorMap.size()];
+		int[] packed = new int[STRIDE * vertices.length];
+
+		int i = 0;
+		for (Vertex v : newColorMap.keySet()) {
+			Color4d oldColor = oldColorMap.get(v);
+			Color4d newColor = newColorMap.get(v);
+			vertices[i] = v;
+			packed[STRIDE * i] = oldColor.r;
+			packed[STRIDE * i + 1] = oldColor.g;
+			packed[STRIDE * i + 2] = oldColor.b;
+			packed[STRIDE * i + 3] = oldColor.a;
+			packed[STRIDE * i + 4] = newColor.r;
+			packed[STRIDE * i + 5] = newColor.g;
+			packed[STRIDE * i + 6] = newColor.b;
+			packed[STRIDE * i + 7] = newColor.a;
+			i++;
+		}
+
+		colors = new CompressibleIntArray(packed);
 	}
 
 	@Override
 	public void exec()
 	{
 		super.exec();
-
-		for (Vertex v : newColorMap.keySet()) {
-			Color4d newColor = newColorMap.get(v);
-			v.r = newColor.r;
-			v.g = newColor.g;
-			v.b = newColor.b;
-			v.a = newColor.a;
-		}
+		setColors(4);
 	}
 
 	@Override
 	public void undo()
 	{
 		super.undo();
+		setColors(0);
+	}
 
-		for (Vertex v : newColorMap.keySet()) {
-			Color4d oldColor = oldColorMap.get(v);
-			v.r = oldColor.r;
-			v.g = oldColor.g;
-			v.b = oldColor.b;
-			v.a = oldColor.a;
+	private void setColors(int offset)
+	{
+		int[] packed = colors.get();
+		for (int i = 0; i < vertices.length; i++) {
+			Vertex v = vertices[i];
+			int pos = STRIDE * i + offset;
+			v.r = packed[pos];
+			v.g = packed[pos + 1];
+			v.b = packed[pos + 2];
+			v.a = packed[pos + 3];
 		}
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		return DEFAULT_MEMORY_USAGE + ARRAY_HEADER_SIZE + REFERENCE_SIZE * vertices.length + colors.getMemoryUsage();
+	}
+
+	@Override
+	public void compress()
+	{
+		colors.compress();
+	}
 }
@@ -64,4 +64,13 @@ public class SeparateVertices extends AbstractCommand
 			}
 		}
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		// one of the two vertex lists is always detached from the mesh
+		return DEFAULT_MEMORY_USAGE + getListMemoryUsage(triangles.size())
+			+ getListMemoryUsage(oldVertices.size()) + getListMemoryUsage(newVertices.size())
+			+ VERTEX_SIZE * newVertices.size();
+	}
 }
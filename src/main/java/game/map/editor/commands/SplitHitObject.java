@@ -60,10 +60,10 @@ public abstract class SplitHitObject<T extends HitObject> extends AbstractComman
 			oldBatches.add(t.parentBatch);
 
 		for (TriangleBatch batch : oldBatches) {
-			List<Triangle> newTriangles = new ArrayList<>(batch.triangles);
+			List<Triangle> newTriangles = new ArrayList<>(batch.getTriangles());
 			newTriangles.removeAll(splitTriangles);
 
-			oldBatchLists.put(batch, new IdentityArrayList<>(batch.triangles));
+			oldBatchLists.put(batch, new IdentityArrayList<>(batch.getTriangles()));
 			newBatchLists.put(batch, new IdentityArrayList<>(newTriangles));
 		}
 
@@ -84,7 +84,7 @@ public abstract class SplitHitObject<T extends HitObject> extends AbstractComman
 		}
 
 		TriangleBatch batch = new TriangleBatch(null);
-		batch.triangles = newTriangles;
+		batch.setTriangles(newTriangles);
 		newObject = createObject(batch);
 	}
 
@@ -99,7 +99,7 @@ public abstract class SplitHitObject<T extends HitObject> extends AbstractComman
 		editor.selectionManager.createObject(newObject);
 
 		for (TriangleBatch batch : oldBatches)
-			batch.triangles = newBatchLists.get(batch);
+			batch.setTriangles(newBatchLists.get(batch));
 		newObject.updateMeshHierarchy();
 	}
 
@@ -112,8 +112,23 @@ public abstract class SplitHitObject<T extends HitObject> extends AbstractComman
 		editor.selectionManager.deleteObject(newObject);
 
 		for (TriangleBatch batch : oldBatches) {
-			batch.triangles = oldBatchLists.get(batch);
+			batch.setTriangles(oldBatchLists.get(batch));
 			batch.parentMesh.parentObject.dirtyAABB = true;
 		}
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		long bytes = DEFAULT_MEMORY_USAGE + getObjectMemoryUsage(newObject);
+		for (TriangleBatch batch : oldBatches) {
+			int oldCount = oldBatchLists.get(batch).size();
+			int newCount = newBatchLists.get(batch).size();
+			bytes += getListMemoryUsage(oldCount) + getListMemoryUsage(newCount);
+
+			// split triangles are only reachable from here while the new list is in use
+			bytes += TRIANGLE_SIZE * (oldCount - newCount);
+		}
+		return bytes;
+	}
 }
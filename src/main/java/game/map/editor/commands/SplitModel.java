@@ -31,10 +31,10 @@ public class SplitModel extends AbstractCommand
 			oldBatches.add(t.parentBatch);
 
 		for (TriangleBatch batch : oldBatches) {
-			List<Triangle> newTriangles = new ArrayList<>(batch.triangles);
+			List<Triangle> newTriangles = new ArrayList<>(batch.getTriangles());
 			newTriangles.removeAll(splitTriangles);
 
-			oldBatchLists.put(batch, new IdentityArrayList<>(batch.triangles));
+			oldBatchLists.put(batch, new IdentityArrayList<>(batch.getTriangles()));
 			newBatchLists.put(batch, new IdentityArrayList<>(newTriangles));
 		}
 
@@ -55,7 +55,7 @@ public class SplitModel extends AbstractCommand
 		}
 
 		TriangleBatch batch = new TriangleBatch(null);
-		batch.triangles = newTriangles;
+		batch.setTriangles(newTriangles);
 
 		newModel = Model.createBareModel();
 		newModel.setName("Split Model");
@@ -75,7 +75,7 @@ public class SplitModel extends AbstractCommand
 		editor.selectionManager.createObject(newModel);
 
 		for (TriangleBatch batch : oldBatches) {
-			batch.triangles = newBatchLists.get(batch);
+			batch.setTriangles(newBatchLists.get(batch));
 			TexturedMesh mesh = (TexturedMesh) batch.parentMesh;
 			mesh.displayListModel.setDirty();
 			mesh.parentObject.dirtyAABB = true;
@@ -91,10 +91,25 @@ public class SplitModel extends AbstractCommand
 		editor.selectionManager.deleteObject(newModel);
 
 		for (TriangleBatch batch : oldBatches) {
-			batch.triangles = oldBatchLists.get(batch);
+			batch.setTriangles(oldBatchLists.get(batch));
 			TexturedMesh mesh = (TexturedMesh) batch.parentMesh;
 			mesh.displayListModel.setDirty();
 			mesh.parentObject.dirtyAABB = true;
 		}
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		long bytes = DEFAULT_MEMORY_USAGE + getObjectMemoryUsage(newModel);
+		for (TriangleBatch batch : oldBatches) {
+			int oldCount = oldBatchLists.get(batch).size();
+			int newCount = newBatchLists.get(batch).size();
+			bytes += getListMemoryUsage(oldCount) + getListMemoryUsage(newCount);
+
+			// split triangles are only reachable from here while the new list is in use
+			bytes += TRIANGLE_SIZE * (oldCount - newCount);
+		}
+		return bytes;
+	}
 }
@@ -1,6 +1,6 @@
 package game.map.editor.commands;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 import game.map.ReversibleTransform;
 import game.map.editor.selection.Selectable;
@@ -9,7 +9,7 @@ import game.map.shape.TransformMatrix;
 
 public class TransformSelection<T extends Selectable> extends AbstractCommand
 {
-	private LinkedList<ReversibleTransform> transformerList;
+	private ArrayList<ReversibleTransform> transformerList;
 	private Selection<T> selection;
 
 	public TransformSelection(Selection<T> selection, TransformMatrix m)
@@ -17,7 +17,7 @@ public class TransformSelection<T extends Selectable> extends AbstractCommand
 		super("Transform Selection");
 		this.selection = selection;
 
-		transformerList = new LinkedList<>();
+		transformerList = new ArrayList<>();
 		for (T item : selection.selectableList) {
 			if (!item.transforms())
 				continue;
@@ -29,6 +29,7 @@ public class TransformSelection<T extends Selectable> extends AbstractCommand
 
 			item.endTransformation();
 		}
+		transformerList.trimToSize();
 	}
 
 	@Override
@@ -54,4 +55,20 @@ public class TransformSelection<T extends Selectable> extends AbstractCommand
 		selection.updateAABB();
 		editor.forceUpdateInfoPanels();
 	}
+
+	@Override
+	public long getMemoryUsage()
+	{
+		long bytes = DEFAULT_MEMORY_USAGE + getListMemoryUsage(transformerList.size());
+		for (ReversibleTransform t : transformerList)
+			bytes += t.getMemoryUsage();
+		return bytes;
+	}
+
+	@Override
+	public void compress()
+	{
+		for (ReversibleTransform t : transformerList)
+			t.compress();
+	}
 }
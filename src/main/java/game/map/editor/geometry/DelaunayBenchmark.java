@@ -0,0 +1,322 @@
+package game.map.editor.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks {@link DelaunayTriangulator} against the Bowyer-Watson triangulation GeometryUtils used
+ * before it, then compares how both scale with the number of points. Points in general position
+ * must give identical triangles. Points on a grid have many cocircular subsets which either
+ * implementation may split differently, so those are only checked for a valid triangulation with
+ * empty circumcircles.
+ * <p>
+ * The reference implementation computes squares in int arithmetic, so all points are kept small
+ * enough for it to be exact.
+ */
+public class DelaunayBenchmark
+{
+	private static final int RANGE = 2000;
+	private static final int CHECK_ROUNDS = 200;
+
+	private static final int[] REFERENCE_SIZES = { 500, 1000, 2000, 4000, 8000 };
+	private static final int[] ENGINE_SIZES = { 500, 1000, 2000, 4000, 8000, 32000, 128000, 512000 };
+	private static final int MEASURED_ROUNDS = 3;
+
+	public static void main(String args[])
+	{
+		Random rng = new Random(0x5EED);
+
+		int mismatches = 0;
+		for (int i = 0; i < CHECK_ROUNDS; i++) {
+			int count = 4 + rng.nextInt(i < CHECK_ROUNDS / 2 ? 40 : 1000);
+			int[][] points = getRandomPoints(rng, count, RANGE);
+			if (!getCanonical(getReference(points)).equals(getCanonical(getEngine(points)))) {
+				System.out.printf("Triangulations differ for %d random points (round %d)%n", count, i);
+				mismatches++;
+			}
+		}
+		System.out.printf("Random points: triangulations differ in %d of %d rounds%n", mismatches, CHECK_ROUNDS);
+
+		int invalid = 0;
+		for (int i = 0; i < CHECK_ROUNDS; i++) {
+			int count = 4 + rng.nextInt(300);
+			int[][] points = getGridPoints(rng, count, 1 + rng.nextInt(8), 16 * (1 + rng.nextInt(4)));
+			String error = validate(points, getEngine(points));
+			if (error != null) {
+				System.out.printf("Invalid triangulation for %d grid points (round %d): %s%n", count, i, error);
+				invalid++;
+			}
+		}
+		System.out.printf("Grid points: %d of %d triangulations invalid%n", invalid, CHECK_ROUNDS);
+
+		for (int count : REFERENCE_SIZES)
+			measure("Reference", count, true);
+		for (int count : ENGINE_SIZES)
+			measure("Engine", count, false);
+	}
+
+	private static void measure(String name, int count, boolean reference)
+	{
+		Random rng = new Random(count);
+		int[][] points = getRandomPoints(rng, count, 2 * RANGE);
+
+		// warm up
+		for (int i = 0; i < 2; i++)
+			triangulate(points, reference);
+
+		long best = Long.MAX_VALUE;
+		int triangles = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			long t0 = System.nanoTime();
+			triangles = triangulate(points, reference);
+			best = Math.min(best, System.nanoTime() - t0);
+		}
+
+		System.out.printf("%-9s %8d points %8d triangles %10.2f ms %8.3f us per point%n",
+			name, count, triangles, 1e-6 * best, 1e-3 * best / count);
+	}
+
+	private static int triangulate(int[][] points, boolean reference)
+	{
+		if (reference)
+			return getReference(points).length / 3;
+		else
+			return getEngine(points).length / 3;
+	}
+
+	private static int[][] getRandomPoints(Random rng, int count, int range)
+	{
+		int[][] points = new int[2][count];
+		for (int i = 0; i < count; i++) {
+			points[0][i] = rng.nextInt(2 * range + 1) - range;
+			points[1][i] = rng.nextInt(2 * range + 1) - range;
+		}
+		return removeDuplicates(points);
+	}
+
+	private static int[][] getGridPoints(Random rng, int count, int size, int spacing)
+	{
+		int cells = (int) Math.ceil(Math.sqrt(count)) * size;
+		int[][] points = new int[2][count];
+		for (int i = 0; i < count; i++) {
+			points[0][i] = spacing * (rng.nextInt(cells) - cells / 2);
+			points[1][i] = spacing * (rng.nextInt(cells) - cells / 2);
+		}
+		return removeDuplicates(points);
+	}
+
+	private static int[][] removeDuplicates(int[][] points)
+	{
+		HashMap<Long, Integer> unique = new HashMap<>();
+		int count = 0;
+		for (int i = 0; i < points[0].length; i++) {
+			long key = ((long) points[0][i] << 32) | (points[1][i] & 0xFFFFFFFFL);
+			if (unique.putIfAbsent(key, count) == null) {
+				points[0][count] = points[0][i];
+				points[1][count] = points[1][i];
+				count++;
+			}
+		}
+		return new int[][] { Arrays.copyOf(points[0], count), Arrays.copyOf(points[1], count) };
+	}
+
+	private static int[] getEngine(int[][] points)
+	{
+		return DelaunayTriangulator.triangulate(points[0], points[1], points[0].length);
+	}
+
+	private static int[] getReference(int[][] points)
+	{
+		List<GUVertex> vertices = new LinkedList<>();
+		IdentityHashMap<GUVertex, Integer> indices = new IdentityHashMap<>();
+		for (int i = 0; i < points[0].length; i++) {
+			GUVertex v = new GUVertex(points[0][i], 0, points[1][i]);
+			vertices.add(v);
+			indices.put(v, i);
+		}
+
+		List<GUTriangle> triangles = getReferenceTriangulation(vertices);
+		int[] result = new int[3 * triangles.size()];
+		int i = 0;
+		for (GUTriangle t : triangles) {
+			for (GUVertex v : t.vert)
+				result[i++] = indices.get(v);
+		}
+		return result;
+	}
+
+	/**
+	 * @return sorted triangles, each rotated to start with its lowest index
+	 */
+	private static List<String> getCanonical(int[] triangles)
+	{
+		List<String> canonical = new ArrayList<>(triangles.length / 3);
+		for (int i = 0; i < triangles.length; i += 3) {
+			int a = triangles[i], b = triangles[i + 1], c = triangles[i + 2];
+			if (b < a && b < c)
+				canonical.add(b + " " + c + " " + a);
+			else if (c < a && c < b)
+				canonical.add(c + " " + a + " " + b);
+			else
+				canonical.add(a + " " + b + " " + c);
+		}
+		canonical.sort(null);
+		return canonical;
+	}
+
+	/**
+	 * @return description of the first problem found, or null for a valid Delaunay triangulation
+	 */
+	private static String validate(int[][] points, int[] triangles)
+	{
+		int[] x = points[0];
+		int[] z = points[1];
+
+		HashMap<Long, Integer> edges = new HashMap<>();
+		for (int i = 0; i < triangles.length; i += 3) {
+			int a = triangles[i], b = triangles[i + 1], c = triangles[i + 2];
+
+			long orient = (long) (x[b] - x[a]) * (z[c] - z[a]) - (long) (z[b] - z[a]) * (x[c] - x[a]);
+			if (orient <= 0)
+				return "triangle " + (i / 3) + " is not counter-clockwise";
+
+			for (int k = 0; k < 3; k++) {
+				int from = triangles[i + k];
+				int to = triangles[i + (k + 1) % 3];
+				if (edges.put(((long) from << 32) | to, i) != null)
+					return "edge " + from + " " + to + " is used twice in the same direction";
+			}
+
+			for (int d = 0; d < x.length; d++) {
+				if (d != a && d != b && d != c && getInCircle(x, z, a, b, c, d) > 0)
+					return "point " + d + " lies inside the circumcircle of triangle " + (i / 3);
+			}
+		}
+		return null;
+	}
+
+	private static long getInCircle(int[] x, int[] z, int a, int b, int c, int d)
+	{
+		long adx = x[a] - x[d], adz = z[a] - z[d];
+		long bdx = x[b] - x[d], bdz = z[b] - z[d];
+		long cdx = x[c] - x[d], cdz = z[c] - z[d];
+
+		return (adx * adx + adz * adz) * (bdx * cdz - cdx * bdz)
+			+ (bdx * bdx + bdz * bdz) * (cdx * adz - adx * cdz)
+			+ (cdx * cdx + cdz * cdz) * (adx * bdz - bdx * adz);
+	}
+
+	// the triangulation GeometryUtils used before DelaunayTriangulator
+
+	private static List<GUTriangle> getReferenceTriangulation(Iterable<GUVertex> uniqueVertexSet)
+	{
+		int minX = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+
+		int minZ = Integer.MAX_VALUE;
+		int maxZ = Integer.MIN_VALUE;
+
+		for (GUVertex v : uniqueVertexSet) {
+			if (v.x < minX)
+				minX = v.x;
+			if (v.x > maxX)
+				maxX = v.x;
+			if (v.z < minZ)
+				minZ = v.z;
+			if (v.z > maxZ)
+				maxZ = v.z;
+		}
+
+		int sizeX = maxX - minX;
+		int sizeZ = maxZ - minZ;
+
+		if (sizeX < 16)
+			sizeX = 16;
+		if (sizeZ < 16)
+			sizeZ = 16;
+
+		int centerX = minX + sizeX / 2;
+		int centerZ = minZ + sizeZ / 2;
+
+		GUVertex enc1, enc2, enc3;
+
+		if (sizeX > sizeZ) {
+			enc1 = new GUVertex(centerX + sizeX, 0, centerZ - sizeZ);
+			enc2 = new GUVertex(centerX - sizeX, 0, centerZ - sizeZ);
+			enc3 = new GUVertex(centerX, 0, centerZ + 4 * sizeZ);
+		}
+		else {
+			enc1 = new GUVertex(centerX - sizeX, 0, centerZ + sizeZ);
+			enc2 = new GUVertex(centerX - sizeX, 0, centerZ - sizeZ);
+			enc3 = new GUVertex(centerX + 4 * sizeX, 0, centerZ);
+		}
+
+		LinkedList<GUTriangle> triangleList = new LinkedList<>();
+
+		GUTriangle enclosingTriangle = new GUTriangle(enc1, enc2, enc3);
+		enclosingTriangle.makeCCW();
+		triangleList.add(enclosingTriangle);
+
+		for (GUVertex v : uniqueVertexSet)
+			addReferenceVertex(triangleList, v);
+
+		Iterator<GUTriangle> i = triangleList.iterator();
+		while (i.hasNext()) {
+			GUTriangle t = i.next();
+
+			if (t.vert[0] == enc1 || t.vert[0] == enc2 || t.vert[0] == enc3 ||
+				t.vert[1] == enc1 || t.vert[1] == enc2 || t.vert[1] == enc3 ||
+				t.vert[2] == enc1 || t.vert[2] == enc2 || t.vert[2] == enc3)
+				i.remove();
+		}
+
+		return triangleList;
+	}
+
+	private static void addReferenceVertex(List<GUTriangle> triangleList, GUVertex v)
+	{
+		HashMap<GUEdge, GUEdge> edgeMap = new HashMap<>();
+
+		Iterator<GUTriangle> i = triangleList.iterator();
+		while (i.hasNext()) {
+			GUTriangle t = i.next();
+
+			if (t.circumcircleContains(v)) {
+				GUEdge e1 = new GUEdge(t.vert[0], t.vert[1]);
+				GUEdge e2 = new GUEdge(t.vert[1], t.vert[2]);
+				GUEdge e3 = new GUEdge(t.vert[2], t.vert[0]);
+
+				if (edgeMap.containsKey(e1))
+					edgeMap.get(e1).ignore = true;
+				else
+					edgeMap.put(e1, e1);
+
+				if (edgeMap.containsKey(e2))
+					edgeMap.get(e2).ignore = true;
+				else
+					edgeMap.put(e2, e2);
+
+				if (edgeMap.containsKey(e3))
+					edgeMap.get(e3).ignore = true;
+				else
+					edgeMap.put(e3, e3);
+
+				i.remove();
+			}
+		}
+
+		for (GUEdge e : edgeMap.keySet()) {
+			if (!e.ignore) {
+				GUTriangle t = new GUTriangle(v, e.v1, e.v2);
+				t.makeCCW();
+				triangleList.add(t);
+			}
+		}
+	}
+}
@@ -0,0 +1,408 @@
+package game.map.editor.geometry;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Incremental Delaunay triangulation of points in the XZ plane, kept in primitive arrays.
+ * <p>
+ * Points are inserted in Hilbert curve order. Each point is located by walking across triangles
+ * from the last one created, so consecutive points are found in a few steps. The triangles whose
+ * circumcircles contain the point are collected by a search over neighbors starting from that
+ * triangle and replaced by a fan around the point. Sorting dominates, so the whole triangulation
+ * takes O(n log n) time instead of testing every triangle for every point.
+ * <p>
+ * The result is the same as {@link GeometryUtils} has always produced: points start inside the same
+ * enclosing triangle, triangles touching its corners are dropped at the end, and points which land
+ * on an existing vertex are skipped. Predicates are exact, so cocircular points may be split along
+ * either diagonal but the triangulation is always valid.
+ */
+public class DelaunayTriangulator
+{
+	private static final int HILBERT_BITS = 16;
+
+	// points, the last three are the corners of the enclosing triangle
+	private final int[] px;
+	private final int[] pz;
+	private final int pointCount;
+
+	// three vertices per triangle in counter-clockwise order, -1 for deleted triangles
+	private int[] triVerts;
+	// neighbor across the edge from vertex k to vertex k + 1, -1 for the outside
+	private int[] triNeighbors;
+	private int[] triMarks;
+	private int triCount = 0;
+
+	private int[] freeTriangles;
+	private int freeCount = 0;
+
+	private int lastTriangle = 0;
+	private int mark = 0;
+
+	// scratch space for cavities
+	private int[] stack = new int[16];
+	private int[] cavity = new int[16];
+	private int[] boundary = new int[16 * 4];
+	private final int[] fanStart;
+
+	/**
+	 * Triangulates points given by their x and z coordinates.
+	 * @return three point indices per triangle, in counter-clockwise order
+	 */
+	public static int[] triangulate(int[] x, int[] z, int count)
+	{
+		if (count < 3)
+			return new int[0];
+
+		DelaunayTriangulator triangulator = new DelaunayTriangulator(x, z, count);
+		for (int i : getInsertionOrder(x, z, count))
+			triangulator.insert(i);
+		return triangulator.getTriangles();
+	}
+
+	private DelaunayTriangulator(int[] x, int[] z, int count)
+	{
+		pointCount = count;
+		px = Arrays.copyOf(x, count + 3);
+		pz = Arrays.copyOf(z, count + 3);
+		fanStart = new int[count + 3];
+
+		int minX = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int minZ = Integer.MAX_VALUE;
+		int maxZ = Integer.MIN_VALUE;
+
+		for (int i = 0; i < count; i++) {
+			minX = Math.min(minX, x[i]);
+			maxX = Math.max(maxX, x[i]);
+			minZ = Math.min(minZ, z[i]);
+			maxZ = Math.max(maxZ, z[i]);
+		}
+
+		int sizeX = Math.max(16, maxX - minX);
+		int sizeZ = Math.max(16, maxZ - minZ);
+		int centerX = minX + sizeX / 2;
+		int centerZ = minZ + sizeZ / 2;
+
+		int a = count, b = count + 1, c = count + 2;
+		if (sizeX > sizeZ) {
+			setPoint(a, centerX + sizeX, centerZ - sizeZ);
+			setPoint(b, centerX - sizeX, centerZ - sizeZ);
+			setPoint(c, centerX, centerZ + 4 * sizeZ);
+		}
+		else {
+			setPoint(a, centerX - sizeX, centerZ + sizeZ);
+			setPoint(b, centerX - sizeX, centerZ - sizeZ);
+			setPoint(c, centerX + 4 * sizeX, centerZ);
+		}
+
+		int capacity = 2 * (count + 3) + 16;
+		triVerts = new int[3 * capacity];
+		triNeighbors = new int[3 * capacity];
+		triMarks = new int[capacity];
+		freeTriangles = new int[capacity];
+
+		if (orient(a, b, c) >= 0)
+			lastTriangle = newTriangle(a, b, c);
+		else
+			lastTriangle = newTriangle(c, b, a);
+		Arrays.fill(triNeighbors, 0, 3, -1);
+	}
+
+	private void setPoint(int i, int x, int z)
+	{
+		px[i] = x;
+		pz[i] = z;
+	}
+
+	private static int[] getInsertionOrder(int[] x, int[] z, int count)
+	{
+		int minX = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int minZ = Integer.MAX_VALUE;
+		int maxZ = Integer.MIN_VALUE;
+
+		for (int i = 0; i < count; i++) {
+			minX = Math.min(minX, x[i]);
+			maxX = Math.max(maxX, x[i]);
+			minZ = Math.min(minZ, z[i]);
+			maxZ = Math.max(maxZ, z[i]);
+		}
+
+		long rangeX = Math.max(1L, (long) maxX - minX);
+		long rangeZ = Math.max(1L, (long) maxZ - minZ);
+		int cells = (1 << HILBERT_BITS) - 1;
+
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++) {
+			int hx = (int) (((long) x[i] - minX) * cells / rangeX);
+			int hz = (int) (((long) z[i] - minZ) * cells / rangeZ);
+			keys[i] = (getHilbertIndex(hx, hz) << 31) | i;
+		}
+		Arrays.sort(keys);
+
+		int[] order = new int[count];
+		for (int i = 0; i < count; i++)
+			order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+		return order;
+	}
+
+	private static long getHilbertIndex(int x, int y)
+	{
+		int n = 1 << HILBERT_BITS;
+		long d = 0;
+		for (int s = n / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+
+			if (ry == 0) {
+				if (rx == 1) {
+					x = n - 1 - x;
+					y = n - 1 - y;
+				}
+				int temp = x;
+				x = y;
+				y = temp;
+			}
+		}
+		return d;
+	}
+
+	private void insert(int p)
+	{
+		int start = locate(p);
+		for (int k = 0; k < 3; k++) {
+			int v = triVerts[3 * start + k];
+			if (px[v] == px[p] && pz[v] == pz[p])
+				return;
+		}
+
+		// collect the cavity, the point lies strictly inside the circumcircle of its own triangle
+		mark += 2;
+		int inside = mark;
+		int outside = mark + 1;
+
+		int cavitySize = 0;
+		int boundarySize = 0;
+		int stackSize = 0;
+
+		triMarks[start] = inside;
+		stack[stackSize++] = start;
+
+		while (stackSize > 0) {
+			int t = stack[--stackSize];
+			cavity = ensureSize(cavity, cavitySize + 1);
+			cavity[cavitySize++] = t;
+
+			for (int k = 0; k < 3; k++) {
+				int nb = triNeighbors[3 * t + k];
+				if (nb >= 0 && triMarks[nb] != outside) {
+					if (triMarks[nb] == inside)
+						continue;
+
+					if (inCircle(triVerts[3 * nb], triVerts[3 * nb + 1], triVerts[3 * nb + 2], p)) {
+						triMarks[nb] = inside;
+						stack = ensureSize(stack, stackSize + 1);
+						stack[stackSize++] = nb;
+						continue;
+					}
+					triMarks[nb] = outside;
+				}
+
+				// edge on the cavity boundary: start, end, outer triangle, edge of outer triangle
+				boundary = ensureSize(boundary, 4 * (boundarySize + 1));
+				boundary[4 * boundarySize] = triVerts[3 * t + k];
+				boundary[4 * boundarySize + 1] = triVerts[3 * t + (k + 1) % 3];
+				boundary[4 * boundarySize + 2] = nb;
+				boundary[4 * boundarySize + 3] = (nb < 0) ? -1 : getNeighborIndex(nb, t);
+				boundarySize++;
+			}
+		}
+
+		for (int i = 0; i < cavitySize; i++)
+			freeTriangle(cavity[i]);
+
+		// replace the cavity with a fan of triangles around the point
+		for (int i = 0; i < boundarySize; i++) {
+			int a = boundary[4 * i];
+			int b = boundary[4 * i + 1];
+			int outer = boundary[4 * i + 2];
+
+			int t = newTriangle(a, b, p);
+			triNeighbors[3 * t] = outer;
+			if (outer >= 0)
+				triNeighbors[3 * outer + boundary[4 * i + 3]] = t;
+			fanStart[a] = t;
+		}
+
+		for (int i = 0; i < boundarySize; i++) {
+			int a = boundary[4 * i];
+			int b = boundary[4 * i + 1];
+			int t = fanStart[a];
+			int next = fanStart[b];
+			triNeighbors[3 * t + 1] = next;
+			triNeighbors[3 * next + 2] = t;
+		}
+
+		lastTriangle = fanStart[boundary[0]];
+	}
+
+	/**
+	 * Walks from the last triangle created towards the point.
+	 * @return a triangle containing the point, possibly on one of its edges
+	 */
+	private int locate(int p)
+	{
+		int t = lastTriangle;
+		int step = 0;
+
+		walk:
+		while (true) {
+			// vary the first edge tested so the walk cannot cycle
+			int first = step++ % 3;
+			for (int i = 0; i < 3; i++) {
+				int k = (first + i) % 3;
+				int a = triVerts[3 * t + k];
+				int b = triVerts[3 * t + (k + 1) % 3];
+				if (orient(a, b, p) < 0) {
+					t = triNeighbors[3 * t + k];
+					continue walk;
+				}
+			}
+			return t;
+		}
+	}
+
+	private int getNeighborIndex(int t, int nb)
+	{
+		for (int k = 0; k < 3; k++) {
+			if (triNeighbors[3 * t + k] == nb)
+				return k;
+		}
+		throw new IllegalStateException("Triangulation has inconsistent neighbors.");
+	}
+
+	private int newTriangle(int a, int b, int c)
+	{
+		int t;
+		if (freeCount > 0)
+			t = freeTriangles[--freeCount];
+		else {
+			t = triCount++;
+			if (t == triMarks.length) {
+				int capacity = 2 * triMarks.length;
+				triVerts = Arrays.copyOf(triVerts, 3 * capacity);
+				triNeighbors = Arrays.copyOf(triNeighbors, 3 * capacity);
+				triMarks = Arrays.copyOf(triMarks, capacity);
+				freeTriangles = Arrays.copyOf(freeTriangles, capacity);
+			}
+		}
+
+		triVerts[3 * t] = a;
+		triVerts[3 * t + 1] = b;
+		triVerts[3 * t + 2] = c;
+		triMarks[t] = 0;
+		return t;
+	}
+
+	private void freeTriangle(int t)
+	{
+		triVerts[3 * t] = -1;
+		freeTriangles[freeCount++] = t;
+	}
+
+	private int[] getTriangles()
+	{
+		int[] result = new int[3 * triCount];
+		int count = 0;
+
+		for (int t = 0; t < triCount; t++) {
+			int a = triVerts[3 * t];
+			int b = triVerts[3 * t + 1];
+			int c = triVerts[3 * t + 2];
+			if (a < 0 || a >= pointCount || b >= pointCount || c >= pointCount)
+				continue;
+
+			result[count++] = a;
+			result[count++] = b;
+			result[count++] = c;
+		}
+
+		return Arrays.copyOf(result, count);
+	}
+
+	private static int[] ensureSize(int[] array, int size)
+	{
+		if (size <= array.length)
+			return array;
+		return Arrays.copyOf(array, Math.max(size, 2 * array.length));
+	}
+
+	/**
+	 * @return positive if a, b, c are counter-clockwise, negative if clockwise, zero if collinear
+	 */
+	private int orient(int a, int b, int c)
+	{
+		long abx = (long) px[b] - px[a];
+		long abz = (long) pz[b] - pz[a];
+		long acx = (long) px[c] - px[a];
+		long acz = (long) pz[c] - pz[a];
+		return Long.signum(abx * acz - abz * acx);
+	}
+
+	/**
+	 * @return true if d lies strictly inside the circumcircle of the counter-clockwise triangle a, b, c
+	 */
+	private boolean inCircle(int a, int b, int c, int d)
+	{
+		double adx = (double) px[a] - px[d];
+		double adz = (double) pz[a] - pz[d];
+		double bdx = (double) px[b] - px[d];
+		double bdz = (double) pz[b] - pz[d];
+		double cdx = (double) px[c] - px[d];
+		double cdz = (double) pz[c] - pz[d];
+
+		double alift = adx * adx + adz * adz;
+		double blift = bdx * bdx + bdz * bdz;
+		double clift = cdx * cdx + cdz * cdz;
+
+		double bc = bdx * cdz - cdx * bdz;
+		double ca = cdx * adz - adx * cdz;
+		double ab = adx * bdz - bdx * adz;
+		double det = alift * bc + blift * ca + clift * ab;
+
+		// the products are rounded, fall back to exact arithmetic when the sign is in doubt
+		double permanent = alift * (Math.abs(bdx * cdz) + Math.abs(cdx * bdz))
+			+ blift * (Math.abs(cdx * adz) + Math.abs(adx * cdz))
+			+ clift * (Math.abs(adx * bdz) + Math.abs(bdx * adz));
+		double errorBound = 1e-12 * permanent;
+
+		if (det > errorBound)
+			return true;
+		if (det < -errorBound)
+			return false;
+
+		return getExactInCircle(a, b, c, d).signum() > 0;
+	}
+
+	private BigInteger getExactInCircle(int a, int b, int c, int d)
+	{
+		BigInteger adx = BigInteger.valueOf((long) px[a] - px[d]);
+		BigInteger adz = BigInteger.valueOf((long) pz[a] - pz[d]);
+		BigInteger bdx = BigInteger.valueOf((long) px[b] - px[d]);
+		BigInteger bdz = BigInteger.valueOf((long) pz[b] - pz[d]);
+		BigInteger cdx = BigInteger.valueOf((long) px[c] - px[d]);
+		BigInteger cdz = BigInteger.valueOf((long) pz[c] - pz[d]);
+
+		BigInteger alift = adx.multiply(adx).add(adz.multiply(adz));
+		BigInteger blift = bdx.multiply(bdx).add(bdz.multiply(bdz));
+		BigInteger clift = cdx.multiply(cdx).add(cdz.multiply(cdz));
+
+		BigInteger bc = bdx.multiply(cdz).subtract(cdx.multiply(bdz));
+		BigInteger ca = cdx.multiply(adz).subtract(adx.multiply(cdz));
+		BigInteger ab = adx.multiply(bdz).subtract(bdx.multiply(adz));
+
+		return alift.multiply(bc).add(blift.multiply(ca)).add(clift.multiply(ab));
+	}
+}
@@ -162,8 +162,8 @@ public class FromPathsGenerator
 		for (int i = 0; i < center.length - 1; i++) {
 			Triangle t1 = new Triangle(grid[i][1], grid[i + 1][0], grid[i][0]);
 			Triangle t2 = new Triangle(grid[i + 1][0], grid[i][1], grid[i + 1][1]);
-			batch.triangles.add(t1);
-			batch.triangles.add(t2);
+			batch.getTriangles().add(t1);
+			batch.getTriangles().add(t2);
 		}
 
 		return batch;
@@ -234,8 +234,8 @@ public class FromPathsGenerator
 		for (int i = 0; i < center.length - 1; i++) {
 			Triangle t1 = new Triangle(grid[i][1], grid[i + 1][0], grid[i][0]);
 			Triangle t2 = new Triangle(grid[i + 1][0], grid[i][1], grid[i + 1][1]);
-			batch.triangles.add(t1);
-			batch.triangles.add(t2);
+			batch.getTriangles().add(t1);
+			batch.getTriangles().add(t2);
 		}
 
 		return batch;
@@ -305,8 +305,8 @@ public class FromPathsGenerator
 			for (int j = 0; j < segments; j++) {
 				Triangle t1 = new Triangle(grid[i][j + 1], grid[i + 1][j], grid[i][j]);
 				Triangle t2 = new Triangle(grid[i + 1][j], grid[i][j + 1], grid[i + 1][j + 1]);
-				batch.triangles.add(t1);
-				batch.triangles.add(t2);
+				batch.getTriangles().add(t1);
+				batch.getTriangles().add(t2);
 			}
 		}
 
@@ -47,7 +47,7 @@ public class FromTrianglesGenerator
 
 		for (Triangle t : triangles) {
 			Triangle copy = t.deepCopy();
-			batch.triangles.add(copy);
+			batch.getTriangles().add(copy);
 			copy.parentBatch = batch;
 		}
 
@@ -67,7 +67,7 @@ public class FromTrianglesGenerator
 
 			if (Vector3f.dot(normal, up) > threshold) {
 				Triangle copy = t.deepCopy();
-				batch.triangles.add(copy);
+				batch.getTriangles().add(copy);
 				copy.parentBatch = batch;
 			}
 		}
@@ -89,7 +89,7 @@ public class FromTrianglesGenerator
 			float inner = Vector3f.dot(normal, up);
 			if (inner < threshold && inner > -threshold) {
 				Triangle copy = t.deepCopy();
-				batch.triangles.add(copy);
+				batch.getTriangles().add(copy);
 				copy.parentBatch = batch;
 			}
 		}
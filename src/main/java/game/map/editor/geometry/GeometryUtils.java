@@ -1,10 +1,8 @@
 package game.map.editor.geometry;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.PriorityQueue;
@@ -202,7 +200,7 @@ public class GeometryUtils
 			if (t.vert[0] == t.vert[1] || t.vert[0] == t.vert[2] || t.vert[1] == t.vert[2])
 				continue;
 
-			batch.triangles.add(new Triangle(
+			batch.getTriangles().add(new Triangle(
 				projectedVertexSet.get(t.vert[0]),
 				projectedVertexSet.get(t.vert[1]),
 				projectedVertexSet.get(t.vert[2])));
@@ -404,8 +402,8 @@ public class GeometryUtils
 			Triangle t1 = new Triangle(extruded.get(i + 1), extruded.get(i), base.get(i));
 			Triangle t2 = new Triangle(base.get(i), base.get(i + 1), extruded.get(i + 1));
 
-			batch.triangles.add(t1);
-			batch.triangles.add(t2);
+			batch.getTriangles().add(t1);
+			batch.getTriangles().add(t2);
 		}
 
 		return batch;
@@ -653,7 +651,7 @@ public class GeometryUtils
 			return null;
 
 		HashSet<Vector3f> uniquePointSet = new HashSet<>();
-		List<GUVertex> uniqueVertexList = new LinkedList<>();
+		List<GUVertex> uniqueVertexList = new ArrayList<>();
 
 		for (Vector3f v : pointList) {
 			if (!uniquePointSet.contains(v)) {
@@ -671,7 +669,7 @@ public class GeometryUtils
 			return triangulation;
 		}
 
-		return getDelaunayTriangulation(uniqueVertexList);
+		return triangulateUniqueVertices(uniqueVertexList);
 	}
 
 	private static TriangleBatch getBatchFromTriangles(List<GUTriangle> triangleList)
@@ -686,7 +684,7 @@ public class GeometryUtils
 		TriangleBatch batch = new TriangleBatch(null);
 		for (GUTriangle st : triangleList) {
 			Triangle t = new Triangle(vertexMap.get(st.vert[0]), vertexMap.get(st.vert[1]), vertexMap.get(st.vert[2]));
-			batch.triangles.add(t);
+			batch.getTriangles().add(t);
 		}
 		return batch;
 	}
@@ -694,7 +692,7 @@ public class GeometryUtils
 	private static void assignPlanarUVs(TriangleBatch batch, Axis axis)
 	{
 		BoundingBox bb = new BoundingBox();
-		for (Triangle t : batch.triangles)
+		for (Triangle t : batch.getTriangles())
 			for (Vertex v : t.vert)
 				bb.encompass(v);
 
@@ -705,19 +703,19 @@ public class GeometryUtils
 
 		switch (axis) {
 			case X:
-				for (Triangle t : batch.triangles)
+				for (Triangle t : batch.getTriangles())
 					for (Vertex v : t.vert)
 						v.uv = new UV(uScale * (v.getCurrentY() - center.y), -vScale * (v.getCurrentZ() - center.z));
 				break;
 
 			case Y:
-				for (Triangle t : batch.triangles)
+				for (Triangle t : batch.getTriangles())
 					for (Vertex v : t.vert)
 						v.uv = new UV(uScale * (v.getCurrentX() - center.x), vScale * (v.getCurrentZ() - center.z));
 				break;
 
 			case Z:
-				for (Triangle t : batch.triangles)
+				for (Triangle t : batch.getTriangles())
 					for (Vertex v : t.vert)
 						v.uv = new UV(uScale * (v.getCurrentY() - center.y), vScale * (v.getCurrentX() - center.x));
 				break;
@@ -779,132 +777,46 @@ public class GeometryUtils
 	{
 		HashMap<Vertex, Vertex> rotatedMap = new HashMap<>();
 
-		for (Triangle t : batch.triangles)
+		for (Triangle t : batch.getTriangles())
 			for (Vertex v : t.vert)
 				rotatedMap.put(v, new Vertex(pointFromXZ(v.getCurrentPos(), axis)));
 
 		TriangleBatch rotated = new TriangleBatch(null);
 		if (axis != Axis.Y) {
-			for (Triangle t : batch.triangles) {
-				rotated.triangles.add(new Triangle(
+			for (Triangle t : batch.getTriangles()) {
+				rotated.getTriangles().add(new Triangle(
 					rotatedMap.get(t.vert[0]),
 					rotatedMap.get(t.vert[1]),
 					rotatedMap.get(t.vert[2])));
 			}
 		}
 		else {
-			rotated.triangles.addAll(batch.triangles);
+			rotated.getTriangles().addAll(batch.getTriangles());
 		}
 
 		return rotated;
 	}
 
-	private static List<GUTriangle> getDelaunayTriangulation(Iterable<GUVertex> uniqueVertexSet)
+	private static List<GUTriangle> triangulateUniqueVertices(List<GUVertex> uniqueVertexList)
 	{
-		int minX = Integer.MAX_VALUE;
-		int maxX = Integer.MIN_VALUE;
-
-		int minZ = Integer.MAX_VALUE;
-		int maxZ = Integer.MIN_VALUE;
-
-		for (GUVertex v : uniqueVertexSet) {
-			if (v.x < minX)
-				minX = v.x;
-			if (v.x > maxX)
-				maxX = v.x;
-			if (v.z < minZ)
-				minZ = v.z;
-			if (v.z > maxZ)
-				maxZ = v.z;
-		}
-
-		int sizeX = maxX - minX;
-		int sizeZ = maxZ - minZ;
-
-		if (sizeX < 16)
-			sizeX = 16;
-		if (sizeZ < 16)
-			sizeZ = 16;
-
-		int centerX = minX + sizeX / 2;
-		int centerZ = minZ + sizeZ / 2;
+		GUVertex[] vertices = uniqueVertexList.toArray(new GUVertex[uniqueVertexList.size()]);
+		int[] x = new int[vertices.length];
+		int[] z = new int[vertices.length];
 
-		GUVertex enc1, enc2, enc3;
-
-		if (sizeX > sizeZ) {
-			enc1 = new GUVertex(centerX + sizeX, 0, centerZ - sizeZ);
-			enc2 = new GUVertex(centerX - sizeX, 0, centerZ - sizeZ);
-			enc3 = new GUVertex(centerX, 0, centerZ + 4 * sizeZ);
-		}
-		else {
-			enc1 = new GUVertex(centerX - sizeX, 0, centerZ + sizeZ);
-			enc2 = new GUVertex(centerX - sizeX, 0, centerZ - sizeZ);
-			enc3 = new GUVertex(centerX + 4 * sizeX, 0, centerZ);
+		for (int i = 0; i < vertices.length; i++) {
+			x[i] = vertices[i].x;
+			z[i] = vertices[i].z;
 		}
 
-		LinkedList<GUTriangle> triangleList = new LinkedList<>();
+		int[] indices = DelaunayTriangulator.triangulate(x, z, vertices.length);
 
-		GUTriangle enclosingTriangle = new GUTriangle(enc1, enc2, enc3);
-		enclosingTriangle.makeCCW();
-		triangleList.add(enclosingTriangle);
-
-		for (GUVertex v : uniqueVertexSet)
-			addVertexToDelaunayTriangulation(triangleList, v);
-
-		Iterator<GUTriangle> i = triangleList.iterator();
-		while (i.hasNext()) {
-			GUTriangle t = i.next();
-
-			if (t.vert[0] == enc1 || t.vert[0] == enc2 || t.vert[0] == enc3 ||
-				t.vert[1] == enc1 || t.vert[1] == enc2 || t.vert[1] == enc3 ||
-				t.vert[2] == enc1 || t.vert[2] == enc2 || t.vert[2] == enc3)
-				i.remove();
-		}
+		List<GUTriangle> triangleList = new ArrayList<>(indices.length / 3);
+		for (int i = 0; i < indices.length; i += 3)
+			triangleList.add(new GUTriangle(vertices[indices[i]], vertices[indices[i + 1]], vertices[indices[i + 2]]));
 
 		return triangleList;
 	}
 
-	private static void addVertexToDelaunayTriangulation(Collection<GUTriangle> triangleList, GUVertex v)
-	{
-		HashMap<GUEdge, GUEdge> edgeMap = new HashMap<>();
-
-		Iterator<GUTriangle> i = triangleList.iterator();
-		while (i.hasNext()) {
-			GUTriangle t = i.next();
-
-			if (t.circumcircleContains(v)) {
-				GUEdge e1 = new GUEdge(t.vert[0], t.vert[1]);
-				GUEdge e2 = new GUEdge(t.vert[1], t.vert[2]);
-				GUEdge e3 = new GUEdge(t.vert[2], t.vert[0]);
-
-				if (edgeMap.containsKey(e1))
-					edgeMap.get(e1).ignore = true;
-				else
-					edgeMap.put(e1, e1);
-
-				if (edgeMap.containsKey(e2))
-					edgeMap.get(e2).ignore = true;
-				else
-					edgeMap.put(e2, e2);
-
-				if (edgeMap.containsKey(e3))
-					edgeMap.get(e3).ignore = true;
-				else
-					edgeMap.put(e3, e3);
-
-				i.remove();
-			}
-		}
-
-		for (GUEdge e : edgeMap.keySet()) {
-			if (!e.ignore) {
-				GUTriangle t = new GUTriangle(v, e.v1, e.v2);
-				t.makeCCW();
-				triangleList.add(t);
-			}
-		}
-	}
-
 	private static double getDistance(Vertex v1, Vertex v2)
 	{
 		int dx = v1.getCurrentX() - v2.getCurrentX();
@@ -178,48 +178,48 @@ public class BeveledCubeGenerator extends ShapeGenerator
 
 		// add rings
 		for (int i = 0; i < 8; i++) {
-			batch.triangles.add(new Triangle(rings[i][LOWER], rings[i + 1][LOWER], rings[i][UPPER]));
-			batch.triangles.add(new Triangle(rings[i][UPPER], rings[i + 1][LOWER], rings[i + 1][UPPER]));
+			batch.getTriangles().add(new Triangle(rings[i][LOWER], rings[i + 1][LOWER], rings[i][UPPER]));
+			batch.getTriangles().add(new Triangle(rings[i][UPPER], rings[i + 1][LOWER], rings[i + 1][UPPER]));
 		}
 
 		// add top
-		batch.triangles.add(new Triangle(cap[0][0], cap[2][0], cap[1][0]));
-		batch.triangles.add(new Triangle(cap[2][0], cap[0][0], cap[3][0]));
+		batch.getTriangles().add(new Triangle(cap[0][0], cap[2][0], cap[1][0]));
+		batch.getTriangles().add(new Triangle(cap[2][0], cap[0][0], cap[3][0]));
 
 		// add bottom
-		batch.triangles.add(new Triangle(cap[0][1], cap[1][1], cap[2][1]));
-		batch.triangles.add(new Triangle(cap[2][1], cap[3][1], cap[0][1]));
+		batch.getTriangles().add(new Triangle(cap[0][1], cap[1][1], cap[2][1]));
+		batch.getTriangles().add(new Triangle(cap[2][1], cap[3][1], cap[0][1]));
 
 		// add bevels
 		int k = 0;
 		for (int i = 0; i < 4; i++) {
-			batch.triangles.add(new Triangle(rings[k + 1][UPPER], rings[k + 1][TOP], rings[k][TOP]));
-			batch.triangles.add(new Triangle(rings[k][UPPER], rings[k + 1][UPPER], rings[k][TOP]));
+			batch.getTriangles().add(new Triangle(rings[k + 1][UPPER], rings[k + 1][TOP], rings[k][TOP]));
+			batch.getTriangles().add(new Triangle(rings[k][UPPER], rings[k + 1][UPPER], rings[k][TOP]));
 
-			batch.triangles.add(new Triangle(rings[k + 1][LOWER], rings[k][BOT], rings[k + 1][BOT]));
-			batch.triangles.add(new Triangle(rings[k][LOWER], rings[k][BOT], rings[k + 1][LOWER]));
+			batch.getTriangles().add(new Triangle(rings[k + 1][LOWER], rings[k][BOT], rings[k + 1][BOT]));
+			batch.getTriangles().add(new Triangle(rings[k][LOWER], rings[k][BOT], rings[k + 1][LOWER]));
 
 			k += 2;
 		}
 
 		// miters
 		if (sharpMiter) {
-			batch.triangles.add(new Triangle(rings[1][UPPER], rings[2][UPPER], miter[0][1]));
-			batch.triangles.add(new Triangle(rings[1][UPPER], rings[2][TOP], miter[0][1]));
-			batch.triangles.add(new Triangle(rings[1][TOP], rings[2][UPPER], miter[0][1]));
+			batch.getTriangles().add(new Triangle(rings[1][UPPER], rings[2][UPPER], miter[0][1]));
+			batch.getTriangles().add(new Triangle(rings[1][UPPER], rings[2][TOP], miter[0][1]));
+			batch.getTriangles().add(new Triangle(rings[1][TOP], rings[2][UPPER], miter[0][1]));
 
 			//TODO
 		}
 		else {
-			batch.triangles.add(new Triangle(rings[1][UPPER], rings[2][UPPER], miter[0][1]));
-			batch.triangles.add(new Triangle(rings[3][UPPER], rings[4][UPPER], miter[1][1]));
-			batch.triangles.add(new Triangle(rings[5][UPPER], rings[6][UPPER], miter[2][1]));
-			batch.triangles.add(new Triangle(rings[7][UPPER], rings[8][UPPER], miter[3][1]));
-
-			batch.triangles.add(new Triangle(rings[2][LOWER], rings[1][LOWER], miter[0][0]));
-			batch.triangles.add(new Triangle(rings[4][LOWER], rings[3][LOWER], miter[1][0]));
-			batch.triangles.add(new Triangle(rings[6][LOWER], rings[5][LOWER], miter[2][0]));
-			batch.triangles.add(new Triangle(rings[8][LOWER], rings[7][LOWER], miter[3][0]));
+			batch.getTriangles().add(new Triangle(rings[1][UPPER], rings[2][UPPER], miter[0][1]));
+			batch.getTriangles().add(new Triangle(rings[3][UPPER], rings[4][UPPER], miter[1][1]));
+			batch.getTriangles().add(new Triangle(rings[5][UPPER], rings[6][UPPER], miter[2][1]));
+			batch.getTriangles().add(new Triangle(rings[7][UPPER], rings[8][UPPER], miter[3][1]));
+
+			batch.getTriangles().add(new Triangle(rings[2][LOWER], rings[1][LOWER], miter[0][0]));
+			batch.getTriangles().add(new Triangle(rings[4][LOWER], rings[3][LOWER], miter[1][0]));
+			batch.getTriangles().add(new Triangle(rings[6][LOWER], rings[5][LOWER], miter[2][0]));
+			batch.getTriangles().add(new Triangle(rings[8][LOWER], rings[7][LOWER], miter[3][0]));
 		}
 
 		return batch;
@@ -109,22 +109,22 @@ public class ConeGenerator extends ShapeGenerator
 		// rings
 		for (int i = 0; i < faces; i++) {
 			for (int k = 0; k < (vdivs - 1); k++) {
-				batch.triangles.add(new Triangle(rings[i][k], rings[i][k + 1], rings[i + 1][k]));
-				batch.triangles.add(new Triangle(rings[i + 1][k], rings[i][k + 1], rings[i + 1][k + 1]));
+				batch.getTriangles().add(new Triangle(rings[i][k], rings[i][k + 1], rings[i + 1][k]));
+				batch.getTriangles().add(new Triangle(rings[i + 1][k], rings[i][k + 1], rings[i + 1][k + 1]));
 			}
 		}
 
 		for (int i = 0; i < faces; i++) {
 			if (fuseTop)
-				batch.triangles.add(new Triangle(rings[i][vdivs - 1], capCenter[1], rings[i + 1][vdivs - 1]));
+				batch.getTriangles().add(new Triangle(rings[i][vdivs - 1], capCenter[1], rings[i + 1][vdivs - 1]));
 			else
-				batch.triangles.add(new Triangle(rings[i][vdivs - 1], rings[i][vdivs], rings[i + 1][vdivs - 1]));
+				batch.getTriangles().add(new Triangle(rings[i][vdivs - 1], rings[i][vdivs], rings[i + 1][vdivs - 1]));
 		}
 
 		//bottom
 		if (includeCap) {
 			for (int i = 0; i < faces; i++)
-				batch.triangles.add(new Triangle(capCenter[0], cap[i], cap[i + 1]));
+				batch.getTriangles().add(new Triangle(capCenter[0], cap[i], cap[i + 1]));
 		}
 
 		return batch;
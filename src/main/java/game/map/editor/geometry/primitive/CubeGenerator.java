@@ -106,8 +106,8 @@ public class CubeGenerator extends ShapeGenerator
 		// add rings to batch
 		for (int j = 0; j < (numV - 1); j++) {
 			for (int i = 0; i < (numH - 1); i++) {
-				batch.triangles.add(new Triangle(rings[i][j], rings[i + 1][j], rings[i][j + 1]));
-				batch.triangles.add(new Triangle(rings[i][j + 1], rings[i + 1][j], rings[i + 1][j + 1]));
+				batch.getTriangles().add(new Triangle(rings[i][j], rings[i + 1][j], rings[i][j + 1]));
+				batch.getTriangles().add(new Triangle(rings[i][j + 1], rings[i + 1][j], rings[i + 1][j + 1]));
 			}
 		}
 
@@ -136,11 +136,11 @@ public class CubeGenerator extends ShapeGenerator
 
 		for (int i = 0; i < (numCap - 1); i++) {
 			for (int j = 0; j < (numCap - 1); j++) {
-				batch.triangles.add(new Triangle(top[i][j], top[i][j + 1], top[i + 1][j]));
-				batch.triangles.add(new Triangle(top[i + 1][j], top[i][j + 1], top[i + 1][j + 1]));
+				batch.getTriangles().add(new Triangle(top[i][j], top[i][j + 1], top[i + 1][j]));
+				batch.getTriangles().add(new Triangle(top[i + 1][j], top[i][j + 1], top[i + 1][j + 1]));
 
-				batch.triangles.add(new Triangle(bottom[i][j], bottom[i + 1][j], bottom[i][j + 1]));
-				batch.triangles.add(new Triangle(bottom[i][j + 1], bottom[i + 1][j], bottom[i + 1][j + 1]));
+				batch.getTriangles().add(new Triangle(bottom[i][j], bottom[i + 1][j], bottom[i][j + 1]));
+				batch.getTriangles().add(new Triangle(bottom[i][j + 1], bottom[i + 1][j], bottom[i + 1][j + 1]));
 			}
 		}
 
@@ -127,19 +127,19 @@ public class CylinderGenerator extends ShapeGenerator
 		// sides
 		for (int i = 0; i < faces; i++) {
 			for (int k = 0; k < vdivs; k++) {
-				batch.triangles.add(new Triangle(side[i][k], side[i][k + 1], side[i + 1][k]));
-				batch.triangles.add(new Triangle(side[i + 1][k], side[i][k + 1], side[i + 1][k + 1]));
+				batch.getTriangles().add(new Triangle(side[i][k], side[i][k + 1], side[i + 1][k]));
+				batch.getTriangles().add(new Triangle(side[i + 1][k], side[i][k + 1], side[i + 1][k + 1]));
 			}
 		}
 
 		if (includeBottom) {
 			for (int i = 0; i < faces; i++)
-				batch.triangles.add(new Triangle(capCenter[0], caps[i][0], caps[i + 1][0]));
+				batch.getTriangles().add(new Triangle(capCenter[0], caps[i][0], caps[i + 1][0]));
 		}
 
 		if (includeTop) {
 			for (int i = 0; i < faces; i++)
-				batch.triangles.add(new Triangle(capCenter[1], caps[i + 1][1], caps[i][1]));
+				batch.getTriangles().add(new Triangle(capCenter[1], caps[i + 1][1], caps[i][1]));
 		}
 
 		return batch;
@@ -78,8 +78,8 @@ public class HemisphereGenerator extends ShapeGenerator
 
 		for (int i = 0; i < latfaces; i++)
 			for (int j = 0; j < longfaces; j++) {
-				batch.triangles.add(new Triangle(rings[i][j], rings[i][j + 1], rings[i + 1][j]));
-				batch.triangles.add(new Triangle(rings[i][j + 1], rings[i + 1][j + 1], rings[i + 1][j]));
+				batch.getTriangles().add(new Triangle(rings[i][j], rings[i][j + 1], rings[i + 1][j]));
+				batch.getTriangles().add(new Triangle(rings[i][j + 1], rings[i + 1][j + 1], rings[i + 1][j]));
 			}
 
 		return batch;
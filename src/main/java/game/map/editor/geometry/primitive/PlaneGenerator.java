@@ -70,8 +70,8 @@ public class PlaneGenerator extends ShapeGenerator
 			for (int j = 0; j < numZ; j++) {
 				Triangle t1 = new Triangle(grid[i][j + 1], grid[i + 1][j], grid[i][j]);
 				Triangle t2 = new Triangle(grid[i + 1][j], grid[i][j + 1], grid[i + 1][j + 1]);
-				batch.triangles.add(t1);
-				batch.triangles.add(t2);
+				batch.getTriangles().add(t1);
+				batch.getTriangles().add(t2);
 			}
 
 		return batch;
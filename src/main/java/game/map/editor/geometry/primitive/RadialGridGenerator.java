@@ -135,8 +135,8 @@ public class RadialGridGenerator extends ShapeGenerator
 			for (int j = 0; j < numA; j++) {
 				Triangle t1 = new Triangle(rings[i + 1][j + 1], rings[i + 1][j], rings[i][j]);
 				Triangle t2 = new Triangle(rings[i + 1][j + 1], rings[i][j], rings[i][j + 1]);
-				batch.triangles.add(t1);
-				batch.triangles.add(t2);
+				batch.getTriangles().add(t1);
+				batch.getTriangles().add(t2);
 			}
 
 		return batch;
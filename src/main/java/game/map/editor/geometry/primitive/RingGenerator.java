@@ -90,13 +90,13 @@ public class RingGenerator extends ShapeGenerator
 		TriangleBatch batch = new TriangleBatch(null);
 
 		for (int i = 0; i < divs; i++) {
-			batch.triangles.add(new Triangle(rings[i][0], rings[i][1], rings[i + 1][0]));
-			batch.triangles.add(new Triangle(rings[i + 1][0], rings[i][1], rings[i + 1][1]));
+			batch.getTriangles().add(new Triangle(rings[i][0], rings[i][1], rings[i + 1][0]));
+			batch.getTriangles().add(new Triangle(rings[i + 1][0], rings[i][1], rings[i + 1][1]));
 
 			if (thickness != 0) {
 				for (int j = 1; j < 4; j++) {
-					batch.triangles.add(new Triangle(rings[i][j], rings[i][j + 1], rings[i + 1][j]));
-					batch.triangles.add(new Triangle(rings[i + 1][j + 1], rings[i + 1][j], rings[i][j + 1]));
+					batch.getTriangles().add(new Triangle(rings[i][j], rings[i][j + 1], rings[i + 1][j]));
+					batch.getTriangles().add(new Triangle(rings[i + 1][j + 1], rings[i + 1][j], rings[i][j + 1]));
 				}
 			}
 		}
@@ -128,11 +128,11 @@ public class RingGenerator extends ShapeGenerator
 			caps[2][1].uv = new UV(u2, UV_SCALE);
 			caps[3][1].uv = new UV(u2, 0);
 
-			batch.triangles.add(new Triangle(caps[1][0], caps[0][0], caps[2][0]));
-			batch.triangles.add(new Triangle(caps[3][0], caps[2][0], caps[0][0]));
+			batch.getTriangles().add(new Triangle(caps[1][0], caps[0][0], caps[2][0]));
+			batch.getTriangles().add(new Triangle(caps[3][0], caps[2][0], caps[0][0]));
 
-			batch.triangles.add(new Triangle(caps[0][1], caps[1][1], caps[2][1]));
-			batch.triangles.add(new Triangle(caps[2][1], caps[3][1], caps[0][1]));
+			batch.getTriangles().add(new Triangle(caps[0][1], caps[1][1], caps[2][1]));
+			batch.getTriangles().add(new Triangle(caps[2][1], caps[3][1], caps[0][1]));
 		}
 
 		return batch;
@@ -135,8 +135,8 @@ public class SpiralRampGenerator extends ShapeGenerator
 		TriangleBatch batch = new TriangleBatch(null);
 
 		for (int i = 0; i < (N - 1); i++) {
-			batch.triangles.add(new Triangle(ringO[i], ringI[i], ringI[i + 1]));
-			batch.triangles.add(new Triangle(ringO[i], ringI[i + 1], ringO[i + 1]));
+			batch.getTriangles().add(new Triangle(ringO[i], ringI[i], ringI[i + 1]));
+			batch.getTriangles().add(new Triangle(ringO[i], ringI[i + 1], ringO[i + 1]));
 		}
 
 		if (sideHeight > 0) {
@@ -170,11 +170,11 @@ public class SpiralRampGenerator extends ShapeGenerator
 			}
 
 			for (int i = 0; i < steps; i++) {
-				batch.triangles.add(new Triangle(lowerI[i + 1], upperI[i], lowerI[i]));
-				batch.triangles.add(new Triangle(upperI[i + 1], upperI[i], lowerI[i + 1]));
+				batch.getTriangles().add(new Triangle(lowerI[i + 1], upperI[i], lowerI[i]));
+				batch.getTriangles().add(new Triangle(upperI[i + 1], upperI[i], lowerI[i + 1]));
 
-				batch.triangles.add(new Triangle(upperO[i], lowerO[i + 1], lowerO[i]));
-				batch.triangles.add(new Triangle(upperO[i], upperO[i + 1], lowerO[i + 1]));
+				batch.getTriangles().add(new Triangle(upperO[i], lowerO[i + 1], lowerO[i]));
+				batch.getTriangles().add(new Triangle(upperO[i], upperO[i + 1], lowerO[i + 1]));
 			}
 
 			if (makeBottom) {
@@ -190,8 +190,8 @@ public class SpiralRampGenerator extends ShapeGenerator
 				}
 
 				for (int i = 0; i < steps; i++) {
-					batch.triangles.add(new Triangle(bottomI[i], bottomO[i], bottomI[i + 1]));
-					batch.triangles.add(new Triangle(bottomI[i + 1], bottomO[i], bottomO[i + 1]));
+					batch.getTriangles().add(new Triangle(bottomI[i], bottomO[i], bottomI[i + 1]));
+					batch.getTriangles().add(new Triangle(bottomI[i + 1], bottomO[i], bottomO[i + 1]));
 				}
 			}
 		}
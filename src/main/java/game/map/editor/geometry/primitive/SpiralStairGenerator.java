@@ -230,8 +230,8 @@ public class SpiralStairGenerator extends ShapeGenerator
 		TriangleBatch batch = new TriangleBatch(null);
 
 		for (int i = 0; i < (N - 1); i++) {
-			batch.triangles.add(new Triangle(ringO[i], ringI[i], ringI[i + 1]));
-			batch.triangles.add(new Triangle(ringO[i], ringI[i + 1], ringO[i + 1]));
+			batch.getTriangles().add(new Triangle(ringO[i], ringI[i], ringI[i + 1]));
+			batch.getTriangles().add(new Triangle(ringO[i], ringI[i + 1], ringO[i + 1]));
 		}
 
 		switch (sideStyle) {
@@ -267,11 +267,11 @@ public class SpiralStairGenerator extends ShapeGenerator
 				}
 
 				for (int i = 0; i < (N - 1); i++) {
-					batch.triangles.add(new Triangle(lowerI[i], upperI[i + 1], upperI[i]));
-					batch.triangles.add(new Triangle(lowerI[i], lowerI[i + 1], upperI[i + 1]));
+					batch.getTriangles().add(new Triangle(lowerI[i], upperI[i + 1], upperI[i]));
+					batch.getTriangles().add(new Triangle(lowerI[i], lowerI[i + 1], upperI[i + 1]));
 
-					batch.triangles.add(new Triangle(lowerO[i], upperO[i], upperO[i + 1]));
-					batch.triangles.add(new Triangle(lowerO[i], upperO[i + 1], lowerO[i + 1]));
+					batch.getTriangles().add(new Triangle(lowerO[i], upperO[i], upperO[i + 1]));
+					batch.getTriangles().add(new Triangle(lowerO[i], upperO[i + 1], lowerO[i + 1]));
 				}
 			}
 				break;
@@ -294,8 +294,8 @@ public class SpiralStairGenerator extends ShapeGenerator
 				}
 
 				for (int i = 0; i < (N - 2); i += 2) {
-					batch.triangles.add(new Triangle(upperI[i + 1], upperI[i], upperI[i + 2]));
-					batch.triangles.add(new Triangle(upperO[i + 2], upperO[i], upperO[i + 1]));
+					batch.getTriangles().add(new Triangle(upperI[i + 1], upperI[i], upperI[i + 2]));
+					batch.getTriangles().add(new Triangle(upperO[i + 2], upperO[i], upperO[i + 1]));
 				}
 
 				Vertex[] lowerI = new Vertex[steps + 1];
@@ -316,11 +316,11 @@ public class SpiralStairGenerator extends ShapeGenerator
 
 				if (sideHeight > 0) {
 					for (int i = 0; i < steps; i++) {
-						batch.triangles.add(new Triangle(lowerI[i + 1], upperI[2 * i], lowerI[i]));
-						batch.triangles.add(new Triangle(upperI[2 * (i + 1)], upperI[2 * i], lowerI[i + 1]));
+						batch.getTriangles().add(new Triangle(lowerI[i + 1], upperI[2 * i], lowerI[i]));
+						batch.getTriangles().add(new Triangle(upperI[2 * (i + 1)], upperI[2 * i], lowerI[i + 1]));
 
-						batch.triangles.add(new Triangle(upperO[2 * i], lowerO[i + 1], lowerO[i]));
-						batch.triangles.add(new Triangle(upperO[2 * i], upperO[2 * (i + 1)], lowerO[i + 1]));
+						batch.getTriangles().add(new Triangle(upperO[2 * i], lowerO[i + 1], lowerO[i]));
+						batch.getTriangles().add(new Triangle(upperO[2 * i], upperO[2 * (i + 1)], lowerO[i + 1]));
 					}
 				}
 
@@ -348,8 +348,8 @@ public class SpiralStairGenerator extends ShapeGenerator
 					}
 
 					for (int i = 0; i < steps; i++) {
-						batch.triangles.add(new Triangle(bottomI[i], bottomO[i], bottomI[i + 1]));
-						batch.triangles.add(new Triangle(bottomI[i + 1], bottomO[i], bottomO[i + 1]));
+						batch.getTriangles().add(new Triangle(bottomI[i], bottomO[i], bottomI[i + 1]));
+						batch.getTriangles().add(new Triangle(bottomI[i + 1], bottomO[i], bottomO[i + 1]));
 					}
 				}
 			}
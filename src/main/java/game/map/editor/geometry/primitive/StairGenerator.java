@@ -203,8 +203,8 @@ public class StairGenerator extends ShapeGenerator
 		TriangleBatch batch = new TriangleBatch(null);
 
 		for (int i = 0; i < (N - 1); i++) {
-			batch.triangles.add(new Triangle(topR[i], topL[i], topR[i + 1]));
-			batch.triangles.add(new Triangle(topL[i + 1], topR[i + 1], topL[i]));
+			batch.getTriangles().add(new Triangle(topR[i], topL[i], topR[i + 1]));
+			batch.getTriangles().add(new Triangle(topL[i + 1], topR[i + 1], topL[i]));
 		}
 
 		switch (sideStyle) {
@@ -228,8 +228,8 @@ public class StairGenerator extends ShapeGenerator
 
 				if (lessTriangles) {
 					for (int i = 0; i < (N - 2); i += 2) {
-						batch.triangles.add(new Triangle(upperR[i], upperR[i + 1], upperR[i + 2]));
-						batch.triangles.add(new Triangle(upperL[i], upperL[i + 2], upperL[i + 1]));
+						batch.getTriangles().add(new Triangle(upperR[i], upperR[i + 1], upperR[i + 2]));
+						batch.getTriangles().add(new Triangle(upperL[i], upperL[i + 2], upperL[i + 1]));
 					}
 
 					Vertex cR = new Vertex(centerX + R, centerY, centerZ + steps * stepDepth);
@@ -238,8 +238,8 @@ public class StairGenerator extends ShapeGenerator
 					cR.uv = new UV(uvScale * steps * stepDepth, vOffset);
 					cL.uv = new UV(uvScale * steps * stepDepth, vOffset);
 
-					batch.triangles.add(new Triangle(upperR[0], upperR[N - 1], cR));
-					batch.triangles.add(new Triangle(upperL[0], cL, upperL[N - 1]));
+					batch.getTriangles().add(new Triangle(upperR[0], upperR[N - 1], cR));
+					batch.getTriangles().add(new Triangle(upperL[0], cL, upperL[N - 1]));
 				}
 				else {
 					Vertex[] lowerR = new Vertex[N];
@@ -254,11 +254,11 @@ public class StairGenerator extends ShapeGenerator
 					}
 
 					for (int i = 0; i < (N - 1); i++) {
-						batch.triangles.add(new Triangle(lowerR[i], upperR[i], upperR[i + 1]));
-						batch.triangles.add(new Triangle(lowerR[i], upperR[i + 1], lowerR[i + 1]));
+						batch.getTriangles().add(new Triangle(lowerR[i], upperR[i], upperR[i + 1]));
+						batch.getTriangles().add(new Triangle(lowerR[i], upperR[i + 1], lowerR[i + 1]));
 
-						batch.triangles.add(new Triangle(lowerL[i], upperL[i + 1], upperL[i]));
-						batch.triangles.add(new Triangle(lowerL[i], lowerL[i + 1], upperL[i + 1]));
+						batch.getTriangles().add(new Triangle(lowerL[i], upperL[i + 1], upperL[i]));
+						batch.getTriangles().add(new Triangle(lowerL[i], lowerL[i + 1], upperL[i + 1]));
 					}
 				}
 			}
@@ -280,8 +280,8 @@ public class StairGenerator extends ShapeGenerator
 				}
 
 				for (int i = 0; i < (N - 2); i += 2) {
-					batch.triangles.add(new Triangle(upperR[i], upperR[i + 1], upperR[i + 2]));
-					batch.triangles.add(new Triangle(upperL[i], upperL[i + 2], upperL[i + 1]));
+					batch.getTriangles().add(new Triangle(upperR[i], upperR[i + 1], upperR[i + 2]));
+					batch.getTriangles().add(new Triangle(upperL[i], upperL[i + 2], upperL[i + 1]));
 				}
 
 				Vertex[] lowerR = new Vertex[steps + 1];
@@ -303,19 +303,19 @@ public class StairGenerator extends ShapeGenerator
 
 				if (sideHeight > 0) {
 					if (lessTriangles) {
-						batch.triangles.add(new Triangle(lowerL[0], lowerL[steps], upperL[0]));
-						batch.triangles.add(new Triangle(lowerL[steps], upperL[N - 1], upperL[0]));
+						batch.getTriangles().add(new Triangle(lowerL[0], lowerL[steps], upperL[0]));
+						batch.getTriangles().add(new Triangle(lowerL[steps], upperL[N - 1], upperL[0]));
 
-						batch.triangles.add(new Triangle(lowerR[0], upperR[0], lowerR[steps]));
-						batch.triangles.add(new Triangle(lowerR[steps], upperR[0], upperR[N - 1]));
+						batch.getTriangles().add(new Triangle(lowerR[0], upperR[0], lowerR[steps]));
+						batch.getTriangles().add(new Triangle(lowerR[steps], upperR[0], upperR[N - 1]));
 					}
 					else {
 						for (int i = 0; i < steps; i++) {
-							batch.triangles.add(new Triangle(upperR[2 * i], lowerR[i + 1], lowerR[i]));
-							batch.triangles.add(new Triangle(upperR[2 * i], upperR[2 * (i + 1)], lowerR[i + 1]));
+							batch.getTriangles().add(new Triangle(upperR[2 * i], lowerR[i + 1], lowerR[i]));
+							batch.getTriangles().add(new Triangle(upperR[2 * i], upperR[2 * (i + 1)], lowerR[i + 1]));
 
-							batch.triangles.add(new Triangle(lowerL[i + 1], upperL[2 * i], lowerL[i]));
-							batch.triangles.add(new Triangle(upperL[2 * (i + 1)], upperL[2 * i], lowerL[i + 1]));
+							batch.getTriangles().add(new Triangle(lowerL[i + 1], upperL[2 * i], lowerL[i]));
+							batch.getTriangles().add(new Triangle(upperL[2 * (i + 1)], upperL[2 * i], lowerL[i + 1]));
 						}
 					}
 				}
@@ -335,13 +335,13 @@ public class StairGenerator extends ShapeGenerator
 					}
 
 					if (lessTriangles) {
-						batch.triangles.add(new Triangle(bottomL[0], bottomR[0], bottomR[steps]));
-						batch.triangles.add(new Triangle(bottomL[0], bottomR[steps], bottomL[steps]));
+						batch.getTriangles().add(new Triangle(bottomL[0], bottomR[0], bottomR[steps]));
+						batch.getTriangles().add(new Triangle(bottomL[0], bottomR[steps], bottomL[steps]));
 					}
 					else {
 						for (int i = 0; i < steps; i++) {
-							batch.triangles.add(new Triangle(bottomL[i], bottomR[i], bottomR[i + 1]));
-							batch.triangles.add(new Triangle(bottomL[i], bottomR[i + 1], bottomL[i + 1]));
+							batch.getTriangles().add(new Triangle(bottomL[i], bottomR[i], bottomR[i + 1]));
+							batch.getTriangles().add(new Triangle(bottomL[i], bottomR[i + 1], bottomL[i + 1]));
 						}
 					}
 				}
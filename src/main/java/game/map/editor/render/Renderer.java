@@ -265,13 +265,13 @@ public class Renderer implements IShutdownListener
 			RenderState.setPolygonMode(PolygonMode.FILL);
 			shader.drawMode.set(MODE_LINE_SOLID);
 			for (TriangleBatch batch : mesh.getBatches())
-				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.triangles.size());
+				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.getTriangleCount());
 
 			// draw edge highlights
 			RenderState.setPolygonMode(PolygonMode.LINE);
 			shader.drawMode.set(MODE_LINE_OUTLINE);
 			for (TriangleBatch batch : mesh.getBatches())
-				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.triangles.size());
+				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.getTriangleCount());
 		}
 
 		RenderState.setDepthWrite(true);
@@ -313,13 +313,13 @@ public class Renderer implements IShutdownListener
 			RenderState.setPolygonMode(PolygonMode.FILL);
 			shader.drawMode.set(MODE_LINE_SOLID);
 			for (TriangleBatch batch : mesh.getBatches())
-				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.triangles.size());
+				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.getTriangleCount());
 
 			// draw edge highlights
 			RenderState.setPolygonMode(PolygonMode.LINE);
 			shader.drawMode.set(MODE_LINE_OUTLINE);
 			for (TriangleBatch batch : mesh.getBatches())
-				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.triangles.size());
+				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.getTriangleCount());
 		}
 
 		RenderState.setDepthWrite(true);
@@ -590,11 +590,11 @@ public class Renderer implements IShutdownListener
 		for (PreviewGeometry preview : previews) {
 			RenderState.enableDepthTest(preview.useDepth);
 
-			if (preview.batch != null && preview.batch.triangles.size() > 0) {
+			if (preview.batch != null && preview.batch.getTriangleCount() > 0) {
 				RenderState.setPolygonMode(PolygonMode.LINE);
 				RenderState.setColor(preview.color.x, preview.color.y, preview.color.z);
 
-				for (Triangle t : preview.batch.triangles) {
+				for (Triangle t : preview.batch.getTriangles()) {
 					TriangleRenderQueue.addTriangle(
 						TriangleRenderQueue.addVertex()
 							.setPosition(t.vert[0].getCurrentX(), t.vert[0].getCurrentY(), t.vert[0].getCurrentZ())
@@ -0,0 +1,479 @@
+package game.map.editor.selection;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import common.Vector3f;
+import game.map.BoundingBox;
+import game.map.editor.selection.PickRay.PickHit;
+
+/**
+ * A bounding volume hierarchy over a list of items, stored in flat arrays. Subclasses set item
+ * bounds and call {@link #build(int)} when the list changes, or move items and refit them when
+ * they only change position. Refitting keeps the topology and just grows or shrinks the boxes
+ * above moved items, so it is cheap enough to run whenever bounding boxes are recalculated.
+ * <p>
+ * Items are referred to by their index in the list. Picking breaks ties between hits at the
+ * same distance in favor of the lower index, so it returns exactly what a linear scan over
+ * the list keeping the first nearest hit would return.
+ */
+public abstract class BoundingVolumeHierarchy
+{
+	public static final float MISS = Float.POSITIVE_INFINITY;
+
+	public static interface BoundsTest
+	{
+		/**
+		 * @return a lower bound for the distance of any hit on an item within the box
+		 * starting at bounds[offset], or {@link BoundingVolumeHierarchy#MISS} if nothing
+		 * within the box can be hit.
+		 */
+		public float getLowerBound(float[] bounds, int offset);
+	}
+
+	public static interface ItemTest
+	{
+		/**
+		 * @return the hit for an item, or null if the item should be skipped
+		 */
+		public PickHit test(int item);
+	}
+
+	private final int leafSize;
+
+	protected int itemCount = 0;
+	protected float[] itemBounds = new float[0]; // min xyz, max xyz for each item
+
+	private int nodeCount = 0;
+	private int depth = 0;
+	private float[] nodeBounds;
+	private int[] nodeStart; // first position in itemOrder, leaves only
+	private int[] nodeSize; // number of items, zero for internal nodes
+	private int[] nodeRight; // left child always follows its parent
+	private int[] nodeParent;
+	private int[] itemOrder;
+	private int[] itemLeaf;
+
+	private int[] movedItems = new int[0];
+	private int movedCount = 0;
+
+	protected BoundingVolumeHierarchy(int leafSize)
+	{
+		this.leafSize = leafSize;
+	}
+
+	public int size()
+	{
+		return itemCount;
+	}
+
+	/**
+	 * Makes sure {@link #itemBounds} can hold the given number of items.
+	 */
+	protected void ensureCapacity(int count)
+	{
+		if (itemBounds.length < 6 * count)
+			itemBounds = Arrays.copyOf(itemBounds, 6 * Math.max(count, 2 * itemBounds.length / 6));
+	}
+
+	protected final void setItemBounds(int item, float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+	{
+		int i = 6 * item;
+		itemBounds[i] = minX;
+		itemBounds[i + 1] = minY;
+		itemBounds[i + 2] = minZ;
+		itemBounds[i + 3] = maxX;
+		itemBounds[i + 4] = maxY;
+		itemBounds[i + 5] = maxZ;
+	}
+
+	/**
+	 * Updates the bounds of an item already in the hierarchy. Items whose bounds
+	 * changed are refit by the next call to {@link #refitMoved()}.
+	 */
+	protected final void moveItem(int item, float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+	{
+		int i = 6 * item;
+		if (itemBounds[i] == minX && itemBounds[i + 1] == minY && itemBounds[i + 2] == minZ
+			&& itemBounds[i + 3] == maxX && itemBounds[i + 4] == maxY && itemBounds[i + 5] == maxZ)
+			return;
+
+		setItemBounds(item, minX, minY, minZ, maxX, maxY, maxZ);
+
+		if (movedCount == movedItems.length)
+			movedItems = Arrays.copyOf(movedItems, Math.max(16, 2 * movedCount));
+		movedItems[movedCount++] = item;
+	}
+
+	/**
+	 * Builds a new hierarchy for the first count entries of {@link #itemBounds}.
+	 * Nodes are split at the median center along their longest axis.
+	 */
+	protected void build(int count)
+	{
+		itemCount = count;
+		nodeCount = 0;
+		depth = 0;
+		movedCount = 0;
+
+		int maxNodes = Math.max(1, countNodes(count));
+		nodeBounds = new float[6 * maxNodes];
+		nodeStart = new int[maxNodes];
+		nodeSize = new int[maxNodes];
+		nodeRight = new int[maxNodes];
+		nodeParent = new int[maxNodes];
+		itemOrder = new int[count];
+		itemLeaf = new int[count];
+
+		if (count == 0)
+			return;
+
+		float[] centers = new float[3 * count];
+		for (int i = 0; i < count; i++) {
+			itemOrder[i] = i;
+			for (int axis = 0; axis < 3; axis++)
+				centers[3 * i + axis] = 0.5f * (itemBounds[6 * i + axis] + itemBounds[6 * i + 3 + axis]);
+		}
+
+		buildNode(-1, 0, count, 1, centers);
+	}
+
+	private int countNodes(int count)
+	{
+		if (count <= leafSize)
+			return 1;
+		int half = count >>> 1;
+		return 1 + countNodes(half) + countNodes(count - half);
+	}
+
+	private int buildNode(int parent, int start, int end, int level, float[] centers)
+	{
+		int node = nodeCount++;
+		nodeParent[node] = parent;
+		depth = Math.max(depth, level);
+
+		if (end - start <= leafSize) {
+			nodeStart[node] = start;
+			nodeSize[node] = end - start;
+			for (int i = start; i < end; i++)
+				itemLeaf[itemOrder[i]] = node;
+			updateNode(node);
+			return node;
+		}
+
+		float[] extent = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+		for (int i = start; i < end; i++) {
+			int c = 3 * itemOrder[i];
+			for (int axis = 0; axis < 3; axis++) {
+				extent[axis] = Math.min(extent[axis], centers[c + axis]);
+				extent[axis + 3] = Math.max(extent[axis + 3], centers[c + axis]);
+			}
+		}
+
+		int splitAxis = 0;
+		for (int axis = 1; axis < 3; axis++) {
+			if (extent[axis + 3] - extent[axis] > extent[splitAxis + 3] - extent[splitAxis])
+				splitAxis = axis;
+		}
+
+		int mid = (start + end) >>> 1;
+		select(start, end - 1, mid, splitAxis, centers);
+
+		nodeSize[node] = 0;
+		buildNode(node, start, mid, level + 1, centers);
+		nodeRight[node] = buildNode(node, mid, end, level + 1, centers);
+		updateNode(node);
+		return node;
+	}
+
+	// partially sorts itemOrder[lo..hi] so the k-th entry has the median center
+	private void select(int lo, int hi, int k, int axis, float[] centers)
+	{
+		while (lo < hi) {
+			float pivot = centers[3 * itemOrder[(lo + hi) >>> 1] + axis];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (centers[3 * itemOrder[i] + axis] < pivot)
+					i++;
+				while (centers[3 * itemOrder[j] + axis] > pivot)
+					j--;
+				if (i <= j) {
+					int temp = itemOrder[i];
+					itemOrder[i++] = itemOrder[j];
+					itemOrder[j--] = temp;
+				}
+			}
+			if (k <= j)
+				hi = j;
+			else if (k >= i)
+				lo = i;
+			else
+				return;
+		}
+	}
+
+	private void updateNode(int node)
+	{
+		int n = 6 * node;
+		float[] src;
+		int first;
+		int last;
+
+		if (nodeSize[node] > 0) {
+			src = itemBounds;
+			first = 6 * itemOrder[nodeStart[node]];
+			nodeBounds[n] = src[first];
+			nodeBounds[n + 1] = src[first + 1];
+			nodeBounds[n + 2] = src[first + 2];
+			nodeBounds[n + 3] = src[first + 3];
+			nodeBounds[n + 4] = src[first + 4];
+			nodeBounds[n + 5] = src[first + 5];
+
+			last = nodeStart[node] + nodeSize[node];
+			for (int i = nodeStart[node] + 1; i < last; i++)
+				grow(n, src, 6 * itemOrder[i]);
+		}
+		else {
+			src = nodeBounds;
+			first = 6 * (node + 1);
+			nodeBounds[n] = src[first];
+			nodeBounds[n + 1] = src[first + 1];
+			nodeBounds[n + 2] = src[first + 2];
+			nodeBounds[n + 3] = src[first + 3];
+			nodeBounds[n + 4] = src[first + 4];
+			nodeBounds[n + 5] = src[first + 5];
+			grow(n, src, 6 * nodeRight[node]);
+		}
+	}
+
+	// plain comparisons are noticeably faster than Math.min and Math.max for floats
+	private void grow(int n, float[] src, int b)
+	{
+		if (src[b] < nodeBounds[n])
+			nodeBounds[n] = src[b];
+		if (src[b + 1] < nodeBounds[n + 1])
+			nodeBounds[n + 1] = src[b + 1];
+		if (src[b + 2] < nodeBounds[n + 2])
+			nodeBounds[n + 2] = src[b + 2];
+		if (src[b + 3] > nodeBounds[n + 3])
+			nodeBounds[n + 3] = src[b + 3];
+		if (src[b + 4] > nodeBounds[n + 4])
+			nodeBounds[n + 4] = src[b + 4];
+		if (src[b + 5] > nodeBounds[n + 5])
+			nodeBounds[n + 5] = src[b + 5];
+	}
+
+	/**
+	 * Updates every node after the bounds of many items have changed.
+	 */
+	protected void refit()
+	{
+		movedCount = 0;
+
+		// children always come after their parents
+		for (int node = nodeCount - 1; node >= 0; node--)
+			updateNode(node);
+	}
+
+	/**
+	 * Updates the nodes above items moved since the last refit. When only a few items
+	 * moved, just the paths from their leaves to the root are updated.
+	 */
+	protected void refitMoved()
+	{
+		if (movedCount > itemCount / 8) {
+			refit();
+		}
+		else {
+			for (int i = 0; i < movedCount; i++) {
+				for (int node = itemLeaf[movedItems[i]]; node >= 0; node = nodeParent[node])
+					updateNode(node);
+			}
+		}
+		movedCount = 0;
+	}
+
+	/**
+	 * Finds the nearest hit, visiting nodes front to back and skipping any whose
+	 * lower bound is farther than the nearest hit found so far.
+	 */
+	protected PickHit pick(PickRay ray, BoundsTest boundsTest, ItemTest itemTest)
+	{
+		PickHit nearestHit = new PickHit(ray);
+		int nearestItem = Integer.MAX_VALUE;
+
+		if (nodeCount == 0)
+			return nearestHit;
+
+		float rootBound = boundsTest.getLowerBound(nodeBounds, 0);
+		if (rootBound == MISS)
+			return nearestHit;
+
+		int[] stack = new int[depth + 1];
+		float[] stackBounds = new float[depth + 1];
+		int top = 0;
+		stack[top] = 0;
+		stackBounds[top++] = rootBound;
+
+		while (top > 0) {
+			top--;
+			if (stackBounds[top] > nearestHit.dist)
+				continue;
+
+			int node = stack[top];
+			while (node >= 0) {
+				if (nodeSize[node] > 0) {
+					for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++) {
+						int item = itemOrder[i];
+						PickHit hit = itemTest.test(item);
+						if (hit == null || hit.missed())
+							continue;
+
+						if (hit.dist < nearestHit.dist || (hit.dist == nearestHit.dist && item < nearestItem)) {
+							nearestHit = hit;
+							nearestItem = item;
+						}
+					}
+					break;
+				}
+
+				int left = node + 1;
+				int right = nodeRight[node];
+				float leftBound = boundsTest.getLowerBound(nodeBounds, 6 * left);
+				float rightBound = boundsTest.getLowerBound(nodeBounds, 6 * right);
+				boolean visitLeft = leftBound <= nearestHit.dist;
+				boolean visitRight = rightBound <= nearestHit.dist;
+
+				if (visitLeft && visitRight) {
+					// descend into the nearer child, come back for the other one
+					if (rightBound < leftBound) {
+						stack[top] = left;
+						stackBounds[top++] = leftBound;
+						node = right;
+					}
+					else {
+						stack[top] = right;
+						stackBounds[top++] = rightBound;
+						node = left;
+					}
+				}
+				else if (visitLeft)
+					node = left;
+				else if (visitRight)
+					node = right;
+				else
+					node = -1;
+			}
+		}
+
+		return nearestHit;
+	}
+
+	/**
+	 * Calls the consumer for every item whose bounds overlap the box.
+	 */
+	protected void forEachOverlapping(BoundingBox box, IntConsumer consumer)
+	{
+		if (nodeCount == 0 || box.isEmpty())
+			return;
+
+		float minX = box.min.getX(), minY = box.min.getY(), minZ = box.min.getZ();
+		float maxX = box.max.getX(), maxY = box.max.getY(), maxZ = box.max.getZ();
+
+		int[] stack = new int[2 * depth + 1];
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			int node = stack[--top];
+			if (!overlaps(nodeBounds, 6 * node, minX, minY, minZ, maxX, maxY, maxZ))
+				continue;
+
+			if (nodeSize[node] > 0) {
+				for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++) {
+					int item = itemOrder[i];
+					if (overlaps(itemBounds, 6 * item, minX, minY, minZ, maxX, maxY, maxZ))
+						consumer.accept(item);
+				}
+			}
+			else {
+				stack[top++] = nodeRight[node];
+				stack[top++] = node + 1;
+			}
+		}
+	}
+
+	private static boolean overlaps(float[] bounds, int i, float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+	{
+		return bounds[i] <= maxX && bounds[i + 3] >= minX
+			&& bounds[i + 1] <= maxY && bounds[i + 4] >= minY
+			&& bounds[i + 2] <= maxZ && bounds[i + 5] >= minZ;
+	}
+
+	/**
+	 * @return every item whose bounds overlap the box, in increasing order
+	 */
+	protected int[] getOverlappingItems(BoundingBox box)
+	{
+		IntStream.Builder items = IntStream.builder();
+		forEachOverlapping(box, items);
+		return items.build().sorted().toArray();
+	}
+
+	/**
+	 * Creates a test for boxes crossed by a ray, giving the distance along the ray where it
+	 * enters the box. Boxes are grown by a margin so hits computed with rounding error on the
+	 * surface of an item are never skipped.
+	 */
+	public static BoundsTest getRayTest(PickRay ray, float margin)
+	{
+		return (bounds, i) -> getRayEntry(ray, bounds, i, margin);
+	}
+
+	/**
+	 * @return distance along the ray where it enters the box grown by margin, or {@link #MISS}
+	 * if the ray misses it or the box lies entirely behind the ray origin.
+	 */
+	public static float getRayEntry(PickRay ray, float[] bounds, int i, float margin)
+	{
+		float tmin = Float.NEGATIVE_INFINITY;
+		float tmax = Float.POSITIVE_INFINITY;
+
+		for (int axis = 0; axis < 3; axis++) {
+			float o = getComponent(ray.origin, axis);
+			float d = getComponent(ray.direction, axis);
+			float min = bounds[i + axis] - margin;
+			float max = bounds[i + axis + 3] + margin;
+
+			if (d == 0.0f) {
+				if (o < min || o > max)
+					return MISS;
+			}
+			else {
+				float t1 = (min - o) / d;
+				float t2 = (max - o) / d;
+				tmin = Math.max(tmin, Math.min(t1, t2));
+				tmax = Math.min(tmax, Math.max(t1, t2));
+			}
+		}
+
+		if (tmin > tmax || tmax < 0)
+			return MISS;
+
+		return tmin;
+	}
+
+	private static float getComponent(Vector3f vec, int axis)
+	{
+		switch (axis) {
+			case 0:
+				return vec.x;
+			case 1:
+				return vec.y;
+			default:
+				return vec.z;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package game.map.editor.selection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import game.map.BoundingBox;
+import game.map.MapObject;
+import game.map.editor.selection.PickRay.PickHit;
+import game.map.tree.MapObjectNode;
+
+/**
+ * Bounding volume hierarchy over the objects of a {@link game.map.tree.MapObjectTreeModel},
+ * built from their AABBs. Objects are indexed in the order the tree iterates them, so picks
+ * resolve ties the same way as a scan over the tree. The index is brought up to date before
+ * every query: objects whose AABB changed are refit, and the hierarchy is rebuilt if objects
+ * were added, removed, or reordered. Objects with empty AABBs can never be picked and are left out
+ * of the hierarchy, but are still listed for region queries.
+ */
+public class ObjectPickIndex<T extends MapObject> extends BoundingVolumeHierarchy
+{
+	private static final int LEAF_SIZE = 2;
+
+	// AABB coordinates are integers, this covers rounding in ray intersections
+	private static final float MARGIN = 1.0f;
+
+	private final List<T> objects = new ArrayList<>();
+	private final List<T> current = new ArrayList<>();
+	private final List<T> emptyObjects = new ArrayList<>();
+
+	public ObjectPickIndex()
+	{
+		super(LEAF_SIZE);
+	}
+
+	public void update(MapObjectNode<T> root)
+	{
+		current.clear();
+		emptyObjects.clear();
+		addObjects(root);
+
+		boolean changed = (current.size() != objects.size());
+		for (int i = 0; !changed && i < current.size(); i++)
+			changed = (current.get(i) != objects.get(i));
+
+		if (changed) {
+			objects.clear();
+			objects.addAll(current);
+
+			ensureCapacity(objects.size());
+			for (int i = 0; i < objects.size(); i++) {
+				BoundingBox aabb = objects.get(i).AABB;
+				setItemBounds(i, aabb.min.getX(), aabb.min.getY(), aabb.min.getZ(),
+					aabb.max.getX(), aabb.max.getY(), aabb.max.getZ());
+			}
+			build(objects.size());
+			return;
+		}
+
+		for (int i = 0; i < objects.size(); i++) {
+			BoundingBox aabb = objects.get(i).AABB;
+			moveItem(i, aabb.min.getX(), aabb.min.getY(), aabb.min.getZ(),
+				aabb.max.getX(), aabb.max.getY(), aabb.max.getZ());
+		}
+		refitMoved();
+	}
+
+	// same order as MapObjectTreeModel iteration
+	private void addObjects(MapObjectNode<T> node)
+	{
+		T obj = node.getUserObject();
+		if (obj.shouldIterate()) {
+			if (obj.AABB.isEmpty())
+				emptyObjects.add(obj);
+			else
+				current.add(obj);
+		}
+
+		for (int i = 0; i < node.getChildCount(); i++)
+			addObjects(node.getChildAt(i));
+	}
+
+	/**
+	 * Finds the nearest object accepted by the filter whose {@link MapObject#tryPick} hits the ray.
+	 * @return hit with the object as its object
+	 */
+	public PickHit pickObject(PickRay ray, Predicate<MapObject> filter)
+	{
+		return pick(ray, getRayTest(ray, MARGIN), (i) -> {
+			T obj = objects.get(i);
+			if (!filter.test(obj))
+				return null;
+
+			PickHit hit = obj.tryPick(ray);
+			hit.obj = obj;
+			return hit;
+		});
+	}
+
+	/**
+	 * Finds the nearest triangle hit by the ray among objects accepted by the filter.
+	 * @return hit with a {@link game.map.mesh.TriangleView} of the triangle as its object
+	 */
+	public PickHit pickTriangle(PickRay ray, Predicate<MapObject> filter)
+	{
+		return pick(ray, getRayTest(ray, MARGIN), (i) -> {
+			T obj = objects.get(i);
+			if (!filter.test(obj))
+				return null;
+
+			return TrianglePickTree.pick(ray, obj.getMesh());
+		});
+	}
+
+	/**
+	 * Adds every object whose AABB overlaps the box to a list, in tree order.
+	 */
+	public void getOverlapping(BoundingBox box, List<T> overlapping)
+	{
+		for (int i : getOverlappingItems(box)) {
+			T obj = objects.get(i);
+			if (obj.AABB.overlaps(box))
+				overlapping.add(obj);
+		}
+	}
+
+	/**
+	 * Adds every object whose AABB center lies inside the box to a list, in tree order
+	 * followed by objects with empty AABBs.
+	 */
+	public void getCenteredWithin(BoundingBox box, List<T> within)
+	{
+		for (int i : getOverlappingItems(box)) {
+			T obj = objects.get(i);
+			if (box.contains(obj.AABB.getCenter()))
+				within.add(obj);
+		}
+
+		// empty boxes keep their last extents
+		for (T obj : emptyObjects) {
+			if (box.contains(obj.AABB.getCenter()))
+				within.add(obj);
+		}
+	}
+}
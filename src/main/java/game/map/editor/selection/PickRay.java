@@ -3,7 +3,9 @@ package game.map.editor.selection;
 import common.Vector3f;
 import game.map.BoundingBox;
 import game.map.editor.camera.MapEditViewport;
+import game.map.editor.selection.BoundingVolumeHierarchy.BoundsTest;
 import game.map.mesh.Triangle;
+import game.map.mesh.TriangleView;
 import game.map.shape.UV;
 
 public class PickRay
@@ -150,10 +152,19 @@ public class PickRay
 		Vector3f vertex2 = t.vert[1].getPosition().getVector();
 		Vector3f vertex3 = t.vert[2].getPosition().getVector();
 
-		// check the normal first
-		Vector3f triNorm = t.getNormalSafe();
+		return getIntersection(ray, vertex1, vertex2, vertex3, t.getNormalSafe(), t.doubleSided);
+	}
 
-		if (!ray.twoSided && !t.doubleSided && Vector3f.dot(ray.direction, triNorm) > 0.0)
+	public static PickHit getIntersection(PickRay ray, TriangleView t)
+	{
+		return getIntersection(ray, t.getPosition(0), t.getPosition(1), t.getPosition(2), t.getNormalSafe(), t.isDoubleSided());
+	}
+
+	private static PickHit getIntersection(PickRay ray, Vector3f vertex1, Vector3f vertex2, Vector3f vertex3,
+		Vector3f triNorm, boolean doubleSided)
+	{
+		// check the normal first
+		if (!ray.twoSided && !doubleSided && Vector3f.dot(ray.direction, triNorm) > 0.0)
 			return new PickHit(ray, Float.MAX_VALUE);
 
 		// Compute vectors along two edges of the triangle.
@@ -314,6 +325,52 @@ public class PickRay
 		}
 	}
 
+	/**
+	 * Creates a test for boxes of points picked with {@link #getPointIntersection}. The radius of
+	 * a point grows with its distance from the camera, so the largest radius for a box is taken
+	 * from its corners. Lower bounds match the distance reported by getPointIntersection.
+	 */
+	public static BoundsTest getPointBoundsTest(PickRay ray, float pointScale)
+	{
+		if (ray.pickView == null)
+			return BoundingVolumeHierarchy.getRayTest(ray, pointScale * 0.5f);
+
+		MapEditViewport view = ray.pickView;
+		return (bounds, i) -> {
+			float maxScale = 0.0f;
+			for (int corner = 0; corner < 8; corner++) {
+				float x = bounds[i + ((corner & 1) == 0 ? 0 : 3)];
+				float y = bounds[i + ((corner & 2) == 0 ? 1 : 4)];
+				float z = bounds[i + ((corner & 4) == 0 ? 2 : 5)];
+				maxScale = Math.max(maxScale, view.getScaleFactor(x, y, z));
+			}
+			float radius = pointScale * (0.22f + (2.0f * maxScale));
+
+			switch (view.type) {
+				case FRONT: // XY
+					if (ray.origin.x < bounds[i] - radius || ray.origin.x > bounds[i + 3] + radius
+						|| ray.origin.y < bounds[i + 1] - radius || ray.origin.y > bounds[i + 4] + radius)
+						return BoundingVolumeHierarchy.MISS;
+					return bounds[i + 2];
+
+				case TOP: // XZ
+					if (ray.origin.x < bounds[i] - radius || ray.origin.x > bounds[i + 3] + radius
+						|| ray.origin.z < bounds[i + 2] - radius || ray.origin.z > bounds[i + 5] + radius)
+						return BoundingVolumeHierarchy.MISS;
+					return bounds[i + 1];
+
+				case SIDE: // YZ
+					if (ray.origin.y < bounds[i + 1] - radius || ray.origin.y > bounds[i + 4] + radius
+						|| ray.origin.z < bounds[i + 2] - radius || ray.origin.z > bounds[i + 5] + radius)
+						return BoundingVolumeHierarchy.MISS;
+					return bounds[i];
+
+				default:
+					return BoundingVolumeHierarchy.getRayEntry(ray, bounds, i, radius);
+			}
+		};
+	}
+
 	public static PickHit getIntersection(PickRay ray, UV uv)
 	{
 		if (ray.pickView == null)
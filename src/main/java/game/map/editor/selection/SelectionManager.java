@@ -29,6 +29,7 @@ import game.map.hit.Zone;
 import game.map.marker.Marker;
 import game.map.mesh.AbstractMesh;
 import game.map.mesh.Triangle;
+import game.map.mesh.TriangleView;
 import game.map.mesh.Vertex;
 import game.map.shape.Model;
 import game.map.shape.TriangleBatch;
@@ -78,6 +79,7 @@ public class SelectionManager
 
 	private final Selection<Vertex> vertexSelection;
 	private List<Vertex> vertexWorkingSet = new ArrayList<>();
+	private final VertexPickTree vertexPickTree = new VertexPickTree();
 
 	public final Selection<UV> uvSelection;
 	private List<UV> uvWorkingSet = new ArrayList<>();
@@ -284,6 +286,19 @@ public class SelectionManager
 			for (AbstractCommand cmd : additionalCommand)
 				cmd.undo();
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			long bytes = DEFAULT_MEMORY_USAGE + getListMemoryUsage(additionalCommand.size());
+			if (oldVertexList != null)
+				bytes += getListMemoryUsage(oldVertexList.size());
+			if (newVertexList != null)
+				bytes += getListMemoryUsage(newVertexList.size());
+			for (AbstractCommand cmd : additionalCommand)
+				bytes += cmd.getMemoryUsage();
+			return bytes;
+		}
 	}
 
 	public void setObjectType(MapObjectType type)
@@ -661,8 +676,8 @@ public class SelectionManager
 	{
 		switch (selectionMode) {
 			case OBJECT: {
-				List<MapObject> toAdd = new LinkedList<>();
-				List<MapObject> toRemove = new LinkedList<>();
+				List<MapObject> toAdd = new ArrayList<>();
+				List<MapObject> toRemove = new ArrayList<>();
 				for (MapObject obj : map.getObjectsWithinRegion(selectionBox, editor.getEditorObjects())) {
 					if (obj.selected)
 						toRemove.add(obj);
@@ -675,8 +690,8 @@ public class SelectionManager
 				break;
 
 			case TRIANGLE: {
-				List<Triangle> toAdd = new LinkedList<>();
-				List<Triangle> toRemove = new LinkedList<>();
+				List<Triangle> toAdd = new ArrayList<>();
+				List<Triangle> toRemove = new ArrayList<>();
 				for (Triangle t : map.getTrianglesWithinRegion(selectionBox)) {
 					if (t.selected)
 						toRemove.add(t);
@@ -689,23 +704,23 @@ public class SelectionManager
 				break;
 
 			case VERTEX: {
-				List<Vertex> toAdd = new LinkedList<>();
-				List<Vertex> toRemove = new LinkedList<>();
-				for (Vertex v : vertexWorkingSet) {
-					if (selectionBox.contains(v)) {
-						if (v.selected)
-							toRemove.add(v);
-						else
-							toAdd.add(v);
-					}
+				List<Vertex> toAdd = new ArrayList<>();
+				List<Vertex> toRemove = new ArrayList<>();
+				List<Vertex> within = new ArrayList<>();
+				vertexPickTree.getWithin(vertexWorkingSet, selectionBox, within);
+				for (Vertex v : within) {
+					if (v.selected)
+						toRemove.add(v);
+					else
+						toAdd.add(v);
 				}
 				if (toAdd.size() != 0 || toRemove.size() != 0)
 					MapEditor.execute(getModifyVertices(toAdd, toRemove));
 			}
 
 			case POINT: {
-				List<SelectablePoint> toAdd = new LinkedList<>();
-				List<SelectablePoint> toRemove = new LinkedList<>();
+				List<SelectablePoint> toAdd = new ArrayList<>();
+				List<SelectablePoint> toRemove = new ArrayList<>();
 
 				List<SelectablePoint> pointWorkingSet = getPointWorkingSet();
 				for (SelectablePoint point : pointWorkingSet) {
@@ -932,7 +947,8 @@ public class SelectionManager
 		List<Triangle> removed = new LinkedList<>();
 
 		if (!hitTriangle.missed()) {
-			Triangle selectedTriangle = (Triangle) hitTriangle.obj;
+			// only the picked triangle's batch needs to be unpacked to select it
+			Triangle selectedTriangle = ((TriangleView) hitTriangle.obj).unpackTriangle();
 
 			// multiple selection mode
 			if (additive) {
@@ -970,7 +986,7 @@ public class SelectionManager
 				return hitSelection;
 		}
 
-		PickHit hitVertex = Map.pickVertexFromList(pickRay, vertexWorkingSet);
+		PickHit hitVertex = vertexPickTree.pick(pickRay, vertexWorkingSet);
 
 		if (!modifySelection)
 			return hitVertex;
@@ -1299,13 +1315,13 @@ public class SelectionManager
 
 			for (DisplayCommand cmd : displayListUpdates.removed) {
 				if (cmd.getType() == CmdType.DrawTriangleBatch)
-					removedTriangles.addAll(((TriangleBatch) cmd).triangles);
+					removedTriangles.addAll(((TriangleBatch) cmd).getTriangles());
 				mesh = cmd.parentMesh;
 			}
 
 			for (DisplayCommand cmd : displayListUpdates.added) {
 				if (cmd.getType() == CmdType.DrawTriangleBatch)
-					addedTriangles.addAll(((TriangleBatch) cmd).triangles);
+					addedTriangles.addAll(((TriangleBatch) cmd).getTriangles());
 				mesh = cmd.parentMesh;
 			}
 
@@ -1495,6 +1511,12 @@ public class SelectionManager
 
 			mdl.displayListChanged();
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			return DEFAULT_MEMORY_USAGE + getListMemoryUsage(addList.size()) + getListMemoryUsage(removeList.size());
+		}
 	}
 
 	/**
@@ -1684,6 +1706,19 @@ public class SelectionManager
 			for (MapObject obj : removeList)
 				selectObject(obj);
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			long bytes = DEFAULT_MEMORY_USAGE + getListMemoryUsage(addList.size()) + getListMemoryUsage(removeList.size())
+				+ getLinkedListMemoryUsage(selectTris.size()) + getLinkedListMemoryUsage(deselectTris.size())
+				+ getLinkedListMemoryUsage(addVerts.size()) + getLinkedListMemoryUsage(removeVerts.size())
+				+ getLinkedListMemoryUsage(deselectVerts.size()) + getLinkedListMemoryUsage(addPoints.size())
+				+ getLinkedListMemoryUsage(removePoints.size()) + getLinkedListMemoryUsage(deselectPoints.size());
+			if (subordinateSelectionChange != null)
+				bytes += subordinateSelectionChange.getMemoryUsage();
+			return bytes;
+		}
 	}
 
 	public AbstractCommand getModifyObjects(Iterable<? extends MapObject> addList, Iterable<? extends MapObject> removeList)
@@ -1754,6 +1789,12 @@ public class SelectionManager
 			for (Triangle t : triangles)
 				selectTriangle(t);
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			return DEFAULT_MEMORY_USAGE + getListMemoryUsage(objects.size()) + getListMemoryUsage(triangles.size());
+		}
 	}
 
 	private class ModifyTriangles extends AbstractCommand
@@ -1808,6 +1849,12 @@ public class SelectionManager
 			for (Triangle t : removeList)
 				selectTriangle(t);
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			return DEFAULT_MEMORY_USAGE + getListMemoryUsage(addList.size()) + getListMemoryUsage(removeList.size());
+		}
 	}
 
 	public AbstractCommand getModifyTriangles(Iterable<Triangle> addList, Iterable<Triangle> removeList, boolean canDeselectMesh)
@@ -1876,6 +1923,12 @@ public class SelectionManager
 			for (T selectable : removeList)
 				selection.addAndSelect(selectable);
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			return DEFAULT_MEMORY_USAGE + getListMemoryUsage(addList.size()) + getListMemoryUsage(removeList.size());
+		}
 	}
 
 	private AbstractCommand getModifyVertices(Iterable<Vertex> addList, Iterable<Vertex> removeList)
@@ -0,0 +1,173 @@
+package game.map.editor.selection;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import common.Vector3f;
+import game.map.BoundingBox;
+import game.map.MapObject;
+import game.map.editor.selection.PickRay.PickHit;
+import game.map.mesh.AbstractMesh;
+import game.map.mesh.Triangle;
+import game.map.mesh.TriangleView;
+import game.map.shape.TriangleBatch;
+
+/**
+ * Bounding volume hierarchy over the triangles of one mesh, kept with the mesh. Triangles are
+ * indexed by batch and position in the batch, in the order the mesh iterates them, and are read
+ * through {@link TriangleView} so building the tree and picking from it never creates the triangles
+ * of packed batches. The tree is refit whenever the bounding box of the object owning the mesh has
+ * been recalculated since it was last used, which covers every change that marks the object with
+ * dirtyAABB. Changes to the set of triangles are found while refitting and cause a rebuild.
+ * <p>
+ * The same trees answer box queries for drag selection and vertex snapping, so those only visit
+ * triangles near the box instead of every triangle of every mesh.
+ */
+public class TrianglePickTree extends BoundingVolumeHierarchy
+{
+	private static final int LEAF_SIZE = 4;
+
+	// vertex coordinates are integers, this covers rounding in ray intersections
+	private static final float MARGIN = 1.0f;
+
+	private TriangleBatch[] batches = new TriangleBatch[0];
+	private int[] indices = new int[0];
+	private Triangle[] triangles = new Triangle[0]; // null for triangles of packed batches
+	private long revision = -1;
+
+	private final TriangleView view = new TriangleView();
+
+	private TrianglePickTree()
+	{
+		super(LEAF_SIZE);
+	}
+
+	/**
+	 * Finds the nearest triangle of a mesh hit by a ray, as if every triangle were tested in order.
+	 * @return hit with a {@link TriangleView} of the triangle as its object
+	 */
+	public static PickHit pick(PickRay ray, AbstractMesh mesh)
+	{
+		TrianglePickTree tree = getTree(mesh);
+
+		return tree.pick(ray, getRayTest(ray, MARGIN), (i) -> {
+			PickHit hit = PickRay.getIntersection(ray, tree.getView(i));
+			if (!hit.missed())
+				hit.obj = new TriangleView().set(tree.batches[i], tree.indices[i]);
+			return hit;
+		});
+	}
+
+	/**
+	 * Adds every triangle of a mesh with its center inside the box to a list, in mesh order.
+	 * Only the batches holding these triangles are unpacked.
+	 */
+	public static void getCenteredWithin(AbstractMesh mesh, BoundingBox box, List<Triangle> within)
+	{
+		TrianglePickTree tree = getTree(mesh);
+		for (int i : tree.getOverlappingItems(box)) {
+			TriangleView t = tree.getView(i);
+			if (box.contains(t.getCenter()))
+				within.add(t.unpackTriangle());
+		}
+	}
+
+	/**
+	 * Adds the position of every unselected vertex of a mesh inside the box to a set.
+	 */
+	public static void getVertexPositionsWithin(AbstractMesh mesh, BoundingBox box, Set<Vector3f> within)
+	{
+		TrianglePickTree tree = getTree(mesh);
+		tree.forEachOverlapping(box, (i) -> {
+			TriangleView t = tree.getView(i);
+			for (int k = 0; k < 3; k++) {
+				if (!t.isVertexSelected(k) && box.contains(t.getX(k), t.getY(k), t.getZ(k)))
+					within.add(t.getPosition(k));
+			}
+		});
+	}
+
+	private TriangleView getView(int i)
+	{
+		return view.set(batches[i], indices[i]);
+	}
+
+	private static TrianglePickTree getTree(AbstractMesh mesh)
+	{
+		if (mesh.pickTree == null)
+			mesh.pickTree = new TrianglePickTree();
+
+		TrianglePickTree tree = mesh.pickTree;
+		long currentRevision = getRevision(mesh);
+		if (currentRevision < 0 || currentRevision != tree.revision) {
+			tree.update(mesh);
+			tree.revision = currentRevision;
+		}
+		return tree;
+	}
+
+	private static long getRevision(AbstractMesh mesh)
+	{
+		MapObject obj = mesh.parentObject;
+		return (obj == null) ? -1 : obj.AABB.lastRecalculated;
+	}
+
+	private void update(AbstractMesh mesh)
+	{
+		int count = 0;
+		boolean changed = false;
+
+		for (TriangleBatch batch : mesh.getBatches()) {
+			for (TriangleView t : batch.viewTriangles()) {
+				if (count == indices.length) {
+					int capacity = Math.max(16, 2 * count);
+					batches = Arrays.copyOf(batches, capacity);
+					indices = Arrays.copyOf(indices, capacity);
+					triangles = Arrays.copyOf(triangles, capacity);
+				}
+
+				// triangles before the first change have already been moved to their current bounds
+				if (!changed && (count >= itemCount || batches[count] != batch
+					|| indices[count] != t.getIndex() || triangles[count] != t.getTriangle()))
+					changed = true;
+
+				if (changed)
+					ensureCapacity(count + 1);
+
+				batches[count] = batch;
+				indices[count] = t.getIndex();
+				triangles[count] = t.getTriangle();
+				setBounds(count, t, !changed);
+				count++;
+			}
+		}
+
+		Arrays.fill(batches, count, batches.length, null);
+		Arrays.fill(triangles, count, triangles.length, null);
+
+		if (changed || count != itemCount)
+			build(count);
+		else
+			refitMoved();
+	}
+
+	private void setBounds(int i, TriangleView t, boolean move)
+	{
+		int ax = t.getX(0), ay = t.getY(0), az = t.getZ(0);
+		int bx = t.getX(1), by = t.getY(1), bz = t.getZ(1);
+		int cx = t.getX(2), cy = t.getY(2), cz = t.getZ(2);
+
+		int minX = Math.min(ax, Math.min(bx, cx));
+		int minY = Math.min(ay, Math.min(by, cy));
+		int minZ = Math.min(az, Math.min(bz, cz));
+		int maxX = Math.max(ax, Math.max(bx, cx));
+		int maxY = Math.max(ay, Math.max(by, cy));
+		int maxZ = Math.max(az, Math.max(bz, cz));
+
+		if (move)
+			moveItem(i, minX, minY, minZ, maxX, maxY, maxZ);
+		else
+			setItemBounds(i, minX, minY, minZ, maxX, maxY, maxZ);
+	}
+}
@@ -0,0 +1,85 @@
+package game.map.editor.selection;
+
+import java.util.Arrays;
+import java.util.List;
+
+import game.map.BoundingBox;
+import game.map.editor.selection.PickRay.PickHit;
+import game.map.mesh.Vertex;
+
+/**
+ * Bounding volume hierarchy over a list of vertices for picking the vertex nearest a ray.
+ * The list is compared with the indexed one before each pick: the hierarchy is rebuilt if
+ * vertices were added, removed, or reordered, and refit otherwise since vertices may have moved.
+ * The same hierarchy answers drag box queries over the list.
+ */
+public class VertexPickTree extends BoundingVolumeHierarchy
+{
+	private static final int LEAF_SIZE = 4;
+
+	private Vertex[] vertices = new Vertex[0];
+
+	public VertexPickTree()
+	{
+		super(LEAF_SIZE);
+	}
+
+	/**
+	 * Finds the vertex picked by a ray, as {@link game.map.Map#pickVertexFromList} would.
+	 * @return hit with the vertex as its object
+	 */
+	public PickHit pick(PickRay ray, List<Vertex> list)
+	{
+		update(list);
+
+		Vertex[] indexed = vertices;
+		return pick(ray, PickRay.getPointBoundsTest(ray, 1.0f), (i) -> {
+			Vertex v = indexed[i];
+			PickHit hit = PickRay.getPointIntersection(ray, v.getCurrentX(), v.getCurrentY(), v.getCurrentZ(), 1.0f);
+			hit.obj = v;
+			return hit;
+		});
+	}
+
+	/**
+	 * Adds every vertex from the list inside the box to another list, in list order.
+	 */
+	public void getWithin(List<Vertex> list, BoundingBox box, List<Vertex> within)
+	{
+		update(list);
+
+		for (int i : getOverlappingItems(box)) {
+			if (box.contains(vertices[i]))
+				within.add(vertices[i]);
+		}
+	}
+
+	private void update(List<Vertex> list)
+	{
+		int count = list.size();
+		boolean changed = (count != itemCount);
+
+		if (vertices.length < count)
+			vertices = Arrays.copyOf(vertices, count);
+		ensureCapacity(count);
+
+		for (int i = 0; i < count; i++) {
+			Vertex v = list.get(i);
+			changed |= (vertices[i] != v);
+			vertices[i] = v;
+
+			int x = v.getCurrentX(), y = v.getCurrentY(), z = v.getCurrentZ();
+			if (changed)
+				setItemBounds(i, x, y, z, x, y, z);
+			else
+				moveItem(i, x, y, z, x, y, z);
+		}
+
+		Arrays.fill(vertices, count, vertices.length, null);
+
+		if (changed)
+			build(count);
+		else
+			refitMoved();
+	}
+}
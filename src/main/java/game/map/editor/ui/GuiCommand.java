@@ -67,5 +67,6 @@ public enum GuiCommand
 	SELECT_ALL_WITH_TEXTURE,
 
 	SHOW_SHORTCUTS,
-	SHOW_EDITOR_PREFERENCES
+	SHOW_EDITOR_PREFERENCES,
+	SHOW_UNDO_HISTORY
 }
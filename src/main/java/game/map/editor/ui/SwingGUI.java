@@ -571,6 +571,10 @@ public final class SwingGUI extends StarRodFrame implements ActionListener, Logg
 		EditorShortcut.REDO.bindMenuItem(editor, item);
 		menu.add(item);
 
+		item = new JMenuItem("Undo History");
+		addButtonCommand(item, GuiCommand.SHOW_UNDO_HISTORY);
+		menu.add(item);
+
 		menu.addSeparator();
 
 		JMenu gridMenu = new JMenu("Grid");
@@ -1269,6 +1273,10 @@ public final class SwingGUI extends StarRodFrame implements ActionListener, Logg
 				showPreferences();
 				break;
 
+			case SHOW_UNDO_HISTORY:
+				showUndoHistory();
+				break;
+
 			// following commands are forwarded directly to the editor
 			/*
 			case SAVE_MAP:
@@ -1511,7 +1519,7 @@ public final class SwingGUI extends StarRodFrame implements ActionListener, Logg
 						return;
 					if (editor.generatePrimitivePreview.targetBatch != null)
 						MapEditor.execute(new AddTriangles(editor.generatePrimitivePreview.targetBatch,
-							batch.triangles));
+							batch.getTriangles()));
 					else
 						createObjectFromBatch(batch,
 							generatePrimitiveDialog.getTypeName(),
@@ -1685,6 +1693,17 @@ public final class SwingGUI extends StarRodFrame implements ActionListener, Logg
 			.show();
 	}
 
+	private void showUndoHistory()
+	{
+		SwingUtils.getMessageDialog()
+			.setParent(this)
+			.setCounter(openDialogCount)
+			.setTitle("Undo History")
+			.setMessage(new UndoHistoryPanel(editor.getCommandManager()))
+			.setMessageType(JOptionPane.PLAIN_MESSAGE)
+			.show();
+	}
+
 	private void showPreferences()
 	{
 		if (editor.editorConfig == null)
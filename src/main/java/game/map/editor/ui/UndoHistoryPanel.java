@@ -0,0 +1,56 @@
+package game.map.editor.ui;
+
+import java.awt.Font;
+import java.util.List;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+
+import game.map.editor.CommandManager;
+import game.map.editor.CommandManager.HistoryEntry;
+import net.miginfocom.swing.MigLayout;
+
+/**
+ * Lists the commands in the undo history with the memory each one holds.
+ */
+public class UndoHistoryPanel extends JPanel
+{
+	public UndoHistoryPanel(CommandManager commandManager)
+	{
+		setLayout(new MigLayout("fill"));
+
+		List<HistoryEntry> redoHistory = commandManager.getRedoHistory();
+		List<HistoryEntry> undoHistory = commandManager.getUndoHistory();
+
+		JPanel list = new JPanel(new MigLayout("fillx, wrap 3", "[grow][right][]"));
+
+		// commands which can be redone are listed above the most recent command
+		for (int i = redoHistory.size() - 1; i >= 0; i--)
+			addEntry(list, redoHistory.get(i), "Undone");
+
+		for (HistoryEntry entry : undoHistory)
+			addEntry(list, entry, entry.isCompressed() ? "Compressed" : "");
+
+		if (redoHistory.isEmpty() && undoHistory.isEmpty())
+			list.add(new JLabel("Nothing to undo."), "span");
+
+		JLabel total = new JLabel(String.format("Using %s of %s",
+			CommandManager.formatBytes(commandManager.getMemoryUsage()),
+			CommandManager.formatBytes(commandManager.getMemoryLimit())));
+		total.setFont(new Font(total.getFont().getFontName(), Font.BOLD, 12));
+
+		JScrollPane scrollPane = new JScrollPane(list);
+		scrollPane.setBorder(null);
+
+		add(total, "wrap, gapbottom 8");
+		add(scrollPane, "grow, w 400!, h 400!");
+	}
+
+	private static void addEntry(JPanel list, HistoryEntry entry, String state)
+	{
+		list.add(new JLabel(entry.cmd.getName()), "growx");
+		list.add(new JLabel(CommandManager.formatBytes(entry.getMemoryUsage())), "gapleft 16");
+		list.add(new JLabel(state), "gapleft 8");
+	}
+}
@@ -665,7 +665,7 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 
 				if (commandList.isSelectedIndex(i)) {
 					if (cmd instanceof TriangleBatch batch) {
-						deselectCommands.add(editor.selectionManager.getModifyTriangles(null, batch.triangles, false));
+						deselectCommands.add(editor.selectionManager.getModifyTriangles(null, batch.getTriangles(), false));
 					}
 				}
 				else
@@ -788,12 +788,12 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 						mergeTriangles = new ArrayList<>();
 					}
 					else
-						mergeTriangles.addAll(batch.triangles);
+						mergeTriangles.addAll(batch.getTriangles());
 				}
 				else {
 					// add merged batch
 					if (mergeBatch != null) {
-						if (!mergeBatch.triangles.isEmpty() || !mergeTriangles.isEmpty()) {
+						if (!mergeBatch.getTriangles().isEmpty() || !mergeTriangles.isEmpty()) {
 							newOrder.add(mergeBatch);
 
 							if (mergeSelected)
@@ -816,7 +816,7 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 
 			// handle any trailing triangle batches
 			if (mergeBatch != null) {
-				if (!mergeBatch.triangles.isEmpty() || !mergeTriangles.isEmpty()) {
+				if (!mergeBatch.getTriangles().isEmpty() || !mergeTriangles.isEmpty()) {
 					newOrder.add(mergeBatch);
 
 					if (mergeSelected)
@@ -894,8 +894,8 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 
 			for (int i = 0; i < triangles.size(); i++) {
 				Triangle t = triangles.get(i);
-				oldParent.get(i).triangles.remove(t);
-				newParent.triangles.add(t);
+				oldParent.get(i).getTriangles().remove(t);
+				newParent.getTriangles().add(t);
 				t.setParent(newParent);
 			}
 
@@ -913,8 +913,8 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 
 			for (int i = 0; i < triangles.size(); i++) {
 				Triangle t = triangles.get(i);
-				newParent.triangles.remove(t);
-				oldParent.get(i).triangles.add(t);
+				newParent.getTriangles().remove(t);
+				oldParent.get(i).getTriangles().add(t);
 				t.setParent(oldParent.get(i));
 			}
 
@@ -924,6 +924,12 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 			// update the display command descriptions
 			commandList.repaint();
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			return DEFAULT_MEMORY_USAGE + getListMemoryUsage(triangles.size()) + getListMemoryUsage(oldParent.size());
+		}
 	}
 
 	public static final class AddTriangles extends AbstractCommand
@@ -951,7 +957,7 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 
 			for (int i = 0; i < triangles.size(); i++) {
 				Triangle t = triangles.get(i);
-				batch.triangles.add(t);
+				batch.getTriangles().add(t);
 				t.setParent(batch);
 			}
 
@@ -968,7 +974,7 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 
 			for (int i = 0; i < triangles.size(); i++) {
 				Triangle t = triangles.get(i);
-				batch.triangles.remove(t);
+				batch.getTriangles().remove(t);
 			}
 
 			batch.parentMesh.parentObject.dirtyAABB = true;
@@ -976,5 +982,11 @@ public class DisplayListPanel extends JPanel implements IShutdownListener, ListS
 			// update the display command descriptions
 			DisplayListPanel.instance().commandList.repaint();
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			return DEFAULT_MEMORY_USAGE + getListMemoryUsage(triangles.size()) + getTriangleMemoryUsage(triangles);
+		}
 	}
 }
@@ -8,9 +8,9 @@ import game.map.MapObject;
 import game.map.editor.render.Color4f;
 import game.map.editor.selection.PickRay;
 import game.map.editor.selection.PickRay.PickHit;
+import game.map.editor.selection.TrianglePickTree;
 import game.map.mesh.AbstractMesh;
 import game.map.mesh.BasicMesh;
-import game.map.mesh.Triangle;
 import util.xml.XmlWrapper.XmlReader;
 import util.xml.XmlWrapper.XmlSerializable;
 import util.xml.XmlWrapper.XmlTag;
@@ -86,17 +86,10 @@ public abstract class HitObject extends MapObject implements XmlSerializable
 	@Override
 	public PickHit tryPick(PickRay ray)
 	{
-		PickHit nearestHit = new PickHit(ray, Float.MAX_VALUE);
-
 		if (!PickRay.intersects(ray, AABB))
-			return nearestHit;
-
-		for (Triangle t : mesh) {
-			PickHit hit = PickRay.getIntersection(ray, t);
-			if (hit.dist < nearestHit.dist)
-				nearestHit = hit;
-		}
+			return new PickHit(ray, Float.MAX_VALUE);
 
+		PickHit nearestHit = TrianglePickTree.pick(ray, mesh);
 		nearestHit.obj = this;
 		return nearestHit;
 	}
@@ -199,11 +199,11 @@ public abstract class AssimpImporter
 					vertices.get(indices.get(0)),
 					vertices.get(indices.get(j)),
 					vertices.get(indices.get(j - 1)));
-				batch.triangles.add(t);
+				batch.getTriangles().add(t);
 			}
 		}
 
-		Logger.logf("Imported mesh with %d vertices and %d faces.", vertices.size(), batch.triangles.size());
+		Logger.logf("Imported mesh with %d vertices and %d faces.", vertices.size(), batch.getTriangleCount());
 		return batch;
 	}
 }
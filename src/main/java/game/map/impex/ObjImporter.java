@@ -70,7 +70,7 @@ public class ObjImporter
 			else if (tokens[0].equals("vt"))
 				readUV(tokens);
 			else if (tokens[0].equals("f") && tokens.length == 4)
-				currentBatch.triangles.add(readTriangle(tokens));
+				currentBatch.getTriangles().add(readTriangle(tokens));
 			else
 				Logger.log("Unsupported OBJ keyword: " + line);
 		}
@@ -124,7 +124,7 @@ public class ObjImporter
 			else if (tokens[0].equals("vt"))
 				readUV(tokens);
 			else if (tokens[0].equals("f") && tokens.length == 4)
-				currentBatch.triangles.add(readTriangle(tokens));
+				currentBatch.getTriangles().add(readTriangle(tokens));
 			else
 				Logger.log("Unsupported OBJ keyword: " + line);
 		}
@@ -190,7 +190,7 @@ public class ObjImporter
 			else if (tokens[0].equals("f") && tokens.length == 4) {
 				float uScale = ModelTexture.getScaleU(currentTexture);
 				float vScale = ModelTexture.getScaleV(currentTexture);
-				currentBatch.triangles.add(readTriangle(tokens, uScale, vScale));
+				currentBatch.getTriangles().add(readTriangle(tokens, uScale, vScale));
 			}
 			else
 				Logger.logWarning("Unsupported OBJ keyword: " + line);
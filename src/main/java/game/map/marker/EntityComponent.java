@@ -458,7 +458,7 @@ public class EntityComponent extends BaseMarkerComponent
 		if (entity == null || entity.typeData == null)
 			return;
 
-		IdentityArrayList<Triangle> triangles = parentMarker.collisionMesh.batch.triangles;
+		IdentityArrayList<Triangle> triangles = parentMarker.collisionMesh.batch.getTriangles();
 		triangles.clear();
 		parentMarker.collisionAABB.clear();
 
@@ -403,7 +403,7 @@ public class GridComponent extends BaseMarkerComponent
 
 	private void buildCollisionMesh()
 	{
-		IdentityArrayList<Triangle> triangles = parentMarker.collisionMesh.batch.triangles;
+		IdentityArrayList<Triangle> triangles = parentMarker.collisionMesh.batch.getTriangles();
 		triangles.clear();
 		parentMarker.collisionAABB.clear();
 
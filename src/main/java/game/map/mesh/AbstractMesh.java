@@ -4,6 +4,7 @@ import java.util.List;
 
 import game.map.MapObject;
 import game.map.editor.render.RenderingOptions;
+import game.map.editor.selection.TrianglePickTree;
 import game.map.shape.TriangleBatch;
 import renderer.buffers.BufferedMesh;
 
@@ -16,6 +17,7 @@ public abstract class AbstractMesh implements Iterable<Triangle>
 	public int selectedTriangleCount = 0;
 
 	public BufferedMesh buffer = null;
+	public TrianglePickTree pickTree = null;
 	private final int meshFlags;
 
 	public AbstractMesh(int meshFlags)
@@ -56,11 +56,7 @@ public class BasicMesh extends AbstractMesh implements Iterable<Triangle>, XmlSe
 		xmw.addInt(meshTag, ATTR_VERSION, latestVersion);
 		xmw.openTag(meshTag);
 
-		for (Triangle t : batch.triangles)
-			for (Vertex v : t.vert) {
-				if (!v.useLocal)
-					v.copyWorldToLocal();
-			}
+		batch.copyWorldToLocal();
 
 		batch.toXML(xmw);
 
@@ -90,13 +86,13 @@ public class BasicMesh extends AbstractMesh implements Iterable<Triangle>, XmlSe
 		boolean selectionEnabled = (opts.editorMode == EditorMode.Modify || opts.editorMode == EditorMode.Scripts);
 		for (TriangleBatch batch : getBatches()) {
 			batch.bufferStartPos = -1;
-			for (Triangle t : batch.triangles) {
+			for (TriangleView t : batch.viewTriangles()) {
 				boolean selected = selectionEnabled &&
-					(opts.selectionMode == SelectionMode.TRIANGLE && t.selected) ||
+					(opts.selectionMode == SelectionMode.TRIANGLE && t.isSelected()) ||
 					(opts.selectionMode == SelectionMode.OBJECT && parentObject.selected);
 
 				Color4f color = colors[1];
-				if (t.doubleSided)
+				if (t.isDoubleSided())
 					color = colors[2];
 				if (selected)
 					color = colors[0];
@@ -109,20 +105,20 @@ public class BasicMesh extends AbstractMesh implements Iterable<Triangle>, XmlSe
 		buffer.loadBuffers();
 	}
 
-	private int addTriangle(Triangle t, Color4f color)
+	private int addTriangle(TriangleView t, Color4f color)
 	{
-		int i = addVertex(t.vert[0], color);
-		int j = addVertex(t.vert[1], color);
-		int k = addVertex(t.vert[2], color);
+		int i = addVertex(t, 0, color);
+		int j = addVertex(t, 1, color);
+		int k = addVertex(t, 2, color);
 
 		buffer.addTriangle(i, j, k);
 		return i;
 	}
 
-	private int addVertex(Vertex v, Color4f color)
+	private int addVertex(TriangleView t, int k, Color4f color)
 	{
 		return buffer.addVertex()
-			.setPosition(v.getCurrentX(), v.getCurrentY(), v.getCurrentZ())
+			.setPosition(t.getX(k), t.getY(k), t.getZ(k))
 			.setColor(color.r, color.g, color.b, color.a)
 			.getIndex();
 	}
@@ -130,13 +126,7 @@ public class BasicMesh extends AbstractMesh implements Iterable<Triangle>, XmlSe
 	@Override
 	public void updateHierarchy()
 	{
-		batch.parentMesh = this;
-		for (Triangle t : batch.triangles) {
-			t.parentBatch = batch;
-			t.vert[0].parentMesh = this;
-			t.vert[1].parentMesh = this;
-			t.vert[2].parentMesh = this;
-		}
+		batch.setParent(this);
 	}
 
 	@Override
@@ -160,6 +150,6 @@ public class BasicMesh extends AbstractMesh implements Iterable<Triangle>, XmlSe
 	@Override
 	public Iterator<Triangle> iterator()
 	{
-		return batch.triangles.iterator();
+		return batch.getTriangles().iterator();
 	}
 }
@@ -0,0 +1,254 @@
+package game.map.mesh;
+
+import java.util.Arrays;
+
+import game.map.shape.TransformMatrix;
+import game.map.shape.TriangleBatch;
+import game.map.shape.UV;
+import util.identity.IdentityArrayList;
+
+/**
+ * Vertices and triangles of a {@link TriangleBatch} stored in flat primitive arrays, laid out like
+ * the geometry sections of the binary map format. Batches are read into this form and keep it until
+ * something asks for their triangle list, which creates the usual {@link Vertex} and {@link Triangle}
+ * objects once and drops the arrays. Loops which run every frame for every mesh, such as bounding box
+ * and vertex buffer updates, read the arrays through {@link TriangleView}, so geometry which is never
+ * selected or edited is never expanded into objects.
+ * <p>
+ * Vertex indices are relative to the batch and vertices are never shared with other batches, which is
+ * how batches are saved. Positions are local; world positions are only stored once a transformation
+ * has been applied, until then they equal the local ones.
+ */
+public class PackedGeometry
+{
+	public static final int FLAG_DOUBLE_SIDED = 1;
+
+	private final int vertexCount;
+	private final int triangleCount;
+
+	private int[] positions; // (x, y, z) per vertex
+	private int[] worldPositions; // null while equal to positions
+	private final int[] uvs; // (u, v) per vertex
+	private final byte[] colors; // (r, g, b, a) per vertex
+	private final int[] indices; // (i, j, k) per triangle
+	private final byte[] flags; // one byte per triangle
+
+	// same meaning as Vertex.useLocal, shared by every vertex in the batch
+	public boolean useLocal = false;
+
+	/**
+	 * Takes ownership of the arrays, which must already be validated.
+	 */
+	public PackedGeometry(int[] positions, int[] uvs, byte[] colors, int[] indices, byte[] flags)
+	{
+		this.vertexCount = positions.length / 3;
+		this.triangleCount = flags.length;
+		this.positions = positions;
+		this.uvs = uvs;
+		this.colors = colors;
+		this.indices = indices;
+		this.flags = flags;
+	}
+
+	/**
+	 * Copies the geometry the way {@link Triangle#deepCopy()} copies each triangle: every triangle
+	 * gets its own three vertices and the copies are single sided.
+	 */
+	public PackedGeometry deepCopyTriangles()
+	{
+		int count = 3 * triangleCount;
+		int[] copyPositions = new int[3 * count];
+		int[] copyWorldPositions = (worldPositions == null) ? null : new int[3 * count];
+		int[] copyUVs = new int[2 * count];
+		byte[] copyColors = new byte[4 * count];
+		int[] copyIndices = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			int vi = indices[i];
+			System.arraycopy(positions, 3 * vi, copyPositions, 3 * i, 3);
+			if (worldPositions != null)
+				System.arraycopy(worldPositions, 3 * vi, copyWorldPositions, 3 * i, 3);
+			copyUVs[2 * i] = getU(vi);
+			copyUVs[2 * i + 1] = getV(vi);
+			System.arraycopy(colors, 4 * vi, copyColors, 4 * i, 4);
+			copyIndices[i] = i;
+		}
+
+		PackedGeometry copy = new PackedGeometry(copyPositions, copyUVs, copyColors, copyIndices, new byte[triangleCount]);
+		copy.worldPositions = copyWorldPositions;
+		copy.useLocal = useLocal;
+		return copy;
+	}
+
+	/**
+	 * @return approximate number of bytes held by the arrays
+	 */
+	public long getMemoryUsage()
+	{
+		// object, five arrays and their headers
+		long bytes = 48 + 5 * 16;
+		bytes += (12 + 8 + 4) * (long) vertexCount;
+		bytes += (12 + 1) * (long) triangleCount;
+		if (worldPositions != null)
+			bytes += 16 + 12 * (long) vertexCount;
+		return bytes;
+	}
+
+	public int getVertexCount()
+	{
+		return vertexCount;
+	}
+
+	public int getTriangleCount()
+	{
+		return triangleCount;
+	}
+
+	/**
+	 * @return index of vertex k of triangle t
+	 */
+	public int getIndex(int t, int k)
+	{
+		return indices[3 * t + k];
+	}
+
+	public boolean isDoubleSided(int t)
+	{
+		return (flags[t] & FLAG_DOUBLE_SIDED) != 0;
+	}
+
+	public int getLocalX(int vi)
+	{
+		return positions[3 * vi];
+	}
+
+	public int getLocalY(int vi)
+	{
+		return positions[3 * vi + 1];
+	}
+
+	public int getLocalZ(int vi)
+	{
+		return positions[3 * vi + 2];
+	}
+
+	/**
+	 * @return the x coordinate a {@link Vertex} created from this geometry would return from getCurrentX
+	 */
+	public int getCurrentX(int vi)
+	{
+		return (useLocal || worldPositions == null) ? positions[3 * vi] : worldPositions[3 * vi];
+	}
+
+	public int getCurrentY(int vi)
+	{
+		return (useLocal || worldPositions == null) ? positions[3 * vi + 1] : worldPositions[3 * vi + 1];
+	}
+
+	public int getCurrentZ(int vi)
+	{
+		return (useLocal || worldPositions == null) ? positions[3 * vi + 2] : worldPositions[3 * vi + 2];
+	}
+
+	public short getU(int vi)
+	{
+		return (short) uvs[2 * vi];
+	}
+
+	public short getV(int vi)
+	{
+		return (short) uvs[2 * vi + 1];
+	}
+
+	/**
+	 * @param channel 0-3 for r, g, b, a
+	 */
+	public int getColor(int vi, int channel)
+	{
+		return colors[4 * vi + channel] & 0xFF;
+	}
+
+	/**
+	 * Same as {@link Vertex#forceTransform} for every vertex.
+	 */
+	public void forceTransform(TransformMatrix transformMatrix)
+	{
+		if (worldPositions == null)
+			worldPositions = new int[positions.length];
+		transformMatrix.forceTransform(positions, worldPositions, vertexCount);
+	}
+
+	/**
+	 * Same as {@link Vertex#copyWorldToLocal} for every vertex.
+	 */
+	public void copyWorldToLocal()
+	{
+		if (worldPositions != null)
+			positions = worldPositions.clone();
+	}
+
+	/**
+	 * Creates a vertex table holding each vertex used by a triangle, in order of first use, exactly like
+	 * {@link TriangleBatch#generateVertexTable()}. Triangle indices into the table are written to remap.
+	 * @return indices of the vertices in the table
+	 */
+	public int[] generateVertexTable(int[] remap)
+	{
+		int[] tableIndex = new int[vertexCount];
+		Arrays.fill(tableIndex, -1);
+
+		int[] table = new int[vertexCount];
+		int count = 0;
+
+		for (int i = 0; i < 3 * triangleCount; i++) {
+			int vi = indices[i];
+			if (tableIndex[vi] == -1) {
+				tableIndex[vi] = count;
+				table[count++] = vi;
+			}
+			remap[i] = tableIndex[vi];
+		}
+
+		return Arrays.copyOf(table, count);
+	}
+
+	/**
+	 * Creates the vertices and triangles for a batch, sharing vertices between triangles exactly as
+	 * they are when the batch is read from XML.
+	 */
+	public IdentityArrayList<Triangle> unpack(TriangleBatch batch)
+	{
+		Vertex[] vertexTable = new Vertex[vertexCount];
+		for (int vi = 0; vi < vertexCount; vi++) {
+			Vertex v = new Vertex(positions[3 * vi], positions[3 * vi + 1], positions[3 * vi + 2]);
+			if (worldPositions != null)
+				v.getWorldPosition().setPosition(worldPositions[3 * vi], worldPositions[3 * vi + 1], worldPositions[3 * vi + 2]);
+			v.useLocal = useLocal;
+			if (uvs[2 * vi] != 0 || uvs[2 * vi + 1] != 0)
+				v.uv = new UV(uvs[2 * vi], uvs[2 * vi + 1]);
+			v.r = colors[4 * vi] & 0xFF;
+			v.g = colors[4 * vi + 1] & 0xFF;
+			v.b = colors[4 * vi + 2] & 0xFF;
+			v.a = colors[4 * vi + 3] & 0xFF;
+			v.parentMesh = batch.parentMesh;
+			vertexTable[vi] = v;
+		}
+
+		IdentityArrayList<Triangle> triangles = new IdentityArrayList<>(triangleCount);
+		for (int t = 0; t < triangleCount; t++) {
+			int i = indices[3 * t];
+			int j = indices[3 * t + 1];
+			int k = indices[3 * t + 2];
+
+			Triangle tri = new Triangle(vertexTable[i], vertexTable[j], vertexTable[k]);
+			tri.ijk[0] = i;
+			tri.ijk[1] = j;
+			tri.ijk[2] = k;
+			tri.doubleSided = isDoubleSided(t);
+			tri.parentBatch = batch;
+			triangles.add(tri);
+		}
+
+		return triangles;
+	}
+}
@@ -140,9 +140,9 @@ public class TexturedMesh extends AbstractMesh implements XmlSerializable
 		boolean selectionEnabled = (opts.editorMode == EditorMode.Modify || opts.editorMode == EditorMode.Scripts);
 		for (TriangleBatch batch : getBatches()) {
 			batch.bufferStartPos = -1;
-			for (Triangle t : batch.triangles) {
+			for (TriangleView t : batch.viewTriangles()) {
 				int triStart = addTexturedTriangle(t, selectionEnabled &&
-					(opts.selectionMode == SelectionMode.TRIANGLE && t.selected) ||
+					(opts.selectionMode == SelectionMode.TRIANGLE && t.isSelected()) ||
 					(opts.selectionMode == SelectionMode.OBJECT && parentObject.selected));
 				if (batch.bufferStartPos < 0)
 					batch.bufferStartPos = triStart;
@@ -157,26 +157,26 @@ public class TexturedMesh extends AbstractMesh implements XmlSerializable
 		dirtyBuffer = true;
 	}
 
-	private int addTexturedTriangle(Triangle t, boolean selected)
+	private int addTexturedTriangle(TriangleView t, boolean selected)
 	{
-		int i = addTexturedVertex(t.vert[0], selected);
-		int j = addTexturedVertex(t.vert[1], selected);
-		int k = addTexturedVertex(t.vert[2], selected);
+		int i = addTexturedVertex(t, 0, selected);
+		int j = addTexturedVertex(t, 1, selected);
+		int k = addTexturedVertex(t, 2, selected);
 		buffer.addTriangle(i, j, k);
 		return i;
 	}
 
-	private int addTexturedVertex(Vertex v, boolean selected)
+	private int addTexturedVertex(TriangleView t, int k, boolean selected)
 	{
-		float r = (v.r & 0xFF) / 255.0f;
-		float g = (v.g & 0xFF) / 255.0f;
-		float b = (v.b & 0xFF) / 255.0f;
-		float a = (v.a & 0xFF) / 255.0f;
+		float r = t.getColor(k, 0) / 255.0f;
+		float g = t.getColor(k, 1) / 255.0f;
+		float b = t.getColor(k, 2) / 255.0f;
+		float a = t.getColor(k, 3) / 255.0f;
 
 		return buffer.addVertex()
-			.setPosition(v.getCurrentX(), v.getCurrentY(), v.getCurrentZ())
+			.setPosition(t.getX(k), t.getY(k), t.getZ(k))
 			.setColor(r, g, b, a)
-			.setUV(v.uv.getU(), v.uv.getV())
+			.setUV(t.getU(k), t.getV(k))
 			.setAux(0, selected ? 1.0f : 0.0f)
 			.getIndex();
 	}
@@ -258,7 +258,7 @@ public class TexturedMesh extends AbstractMesh implements XmlSerializable
 			for (int i = 0; i < displayList.size(); i++) {
 				DisplayCommand cmd = displayList.getElementAt(i);
 				if (cmd instanceof TriangleBatch) {
-					List<Triangle> tris = ((TriangleBatch) cmd).triangles;
+					List<Triangle> tris = ((TriangleBatch) cmd).getTriangles();
 					iterators.add(tris.iterator());
 				}
 			}
@@ -138,8 +138,6 @@ public class Triangle implements XmlSerializable, Selectable
 
 	public Vector3f getNormal()
 	{
-		Vector3f norm = new Vector3f();
-
 		float Ax = vert[1].getCurrentX() - vert[0].getCurrentX();
 		float Ay = vert[1].getCurrentY() - vert[0].getCurrentY();
 		float Az = vert[1].getCurrentZ() - vert[0].getCurrentZ();
@@ -148,6 +146,15 @@ public class Triangle implements XmlSerializable, Selectable
 		float By = vert[2].getCurrentY() - vert[0].getCurrentY();
 		float Bz = vert[2].getCurrentZ() - vert[0].getCurrentZ();
 
+		return getNormal(Ax, Ay, Az, Bx, By, Bz);
+	}
+
+	/**
+	 * @return unit normal of the triangle with edges A and B, or null if they are colinear
+	 */
+	static Vector3f getNormal(float Ax, float Ay, float Az, float Bx, float By, float Bz)
+	{
+		Vector3f norm = new Vector3f();
 		norm.x = Ay * Bz - Az * By;
 		norm.y = Az * Bx - Ax * Bz;
 		norm.z = Ax * By - Ay * Bx;
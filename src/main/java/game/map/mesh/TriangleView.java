@@ -0,0 +1,178 @@
+package game.map.mesh;
+
+import common.Vector3f;
+import game.map.shape.TriangleBatch;
+
+/**
+ * Reads one triangle of a {@link TriangleBatch} the same way whether the batch is still packed or
+ * its triangles have been created, so loops over every triangle don't need a branch for each kind
+ * of storage. Positions are current positions, as returned by {@link Vertex#getCurrentX()}.
+ * <p>
+ * {@link TriangleBatch#viewTriangles()} reuses one view for the whole batch, so views it returns
+ * must not be kept.
+ */
+public class TriangleView
+{
+	private TriangleBatch batch;
+	private PackedGeometry geometry;
+	private Triangle triangle;
+	private int index;
+
+	/**
+	 * Points this view at triangle index of a batch.
+	 */
+	public TriangleView set(TriangleBatch batch, int index)
+	{
+		this.batch = batch;
+		this.index = index;
+		geometry = batch.getPackedGeometry();
+		triangle = (geometry == null) ? batch.getTriangles().get(index) : null;
+		return this;
+	}
+
+	public TriangleBatch getBatch()
+	{
+		return batch;
+	}
+
+	public int getIndex()
+	{
+		return index;
+	}
+
+	public boolean isPacked()
+	{
+		return geometry != null;
+	}
+
+	/**
+	 * @return the triangle, or null if the batch is packed
+	 */
+	public Triangle getTriangle()
+	{
+		return triangle;
+	}
+
+	/**
+	 * Creates the triangles of a packed batch if they don't exist yet, see {@link TriangleBatch#getTriangles()}.
+	 * @return the triangle
+	 */
+	public Triangle unpackTriangle()
+	{
+		if (triangle == null) {
+			triangle = batch.getTriangles().get(index);
+			geometry = null;
+		}
+		return triangle;
+	}
+
+	/**
+	 * Packed triangles are never selected.
+	 */
+	public boolean isSelected()
+	{
+		return triangle != null && triangle.selected;
+	}
+
+	/**
+	 * Packed vertices are never selected.
+	 */
+	public boolean isVertexSelected(int k)
+	{
+		return triangle != null && triangle.vert[k].isSelected();
+	}
+
+	public boolean isDoubleSided()
+	{
+		return (geometry != null) ? geometry.isDoubleSided(index) : triangle.doubleSided;
+	}
+
+	public int getX(int k)
+	{
+		return (geometry != null) ? geometry.getCurrentX(geometry.getIndex(index, k)) : triangle.vert[k].getCurrentX();
+	}
+
+	public int getY(int k)
+	{
+		return (geometry != null) ? geometry.getCurrentY(geometry.getIndex(index, k)) : triangle.vert[k].getCurrentY();
+	}
+
+	public int getZ(int k)
+	{
+		return (geometry != null) ? geometry.getCurrentZ(geometry.getIndex(index, k)) : triangle.vert[k].getCurrentZ();
+	}
+
+	public int getU(int k)
+	{
+		return (geometry != null) ? geometry.getU(geometry.getIndex(index, k)) : triangle.vert[k].uv.getU();
+	}
+
+	public int getV(int k)
+	{
+		return (geometry != null) ? geometry.getV(geometry.getIndex(index, k)) : triangle.vert[k].uv.getV();
+	}
+
+	/**
+	 * @param channel 0-3 for r, g, b, a
+	 */
+	public int getColor(int k, int channel)
+	{
+		if (geometry != null)
+			return geometry.getColor(geometry.getIndex(index, k), channel);
+
+		Vertex v = triangle.vert[k];
+		switch (channel) {
+			case 0:
+				return v.r & 0xFF;
+			case 1:
+				return v.g & 0xFF;
+			case 2:
+				return v.b & 0xFF;
+			default:
+				return v.a & 0xFF;
+		}
+	}
+
+	public Vector3f getPosition(int k)
+	{
+		return new Vector3f(getX(k), getY(k), getZ(k));
+	}
+
+	/**
+	 * Same as {@link Triangle#getCenter()}.
+	 */
+	public Vector3f getCenter()
+	{
+		float x = (getX(0) + getX(1) + getX(2)) / 3.0f;
+		float y = (getY(0) + getY(1) + getY(2)) / 3.0f;
+		float z = (getZ(0) + getZ(1) + getZ(2)) / 3.0f;
+
+		return new Vector3f(x, y, z);
+	}
+
+	/**
+	 * Same as {@link Triangle#getNormal()}.
+	 * @return unit normal, or null if the triangle is degenerate
+	 */
+	public Vector3f getNormal()
+	{
+		float Ax = getX(1) - getX(0);
+		float Ay = getY(1) - getY(0);
+		float Az = getZ(1) - getZ(0);
+
+		float Bx = getX(2) - getX(0);
+		float By = getY(2) - getY(0);
+		float Bz = getZ(2) - getZ(0);
+
+		return Triangle.getNormal(Ax, Ay, Az, Bx, By, Bz);
+	}
+
+	public Vector3f getNormalSafe()
+	{
+		Vector3f norm = getNormal();
+		if (norm == null)
+			return new Vector3f(0, 0, 0);
+		else
+			return norm;
+	}
+}
@@ -173,6 +173,11 @@ public class Vertex implements XmlSerializable, Selectable
 		return localPos;
 	}
 
+	MutablePoint getWorldPosition()
+	{
+		return worldPos;
+	}
+
 	/**
 	 * @return
 	 * The current x coordinate for this vertex, taking into account both incomplete
@@ -387,6 +392,13 @@ public class Vertex implements XmlSerializable, Selectable
 
 			v.localPos.setPosition(localBackup.oldx, localBackup.oldy, localBackup.oldz);
 		}
+
+		@Override
+		public long getMemoryUsage()
+		{
+			// two point backups
+			return DEFAULT_MEMORY_USAGE + 2 * 48;
+		}
 	}
 
 	@Override
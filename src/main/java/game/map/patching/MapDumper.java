@@ -7,9 +7,16 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
 
@@ -32,7 +39,9 @@ import game.map.marker.Marker;
 import game.map.marker.Marker.MarkerType;
 import game.map.tree.MapObjectNode;
 import game.shared.ProjectDatabase;
+import game.yay0.Yay0Decoder;
 import game.yay0.Yay0Helper;
+import game.yay0.Yay0Helper.EncodeMode;
 import reports.FunctionCallTracker;
 import util.Logger;
 import util.Priority;
@@ -45,6 +54,25 @@ public class MapDumper
 	}
 
 	public static void dumpMaps(ROM rom, RandomAccessFile raf, boolean fullDump, boolean recompress) throws IOException
+	{
+		MapConfigTable table;
+		ByteBuffer romBuffer;
+
+		try {
+			table = readMapTable(rom, raf);
+			romBuffer = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+		}
+		finally {
+			raf.close();
+		}
+
+		if (fullDump)
+			dumpMapAssets(table, romBuffer, recompress, false);
+
+		dumpMapSources(rom, table, romBuffer);
+	}
+
+	public static MapConfigTable readMapTable(ROM rom, RandomAccessFile raf) throws IOException
 	{
 		Logger.log("Reading map tables.", Priority.MILESTONE);
 		MapConfigTable table = MapConfigTable.read(rom, raf);
@@ -62,20 +90,18 @@ public class MapDumper
 			}
 		}
 
-		Logger.log("Dumping map data.", Priority.MILESTONE);
-		dumpMapData(raf, table);
-
-		if (fullDump) {
-			Logger.log("Dumping map assets.", Priority.MILESTONE);
-			dumpAssets(raf, table);
+		return table;
+	}
 
-			if (recompress) {
-				Logger.log("Stripping and recompressing assets.", Priority.MILESTONE);
-				stripAssets(table);
-			}
-		}
+	/**
+	 * Writes the data section of each map, the map table, and the source files for each map.
+	 * Shape and hit files must already have been dumped by {@link #dumpMapAssets}.
+	 */
+	public static void dumpMapSources(ROM rom, MapConfigTable table, ByteBuffer romBuffer) throws IOException
+	{
+		Logger.log("Dumping map data.", Priority.MILESTONE);
+		dumpMapData(romBuffer, table);
 
-		raf.close();
 		table.writeXML(new File(DUMP_MAP + FN_MAP_TABLE));
 		generateSources(rom, table); // create *.map *.midx *.mscr
 
@@ -175,96 +201,140 @@ public class MapDumper
 	}
 	*/
 
-	private static void dumpMapData(RandomAccessFile raf, MapConfigTable table) throws IOException
+	private static void dumpMapData(ByteBuffer romBuffer, MapConfigTable table) throws IOException
 	{
 		for (AreaConfig area : table.areas) {
 			for (MapConfig map : area.maps) {
 				if (map.hasData) {
-					byte[] mapData = new byte[map.dataEndOffset - map.dataStartOffset];
-					raf.seek(map.dataStartOffset);
-					raf.read(mapData);
-					FileUtils.writeByteArrayToFile(new File(DUMP_MAP_RAW + map.name + ".bin"), mapData);
+					ByteBuffer mapData = romBuffer.slice(map.dataStartOffset, map.dataEndOffset - map.dataStartOffset);
+					IOUtils.writeBufferToFile(mapData, new File(DUMP_MAP_RAW + map.name + ".bin"));
 				}
 			}
 		}
 	}
 
-	private static void dumpAssets(RandomAccessFile raf, MapConfigTable table) throws IOException
+	/**
+	 * Dumps every map resource from the ROM, writing decoded copies to the raw directory and
+	 * the original compressed copies to the yay0 directory. When recompressing, shapes are also
+	 * stripped of unnecessary data and every compressed resource is encoded again, replacing the
+	 * original whenever the result is smaller. Should save ~56000 bytes.
+	 * <p>
+	 * Resources are independent of each other, so in parallel mode they are processed on a pool
+	 * with one thread per processor. Each thread holds at most one decoded resource at a time.
+	 * @param romBuffer read-only view of the ROM, which is not modified
+	 */
+	public static void dumpMapAssets(MapConfigTable table, ByteBuffer romBuffer, boolean recompress, boolean parallel) throws IOException
 	{
-		Logger.log("Dumping resources...", Priority.MILESTONE);
-		for (Resource res : table.allResources) {
-			byte[] writeBytes;
-			byte[] dumpedBytes = new byte[res.length];
-			raf.seek(res.offset);
-			raf.read(dumpedBytes);
-
-			if (res.compressed) {
-				File yay0 = new File(DUMP_MAP_YAY0 + res.name);
-				FileUtils.writeByteArrayToFile(yay0, dumpedBytes);
-
-				writeBytes = Yay0Helper.decode(dumpedBytes);
+		String task = recompress ? "Dumping and recompressing map assets..." : "Dumping map assets...";
+		Logger.log(task, Priority.MILESTONE);
+
+		List<Resource> resources = table.allResources;
+		int[] recompressedSizes = new int[resources.size()];
+		AtomicInteger finished = new AtomicInteger();
+
+		int threads = parallel ? Runtime.getRuntime().availableProcessors() : 1;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<?>> results = new ArrayList<>(resources.size());
+
+		try {
+			for (int i = 0; i < resources.size(); i++) {
+				int index = i;
+				results.add(pool.submit(() -> {
+					// each task reads through its own view, so positions are never shared
+					recompressedSizes[index] = dumpResource(resources.get(index), romBuffer.duplicate(), recompress);
+
+					int count = finished.incrementAndGet();
+					String progress = String.format("(%.1f%%)", 100.0f * count / resources.size());
+					Logger.log(task + " " + progress, Priority.UPDATE);
+					return null;
+				}));
 			}
-			else
-				writeBytes = dumpedBytes;
 
-			File out = new File(DUMP_MAP_RAW + res.name);
-			FileUtils.writeByteArrayToFile(out, writeBytes);
+			for (Future<?> result : results)
+				result.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while dumping map assets.", e);
 		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException ioe)
+				throw ioe;
+			if (cause instanceof RuntimeException re)
+				throw re;
+			throw new IOException(cause);
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		if (recompress)
+			reportRecompression(resources, recompressedSizes);
 	}
 
 	/**
-	 * Strips unnecessary data out of assets and recompressed them to save space.
-	 * Should save ~56000 bytes
+	 * @return size after recompressing, or -1 if the resource was not recompressed
 	 */
-	private static void stripAssets(MapConfigTable table) throws IOException
+	private static int dumpResource(Resource res, ByteBuffer romBuffer, boolean recompress) throws IOException
 	{
-		int totalSize = 0;
-		int totalSavings = 0;
+		ByteBuffer dumped = romBuffer.slice(res.offset, res.length);
+		File raw = new File(DUMP_MAP_RAW + res.name);
+		File yay0 = new File(DUMP_MAP_YAY0 + res.name);
+
+		if (!res.compressed) {
+			IOUtils.writeBufferToFile(dumped, raw);
 
-		int i = 0;
-		for (Resource res : table.allResources) {
-			String progress = String.format("(%.1f%%)", 100.0 * ((float) i / table.allResources.size()));
-			Logger.log("Stripping and recompressing assets... " + progress, Priority.UPDATE);
-			i++;
+			// just copy uncompressed files
+			if (recompress)
+				IOUtils.writeBufferToFile(dumped, yay0);
+			return -1;
+		}
 
-			File dumpedFile = new File(DUMP_MAP_RAW + res.name);
-			byte[] dumped = FileUtils.readFileToByteArray(dumpedFile);
+		byte[] decoded = Yay0Decoder.decode(dumped);
+		FileUtils.writeByteArrayToFile(raw, decoded);
+		IOUtils.writeBufferToFile(dumped, yay0);
 
-			File out = new File(DUMP_MAP_YAY0 + res.name);
+		if (!recompress)
+			return -1;
 
-			if (!res.compressed) {
-				// just copy uncompressed files
-				FileUtils.writeByteArrayToFile(out, dumped);
-				continue;
-			}
+		byte[] recompressed;
+		if (Resource.resolveType(res.name) == ResourceType.SHAPE) {
+			byte[] stripped = stripShape(decoded);
+			recompressed = Yay0Helper.encode(stripped, EncodeMode.OPTIMAL);
+		}
+		else {
+			// don't bother trying to strip _hit or other files
+			recompressed = Yay0Helper.encode(decoded, EncodeMode.OPTIMAL);
+		}
 
-			ResourceType type = Resource.resolveType(res.name);
-			byte[] recompressed = null;
+		// write the reduced yay0 file, otherwise keep the original
+		if (recompressed.length < res.length)
+			FileUtils.writeByteArrayToFile(yay0, recompressed);
 
-			if (type == ResourceType.SHAPE) {
-				byte[] stripped = stripShape(dumped);
-				recompressed = Yay0Helper.encode(stripped);
-			}
-			else {
-				// don't bother trying to strip _hit or other files
-				recompressed = Yay0Helper.encode(dumped);
-			}
+		return recompressed.length;
+	}
 
-			if (recompressed.length < res.length) {
-				Logger.logf("Stripped %05X bytes from %s",
-					res.length - recompressed.length, res.name);
+	// reported once all resources are finished, so the log is in table order
+	private static void reportRecompression(List<Resource> resources, int[] recompressedSizes)
+	{
+		int totalSize = 0;
+		int totalSavings = 0;
 
-				totalSavings += res.length - recompressed.length;
-				totalSize += res.length;
+		for (int i = 0; i < resources.size(); i++) {
+			Resource res = resources.get(i);
+			int size = recompressedSizes[i];
+			if (size < 0)
+				continue;
 
-				// write the reduced yay0 file
-				FileUtils.writeByteArrayToFile(out, recompressed);
+			if (size < res.length) {
+				Logger.logf("Stripped %05X bytes from %s", res.length - size, res.name);
+				totalSavings += res.length - size;
 			}
 			else {
 				Logger.logf("Could not reduce size of %s", res.name);
-				totalSize += res.length;
-				// keep the original yay0 file
 			}
+			totalSize += res.length;
 		}
 
 		Logger.logf("Saved %08X / %08X (%2.3f%%)\n", totalSavings, totalSize, 100 * (float) totalSavings / totalSize);
@@ -31,6 +31,7 @@ import game.map.config.MapConfigTable.MapConfig;
 import game.map.config.MapConfigTable.Resource;
 import game.map.config.MapConfigTable.Resource.ResourceType;
 import game.shared.struct.Struct;
+import patcher.BuildCache;
 import patcher.Patcher;
 import patcher.Region;
 import patcher.RomPatcher;
@@ -157,19 +158,51 @@ public class MapPatcher
 				File shapeFile = new File(MOD_MAP_BUILD + map.name + "_shape");
 				File hitFile = new File(MOD_MAP_BUILD + map.name + "_hit");
 
-				if (map.hasShape && (!shapeFile.exists() || shapeFile.lastModified() < xmlFile.lastModified())) {
+				boolean needsShape = map.hasShape && (!shapeFile.exists() || shapeFile.lastModified() < xmlFile.lastModified());
+				boolean needsHit = map.hasHit && (!hitFile.exists() || hitFile.lastModified() < xmlFile.lastModified());
+
+				if (!needsShape && !needsHit)
+					continue;
+
+				// compiled assets depend only on the map source, so they can be restored from the cache
+				byte[] xmlBytes = FileUtils.readFileToByteArray(xmlFile);
+
+				if (needsShape) {
 					Logger.log("Must build missing shape file for " + map.name);
-					new GeometryCompiler(Map.loadMap(xmlFile));
+					buildCached("Shape", xmlBytes, shapeFile, () -> new GeometryCompiler(Map.loadMap(xmlFile)));
 				}
 
-				if (map.hasHit && (!hitFile.exists() || hitFile.lastModified() < xmlFile.lastModified())) {
+				if (needsHit) {
 					Logger.log("Must build missing hit file for " + map.name);
-					new CollisionCompiler(Map.loadMap(xmlFile));
+					buildCached("Hit", xmlBytes, hitFile, () -> new CollisionCompiler(Map.loadMap(xmlFile)));
 				}
 			}
 		}
 	}
 
+	private static interface AssetCompiler
+	{
+		public void compile() throws IOException;
+	}
+
+	private void buildCached(String stage, byte[] source, File outFile, AssetCompiler compiler) throws IOException
+	{
+		BuildCache cache = patcher.getBuildCache();
+		String key = BuildCache.getKey(stage, source);
+
+		byte[] cached = cache.get(key);
+		if (cached != null) {
+			Logger.logDetail("Using cached " + outFile.getName());
+			FileUtils.writeByteArrayToFile(outFile, cached);
+			return;
+		}
+
+		compiler.compile();
+
+		if (outFile.exists())
+			cache.put(key, FileUtils.readFileToByteArray(outFile));
+	}
+
 	/**
 	 * Writes a skeleton map config table based on the number of areas/maps and
 	 * their names. Also writes the name strings to the ROM.
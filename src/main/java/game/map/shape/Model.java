@@ -25,6 +25,7 @@ import game.map.editor.render.Renderer;
 import game.map.editor.render.RenderingOptions;
 import game.map.editor.selection.PickRay;
 import game.map.editor.selection.PickRay.PickHit;
+import game.map.editor.selection.TrianglePickTree;
 import game.map.editor.ui.info.ModelInfoPanel;
 import game.map.hit.CameraZoneData;
 import game.map.mesh.TexturedMesh;
@@ -618,18 +619,13 @@ public class Model extends MapObject
 	@Override
 	public PickHit tryPick(PickRay ray)
 	{
-		PickHit nearestHit = new PickHit(ray, Float.MAX_VALUE);
 		if (!hasMesh.get())
 			return null;
 
 		if (!PickRay.intersects(ray, AABB))
-			return nearestHit;
+			return new PickHit(ray, Float.MAX_VALUE);
 
-		for (Triangle t : mesh) {
-			PickHit hit = PickRay.getIntersection(ray, t);
-			if (hit.dist < nearestHit.dist)
-				nearestHit = hit;
-		}
+		PickHit nearestHit = TrianglePickTree.pick(ray, mesh);
 		nearestHit.obj = this;
 		return nearestHit;
 	}
@@ -688,14 +684,11 @@ public class Model extends MapObject
 		if (hasMesh.get()) {
 			boolean hasTransformation = recievesTransform || hasTransformMatrix.get();
 
-			if (hasTransformation)
-				for (Triangle t : mesh)
-					for (Vertex v : t.vert)
-						v.forceTransform(cumulativeTransformMatrix);
-
-			for (Triangle t : mesh)
-				for (Vertex v : t.vert)
-					v.useLocal = !hasTransformation;
+			for (TriangleBatch batch : mesh.getBatches()) {
+				if (hasTransformation)
+					batch.forceTransform(cumulativeTransformMatrix);
+				batch.setUseLocal(!hasTransformation);
+			}
 
 			dirtyAABB = true;
 		}
@@ -66,7 +66,7 @@ public abstract class ModelRenderer
 
 		for (DisplayCommand cmd : mesh.displayListModel) {
 			if (cmd instanceof TriangleBatch batch) {
-				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.triangles.size());
+				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.getTriangleCount());
 			}
 			else if (opts.useGeometryFlags) {
 				cmd.doGL();
@@ -81,7 +81,7 @@ public abstract class ModelRenderer
 
 		for (DisplayCommand cmd : mesh.displayListModel) {
 			if (cmd instanceof TriangleBatch batch) {
-				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.triangles.size());
+				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.getTriangleCount());
 			}
 			else if (opts.useGeometryFlags) {
 				cmd.doGL();
@@ -119,7 +119,7 @@ public abstract class ModelRenderer
 
 		for (DisplayCommand cmd : mesh.displayListModel) {
 			if (cmd instanceof TriangleBatch batch) {
-				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.triangles.size());
+				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.getTriangleCount());
 			}
 			else if (opts.useGeometryFlags) {
 				cmd.doGL();
@@ -137,7 +137,7 @@ public abstract class ModelRenderer
 
 		for (DisplayCommand cmd : mesh.displayListModel) {
 			if (cmd instanceof TriangleBatch batch) {
-				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.triangles.size());
+				glDrawArrays(GL_TRIANGLES, batch.bufferStartPos, 3 * batch.getTriangleCount());
 			}
 			else if (opts.useGeometryFlags) {
 				cmd.doGL();
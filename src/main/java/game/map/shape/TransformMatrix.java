@@ -650,6 +650,23 @@ public class TransformMatrix implements Serializable, XmlSerializable
 		dest.setPosition(product[0], product[1], product[2]);
 	}
 
+	/**
+	 * Applies this transformation matrix to count points packed as (x, y, z) in src and writes
+	 * the results to dest, exactly as {@link #forceTransform(MutablePoint, MutablePoint)} would.
+	 */
+	public void forceTransform(int[] src, int[] dest, int count)
+	{
+		for (int i = 0; i < 3 * count; i += 3) {
+			double x = src[i];
+			double y = src[i + 1];
+			double z = src[i + 2];
+
+			dest[i] = (int) (x * mat[0][0] + y * mat[0][1] + z * mat[0][2] + mat[0][3]);
+			dest[i + 1] = (int) (x * mat[1][0] + y * mat[1][1] + z * mat[1][2] + mat[1][3]);
+			dest[i + 2] = (int) (x * mat[2][0] + y * mat[2][1] + z * mat[2][2] + mat[2][3]);
+		}
+	}
+
 	/**
 	 * Applies this transformation matrix to a {@link MutablePoint} and sets
 	 * its temporary position. This type of transformation is NOT safe for
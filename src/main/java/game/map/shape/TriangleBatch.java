@@ -2,12 +2,19 @@ package game.map.shape;
 
 import static game.map.MapKey.*;
 
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.w3c.dom.Element;
 
+import game.map.BinaryMapReader;
+import game.map.BinaryMapWriter;
 import game.map.mesh.AbstractMesh;
+import game.map.mesh.PackedGeometry;
 import game.map.mesh.Triangle;
+import game.map.mesh.TriangleView;
 import game.map.mesh.Vertex;
 import game.map.shape.commands.DisplayCommand;
 import util.identity.IdentityArrayList;
@@ -21,12 +28,137 @@ public class TriangleBatch extends DisplayCommand implements XmlSerializable
 	private int instanceVersion = latestVersion;
 	private static final int latestVersion = 0;
 
-	public IdentityArrayList<Triangle> triangles;
+	// geometry is held in only one of these, see PackedGeometry
+	private IdentityArrayList<Triangle> triangles;
+	private PackedGeometry packedGeometry;
+
 	public int bufferStartPos;
 
+	/**
+	 * Creates the triangles of a packed batch if they don't exist yet. The list can then be changed freely.
+	 */
+	public IdentityArrayList<Triangle> getTriangles()
+	{
+		if (packedGeometry != null) {
+			triangles = packedGeometry.unpack(this);
+			packedGeometry = null;
+		}
+		return triangles;
+	}
+
+	public void setTriangles(IdentityArrayList<Triangle> triangles)
+	{
+		this.triangles = triangles;
+		packedGeometry = null;
+	}
+
+	public int getTriangleCount()
+	{
+		return (packedGeometry != null) ? packedGeometry.getTriangleCount() : triangles.size();
+	}
+
+	/**
+	 * @return true if the triangles of this batch have not been created yet
+	 */
+	public boolean isPacked()
+	{
+		return packedGeometry != null;
+	}
+
+	/**
+	 * @return the packed geometry of this batch, or null once its triangles have been created
+	 */
+	public PackedGeometry getPackedGeometry()
+	{
+		return packedGeometry;
+	}
+
+	public void setPackedGeometry(PackedGeometry geometry)
+	{
+		packedGeometry = geometry;
+		triangles = new IdentityArrayList<>();
+	}
+
+	/**
+	 * Visits every triangle with one reused view, reading packed geometry without creating its triangles.
+	 */
+	public Iterable<TriangleView> viewTriangles()
+	{
+		return () -> new Iterator<>() {
+			private final TriangleView view = new TriangleView();
+			private final int count = getTriangleCount();
+			private int next = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < count;
+			}
+
+			@Override
+			public TriangleView next()
+			{
+				if (next >= count)
+					throw new NoSuchElementException();
+				return view.set(TriangleBatch.this, next++);
+			}
+		};
+	}
+
+	/**
+	 * Same as {@link Vertex#forceTransform} for every vertex.
+	 */
+	public void forceTransform(TransformMatrix transformMatrix)
+	{
+		if (packedGeometry != null) {
+			packedGeometry.forceTransform(transformMatrix);
+			return;
+		}
+
+		for (Triangle t : triangles)
+			for (Vertex v : t.vert)
+				v.forceTransform(transformMatrix);
+	}
+
+	/**
+	 * Sets {@link Vertex#useLocal} for every vertex.
+	 */
+	public void setUseLocal(boolean useLocal)
+	{
+		if (packedGeometry != null) {
+			packedGeometry.useLocal = useLocal;
+			return;
+		}
+
+		for (Triangle t : triangles)
+			for (Vertex v : t.vert)
+				v.useLocal = useLocal;
+	}
+
+	/**
+	 * Calls {@link Vertex#copyWorldToLocal} for every vertex which isn't using its local position.
+	 */
+	public void copyWorldToLocal()
+	{
+		if (packedGeometry != null) {
+			if (!packedGeometry.useLocal)
+				packedGeometry.copyWorldToLocal();
+			return;
+		}
+
+		for (Triangle t : triangles)
+			for (Vertex v : t.vert) {
+				if (!v.useLocal)
+					v.copyWorldToLocal();
+			}
+	}
+
 	public void setParent(AbstractMesh parent)
 	{
 		parentMesh = parent;
+		if (packedGeometry != null)
+			return;
+
 		for (Triangle t : triangles) {
 			t.parentBatch = this;
 			t.vert[0].parentMesh = parent;
@@ -48,32 +180,79 @@ public class TriangleBatch extends DisplayCommand implements XmlSerializable
 		xmr.requiresAttribute(batchElem, ATTR_VERSION);
 		instanceVersion = xmr.readInt(batchElem, ATTR_VERSION);
 
+		if (xmr instanceof BinaryMapReader) {
+			BinaryMapReader bmr = (BinaryMapReader) xmr;
+			if (bmr.hasGeometry(batchElem)) {
+				setPackedGeometry(bmr.readGeometry(batchElem));
+				return;
+			}
+		}
+
 		Element vertexTableElement = xmr.getUniqueRequiredTag(batchElem, TAG_VERTEX_TABLE);
 		List<Element> vertexElements = xmr.getTags(vertexTableElement, TAG_VERTEX);
 
-		Vertex[] vertexTable = new Vertex[vertexElements.size()];
+		int vertexCount = vertexElements.size();
+		int[] positions = new int[3 * vertexCount];
+		int[] uvs = new int[2 * vertexCount];
+		byte[] colors = new byte[4 * vertexCount];
+		Arrays.fill(colors, (byte) 255);
 
 		int i = 0;
 		for (Element vertexElement : vertexElements) {
-			Vertex v = Vertex.read(xmr, vertexElement);
-			vertexTable[i++] = v;
+			xmr.requiresAttribute(vertexElement, ATTR_VERT_XYZ);
+			System.arraycopy(xmr.readIntArray(vertexElement, ATTR_VERT_XYZ, 3), 0, positions, 3 * i, 3);
+
+			if (xmr.hasAttribute(vertexElement, ATTR_VERT_UV))
+				System.arraycopy(xmr.readIntArray(vertexElement, ATTR_VERT_UV, 2), 0, uvs, 2 * i, 2);
+
+			if (xmr.hasAttribute(vertexElement, ATTR_VERT_COLOR)) {
+				int[] rgba = xmr.readIntArray(vertexElement, ATTR_VERT_COLOR, 4);
+				for (int j = 0; j < 4; j++)
+					colors[4 * i + j] = (byte) rgba[j];
+			}
+			i++;
 		}
 
 		Element triangleListElement = xmr.getUniqueRequiredTag(batchElem, TAG_TRIANGLE_LIST);
 		List<Element> triangleElements = xmr.getTags(triangleListElement, TAG_TRIANGLE);
 
+		int[] indices = new int[3 * triangleElements.size()];
+		byte[] flags = new byte[triangleElements.size()];
+
+		i = 0;
 		for (Element triangleElement : triangleElements) {
-			Triangle t = Triangle.read(xmr, triangleElement, vertexTable);
-			t.parentBatch = this;
-			triangles.add(t);
+			xmr.requiresAttribute(triangleElement, ATTR_TRI_IJK);
+			int[] ijk = xmr.readIntArray(triangleElement, ATTR_TRI_IJK, 3);
+			for (int j = 0; j < 3; j++) {
+				if (ijk[j] < 0 || ijk[j] >= vertexCount)
+					xmr.complain("Vertex index is out of bounds: " + ijk[j]);
+				indices[3 * i + j] = ijk[j];
+			}
+
+			if (xmr.hasAttribute(triangleElement, ATTR_TRI_TWOSIDE) && xmr.readBoolean(triangleElement, ATTR_TRI_TWOSIDE))
+				flags[i] = PackedGeometry.FLAG_DOUBLE_SIDED;
+			i++;
 		}
+
+		setPackedGeometry(new PackedGeometry(positions, uvs, colors, indices, flags));
 	}
 
 	@Override
 	public void toXML(XmlWriter xmw)
 	{
+		if (packedGeometry != null) {
+			writePackedGeometry(xmw);
+			return;
+		}
+
 		Vertex[] vertexTable = generateVertexTable();
 
+		if (xmw instanceof BinaryMapWriter) {
+			// vertices and triangles are stored in flat arrays instead of elements
+			((BinaryMapWriter) xmw).printBatch(latestVersion, vertexTable, triangles);
+			return;
+		}
+
 		XmlTag batchTag = xmw.createTag(TAG_TRIANGLE_BATCH, false);
 		xmw.addInt(batchTag, ATTR_VERSION, latestVersion);
 		xmw.openTag(batchTag);
@@ -93,6 +272,58 @@ public class TriangleBatch extends DisplayCommand implements XmlSerializable
 		xmw.closeTag(batchTag);
 	}
 
+	// writes the same output as toXML would after creating the triangles
+	private void writePackedGeometry(XmlWriter xmw)
+	{
+		PackedGeometry geometry = packedGeometry;
+		int[] ijk = new int[3 * geometry.getTriangleCount()];
+		int[] vertexTable = geometry.generateVertexTable(ijk);
+
+		if (xmw instanceof BinaryMapWriter) {
+			((BinaryMapWriter) xmw).printBatch(latestVersion, geometry, vertexTable, ijk);
+			return;
+		}
+
+		XmlTag batchTag = xmw.createTag(TAG_TRIANGLE_BATCH, false);
+		xmw.addInt(batchTag, ATTR_VERSION, latestVersion);
+		xmw.openTag(batchTag);
+
+		XmlTag vertsTag = xmw.createTag(TAG_VERTEX_TABLE, false);
+		xmw.openTag(vertsTag);
+		for (int vi : vertexTable) {
+			XmlTag vertexTag = xmw.createTag(TAG_VERTEX, true);
+			xmw.addIntArray(vertexTag, ATTR_VERT_XYZ, geometry.getLocalX(vi), geometry.getLocalY(vi), geometry.getLocalZ(vi));
+
+			if (geometry.getU(vi) != 0 || geometry.getV(vi) != 0)
+				xmw.addIntArray(vertexTag, ATTR_VERT_UV, geometry.getU(vi), geometry.getV(vi));
+
+			int r = geometry.getColor(vi, 0);
+			int g = geometry.getColor(vi, 1);
+			int b = geometry.getColor(vi, 2);
+			int a = geometry.getColor(vi, 3);
+			if (r != 255 || g != 255 || b != 255 || a != 255)
+				xmw.addIntArray(vertexTag, ATTR_VERT_COLOR, r, g, b, a);
+
+			xmw.printTag(vertexTag);
+		}
+		xmw.closeTag(vertsTag);
+
+		XmlTag trisTag = xmw.createTag(TAG_TRIANGLE_LIST, false);
+		xmw.openTag(trisTag);
+		for (int t = 0; t < geometry.getTriangleCount(); t++) {
+			XmlTag triTag = xmw.createTag(TAG_TRIANGLE, true);
+			xmw.addIntArray(triTag, ATTR_TRI_IJK, ijk[3 * t], ijk[3 * t + 1], ijk[3 * t + 2]);
+
+			if (geometry.isDoubleSided(t))
+				xmw.addBoolean(triTag, ATTR_TRI_TWOSIDE, true);
+
+			xmw.printTag(triTag);
+		}
+		xmw.closeTag(trisTag);
+
+		xmw.closeTag(batchTag);
+	}
+
 	public TriangleBatch(AbstractMesh parentMesh)
 	{
 		super(parentMesh);
@@ -104,6 +335,11 @@ public class TriangleBatch extends DisplayCommand implements XmlSerializable
 	{
 		TriangleBatch copyBatch = new TriangleBatch(parentMesh);
 
+		if (packedGeometry != null) {
+			copyBatch.setPackedGeometry(packedGeometry.deepCopyTriangles());
+			return copyBatch;
+		}
+
 		for (Triangle t : triangles) {
 			Triangle copyTriangle = t.deepCopy();
 			copyTriangle.setParent(copyBatch);
@@ -116,7 +352,7 @@ public class TriangleBatch extends DisplayCommand implements XmlSerializable
 	@Override
 	public String toString()
 	{
-		return "Draw " + triangles.size() + " triangles.";
+		return "Draw " + getTriangleCount() + " triangles.";
 	}
 
 	@Override
@@ -135,6 +371,7 @@ public class TriangleBatch extends DisplayCommand implements XmlSerializable
 	{
 		// clear previous indicies
 		int index = 0;
+		IdentityArrayList<Triangle> triangles = getTriangles();
 		for (Triangle t : triangles)
 			for (Vertex v : t.vert)
 				v.index = -1;
@@ -14,6 +14,7 @@ import javax.swing.tree.DefaultTreeModel;
 import org.w3c.dom.Element;
 
 import game.map.MapObject;
+import game.map.editor.selection.ObjectPickIndex;
 import util.xml.XmlWrapper.XmlReader;
 import util.xml.XmlWrapper.XmlSerializable;
 import util.xml.XmlWrapper.XmlTag;
@@ -26,6 +27,8 @@ public abstract class MapObjectTreeModel<T extends MapObject> extends DefaultTre
 	private MapObjectJTree<T> tree;
 	public boolean ignoreSelectionChanges = false;
 
+	private transient ObjectPickIndex<T> pickIndex = null;
+
 	public MapObjectTreeModel(MapObjectNode<T> root)
 	{
 		super(root);
@@ -281,6 +284,32 @@ public abstract class MapObjectTreeModel<T extends MapObject> extends DefaultTre
 
 	public abstract void recalculateIndicies();
 
+	/**
+	 * Objects picked by their meshes are always hit within their AABBs, which lets picking
+	 * skip objects using a {@link ObjectPickIndex}. Trees with objects picked any other way
+	 * should return false.
+	 */
+	protected boolean usesPickIndex()
+	{
+		return true;
+	}
+
+	/**
+	 * @return a pick index brought up to date with the tree, or null if this tree
+	 * must be picked by testing every object
+	 */
+	public ObjectPickIndex<T> getPickIndex()
+	{
+		if (!usesPickIndex())
+			return null;
+
+		if (pickIndex == null)
+			pickIndex = new ObjectPickIndex<>();
+
+		pickIndex.update(getRoot());
+		return pickIndex;
+	}
+
 	public void recalculateBoundingBoxes()
 	{
 		recalculateBoundingBoxes(getRoot());
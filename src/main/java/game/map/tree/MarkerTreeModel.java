@@ -22,6 +22,13 @@ public class MarkerTreeModel extends MapObjectTreeModel<Marker>
 		getRoot().reassignIndexDepthFirstPost(-1);
 	}
 
+	@Override
+	protected boolean usesPickIndex()
+	{
+		// markers may be picked by components extending outside their AABB
+		return false;
+	}
+
 	@Override
 	public Marker createNewObject()
 	{
@@ -2,6 +2,8 @@ package game.shared;
 
 import static app.Directories.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -12,6 +14,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import javax.swing.JComboBox;
 
@@ -1103,4 +1106,40 @@ public class ProjectDatabase
 	{
 		return stringConstMap.get(name);
 	}
+
+	/**
+	 * Serializes all project data which can change the encoding of a string: item names
+	 * and string constants. Used to key cached string encodings.
+	 */
+	public static byte[] getStringEncodingContext()
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		try {
+			out.writeBoolean(Environment.project.isDecomp);
+
+			String[] itemNames = getItemNames();
+			out.writeInt(itemNames.length);
+			for (String name : itemNames)
+				out.writeUTF(name);
+
+			TreeMap<String, ByteBuffer> constants = new TreeMap<>(stringConstMap);
+			out.writeInt(constants.size());
+			for (Entry<String, ByteBuffer> e : constants.entrySet()) {
+				ByteBuffer bb = e.getValue().duplicate();
+				bb.rewind();
+				out.writeUTF(e.getKey());
+				out.writeInt(bb.remaining());
+				while (bb.hasRemaining())
+					out.writeByte(bb.get());
+			}
+		}
+		catch (IOException e) {
+			// not possible for an in-memory stream
+			throw new IllegalStateException(e);
+		}
+
+		return bytes.toByteArray();
+	}
 }
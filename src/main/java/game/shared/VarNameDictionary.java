@@ -6,17 +6,17 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.input.IOUtils;
 import app.input.InputFileException;
 import game.shared.struct.script.ScriptVariable;
+import util.ThreadLocalMatcher;
 
 public class VarNameDictionary
 {
 	private static final Pattern EntryPattern = Pattern.compile("([0-9A-Fa-f]+)\\s*=\\s*(\\S+)(?:\\s*=\\s*(\\S+))?(?:\\s*%(.+))?");
-	private static final Matcher EntryMatcher = EntryPattern.matcher("");
+	private static final ThreadLocalMatcher EntryMatcher = new ThreadLocalMatcher(EntryPattern);
 
 	public static class VarName
 	{
@@ -17,7 +17,6 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
@@ -54,6 +53,7 @@ import game.texture.Tile;
 import game.texture.TileFormat;
 import patcher.Region;
 import util.Logger;
+import util.ThreadLocalMatcher;
 
 public abstract class BaseDataDecoder
 {
@@ -839,7 +839,7 @@ public abstract class BaseDataDecoder
 	 */
 
 	private static final Pattern TrailingWhitespacePattern = Pattern.compile("(.*?)\\s+$");
-	private static final Matcher TrailingWhitespaceMatcher = TrailingWhitespacePattern.matcher("");
+	private static final ThreadLocalMatcher TrailingWhitespaceMatcher = new ThreadLocalMatcher(TrailingWhitespacePattern);
 
 	protected void printPreamble(PrintWriter pw)
 	{} // optional for subclasses
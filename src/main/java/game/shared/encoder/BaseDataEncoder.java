@@ -20,7 +20,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
@@ -45,6 +44,7 @@ import app.input.PatchFileParser;
 import app.input.PatchFileParser.PatchUnit;
 import app.input.StreamSource;
 import app.input.Token;
+import asm.BinaryAssembler;
 import asm.MIPS;
 import asm.pseudoinstruction.PseudoInstruction;
 import game.ROM;
@@ -70,6 +70,7 @@ import game.texture.Tile;
 import game.texture.TileFormat;
 import game.texture.images.HudElementRecord;
 import game.texture.images.ImageDatabase.EncodedImageAsset;
+import patcher.FreeSpaceAllocator;
 import patcher.IGlobalDatabase;
 import patcher.Region;
 import patcher.RomPatcher;
@@ -342,6 +343,9 @@ public abstract class BaseDataEncoder implements ConstantDatabase
 						Logger.logf("Writing direct patch to %08X", romOffset);
 						rp.seek(str.name, romOffset);
 
+						if (patch.assembled != null)
+							rp.write(patch.assembled.duplicate());
+
 						for (Line line : patch.lines)
 							for (Token t : line.tokens) {
 								try {
@@ -383,6 +387,9 @@ public abstract class BaseDataEncoder implements ConstantDatabase
 					for (Patch patch : str.patchList) {
 						rp.seek(str.name, str.finalFileOffset + str.basePatchOffset + patch.startingPos);
 
+						if (patch.assembled != null)
+							rp.write(patch.assembled.duplicate());
+
 						for (Line line : patch.lines)
 							for (Token t : line.tokens) {
 								try {
@@ -2580,14 +2587,6 @@ public abstract class BaseDataEncoder implements ConstantDatabase
 		}
 	}
 
-	// ASCENDING order
-	private static final Comparator<Region> REGION_SIZE_COMPARATOR = (a, b) -> {
-		if (a.length() == b.length())
-			return a.compareTo(b);
-
-		return (int) (a.length() - b.length());
-	};
-
 	// DESCENDING order
 	private static final Comparator<Struct> STRUCT_SIZE_COMPARATOR = (a, b) -> b.finalSize - a.finalSize;
 
@@ -2624,162 +2623,67 @@ public abstract class BaseDataEncoder implements ConstantDatabase
 			struct.finalAddress = struct.originalAddress;
 		}
 
-		LinkedList<Region> emptyRegions = getEmptyRegions(freeRegions);
-
-		if (relocatedStructList.isEmpty()) {
-			int currentEnd = (int) emptyRegions.getLast().start;
-			currentEnd = (currentEnd + 15) & -16; // 0x10 pad files
-
-			end.finalFileOffset = currentEnd;
-			end.finalAddress = toOverlayAddress(end.finalFileOffset);
-			return;
-		}
-
-		Collections.sort(relocatedStructList, STRUCT_SIZE_COMPARATOR);
-
-		Collections.sort(emptyRegions, REGION_SIZE_COMPARATOR);
-		Iterator<Region> iter = emptyRegions.iterator();
-
-		/*
-		// ignore all empty regions smaller than the smallest struct
-		int minStructSize = relocatedStructList.get(relocatedStructList.size() - 1).finalSize;
-		while(iter.hasNext())
-		{
-			Region r = iter.next();
-			if((r.length() < 0x10) || (r.length() < minStructSize))
-			{
-				iter.remove();
-			}
-		}
-		 */
+		FreeSpaceAllocator freeSpace = getFreeSpace(freeRegions);
 
 		// starting with the largest struct, find the smallest place where it can fit
 		// if data is appended to the end, keep track of the terminal data offset
+		Collections.sort(relocatedStructList, STRUCT_SIZE_COMPARATOR);
+
 		for (Struct struct : relocatedStructList) {
 			int alignReq = struct.isTypeOf(ConstDoubleT) ? 8 : 4;
 
-			boolean foundFit = false;
-			iter = emptyRegions.iterator();
-
-			while (iter.hasNext() && !foundFit) {
-				Region r = iter.next();
-
-				int alignedStart = ((int) r.start + (alignReq - 1)) & -alignReq;
-				int alignedEnd = (int) r.end & -alignReq;
-				int length = alignedEnd - alignedStart;
-
-				if (struct.finalSize <= length) {
-					int structEnd = alignedStart + struct.finalSize;
-					struct.finalFileOffset = alignedStart;
-					struct.finalAddress = toOverlayAddress(struct.finalFileOffset);
-					iter.remove();
-
-					if (r.start < alignedStart)
-						emptyRegions.add(new Region(r.start, alignedStart));
-
-					if (structEnd < r.end)
-						emptyRegions.add(new Region(structEnd, r.end));
-
-					foundFit = true;
-				}
-			}
-
-			if (!foundFit)
+			long offset = freeSpace.allocate(struct.finalSize, alignReq);
+			if (offset < 0)
 				throw new InputFileException(primarySource, "%s %n%s", "Ran out of room to place new data structures!", struct.name);
 
+			struct.finalFileOffset = (int) offset;
+			struct.finalAddress = toOverlayAddress(struct.finalFileOffset);
+
 			Logger.logf("%s will be placed at %08X (length = %X bytes)", struct.name, struct.finalAddress, struct.finalSize);
 		}
 
-		Collections.sort(emptyRegions);
+		if (!relocatedStructList.isEmpty())
+			Logger.logf("Free space after placement: %s", freeSpace.getStatistics());
 
-		int currentEnd = (int) emptyRegions.getLast().start;
+		int currentEnd = (int) freeSpace.getLastRegion().start;
 		currentEnd = (currentEnd + 15) & -16; // 0x10 pad files
 
 		end.finalFileOffset = currentEnd;
 		end.finalAddress = toOverlayAddress(end.finalFileOffset);
-		end.finalSize = toOverlayOffset(addressLimit) - currentEnd;
-		return;
+		if (!relocatedStructList.isEmpty())
+			end.finalSize = toOverlayOffset(addressLimit) - currentEnd;
 	}
 
-	private final LinkedList<Region> getEmptyRegions(List<Region> relocatedRegionList)
+	private final FreeSpaceAllocator getFreeSpace(List<Region> relocatedRegionList)
 	{
-		List<Region> emptyRegions = new LinkedList<>();
+		List<Region> emptyRegions = new ArrayList<>();
 		emptyRegions.addAll(relocatedRegionList);
 		emptyRegions.addAll(deletedRegions);
 		emptyRegions.addAll(paddingRegions);
 		emptyRegions.add(new Region(end.originalFileOffset, toOverlayOffset(addressLimit)));
-		Collections.sort(emptyRegions);
-
-		LinkedList<Region> mergedRegions = new LinkedList<>();
-		if (emptyRegions.size() == 0)
-			return mergedRegions;
 
 		// ensure no two empty regions overlap
-		for (int i = 1; i < emptyRegions.size(); i++) {
-			Region a = emptyRegions.get(i - 1);
-			Region b = emptyRegions.get(i);
-			if (Region.overlap(a, b) > 0) {
+		FreeSpaceAllocator freeSpace = new FreeSpaceAllocator();
+		for (Region r : emptyRegions) {
+			Region overlap = freeSpace.findOverlap(r.start, r.end);
+			if (overlap != null) {
 				throw new InputFileException(primarySource,
 					"Found overlapping empty regions: %X to %X and %X to %X",
-					baseAddress + a.start,
-					baseAddress + a.end,
-					baseAddress + b.start,
-					baseAddress + b.end);
+					baseAddress + overlap.start,
+					baseAddress + overlap.end,
+					baseAddress + r.start,
+					baseAddress + r.end);
 			}
+			freeSpace.free(r);
 		}
 
-		Region current = emptyRegions.get(0);
-		for (int i = 1; i < emptyRegions.size(); i++) {
-			Region r = emptyRegions.get(i);
-
-			if (Region.adjacent(current, r))
-				current = Region.merge(current, r);
-			else {
-				mergedRegions.add(current);
-				current = r;
-			}
-		}
-		mergedRegions.add(current);
-
-		Logger.logf("Merged %d regions to %d", emptyRegions.size(), mergedRegions.size());
-
-		if (reservedRegions.isEmpty())
-			return mergedRegions;
+		Logger.logf("Merged %d regions to %d", emptyRegions.size(), freeSpace.getBlockCount());
 
 		// remove reserved regions from empty space listing
+		for (Region r : reservedRegions)
+			freeSpace.reserve(r.start, r.end);
 
-		Collections.sort(reservedRegions);
-
-		for (Region r : reservedRegions) {
-			ListIterator<Region> iter = mergedRegions.listIterator();
-
-			while (iter.hasNext()) {
-				Region m = iter.next();
-
-				if (m.length() == 0 || !Region.overlaps(r, m))
-					continue;
-
-				if (m.start <= r.start && m.end >= r.end) //
-				{
-					iter.add(new Region(r.end, m.end));
-					m.end = r.start;
-				}
-				else if (r.start <= m.start && r.end >= m.end)
-					m.end = m.start; // make size = 0
-				else if (r.start <= m.start)
-					m.start = r.end;
-				else
-					m.end = r.start;
-			}
-		}
-
-		LinkedList<Region> finalRegions = new LinkedList<>();
-		for (Region r : mergedRegions) {
-			if (r.length() > 0)
-				finalRegions.add(r);
-		}
-
-		return finalRegions;
+		return freeSpace;
 	}
 
 	private final void determineGlobalPlacement()
@@ -2861,12 +2765,8 @@ public abstract class BaseDataEncoder implements ConstantDatabase
 
 			for (Patch patch : str.patchList) {
 				List<Line> cleaned = PseudoInstruction.removeAll(patch.lines);
-				List<Line> assembled = MIPS.assemble(cleaned);
-				for (Line line : assembled)
-					line.tokenize();
-
+				patch.assembled = BinaryAssembler.assemble(cleaned);
 				patch.lines.clear();
-				patch.lines.addAll(assembled);
 			}
 		}
 	}
@@ -2949,14 +2849,7 @@ public abstract class BaseDataEncoder implements ConstantDatabase
 
 				// write fixed function back to buffer
 				patchedBuffer.position(str.originalFileOffset);
-				for (Line line : MIPS.assemble(fixedAsmList)) {
-					try {
-						patchedBuffer.putInt((int) Long.parseLong(line.str, 16));
-					}
-					catch (NumberFormatException e) {
-						throw new InputFileException(line, "Could not parse integer: %s", line.str);
-					}
-				}
+				BinaryAssembler.assemble(fixedAsmList, patchedBuffer);
 			}
 		}
 	}
@@ -3041,6 +2934,9 @@ public abstract class BaseDataEncoder implements ConstantDatabase
 			for (Patch patch : str.patchList) {
 				str.patchedBuffer.position(patch.startingPos);
 
+				if (patch.assembled != null)
+					str.patchedBuffer.put(patch.assembled.duplicate());
+
 				for (Line line : patch.lines) {
 					for (int i = 0; i < line.numTokens(); i++) {
 						try {
@@ -1,5 +1,6 @@
 package game.shared.encoder;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,6 +27,9 @@ public class Patch
 
 	public List<String> annotations = new ArrayList<>(0);
 
+	// machine code for function patches, replaces lines once assembled
+	public ByteBuffer assembled = null;
+
 	/*
 	public String name;
 	public PatchType type;
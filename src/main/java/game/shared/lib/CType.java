@@ -7,7 +7,6 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FilenameUtils;
@@ -20,6 +19,7 @@ import app.input.InputFileException;
 import app.input.InvalidInputException;
 import game.shared.DataUtils;
 import util.Logger;
+import util.ThreadLocalMatcher;
 
 public class CType
 {
@@ -76,13 +76,13 @@ public class CType
 	}
 
 	private static final Pattern TypeSpecifierPattern = Pattern.compile("\\w+(?:\\*|\\[[0-9A-Fa-f]+[`']?\\])*");
-	private static final Matcher TypeSpecifierMatcher = TypeSpecifierPattern.matcher("");
+	private static final ThreadLocalMatcher TypeSpecifierMatcher = new ThreadLocalMatcher(TypeSpecifierPattern);
 
 	private static final Pattern ArrayTypePattern = Pattern.compile("(.+?)((?:\\[[0-9A-Fa-f]+[`']?\\]))$");
-	private static final Matcher ArrayTypeMatcher = ArrayTypePattern.matcher("");
+	private static final ThreadLocalMatcher ArrayTypeMatcher = new ThreadLocalMatcher(ArrayTypePattern);
 
 	private static final Pattern PointerTypePattern = Pattern.compile("(.+?)(\\*)$");
-	private static final Matcher PointerTypeMatcher = PointerTypePattern.matcher("");
+	private static final ThreadLocalMatcher PointerTypeMatcher = new ThreadLocalMatcher(PointerTypePattern);
 
 	// keeps types singleton based on specifier
 	private static HashMap<String, CType> typePool;
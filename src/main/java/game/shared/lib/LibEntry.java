@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.input.InvalidInputException;
@@ -17,20 +16,21 @@ import game.shared.SyntaxConstants;
 import game.shared.lib.CType.TypeCategory;
 import game.shared.struct.StructType;
 import game.shared.struct.script.ScriptVariable;
+import util.ThreadLocalMatcher;
 
 public class LibEntry
 {
 	private static final Pattern AddressFieldPattern = Pattern.compile("(80[0-9A-Fa-f]{6})(?:, *([0-9A-Fa-f]{1,8}))?");
-	private static final Matcher AddressFieldMatcher = AddressFieldPattern.matcher("");
+	private static final ThreadLocalMatcher AddressFieldMatcher = new ThreadLocalMatcher(AddressFieldPattern);
 
 	private static final Pattern ValidScrTypePattern = Pattern.compile("\\$\\w+");
-	private static final Matcher ValidScrTypeMatcher = ValidScrTypePattern.matcher("");
+	private static final ThreadLocalMatcher ValidScrTypeMatcher = new ThreadLocalMatcher(ValidScrTypePattern);
 
 	private static final Pattern StackStoragePattern = Pattern.compile("SP\\[([0-9A-Fa-f]+[`']?)\\]");
-	private static final Matcher StackStorageMatcher = StackStoragePattern.matcher("");
+	private static final ThreadLocalMatcher StackStorageMatcher = new ThreadLocalMatcher(StackStoragePattern);
 
 	private static final Pattern ValidOptionPattern = Pattern.compile("(\\w+)=(#?[\\w\\[\\]*]+)");
-	private static final Matcher ValidOptionMatcher = ValidOptionPattern.matcher("");
+	private static final ThreadLocalMatcher ValidOptionMatcher = new ThreadLocalMatcher(ValidOptionPattern);
 
 	public final LibScope scope;
 	public final EntryType type;
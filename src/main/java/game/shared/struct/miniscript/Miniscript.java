@@ -10,7 +10,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.StarRodException;
@@ -28,11 +27,12 @@ import game.shared.struct.StructType;
 import patcher.RomPatcher;
 import util.ArrayIterator;
 import util.CaseInsensitiveMap;
+import util.ThreadLocalMatcher;
 
 public abstract class Miniscript extends BaseStruct
 {
 	private static final Pattern LinePattern = Pattern.compile("\\s*(\\S+)\\s*(?:\\(([^\\)]+)\\))?\\s*");
-	private static final Matcher LineMatcher = LinePattern.matcher("");
+	private static final ThreadLocalMatcher LineMatcher = new ThreadLocalMatcher(LinePattern);
 
 	public final String scriptName;
 	private final int scriptFlags;
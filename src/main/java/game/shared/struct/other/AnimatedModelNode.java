@@ -5,7 +5,6 @@ import static game.shared.StructTypes.*;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.input.InputFileException;
@@ -17,13 +16,14 @@ import game.shared.decoder.BaseDataDecoder;
 import game.shared.decoder.Pointer;
 import game.shared.encoder.BaseDataEncoder;
 import game.shared.encoder.Patch;
+import util.ThreadLocalMatcher;
 
 public class AnimatedModelNode extends BaseStruct
 {
 	public static final AnimatedModelNode instance = new AnimatedModelNode();
 
 	private static final Pattern FieldPattern = Pattern.compile("@(\\w+)\\s+(.+)");
-	private static final Matcher FieldMatcher = FieldPattern.matcher("");
+	private static final ThreadLocalMatcher FieldMatcher = new ThreadLocalMatcher(FieldPattern);
 
 	private AnimatedModelNode()
 	{}
@@ -1,7 +1,6 @@
 package game.shared.struct.script;
 
 import java.util.HashMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.config.Config;
@@ -11,6 +10,7 @@ import game.shared.DataUtils;
 import game.shared.ProjectDatabase;
 import game.shared.SyntaxConstants;
 import reports.ScriptVariableTracker;
+import util.ThreadLocalMatcher;
 
 public enum ScriptVariable
 {
@@ -113,10 +113,10 @@ public enum ScriptVariable
 	}
 
 	private static final Pattern VarOffsetPattern = Pattern.compile("\\*(\\w+)\\[([\\-\\+]?[\\.0-9A-Fa-f]+['`]?)\\]");
-	private static final Matcher VarOffsetMatcher = VarOffsetPattern.matcher("");
+	private static final ThreadLocalMatcher VarOffsetMatcher = new ThreadLocalMatcher(VarOffsetPattern);
 
 	private static final Pattern VarNamePattern = Pattern.compile("\\*[A-Za-z][\\w:]*(?:\\[\\S+\\])?");
-	private static final Matcher VarNameMatcher = VarNamePattern.matcher("");
+	private static final ThreadLocalMatcher VarNameMatcher = new ThreadLocalMatcher(VarNamePattern);
 
 	public static boolean isValidName(String name)
 	{
@@ -5,19 +5,27 @@ import static game.texture.TileFormat.CI_4;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.commons.io.FileUtils;
 
@@ -29,8 +37,8 @@ import game.shared.encoder.GlobalPatchManager;
 import game.sprite.PlayerSpriteConverter.RasterTableEntry;
 import game.sprite.SpriteLoader.SpriteMetadata;
 import game.sprite.SpriteLoader.SpriteSet;
-import game.sprite.Yay0Cache.CacheResult;
 import game.texture.Tile;
+import patcher.BuildCache;
 import patcher.Patcher;
 import patcher.RomPatcher;
 import util.KeyValuePair;
@@ -45,6 +53,8 @@ public class SpritePatcher
 	private static final int SPRITE_TABLE_BASE = 0x1943010;
 	private static final int SPRITE_DATA_LIMIT = 0x1B82208;
 
+	private static final int INITIAL_SHEET_SIZE = 0x40000;
+
 	private final Patcher patcher;
 	private final RomPatcher rp;
 	private final SpriteLoader spriteLoader;
@@ -67,9 +77,6 @@ public class SpritePatcher
 		this.patcher = patcher;
 		rp = patcher.getRomPatcher();
 
-		FileUtils.forceMkdir(MOD_SPR_PLR_TEMP.toFile());
-		FileUtils.forceMkdir(MOD_SPR_NPC_TEMP.toFile());
-
 		spriteLoader = new SpriteLoader();
 
 		npcSpriteNameMap = new TreeMap<>();
@@ -458,24 +465,14 @@ public class SpritePatcher
 		int romptrStart = rp.getCurrentOffset();
 		rp.skip(8 * numPlayerSprites);
 
-		Yay0Cache cache = new Yay0Cache(MOD_SPR_PLR_CACHE);
+		Logger.log(String.format("Building %d player sprite sheets...", playerSprites.size()), Priority.MILESTONE);
+		List<byte[]> sheets = buildSpriteSheets(patcher.getBuildCache(), playerSprites, this::serializePlayer);
 
 		int[][] offsets = new int[numPlayerSprites][2];
 		for (int i = 0; i < playerSprites.size(); i++) {
-			String spriteSheetIDName = String.format("%02X", i + 1);
-
-			File out = new File(MOD_SPR_PLR_TEMP + spriteSheetIDName);
 			Logger.log(String.format("Writing player sprite %02X of %02X...", i + 1, playerSprites.size()), Priority.MILESTONE);
-			Sprite spr = playerSprites.get(i);
-			writeBinaryPlayer(spr, out);
-
-			CacheResult result = cache.get(out);
-			byte[] encoded = result.data;
 
-			if (!result.fromCache)
-				Logger.logDetail("Saved new player sprite to cache: " + spriteSheetIDName);
-			else
-				Logger.logDetail("Using cached file for player sprite: " + spriteSheetIDName);
+			byte[] encoded = sheets.get(i);
 
 			offsets[i][0] = rp.getCurrentOffset();
 			rp.write(encoded);
@@ -483,8 +480,6 @@ public class SpritePatcher
 			Logger.log(String.format("Wrote player sprite %02X to %X", i, offsets[i][0]));
 		}
 
-		cache.save();
-
 		// align after yay0 data
 		rp.padOut(16);
 		int romptrEndData = rp.getCurrentOffset();
@@ -501,75 +496,23 @@ public class SpritePatcher
 
 		// return to end
 		rp.seek("After Player Sprites", romptrEndData);
-		//	FileUtils.deleteDirectory(MOD_SPR_PLR_TEMP.toFile());
 	}
 
-	private void writeBinaryPlayer(Sprite spr, File binFile) throws IOException
+	private byte[] serializePlayer(Sprite spr)
 	{
-		spr.recalculateIndices();
-
-		if (binFile.exists())
-			binFile.delete();
-
-		RandomAccessFile raf = new RandomAccessFile(binFile, "rw");
-		raf.setLength(0x40000); // pre-allocate 256 Kb
-		raf.seek(0x10); // reserve space for header
-
-		// leave space for animation offsets
-		raf.skipBytes(4 * (spr.animations.size() + 1));
-		int[] animationOffsets = new int[spr.animations.size()];
-
-		spr.maxComponents = 0;
-
-		// write animations
-		for (int i = 0; i < spr.animations.size(); i++) {
-			animationOffsets[i] = (int) raf.getFilePointer();
-			SpriteAnimation anim = spr.animations.get(i);
-
-			// component offset list
-			raf.skipBytes(4 * (anim.components.size() + 1));
-
-			int[] componentOffsets = new int[anim.components.size()];
-
-			if (anim.components.size() > spr.maxComponents)
-				spr.maxComponents = anim.components.size();
-
-			for (int j = 0; j < anim.components.size(); j++) {
-				SpriteComponent comp = anim.components.get(j);
-
-				int commandListOffset = (int) raf.getFilePointer();
-				List<Short> cmdList = comp.rawAnim;
-				for (short s : cmdList)
-					raf.writeShort(s);
-				if (cmdList.size() % 2 == 1)
-					raf.writeShort(0);
-
-				componentOffsets[j] = (int) raf.getFilePointer();
-				raf.writeInt(commandListOffset);
-				raf.writeShort(2 * cmdList.size());
-				raf.writeShort(comp.posx);
-				raf.writeShort(comp.posy);
-				raf.writeShort(comp.posz);
-			}
+		return serialize((bb) -> putBinaryPlayer(spr, bb));
+	}
 
-			int nextAnimation = (int) raf.getFilePointer();
-			raf.seek(animationOffsets[i]);
-			for (int v : componentOffsets)
-				raf.writeInt(v);
-			raf.writeInt(0xFFFFFFFF);
-			raf.seek(nextAnimation);
-		}
+	private void putBinaryPlayer(Sprite spr, ByteBuffer bb)
+	{
+		spr.recalculateIndices();
 
-		// palettes start 8 byte aligned
-		if ((raf.getFilePointer() & 0x7) == 4)
-			raf.writeInt(0);
+		// reserve space for header and animation offsets
+		bb.position(0x10);
+		skip(bb, 4 * (spr.animations.size() + 1));
 
-		// write palettes
-		for (int i = 0; i < spr.palettes.size(); i++) {
-			SpritePalette sp = spr.palettes.elementAt(i);
-			sp.writeOffset = (int) raf.getFilePointer();
-			sp.pal.write(raf);
-		}
+		int[] animationOffsets = putAnimations(spr, bb);
+		putPalettes(spr, bb);
 
 		// write rasters
 		int rasterOffset = 0;
@@ -577,54 +520,26 @@ public class SpritePatcher
 		for (int i = 0; i < spr.rasters.size(); i++) {
 			SpriteRaster sr = spr.rasters.get(i);
 
-			imageOffsets[i] = (int) raf.getFilePointer();
+			imageOffsets[i] = bb.position();
 
-			raf.writeInt(rasterOffset);
-			raf.write(sr.img.width);
-			raf.write(sr.img.height);
-			raf.write(sr.defaultPal.getIndex());
-			raf.write(-1);
+			bb.putInt(rasterOffset);
+			bb.put((byte) sr.img.width);
+			bb.put((byte) sr.img.height);
+			bb.put((byte) sr.defaultPal.getIndex());
+			bb.put((byte) -1);
 
 			if (!sr.isSpecial) {
 				RasterTableEntry entry = rasterEntryLookup.get(sr.filename);
 				if (entry == null)
 					throw new StarRodException("Could not find raster file for %s: %s", spr.name, sr.filename);
-				rasterOffset += rasterEntryLookup.get(sr.filename).size;
+				rasterOffset += entry.size;
 			}
 			else
 				rasterOffset += 0x10;
 		}
 
-		// write image offset list
-		int rasterOffsetListOffset = (int) raf.getFilePointer();
-		for (int i : imageOffsets)
-			raf.writeInt(i);
-		raf.writeInt(0xFFFFFFFF);
-
-		// write palette offset list
-		int paletteOffsetListOffset = (int) raf.getFilePointer();
-		for (int i = 0; i < spr.palettes.size(); i++) {
-			SpritePalette sp = spr.palettes.elementAt(i);
-			raf.writeInt(sp.writeOffset);
-		}
-		raf.writeInt(0xFFFFFFFF);
-
-		raf.writeUTF(spr.toString());
-
-		// finish header and close file
-		raf.setLength(raf.getFilePointer());
-
-		raf.seek(0);
-		raf.writeInt(rasterOffsetListOffset);
-		raf.writeInt(paletteOffsetListOffset);
-		raf.writeInt(spr.maxComponents);
-		raf.writeInt(spr.numVariations);
-
-		for (int i : animationOffsets)
-			raf.writeInt(i);
-		raf.writeInt(0xFFFFFFFF);
-
-		raf.close();
+		putOffsetLists(spr, bb, imageOffsets, animationOffsets);
+		putUTF(bb, spr.toString());
 	}
 
 	private void writeNpcYay0() throws IOException
@@ -638,25 +553,20 @@ public class SpritePatcher
 		int roomLeft = SPRITE_DATA_LIMIT - rp.getCurrentOffset();
 		boolean reusingRoom = true;
 
-		Yay0Cache cache = new Yay0Cache(MOD_SPR_NPC_CACHE);
+		// sprite loader is not thread-safe, so sprites are loaded before building in parallel
+		Logger.log(String.format("Loading NPC sprites..."), Priority.MILESTONE);
+		List<Sprite> sprites = new ArrayList<>(highestID);
+		for (int i = 1; i <= highestID; i++)
+			sprites.add(spriteLoader.getSprite(SpriteSet.Npc, i));
 
-		// build sprite sheets and write to ROM
-		for (int i = 1; i <= highestID; i++) {
-			String spriteSheetIDName = String.format("%02X", i);
+		Logger.log(String.format("Building %d NPC sprite sheets...", highestID), Priority.MILESTONE);
+		List<byte[]> sheets = buildSpriteSheets(patcher.getBuildCache(), sprites, SpritePatcher::serializeNpc);
 
-			File out = new File(MOD_SPR_NPC_TEMP + spriteSheetIDName);
+		// write sprite sheets to ROM
+		for (int i = 1; i <= highestID; i++) {
 			Logger.log(String.format("Writing NPC sprite %02X of %02X...", i, highestID), Priority.MILESTONE);
 
-			Sprite spr = spriteLoader.getSprite(SpriteSet.Npc, i);
-			writeBinaryNpc(spr, out);
-
-			CacheResult result = cache.get(out);
-			byte[] encoded = result.data;
-
-			if (!result.fromCache)
-				Logger.logDetail("Saved new NPC sprite to cache: " + spriteSheetIDName);
-			else
-				Logger.logDetail("Using cached file for NPC sprite: " + spriteSheetIDName);
+			byte[] encoded = sheets.get(i - 1);
 
 			if (reusingRoom && roomLeft < encoded.length) {
 				rp.clear(rp.getCurrentOffset(), SPRITE_DATA_LIMIT);
@@ -680,35 +590,62 @@ public class SpritePatcher
 			rp.writeInt(offsets[i][0] - romptrStart);
 			rp.writeInt(offsets[i][1] - romptrStart);
 		}
-
-		FileUtils.deleteDirectory(MOD_SPR_NPC_TEMP.toFile());
-		cache.save();
 	}
 
 	protected static void writeBinaryNpc(Sprite spr, File binFile) throws IOException
+	{
+		FileUtils.writeByteArrayToFile(binFile, serializeNpc(spr));
+	}
+
+	protected static byte[] serializeNpc(Sprite spr)
+	{
+		return serialize((bb) -> putBinaryNpc(spr, bb));
+	}
+
+	private static void putBinaryNpc(Sprite spr, ByteBuffer bb)
 	{
 		spr.recalculateIndices();
 
-		if (binFile.exists())
-			binFile.delete();
+		// reserve space for header and animation offsets
+		bb.position(0x10);
+		skip(bb, 4 * (spr.animations.size() + 1));
 
-		RandomAccessFile raf = new RandomAccessFile(binFile, "rw");
-		raf.setLength(0x40000); // pre-allocate 256 Kb
-		raf.seek(0x10); // reserve space for header
+		int[] animationOffsets = putAnimations(spr, bb);
+		putPalettes(spr, bb);
 
-		// leave space for animation offsets
-		raf.skipBytes(4 * (spr.animations.size() + 1));
-		int[] animationOffsets = new int[spr.animations.size()];
+		// write rasters
+		int[] imageOffsets = new int[spr.rasters.size()];
+		for (int i = 0; i < spr.rasters.size(); i++) {
+			SpriteRaster sr = spr.rasters.get(i);
+
+			if (sr.isSpecial)
+				throw new IllegalStateException("NPC sprites cannot use special rasters!");
 
+			int rasterOffset = bb.position();
+			sr.img.putRaster(bb, false);
+
+			imageOffsets[i] = bb.position();
+			bb.putInt(rasterOffset);
+			bb.put((byte) sr.img.width);
+			bb.put((byte) sr.img.height);
+			bb.put((byte) sr.defaultPal.getIndex());
+			bb.put((byte) -1);
+		}
+
+		putOffsetLists(spr, bb, imageOffsets, animationOffsets);
+	}
+
+	private static int[] putAnimations(Sprite spr, ByteBuffer bb)
+	{
+		int[] animationOffsets = new int[spr.animations.size()];
 		spr.maxComponents = 0;
 
-		// write animations
 		for (int i = 0; i < spr.animations.size(); i++) {
-			animationOffsets[i] = (int) raf.getFilePointer();
+			animationOffsets[i] = bb.position();
 			SpriteAnimation anim = spr.animations.get(i);
 
 			// component offset list
-			raf.skipBytes(4 * (anim.components.size() + 1));
+			skip(bb, 4 * (anim.components.size() + 1));
 
 			int[] componentOffsets = new int[anim.components.size()];
 
@@ -718,87 +655,130 @@ public class SpritePatcher
 			for (int j = 0; j < anim.components.size(); j++) {
 				SpriteComponent comp = anim.components.get(j);
 
-				int commandListOffset = (int) raf.getFilePointer();
+				int commandListOffset = bb.position();
 				List<Short> cmdList = comp.rawAnim;
 				for (short s : cmdList)
-					raf.writeShort(s);
+					bb.putShort(s);
 				if (cmdList.size() % 2 == 1)
-					raf.writeShort(0);
-
-				componentOffsets[j] = (int) raf.getFilePointer();
-				raf.writeInt(commandListOffset);
-				raf.writeShort(2 * cmdList.size());
-				raf.writeShort(comp.posx);
-				raf.writeShort(comp.posy);
-				raf.writeShort(comp.posz);
+					bb.putShort((short) 0);
+
+				componentOffsets[j] = bb.position();
+				bb.putInt(commandListOffset);
+				bb.putShort((short) (2 * cmdList.size()));
+				bb.putShort((short) comp.posx);
+				bb.putShort((short) comp.posy);
+				bb.putShort((short) comp.posz);
 			}
 
-			int nextAnimation = (int) raf.getFilePointer();
-			raf.seek(animationOffsets[i]);
-			for (int v : componentOffsets)
-				raf.writeInt(v);
-			raf.writeInt(0xFFFFFFFF);
-			raf.seek(nextAnimation);
+			int pos = animationOffsets[i];
+			for (int v : componentOffsets) {
+				bb.putInt(pos, v);
+				pos += 4;
+			}
+			bb.putInt(pos, 0xFFFFFFFF);
 		}
 
+		return animationOffsets;
+	}
+
+	private static void putPalettes(Sprite spr, ByteBuffer bb)
+	{
 		// palettes start 8 byte aligned
-		if ((raf.getFilePointer() & 0x7) == 4)
-			raf.writeInt(0);
+		if ((bb.position() & 0x7) == 4)
+			bb.putInt(0);
 
-		// write palettes
 		for (int i = 0; i < spr.palettes.size(); i++) {
 			SpritePalette sp = spr.palettes.elementAt(i);
-			sp.writeOffset = (int) raf.getFilePointer();
-			sp.pal.write(raf);
-		}
-
-		// write rasters
-		int[] imageOffsets = new int[spr.rasters.size()];
-		for (int i = 0; i < spr.rasters.size(); i++) {
-			SpriteRaster sr = spr.rasters.get(i);
-
-			if (sr.isSpecial)
-				throw new IllegalStateException("NPC sprites cannot use special rasters!");
-
-			int rasterOffset = (int) raf.getFilePointer();
-			sr.img.writeRaster(raf, false);
-
-			imageOffsets[i] = (int) raf.getFilePointer();
-			raf.writeInt(rasterOffset);
-			raf.write(sr.img.width);
-			raf.write(sr.img.height);
-			raf.write(sr.defaultPal.getIndex());
-			raf.write(-1);
+			sp.writeOffset = bb.position();
+			sp.pal.put(bb);
 		}
+	}
 
+	private static void putOffsetLists(Sprite spr, ByteBuffer bb, int[] imageOffsets, int[] animationOffsets)
+	{
 		// write image offset list
-		int rasterOffsetListOffset = (int) raf.getFilePointer();
+		int rasterOffsetListOffset = bb.position();
 		for (int i : imageOffsets)
-			raf.writeInt(i);
-		raf.writeInt(0xFFFFFFFF);
+			bb.putInt(i);
+		bb.putInt(0xFFFFFFFF);
 
 		// write palette offset list
-		int paletteOffsetListOffset = (int) raf.getFilePointer();
+		int paletteOffsetListOffset = bb.position();
 		for (int i = 0; i < spr.palettes.size(); i++) {
 			SpritePalette sp = spr.palettes.elementAt(i);
-			raf.writeInt(sp.writeOffset);
+			bb.putInt(sp.writeOffset);
 		}
-		raf.writeInt(0xFFFFFFFF);
+		bb.putInt(0xFFFFFFFF);
 
-		// finish header and close file
-		raf.setLength(raf.getFilePointer());
+		// header
+		bb.putInt(0x0, rasterOffsetListOffset);
+		bb.putInt(0x4, paletteOffsetListOffset);
+		bb.putInt(0x8, spr.maxComponents);
+		bb.putInt(0xC, spr.numVariations);
+
+		int pos = 0x10;
+		for (int i : animationOffsets) {
+			bb.putInt(pos, i);
+			pos += 4;
+		}
+		bb.putInt(pos, 0xFFFFFFFF);
+	}
+
+	/**
+	 * Serializes sprite sheets and looks them up in the cache in parallel, so hashing and
+	 * compressing cache misses can use every core. Results are returned in sprite order.
+	 */
+	private static List<byte[]> buildSpriteSheets(BuildCache cache, List<Sprite> sprites, Function<Sprite, byte[]> serializer) throws IOException
+	{
+		try {
+			return IntStream.range(0, sprites.size()).parallel()
+				.mapToObj((i) -> {
+					try {
+						return cache.compress(serializer.apply(sprites.get(i)));
+					}
+					catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.collect(Collectors.toList());
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
 
-		raf.seek(0);
-		raf.writeInt(rasterOffsetListOffset);
-		raf.writeInt(paletteOffsetListOffset);
-		raf.writeInt(spr.maxComponents);
-		raf.writeInt(spr.numVariations);
+	private static byte[] serialize(Consumer<ByteBuffer> writer)
+	{
+		// grow the buffer until the sprite fits, most sprite sheets fit the initial size
+		for (int capacity = INITIAL_SHEET_SIZE;; capacity *= 2) {
+			ByteBuffer bb = ByteBuffer.allocate(capacity);
+			try {
+				writer.accept(bb);
+				return Arrays.copyOf(bb.array(), bb.position());
+			}
+			catch (BufferOverflowException e) {
+				continue;
+			}
+		}
+	}
 
-		for (int i : animationOffsets)
-			raf.writeInt(i);
-		raf.writeInt(0xFFFFFFFF);
+	private static void skip(ByteBuffer bb, int length)
+	{
+		if (length > bb.remaining())
+			throw new BufferOverflowException();
+		bb.position(bb.position() + length);
+	}
 
-		raf.close();
+	private static void putUTF(ByteBuffer bb, String s)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream stream = new DataOutputStream(bytes)) {
+			stream.writeUTF(s);
+		}
+		catch (IOException e) {
+			throw new StarRodException("Could not encode sprite name: %s", s);
+		}
+		bb.put(bytes.toByteArray());
 	}
 
 	public void reserveTables() throws IOException
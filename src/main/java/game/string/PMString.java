@@ -6,7 +6,6 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.input.InputFileException;
@@ -15,6 +14,7 @@ import app.input.PatchFileParser.PatchUnit;
 import game.globals.editor.GlobalsListable;
 import game.string.StringConstants.ControlCharacter;
 import game.string.editor.io.StringResource;
+import util.ThreadLocalMatcher;
 
 public class PMString implements Externalizable, GlobalsListable
 {
@@ -122,6 +122,22 @@ public class PMString implements Externalizable, GlobalsListable
 		tryCompile(unit.body);
 	}
 
+	// loading from build cache
+	public PMString(int section, int index, String name, boolean indexed, boolean autoAssign, byte[] bytes)
+	{
+		this.source = null;
+		this.unit = null;
+
+		this.indexed = indexed;
+		this.autoAssign = autoAssign;
+
+		this.section = section;
+		this.index = index;
+		this.name = name;
+
+		this.bytes = bytes;
+	}
+
 	// created in editor
 	public PMString(StringResource res)
 	{
@@ -144,7 +160,7 @@ public class PMString implements Externalizable, GlobalsListable
 	}
 
 	private static final Pattern TabStartPattern = Pattern.compile("^(\t+).+");
-	private static final Matcher TabStartMatcher = TabStartPattern.matcher("");
+	private static final ThreadLocalMatcher TabStartMatcher = new ThreadLocalMatcher(TabStartPattern);
 
 	private void loadLines(List<Line> lines)
 	{
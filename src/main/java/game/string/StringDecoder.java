@@ -5,7 +5,6 @@ import static game.string.StringConstants.ControlCharacter.STYLE;
 
 import java.nio.ByteBuffer;
 import java.util.Stack;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.StarRodException;
@@ -18,12 +17,13 @@ import game.string.StringConstants.StringFunction;
 import game.string.StringConstants.StringStyle;
 import game.string.StringConstants.StringVoice;
 import util.DualHashMap;
+import util.ThreadLocalMatcher;
 
 public class StringDecoder
 {
 	// patterns for smart choices
 	private static final Pattern CancelPattern = Pattern.compile("\\[SetCancel (\\d+)\\]");
-	private static final Matcher CancelMatcher = CancelPattern.matcher("");
+	private static final ThreadLocalMatcher CancelMatcher = new ThreadLocalMatcher(CancelPattern);
 
 	private static class DecodedMessageBuilder
 	{
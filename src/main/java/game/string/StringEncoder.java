@@ -33,6 +33,7 @@ import game.string.editor.io.StringResource;
 import util.CaseInsensitiveMap;
 import util.DualHashMap;
 import util.MathUtil;
+import util.ThreadLocalMatcher;
 
 public class StringEncoder
 {
@@ -40,13 +41,13 @@ public class StringEncoder
 
 	// pattern for TAG_NAME:ARG:ARG:ARG
 	private static final Pattern ClassicTagPattern = Pattern.compile("(?i)[~\\w]+(?::[\\w`]+)*");
-	private static final Matcher ClassicTagMatcher = ClassicTagPattern.matcher("");
+	private static final ThreadLocalMatcher ClassicTagMatcher = new ThreadLocalMatcher(ClassicTagPattern);
 
 	private static final String REGEX_1_INT = "-?(?:0x[0-9A-Fa-f]+|[0-9]+)";
 	private static final String REGEX_2_INT = REGEX_1_INT + "," + REGEX_1_INT;
 
 	private static final Pattern KVPattern = Pattern.compile("(?i)(\\w+)=([\\w,]+)");
-	private static final Matcher KVMatcher = KVPattern.matcher("");
+	private static final ThreadLocalMatcher KVMatcher = new ThreadLocalMatcher(KVPattern);
 
 	// temp buffer for encoding tags, prefer using helper methods to add to this
 	private final ArrayList<Byte> tagBytes;
@@ -1,14 +1,27 @@
 package game.string;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 
 import app.AssetManager;
 import app.input.InputFileException;
+import game.shared.ProjectDatabase;
 import game.string.editor.io.StringResource;
+import patcher.BuildCache;
 import patcher.RomPatcher;
 import util.Logger;
 
@@ -18,33 +31,129 @@ public class StringPatcher
 
 	private final HashMap<String, PMString> namedStringMap;
 
+	private final BuildCache cache;
+
 	public StringPatcher()
+	{
+		this(null);
+	}
+
+	/**
+	 * @param cache if not null, encoded strings are cached by the content of their source file
+	 */
+	public StringPatcher(BuildCache cache)
 	{
 		sections = new ArrayList<>();
 		namedStringMap = new HashMap<>();
+		this.cache = cache;
 	}
 
 	public void readAllStrings() throws IOException
 	{
-		for (StringResource asset : AssetManager.getStringAssets()) {
-			Logger.log("Reading strings from: " + asset.file.getName());
-			readStringAsset(asset);
+		List<File> files = AssetManager.getStringAssetFiles();
+		byte[] context = (cache == null) ? null : ProjectDatabase.getStringEncodingContext();
+
+		// files are parsed concurrently, but merged in file order so the result matches a serial build
+		List<List<PMString>> parsed;
+		try {
+			parsed = files.parallelStream()
+				.map((f) -> readStringFile(f, context))
+				.collect(Collectors.toList());
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		for (int i = 0; i < files.size(); i++)
+			addStrings(files.get(i), parsed.get(i));
+
+		sections.parallelStream().forEach(StringSection::prepareForWriting);
+	}
+
+	private List<PMString> readStringFile(File file, byte[] context)
+	{
+		try {
+			if (cache == null)
+				return parseStringFile(file);
+
+			byte[] content = FileUtils.readFileToByteArray(file);
+			byte[] extension = FilenameUtils.getExtension(file.getName()).getBytes(StandardCharsets.UTF_8);
+			String key = BuildCache.getKey("Strings", extension, content, context);
+
+			byte[] cached = cache.get(key);
+			if (cached != null)
+				return readCachedStrings(cached);
+
+			List<PMString> strings = parseStringFile(file);
+			for (PMString string : strings) {
+				if (string.parseException != null)
+					return strings;
+			}
+
+			cache.put(key, writeCachedStrings(strings));
+			return strings;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static List<PMString> parseStringFile(File file)
+	{
+		Logger.log("Reading strings from: " + file.getName());
+		return new StringResource(file).strings;
+	}
+
+	private static byte[] writeCachedStrings(List<PMString> strings) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(strings.size());
+		for (PMString string : strings) {
+			out.writeInt(string.section);
+			out.writeInt(string.index);
+			out.writeBoolean(string.name != null);
+			if (string.name != null)
+				out.writeUTF(string.name);
+			out.writeBoolean(string.indexed);
+			out.writeBoolean(string.autoAssign);
+			out.writeInt(string.bytes.length);
+			out.write(string.bytes);
 		}
 
-		for (StringSection section : sections)
-			section.prepareForWriting();
+		return bytes.toByteArray();
 	}
 
-	private void readStringAsset(StringResource asset) throws IOException
+	private static List<PMString> readCachedStrings(byte[] cached) throws IOException
 	{
-		List<PMString> stringList = StringEncoder.parseStrings(asset);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(cached));
+
+		int count = in.readInt();
+		List<PMString> strings = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int section = in.readInt();
+			int index = in.readInt();
+			String name = in.readBoolean() ? in.readUTF() : null;
+			boolean indexed = in.readBoolean();
+			boolean autoAssign = in.readBoolean();
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+
+			strings.add(new PMString(section, index, name, indexed, autoAssign, bytes));
+		}
 
+		return strings;
+	}
+
+	private void addStrings(File file, List<PMString> stringList) throws IOException
+	{
 		for (PMString string : stringList) {
 			if (string.section > 0xFF || string.section < 0)
-				throw new IOException("Invalid string section in file " + asset.file.getName());
+				throw new IOException("Invalid string section in file " + file.getName());
 
 			if (string.index > 0xFFFF)
-				throw new IOException("Invalid string index in file " + asset.file.getName());
+				throw new IOException("Invalid string index in file " + file.getName());
 
 			if (string.hasName())
 				namedStringMap.put(string.name, string);
@@ -11,23 +11,21 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import app.AssetManager;
-import app.Directories;
-import game.sprite.Yay0Cache;
-import game.sprite.Yay0Cache.CacheResult;
+import patcher.BuildCache;
 import util.Logger;
 
 public class CompressedImagePatcher
 {
 	private static final int DRAW_POS = 0x000C0014;
 
-	private final Yay0Cache cache;
+	private final BuildCache cache;
 
-	public CompressedImagePatcher() throws IOException
+	public CompressedImagePatcher(BuildCache cache)
 	{
-		cache = new Yay0Cache(Directories.MOD_IMG_CACHE);
+		this.cache = cache;
 	}
 
-	public void buildTextureArchives() throws IOException
+	public static void buildTextureArchives() throws IOException
 	{
 		String buildDir = AssetManager.getMapBuildDir().getAbsolutePath();
 		for (File f : AssetManager.getTextureArchivesToBuild()) {
@@ -84,18 +82,11 @@ public class CompressedImagePatcher
 
 				File out = new File(MOD_MAP_BUILD + baseName);
 
-				CacheResult result = cache.get(out, bytes);
-				byte[] encoded = result.data;
-
-				if (!result.fromCache)
-					Logger.logDetail("Saved background to cache: " + baseName);
-				else
-					Logger.logDetail("Using cached file for background: " + baseName);
+				byte[] encoded = cache.compress(bytes);
 
 				FileUtils.writeByteArrayToFile(out, encoded);
 			}
 		}
-		cache.save();
 	}
 
 	public void patchCompressedImages() throws IOException
@@ -149,16 +140,9 @@ public class CompressedImagePatcher
 			img.putRaster(bb, false);
 		}
 
-		CacheResult result = cache.get(out, titleData);
-		byte[] encoded = result.data;
-
-		if (!result.fromCache)
-			Logger.logDetail("Saved to cache: " + out.getName());
-		else
-			Logger.logDetail("Using cached file for: " + out.getName());
+		byte[] encoded = cache.compress(titleData);
 
 		FileUtils.writeByteArrayToFile(out, encoded);
-		cache.save();
 	}
 
 	private void patchPartyImages() throws IOException
@@ -171,7 +155,6 @@ public class CompressedImagePatcher
 		patchPartyImage("party_akari");
 		patchPartyImage("party_opuku");
 		patchPartyImage("party_pokopi");
-		cache.save();
 	}
 
 	private void patchPartyImage(String name) throws IOException
@@ -193,13 +176,7 @@ public class CompressedImagePatcher
 			img.palette.put(bb);
 			img.putRaster(bb, false);
 
-			CacheResult result = cache.get(out, bytes);
-			byte[] encoded = result.data;
-
-			if (!result.fromCache)
-				Logger.logDetail("Saved to cache: " + out.getName());
-			else
-				Logger.logDetail("Using cached file for: " + out.getName());
+			byte[] encoded = cache.compress(bytes);
 
 			FileUtils.writeByteArrayToFile(out, encoded);
 		}
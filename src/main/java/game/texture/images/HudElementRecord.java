@@ -11,7 +11,6 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
@@ -23,6 +22,7 @@ import app.input.Line;
 import game.globals.editor.GlobalsRecord;
 import game.shared.ProjectDatabase;
 import util.Logger;
+import util.ThreadLocalMatcher;
 
 public class HudElementRecord extends GlobalsRecord
 {
@@ -145,7 +145,7 @@ public class HudElementRecord extends GlobalsRecord
 	}
 
 	private static final Pattern ImgPattern = Pattern.compile(".+\\s~Image(Icon|CI|RGBA):(\\S+)\\s.+");
-	private static final Matcher ImgMatcher = ImgPattern.matcher("");
+	private static final ThreadLocalMatcher ImgMatcher = new ThreadLocalMatcher(ImgPattern);
 
 	public void scanScriptForPreviewImage()
 	{
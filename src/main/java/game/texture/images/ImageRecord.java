@@ -7,7 +7,6 @@ import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.imageio.ImageIO;
@@ -16,6 +15,7 @@ import javax.swing.ImageIcon;
 import game.globals.editor.GlobalsRecord;
 import game.texture.Tile;
 import game.texture.TileFormat;
+import util.ThreadLocalMatcher;
 
 public class ImageRecord extends GlobalsRecord
 {
@@ -73,7 +73,7 @@ public class ImageRecord extends GlobalsRecord
 	}
 
 	private static final Pattern SuffixedImagePattern = Pattern.compile("(\\S+)_(alt\\d*)");
-	private static final Matcher SuffixedImageMatcher = SuffixedImagePattern.matcher("");
+	private static final ThreadLocalMatcher SuffixedImageMatcher = new ThreadLocalMatcher(SuffixedImagePattern);
 
 	public static class ImageReference
 	{
@@ -11,7 +11,6 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
@@ -22,6 +21,7 @@ import app.input.IOUtils;
 import app.input.Line;
 import game.globals.editor.GlobalsRecord;
 import util.Logger;
+import util.ThreadLocalMatcher;
 
 public class ItemEntityRecord extends GlobalsRecord
 {
@@ -137,7 +137,7 @@ public class ItemEntityRecord extends GlobalsRecord
 	}
 
 	private static final Pattern ImgPattern = Pattern.compile(".+\\s~ImageIcon:(\\S+)\\s.+");
-	private static final Matcher ImgMatcher = ImgPattern.matcher("");
+	private static final ThreadLocalMatcher ImgMatcher = new ThreadLocalMatcher(ImgPattern);
 
 	public void scanScriptForPreviewImage()
 	{
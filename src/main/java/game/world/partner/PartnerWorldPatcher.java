@@ -109,8 +109,8 @@ public class PartnerWorldPatcher
 
 			if (currentPos + data.length > currentEnd) {
 				patcher.addEmptyRegion(new Region(currentPos, currentEnd));
-				currentPos = rp.nextAlignedOffset();
-				currentEnd = Integer.MAX_VALUE;
+				currentPos = patcher.allocateSpace(data.length);
+				currentEnd = currentPos + data.length;
 			}
 
 			rp.seek("Partner World Data", currentPos);
@@ -123,8 +123,7 @@ public class PartnerWorldPatcher
 			currentPos += data.length;
 		}
 
-		if (currentEnd < Integer.MAX_VALUE)
-			patcher.addEmptyRegion(new Region(currentPos, currentEnd));
+		patcher.addEmptyRegion(new Region(currentPos, currentEnd));
 	}
 
 	private static final int NUM_EXTENDED = 10;
@@ -0,0 +1,71 @@
+package game.yay0;
+
+/**
+ * Original match finder: tries every position in the window and compares
+ * forward from each until the sequences differ.
+ */
+public class BruteForceMatchFinder extends Yay0MatchFinder
+{
+	public BruteForceMatchFinder(byte[] source)
+	{
+		super(source);
+	}
+
+	@Override
+	public int findMatch(int encoderBufferPosition)
+	{
+		int remainingBytes = source.length - encoderBufferPosition;
+
+		// this check is probably unnecessary, but helpful for readable code
+		if (remainingBytes < MIN_LINK_LENGTH)
+			return 0;
+
+		// only search for pattens up to the maximum length
+		int maxMatchLength = getMaxMatchLength(encoderBufferPosition);
+
+		// do not search further back than MAX_OFFSET, links cannot reach that far
+		int minWindowStart = getMinWindowStart(encoderBufferPosition);
+
+		// record the best match
+		int bestMatchLength = 0;
+		int bestMatchStart = 0;
+
+		for (int windowStart = minWindowStart; windowStart < encoderBufferPosition; windowStart++) // don't allow distance = 0
+		{
+			int matchingLength = 0;
+			int windowPos = windowStart;
+
+			byte nextSource, nextMatch;
+
+			while (true) {
+				// wrap the window
+				if (windowPos >= encoderBufferPosition)
+					windowPos = windowStart;
+
+				nextSource = source[encoderBufferPosition + matchingLength];
+				nextMatch = source[windowPos];
+
+				if (nextMatch == nextSource) {
+					matchingLength++;
+					windowPos++;
+
+					if (matchingLength > bestMatchLength) {
+						bestMatchLength = matchingLength;
+						bestMatchStart = windowStart;
+					}
+				}
+				else
+					break;
+
+				if (matchingLength == maxMatchLength)
+					break;
+			}
+		}
+
+		if (bestMatchLength < MIN_LINK_LENGTH)
+			return 0;
+
+		matchDistance = encoderBufferPosition - bestMatchStart;
+		return bestMatchLength;
+	}
+}
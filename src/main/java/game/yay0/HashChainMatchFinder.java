@@ -0,0 +1,113 @@
+package game.yay0;
+
+/**
+ * Indexes the source by grouping every position with the others starting with the same
+ * three bytes, in ascending order. Only window positions which can begin a link are
+ * compared, and the search stops as soon as a maximum length match is found.
+ * <p>
+ * The index is built once for the entire source, so queries may be made at any
+ * position. The first candidate inside the window is found by binary search and
+ * candidates are tested from the back of the window forward, so ties are resolved
+ * the same way as {@link BruteForceMatchFinder} and both produce identical output.
+ */
+public class HashChainMatchFinder extends Yay0MatchFinder
+{
+	private static final int HASH_BITS = 16;
+	private static final int HASH_SIZE = 1 << HASH_BITS;
+
+	// positions grouped by hash, each group in ascending order
+	private final int[] chains;
+
+	// start of the group for each hash, with one extra entry marking the end of the last
+	private final int[] chainStart;
+
+	// index of each position in chains
+	private final int[] chainIndex;
+
+	public HashChainMatchFinder(byte[] source)
+	{
+		super(source);
+
+		int count = Math.max(source.length - (MIN_LINK_LENGTH - 1), 0);
+		chains = new int[count];
+		chainIndex = new int[count];
+		chainStart = new int[HASH_SIZE + 1];
+
+		for (int i = 0; i < count; i++)
+			chainStart[hash(source, i) + 1]++;
+		for (int i = 0; i < HASH_SIZE; i++)
+			chainStart[i + 1] += chainStart[i];
+
+		int[] next = new int[HASH_SIZE];
+		System.arraycopy(chainStart, 0, next, 0, HASH_SIZE);
+
+		for (int i = 0; i < count; i++) {
+			int index = next[hash(source, i)]++;
+			chains[index] = i;
+			chainIndex[i] = index;
+		}
+	}
+
+	private static int hash(byte[] buf, int pos)
+	{
+		int key = ((buf[pos] & 0xFF) << 16) | ((buf[pos + 1] & 0xFF) << 8) | (buf[pos + 2] & 0xFF);
+		return ((key * 0x9E3779B1) >>> (32 - HASH_BITS));
+	}
+
+	@Override
+	public int findMatch(int position)
+	{
+		if (source.length - position < MIN_LINK_LENGTH)
+			return 0;
+
+		int maxMatchLength = getMaxMatchLength(position);
+		int minWindowStart = getMinWindowStart(position);
+
+		// earlier positions with the same hash lie just before this one in its group
+		int end = chainIndex[position];
+		int first = chainStart[hash(source, position)];
+
+		// find the first candidate inside the window
+		int lo = first;
+		int hi = end;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (chains[mid] < minWindowStart)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+
+		int bestMatchLength = 0;
+		int bestMatchStart = 0;
+
+		// search from the back of the window so the earliest of several equal matches is kept
+		for (int k = lo; k < end; k++) {
+			int windowStart = chains[k];
+
+			// quick reject: any improvement must also match at the current best length
+			if (bestMatchLength > 0 && source[windowStart + bestMatchLength] != source[position + bestMatchLength])
+				continue;
+
+			// links may overlap the current position, so comparing directly against the
+			// source is equivalent to wrapping the window
+			int matchingLength = 0;
+			while (matchingLength < maxMatchLength && source[windowStart + matchingLength] == source[position + matchingLength])
+				matchingLength++;
+
+			if (matchingLength > bestMatchLength) {
+				bestMatchLength = matchingLength;
+				bestMatchStart = windowStart;
+
+				if (matchingLength == maxMatchLength)
+					break;
+			}
+		}
+
+		if (bestMatchLength < MIN_LINK_LENGTH)
+			return 0;
+
+		matchDistance = position - bestMatchStart;
+		return bestMatchLength;
+	}
+}
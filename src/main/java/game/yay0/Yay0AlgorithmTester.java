@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
@@ -11,6 +12,7 @@ import org.apache.commons.io.FileUtils;
 import app.Environment;
 import app.ParallelFileTask;
 import app.ParallelFileTask.WorkBytes;
+import game.yay0.Yay0MatchFinder.MatchFinderType;
 import util.Logger;
 import util.Priority;
 import util.SimpleProgressBarDialog;
@@ -35,6 +37,7 @@ public class Yay0AlgorithmTester
 		//	dump2();
 		// compressFiles();
 		compressFilesStreams();
+		//compareMatchFinders();
 		//checkCompressedFiles();
 		//verifyCompressedFiles();
 
@@ -108,6 +111,45 @@ public class Yay0AlgorithmTester
 		progressBar.destroy();
 	}
 
+	/**
+	 * Compresses every decoded file with each match finder, verifying the outputs are
+	 * identical and reporting the throughput of each.
+	 */
+	private void compareMatchFinders() throws IOException
+	{
+		File[] decompressedFiles = new File(DECODED).listFiles();
+
+		long totalBytes = 0;
+		long bruteTime = 0;
+		long hashTime = 0;
+		int mismatches = 0;
+
+		for (File f : decompressedFiles) {
+			byte[] source = FileUtils.readFileToByteArray(f);
+			if (source.length < 64)
+				continue;
+
+			long t0 = System.nanoTime();
+			byte[] brute = new Yay0EncodeHelper(source, MatchFinderType.BRUTE_FORCE, false).getFile();
+			long t1 = System.nanoTime();
+			byte[] hashed = new Yay0EncodeHelper(source, MatchFinderType.HASH_CHAIN, false).getFile();
+			long t2 = System.nanoTime();
+
+			bruteTime += (t1 - t0);
+			hashTime += (t2 - t1);
+			totalBytes += source.length;
+
+			if (!Arrays.equals(brute, hashed)) {
+				System.out.printf("%s: outputs differ! (%d vs %d bytes)%n", f.getName(), brute.length, hashed.length);
+				mismatches++;
+			}
+		}
+
+		System.out.printf("Compared %d files with %d mismatches.%n", decompressedFiles.length, mismatches);
+		System.out.printf("Brute force: %.3f s (%.2f MB/s)%n", bruteTime * 1e-9, totalBytes / (bruteTime * 1e-3));
+		System.out.printf(" Hash chain: %.3f s (%.2f MB/s)%n", hashTime * 1e-9, totalBytes / (hashTime * 1e-3));
+	}
+
 	private void compressTest(String name) throws IOException
 	{
 		byte[] source = FileUtils.readFileToByteArray(new File(DECODED + name));
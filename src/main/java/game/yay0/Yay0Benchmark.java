@@ -0,0 +1,293 @@
+package game.yay0;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import app.Directories;
+import app.Environment;
+
+/**
+ * Measures throughput and allocation rate of the Yay0 encoders over the raw map assets
+ * from the dump directory, and throughput of the decoders over the compressed map assets.
+ * Each encoder and decoder is warmed up before measuring and the outputs are checked
+ * against each other.
+ */
+public class Yay0Benchmark
+{
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int MEASURED_ROUNDS = 5;
+
+	private static interface EncodeFunction
+	{
+		public byte[] encode(byte[] source);
+	}
+
+	public static void main(String args[]) throws IOException
+	{
+		Environment.initialize();
+
+		List<byte[]> sources = loadMapAssets();
+		long totalBytes = 0;
+		for (byte[] source : sources)
+			totalBytes += source.length;
+
+		System.out.printf("Loaded %d map assets (%.2f MB)%n", sources.size(), totalBytes / 1e6);
+
+		checkOutputs(sources);
+
+		benchmarkEncoder("Legacy", sources, totalBytes, (src) -> new ReferenceEncoder(src).getFile());
+		benchmarkEncoder("Primitive", sources, totalBytes, (src) -> new Yay0EncodeHelper(src, false).getFile());
+		benchmarkEncoder("Optimal", sources, totalBytes, (src) -> new Yay0OptimalEncodeHelper(src, false).getFile());
+
+		List<byte[]> compressed = loadCompressedMapAssets();
+		benchmarkDecoders(compressed);
+
+		Environment.exit();
+	}
+
+	private static List<byte[]> loadMapAssets() throws IOException
+	{
+		List<byte[]> sources = new ArrayList<>();
+		File[] files = Directories.DUMP_MAP_RAW.toFile().listFiles();
+		if (files == null)
+			return sources;
+
+		for (File f : files) {
+			byte[] source = FileUtils.readFileToByteArray(f);
+			if (source.length >= 64)
+				sources.add(source);
+		}
+		return sources;
+	}
+
+	private static List<byte[]> loadCompressedMapAssets() throws IOException
+	{
+		List<byte[]> sources = new ArrayList<>();
+		File[] files = Directories.DUMP_MAP_YAY0.toFile().listFiles();
+		if (files == null)
+			return sources;
+
+		for (File f : files) {
+			byte[] source = FileUtils.readFileToByteArray(f);
+			if (Yay0Decoder.isYay0(ByteBuffer.wrap(source)))
+				sources.add(source);
+		}
+		return sources;
+	}
+
+	private static void benchmarkDecoders(List<byte[]> compressed)
+	{
+		long totalBytes = 0;
+		int maxSize = 0;
+		int mismatches = 0;
+
+		List<ByteBuffer> buffers = new ArrayList<>(compressed.size());
+		for (byte[] source : compressed) {
+			ByteBuffer bb = ByteBuffer.allocateDirect(source.length);
+			bb.put(source);
+			bb.flip();
+			buffers.add(bb);
+
+			int size = Yay0Decoder.getDecompressedSize(bb);
+			totalBytes += size;
+			maxSize = Math.max(maxSize, size);
+
+			if (!Arrays.equals(Yay0Helper.decodeLegacy(source), Yay0Decoder.decode(bb)))
+				mismatches++;
+		}
+
+		System.out.printf("Loaded %d compressed map assets (%.2f MB decompressed)%n", compressed.size(), totalBytes / 1e6);
+		System.out.printf("Legacy and bulk decoders differ for %d of %d assets%n", mismatches, compressed.size());
+
+		byte[] reusable = new byte[maxSize];
+		double megabytes = MEASURED_ROUNDS * totalBytes / 1e6;
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			for (byte[] source : compressed)
+				Yay0Helper.decodeLegacy(source);
+		}
+
+		long t0 = System.nanoTime();
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			for (byte[] source : compressed)
+				Yay0Helper.decodeLegacy(source);
+		}
+		long t1 = System.nanoTime();
+		System.out.printf("%-10s %8.2f MB/s%n", "Legacy", megabytes / ((t1 - t0) * 1e-9));
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			for (ByteBuffer bb : buffers)
+				Yay0Decoder.decode(bb, reusable);
+		}
+
+		t0 = System.nanoTime();
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			for (ByteBuffer bb : buffers)
+				Yay0Decoder.decode(bb, reusable);
+		}
+		t1 = System.nanoTime();
+		System.out.printf("%-10s %8.2f MB/s%n", "Bulk", megabytes / ((t1 - t0) * 1e-9));
+	}
+
+	private static void checkOutputs(List<byte[]> sources)
+	{
+		int mismatches = 0;
+		for (byte[] source : sources) {
+			byte[] legacy = new ReferenceEncoder(source).getFile();
+			byte[] primitive = new Yay0EncodeHelper(source, false).getFile();
+			if (!Arrays.equals(legacy, primitive))
+				mismatches++;
+		}
+		System.out.printf("Legacy and primitive encoders differ for %d of %d assets%n", mismatches, sources.size());
+	}
+
+	private static void benchmarkEncoder(String name, List<byte[]> sources, long totalBytes, EncodeFunction func)
+	{
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			for (byte[] source : sources)
+				func.encode(source);
+		}
+
+		long allocStart = getAllocatedBytes();
+		long t0 = System.nanoTime();
+
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			for (byte[] source : sources)
+				func.encode(source);
+		}
+
+		long t1 = System.nanoTime();
+		long allocated = getAllocatedBytes() - allocStart;
+
+		double seconds = (t1 - t0) * 1e-9;
+		double megabytes = MEASURED_ROUNDS * totalBytes / 1e6;
+
+		System.out.printf("%-10s %8.2f MB/s  %8.2f MB allocated/s  (%.2f bytes allocated per input byte)%n",
+			name, megabytes / seconds, allocated / 1e6 / seconds, (double) allocated / (MEASURED_ROUNDS * totalBytes));
+	}
+
+	private static long getAllocatedBytes()
+	{
+		// measures allocations on the benchmark thread only
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	// the object-based encoder Yay0EncodeHelper replaced, which builds a list of tokens
+	// before replaying them through the encoder
+
+	private static class ReferenceEncoder
+	{
+		private final byte[] source;
+		private final Yay0MatchFinder finder;
+		private int bufferPosition = 0;
+
+		private final Yay0Encoder encoder;
+		private Collection<Encode> codeList = new LinkedList<>();
+		private Deque<EncodeLink> linkQueue = new LinkedList<>();
+
+		public ReferenceEncoder(byte[] src)
+		{
+			source = src;
+			finder = Yay0MatchFinder.create(Yay0MatchFinder.MatchFinderType.HASH_CHAIN, source);
+			encoder = new Yay0Encoder(source.length);
+
+			while (bufferPosition < source.length || !linkQueue.isEmpty()) {
+				EncodeLink newLink = finder.findPatternFrom(bufferPosition);
+				if (newLink == null) {
+					if (linkQueue.size() == 1) {
+						codeList.add(linkQueue.pollFirst());
+						continue;
+					}
+
+					// sequence of links has ended, attempt to optimize them
+					if (linkQueue.size() > 1) {
+						optimizeLinks();
+						continue;
+					}
+
+					codeList.add(new EncodeCopy(source[bufferPosition]));
+					bufferPosition++;
+				}
+				else {
+					linkQueue.addLast(newLink);
+					bufferPosition += newLink.length;
+				}
+			}
+
+			for (Encode e : codeList)
+				e.exec(encoder);
+
+			encoder.flush();
+		}
+
+		/**
+		 * Compares the queued links with a revised series which copies the first byte before
+		 * looking for links, then keeps only the first token of whichever is chosen.
+		 */
+		private void optimizeLinks()
+		{
+			int totalLength = 0;
+			int totalBudget = 0;
+			for (Encode e : linkQueue) {
+				totalBudget += e.getBudgetCost();
+				totalLength += e.getEncodeLength();
+			}
+
+			Deque<Encode> revisedQueue = new LinkedList<>();
+			int revisedEncoded = bufferPosition - totalLength;
+			int revisedBudget = 0;
+
+			revisedQueue.add(new EncodeCopy(source[revisedEncoded]));
+			revisedEncoded++;
+			revisedBudget++;
+
+			while (revisedBudget < totalBudget) {
+				EncodeLink revisedLink = finder.findPatternFrom(revisedEncoded);
+				if (revisedLink == null)
+					break;
+
+				revisedQueue.add(revisedLink);
+				revisedEncoded += revisedLink.getEncodeLength();
+				revisedBudget += revisedLink.getBudgetCost();
+			}
+
+			int revisedLength = revisedEncoded - (bufferPosition - totalLength);
+
+			boolean better = (revisedBudget < totalBudget) && (totalLength == revisedLength);
+			boolean longer = (revisedBudget <= totalBudget) && (totalLength < revisedLength);
+
+			if (better || longer) {
+				Encode revision = revisedQueue.pollFirst();
+				codeList.add(revision);
+				bufferPosition += revision.getEncodeLength();
+
+				revision = revisedQueue.pollFirst();
+				codeList.add(revision);
+				bufferPosition += revision.getEncodeLength();
+			}
+			else {
+				codeList.add(linkQueue.pollFirst());
+			}
+
+			while (!linkQueue.isEmpty()) {
+				Encode e = linkQueue.pollFirst();
+				bufferPosition -= e.getEncodeLength();
+			}
+		}
+
+		public byte[] getFile()
+		{
+			return encoder.getFile();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package game.yay0;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * High throughput Yay0 decoder. Reads directly from a ByteBuffer, which may be a slice of
+ * a memory-mapped ROM, and decodes into a caller-supplied array which can be reused between
+ * calls. Commands are consumed a full mask byte at a time and links are copied in bulk.
+ * <p>
+ * All reads are relative to the current position of the source buffer, which is not modified.
+ */
+public final class Yay0Decoder
+{
+	private static final int YAY0_MAGIC = 0x59617930; // "Yay0"
+
+	private Yay0Decoder()
+	{}
+
+	public static boolean isYay0(ByteBuffer source)
+	{
+		int base = source.position();
+		return (source.remaining() >= 16) && (getInt(source, base) == YAY0_MAGIC);
+	}
+
+	public static int getDecompressedSize(ByteBuffer source)
+	{
+		return getInt(source, source.position() + 4);
+	}
+
+	public static byte[] decode(ByteBuffer source)
+	{
+		byte[] decoded = new byte[getDecompressedSize(source)];
+		decode(source, decoded);
+		return decoded;
+	}
+
+	/**
+	 * Decodes into an existing array, which must be at least {@link #getDecompressedSize}
+	 * bytes long. Any bytes past the decompressed size are left untouched.
+	 * @return number of bytes decoded
+	 */
+	public static int decode(ByteBuffer source, byte[] decoded)
+	{
+		int base = source.position();
+
+		if (getInt(source, base) != YAY0_MAGIC)
+			throw new IllegalArgumentException("Source is not Yay0 compressed!");
+
+		int decompressedSize = getInt(source, base + 4);
+		int linkOffset = base + getInt(source, base + 8);
+		int chunkOffset = base + getInt(source, base + 12);
+		int commandOffset = base + 16;
+
+		if (decoded.length < decompressedSize)
+			throw new IllegalArgumentException(String.format(
+				"Output buffer is too small: %X bytes needed, %X available", decompressedSize, decoded.length));
+
+		int decodedBytes = 0;
+
+		while (decodedBytes < decompressedSize) {
+			int commands = source.get(commandOffset++);
+
+			for (int bit = 0x80; bit != 0 && decodedBytes < decompressedSize; bit >>>= 1) {
+				// bit == 1 --> copy directly from source
+				if ((commands & bit) != 0) {
+					decoded[decodedBytes++] = source.get(chunkOffset++);
+					continue;
+				}
+
+				// bit == 0 --> copy from decoded buffer
+				int link = ((source.get(linkOffset) & 0xFF) << 8) | (source.get(linkOffset + 1) & 0xFF);
+				linkOffset += 2;
+
+				int dist = (link & 0x0FFF) + 1;
+				int copySrc = decodedBytes - dist;
+				int length = (link >>> 12);
+
+				if (length == 0)
+					length = (source.get(chunkOffset++) & 0xFF) + 0x10;
+				length += 2;
+
+				if (dist >= length) {
+					// source and destination do not overlap
+					System.arraycopy(decoded, copySrc, decoded, decodedBytes, length);
+				}
+				else if (dist == 1) {
+					// run of a single byte
+					Arrays.fill(decoded, decodedBytes, decodedBytes + length, decoded[copySrc]);
+				}
+				else {
+					// repeating pattern, copy as many whole periods as are available each time
+					int end = decodedBytes + length;
+					int pos = decodedBytes;
+					while (pos < end) {
+						int chunk = Math.min(pos - copySrc, end - pos);
+						System.arraycopy(decoded, copySrc, decoded, pos, chunk);
+						pos += chunk;
+					}
+				}
+
+				decodedBytes += length;
+			}
+		}
+
+		return decompressedSize;
+	}
+
+	private static int getInt(ByteBuffer buffer, int start)
+	{
+		return (buffer.get(start + 3) & 0xFF) |
+			(buffer.get(start + 2) & 0xFF) << 8 |
+			(buffer.get(start + 1) & 0xFF) << 16 |
+			(buffer.get(start + 0) & 0xFF) << 24;
+	}
+}
@@ -1,253 +1,183 @@
 package game.yay0;
 
-import java.util.Collection;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.Arrays;
 
+import game.yay0.Yay0MatchFinder.MatchFinderType;
 import util.Logger;
 import util.Priority;
 
+/**
+ * Greedy Yay0 encoder which looks for a better alignment whenever a run of links ends.
+ * Commands are written straight into the {@link Yay0Encoder} as they are decided and
+ * pending links are held in primitive arrays, so no objects are created per token.
+ */
 public class Yay0EncodeHelper
 {
-	// all limits are inclusive
-	private static final int MIN_LINK_LENGTH = 3;
-	private static final int MAX_LINK_LENGTH = 273;
-	private static final int MAX_OFFSET = 4096;
+	private static final int INITIAL_QUEUE_SIZE = 256;
 
 	private final byte[] source;
+	private final Yay0MatchFinder finder;
 	private int bufferPosition = 0;
 
-	private final Yay0Encoder encoder;
-	private Collection<Encode> codeList = new LinkedList<>();
-	private Deque<EncodeLink> linkQueue = new LinkedList<>();
+	final Yay0Encoder encoder;
+
+	// runs of links are searched repeatedly while optimizing, so remember each result
+	private final short[] matchLengths;
+	private final short[] matchDistances;
+
+	// current run of links
+	private int[] queueLengths = new int[INITIAL_QUEUE_SIZE];
+	private int[] queueDistances = new int[INITIAL_QUEUE_SIZE];
+	private int queueSize = 0;
 
 	public Yay0EncodeHelper(byte[] src, boolean logUpates)
+	{
+		this(src, MatchFinderType.HASH_CHAIN, logUpates);
+	}
+
+	public Yay0EncodeHelper(byte[] src, MatchFinderType finderType, boolean logUpates)
+	{
+		this(src, 0, finderType, logUpates);
+	}
+
+	/**
+	 * Encodes the source from startPosition to the end. Bytes before startPosition are
+	 * not encoded, but links may refer back to them.
+	 */
+	public Yay0EncodeHelper(byte[] src, int startPosition, MatchFinderType finderType, boolean logUpates)
 	{
 		source = src;
-		encoder = new Yay0Encoder(source.length);
+		finder = Yay0MatchFinder.create(finderType, source);
+		encoder = new Yay0Encoder(source.length - startPosition);
+		bufferPosition = startPosition;
+
+		matchLengths = new short[source.length + 1];
+		matchDistances = new short[source.length + 1];
+		Arrays.fill(matchLengths, (short) -1);
 
 		// determine how to encode the source
-		while (bufferPosition < source.length || !linkQueue.isEmpty()) {
+		while (bufferPosition < source.length || queueSize > 0) {
 			if (logUpates && bufferPosition % 1024 == 0) {
 				String progress = String.format("(%.1f%%)", 100.0f * bufferPosition / source.length);
 				Logger.log("Compressing bytes... " + progress, Priority.UPDATE);
 			}
 
-			EncodeLink newLink = findPatternFrom(source, bufferPosition);
-			if (newLink == null) {
+			int newLength = findMatch(bufferPosition);
+			if (newLength == 0) {
 				// trivial case, no optimizations applied
-				if (linkQueue.size() == 1) {
-					codeList.add(linkQueue.pollFirst());
+				if (queueSize == 1) {
+					encoder.addLink(queueLengths[0], queueDistances[0]);
+					queueSize = 0;
 					continue;
 				}
 
 				// sequence of links has ended, attempt to optimize them
-				if (linkQueue.size() > 1) {
-					optimizeLinks(false);
+				if (queueSize > 1) {
+					optimizeLinks();
 					continue;
 				}
 
 				// no links, just keep copying bytes
-				codeList.add(new EncodeCopy(source[bufferPosition]));
+				encoder.addCopy(source[bufferPosition]);
 				bufferPosition++;
 			}
 			else {
 				// Nth link in a row (could be first), add it to the queue and keep reading
-				linkQueue.addLast(newLink);
-				bufferPosition += newLink.length;
+				enqueueLink(newLength, matchDistances[bufferPosition]);
+				bufferPosition += newLength;
 			}
 		}
 
-		// ready to do encoding
-		for (Encode e : codeList)
-			e.exec(encoder);
-
 		encoder.flush();
 	}
 
+	private int findMatch(int position)
+	{
+		if (position >= source.length)
+			return 0;
+
+		int length = matchLengths[position];
+		if (length < 0) {
+			length = finder.findMatch(position);
+			matchLengths[position] = (short) length;
+			if (length > 0)
+				matchDistances[position] = (short) finder.getMatchDistance();
+		}
+
+		return length;
+	}
+
+	private void enqueueLink(int length, int distance)
+	{
+		if (queueSize == queueLengths.length) {
+			queueLengths = Arrays.copyOf(queueLengths, 2 * queueSize);
+			queueDistances = Arrays.copyOf(queueDistances, 2 * queueSize);
+		}
+
+		queueLengths[queueSize] = length;
+		queueDistances[queueSize] = distance;
+		queueSize++;
+	}
+
+	private static int getLinkCost(int length)
+	{
+		return (length > 17) ? 3 : 2;
+	}
+
 	/**
 	 * Uses a simple heuristic to optimize a series of links: compare the length and 'cost'
 	 * in terms of encoded bytes of the original series with a revised series. The revised
 	 * series copies the first byte in the sequence before checking for links.
-	 * @param debug - prints debugging information to System.out
+	 * Only the first command of the chosen series is written, the rest of the run will be
+	 * searched again from the new position.
 	 */
-	private void optimizeLinks(boolean debug)
+	private void optimizeLinks()
 	{
-		//	debug = linkQueue.size() > 125;
-
 		int totalLength = 0;
 		int totalBudget = 0;
-		for (Encode e : linkQueue) {
-			totalBudget += e.getBudgetCost();
-			totalLength += e.getEncodeLength();
+		for (int i = 0; i < queueSize; i++) {
+			totalBudget += getLinkCost(queueLengths[i]);
+			totalLength += queueLengths[i];
 		}
 
-		if (debug) {
-			System.out.println(String.format("%4X: Optimizing %d links, total length = 0x%02X",
-				bufferPosition - totalLength, linkQueue.size(), totalLength));
-		}
+		int runStart = bufferPosition - totalLength;
+		int revisedEncoded = runStart + 1;
+		int revisedBudget = 1;
 
-		Deque<Encode> revisedQueue = new LinkedList<>();
-		int revisedEncoded = bufferPosition - totalLength;
-		int revisedBudget = 0;
-
-		revisedQueue.add(new EncodeCopy(source[revisedEncoded]));
-		revisedEncoded++;
-		revisedBudget++;
+		int firstRevisedLength = 0;
+		int firstRevisedDistance = 0;
 
 		while (revisedBudget < totalBudget) {
-			EncodeLink revisedLink = findPatternFrom(source, revisedEncoded);
-			if (revisedLink == null)
+			int revisedLength = findMatch(revisedEncoded);
+			if (revisedLength == 0)
 				break;
 
-			revisedQueue.add(revisedLink);
-			revisedEncoded += revisedLink.getEncodeLength();
-			revisedBudget += revisedLink.getBudgetCost();
-		}
-
-		int revisedLength = revisedEncoded - (bufferPosition - totalLength);
-
-		if (debug) {
-			System.out.print("      Old: ");
-			for (Encode e : linkQueue)
-				System.out.print(e + " ");
-			System.out.println(" (" + totalBudget + " bytes, length " + totalLength + ")");
+			if (firstRevisedLength == 0) {
+				firstRevisedLength = revisedLength;
+				firstRevisedDistance = matchDistances[revisedEncoded];
+			}
 
-			System.out.print("      New: ");
-			for (Encode e : revisedQueue)
-				System.out.print(e + " ");
-			System.out.println(" (" + revisedBudget + " bytes, length " + revisedLength + ")");
+			revisedEncoded += revisedLength;
+			revisedBudget += getLinkCost(revisedLength);
 		}
 
+		int revisedLength = revisedEncoded - runStart;
+
 		boolean better = (revisedBudget < totalBudget) && (totalLength == revisedLength);
 		boolean longer = (revisedBudget <= totalBudget) && (totalLength < revisedLength); // <- maybe not quite right...
 
-		if (debug) {
-			System.out.println("      Better? " + better);
-			System.out.println("      Longer? " + longer);
-		}
-
-		boolean useRecursive = true;
-
 		if (better || longer) {
-			if (debug)
-				System.out.println("      Using REVISED encoding.");
-
-			if (useRecursive) {
-
-				Encode revision = revisedQueue.pollFirst();
-				codeList.add(revision);
-				bufferPosition += revision.getEncodeLength();
-
-				revision = revisedQueue.pollFirst();
-				codeList.add(revision);
-				bufferPosition += revision.getEncodeLength();
-
-				while (!linkQueue.isEmpty()) {
-					Encode e = linkQueue.pollFirst();
-					bufferPosition -= e.getEncodeLength();
-				}
-			}
-			else {
-				for (Encode e : revisedQueue) {
-					codeList.add(e);
-					bufferPosition += e.getEncodeLength();
-				}
-
-				while (!linkQueue.isEmpty()) {
-					Encode e = linkQueue.pollFirst();
-					bufferPosition -= e.getEncodeLength();
-				}
-			}
+			// a revision is never chosen without at least one link following the copy
+			encoder.addCopy(source[runStart]);
+			encoder.addLink(firstRevisedLength, firstRevisedDistance);
+			bufferPosition = runStart + 1 + firstRevisedLength;
 		}
 		else {
-			if (debug)
-				System.out.println("      Using ORIGINAL encoding.");
-
-			if (useRecursive) {
-				codeList.add(linkQueue.pollFirst());
-
-				while (!linkQueue.isEmpty()) {
-					Encode e = linkQueue.pollFirst();
-					bufferPosition -= e.getEncodeLength();
-				}
-			}
-			else {
-				codeList.add(linkQueue.pollFirst());
-
-				while (!linkQueue.isEmpty()) {
-					Encode e = linkQueue.pollFirst();
-					bufferPosition -= e.getEncodeLength();
-				}
-			}
-		}
-
-		if (debug)
-			System.out.println("");
-	}
-
-	/**
-	 * Returns a link for the longest matching sequence that occurs in the buffer,
-	 * including those which 'wrap around' the end of the buffer. If no suitable
-	 * match is found, returns null. This can happen in three ways:
-	 * (1) No matching pattern is found.
-	 * (2) There are less than MIN_LINK_LENGTH bytes left in the source.
-	 * (3) The buffer has read less than MIN_LINK_LENGTH bytes (special case of 1).
-	 */
-	private static EncodeLink findPatternFrom(byte[] source, int encoderBufferPosition)
-	{
-		int remainingBytes = source.length - encoderBufferPosition;
-
-		// this check is probably unnecessary, but helpful for readable code
-		if (remainingBytes < MIN_LINK_LENGTH)
-			return null;
-
-		// only search for pattens up to the maximum length
-		int maxMatchLength = (remainingBytes > MAX_LINK_LENGTH) ? MAX_LINK_LENGTH : remainingBytes;
-
-		// do not search further back than MAX_OFFSET, links cannot reach that far
-		int minWindowStart = (encoderBufferPosition <= MAX_OFFSET) ? 0 : encoderBufferPosition - MAX_OFFSET;
-
-		// record the best match
-		int bestMatchLength = 0;
-		int bestMatchStart = 0;
-
-		for (int windowStart = minWindowStart; windowStart < encoderBufferPosition; windowStart++) // don't allow distance = 0
-		{
-			int matchingLength = 0;
-			int windowPos = windowStart;
-
-			byte nextSource, nextMatch;
-
-			while (true) {
-				// wrap the window
-				if (windowPos >= encoderBufferPosition)
-					windowPos = windowStart;
-
-				nextSource = source[encoderBufferPosition + matchingLength];
-				nextMatch = source[windowPos];
-
-				if (nextMatch == nextSource) {
-					matchingLength++;
-					windowPos++;
-
-					if (matchingLength > bestMatchLength) {
-						bestMatchLength = matchingLength;
-						bestMatchStart = windowStart;
-					}
-				}
-				else
-					break;
-
-				if (matchingLength == maxMatchLength)
-					break;
-			}
+			encoder.addLink(queueLengths[0], queueDistances[0]);
+			bufferPosition = runStart + queueLengths[0];
 		}
 
-		if (bestMatchLength < MIN_LINK_LENGTH)
-			return null;
-
-		return new EncodeLink(bestMatchLength, encoderBufferPosition - bestMatchStart);
+		queueSize = 0;
 	}
 
 	public byte[] getFile()
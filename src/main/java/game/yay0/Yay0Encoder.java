@@ -7,6 +7,7 @@ public class Yay0Encoder
 	private short[] linkBuffer;
 	private byte[] maskBuffer, chunkBuffer;
 	private int maskCount, linkCount, chunkCount;
+	private int commandCount;
 
 	private int mask, maskBit;
 
@@ -14,10 +15,11 @@ public class Yay0Encoder
 	{
 		decompressedSize = length;
 
-		maskBuffer = new byte[length];
+		// one mask bit per command, every link covers at least three bytes
+		maskBuffer = new byte[(length + 7) / 8];
 		maskCount = 0;
 
-		linkBuffer = new short[length];
+		linkBuffer = new short[length / 3 + 1];
 		linkCount = 0;
 
 		chunkBuffer = new byte[length];
@@ -71,6 +73,8 @@ public class Yay0Encoder
 
 	private void addMaskBit(boolean linked)
 	{
+		commandCount++;
+
 		if (!linked)
 			mask += maskBit;
 
@@ -84,6 +88,26 @@ public class Yay0Encoder
 		}
 	}
 
+	/**
+	 * Appends all commands from another encoder, as if they had been added to this one.
+	 * The link and chunk streams are copied directly, only the mask bits need to be realigned.
+	 */
+	public void append(Yay0Encoder other)
+	{
+		System.arraycopy(other.linkBuffer, 0, linkBuffer, linkCount, other.linkCount);
+		linkCount += other.linkCount;
+
+		System.arraycopy(other.chunkBuffer, 0, chunkBuffer, chunkCount, other.chunkCount);
+		chunkCount += other.chunkCount;
+
+		for (int i = 0; i < other.commandCount; i++) {
+			int maskIndex = i >> 3;
+			int maskByte = (maskIndex < other.maskCount) ? other.maskBuffer[maskIndex] : other.mask;
+			boolean copy = (maskByte & (0x80 >>> (i & 7))) != 0;
+			addMaskBit(!copy);
+		}
+	}
+
 	public void flush()
 	{
 		if (maskBit == (1 << 7))
@@ -1,10 +1,20 @@
 package game.yay0;
 
+import java.nio.ByteBuffer;
+
 /**
  * Yay0 is an implementation of LZSS.
  */
 public final class Yay0Helper
 {
+	public static enum EncodeMode
+	{
+		// greedy matching with a one byte lookahead for runs of links
+		GREEDY,
+		// minimum size parse over the entire source, slower but smaller
+		OPTIMAL
+	}
+
 	/*
 	public static void main(String args[]) throws IOException
 	{
@@ -49,20 +59,58 @@ public final class Yay0Helper
 	}
 
 	public static byte[] encode(byte[] source, boolean logUpdates)
+	{
+		return encode(source, EncodeMode.GREEDY, logUpdates);
+	}
+
+	public static byte[] encode(byte[] source, EncodeMode mode)
+	{
+		return encode(source, mode, false);
+	}
+
+	public static byte[] encode(byte[] source, EncodeMode mode, boolean logUpdates)
 	{
 		if (source.length < 64)
 			throw new IllegalArgumentException("Source is too small to compress!");
 
-		Yay0EncodeHelper helper = new Yay0EncodeHelper(source, logUpdates);
-		return helper.getFile();
+		switch (mode) {
+			case OPTIMAL:
+				return new Yay0OptimalEncodeHelper(source, logUpdates).getFile();
+			case GREEDY:
+			default:
+				return new Yay0EncodeHelper(source, logUpdates).getFile();
+		}
 	}
 
 	/**
-	 *
-	 * @param source
-	 * @return
+	 * Compresses large inputs using all available cores. The output is slightly larger
+	 * than {@link #encode(byte[])} since links cannot cross segment boundaries.
 	 */
+	public static byte[] encodeParallel(byte[] source, boolean logUpdates)
+	{
+		if (source.length < 64)
+			throw new IllegalArgumentException("Source is too small to compress!");
+
+		return new Yay0ParallelEncodeHelper(source, logUpdates).getFile();
+	}
+
 	public static byte[] decode(byte[] source)
+	{
+		return Yay0Decoder.decode(ByteBuffer.wrap(source));
+	}
+
+	/**
+	 * Decodes from the current position of the buffer without copying the compressed data.
+	 */
+	public static byte[] decode(ByteBuffer source)
+	{
+		return Yay0Decoder.decode(source);
+	}
+
+	/**
+	 * Original bit-at-a-time decoder, kept as a reference for {@link Yay0Benchmark}.
+	 */
+	static byte[] decodeLegacy(byte[] source)
 	{
 		assert (getInteger(source, 0) == 0x59617930); // "Yay0"
 		int decompressedSize = getInteger(source, 4);
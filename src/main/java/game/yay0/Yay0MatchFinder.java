@@ -0,0 +1,77 @@
+package game.yay0;
+
+/**
+ * Searches the sliding window preceding a position in the source for the longest
+ * sequence matching the bytes at that position. Finders may be queried at any position
+ * in any order, since the encoder backtracks while optimizing runs of links.
+ */
+public abstract class Yay0MatchFinder
+{
+	// all limits are inclusive
+	public static final int MIN_LINK_LENGTH = 3;
+	public static final int MAX_LINK_LENGTH = 273;
+	public static final int MAX_OFFSET = 4096;
+
+	public static enum MatchFinderType
+	{
+		BRUTE_FORCE,
+		HASH_CHAIN
+	}
+
+	public static Yay0MatchFinder create(MatchFinderType type, byte[] source)
+	{
+		switch (type) {
+			case BRUTE_FORCE:
+				return new BruteForceMatchFinder(source);
+			case HASH_CHAIN:
+				return new HashChainMatchFinder(source);
+			default:
+				throw new IllegalArgumentException("Unknown match finder type: " + type);
+		}
+	}
+
+	protected final byte[] source;
+	protected int matchDistance;
+
+	protected Yay0MatchFinder(byte[] source)
+	{
+		this.source = source;
+	}
+
+	/**
+	 * Returns the length of the longest matching sequence that occurs in the window,
+	 * including those which 'wrap around' the end of the window. Among several matches
+	 * with this length, the one furthest back in the window is chosen. Returns zero if
+	 * there is no match of at least MIN_LINK_LENGTH bytes. The distance of a successful
+	 * match can be retrieved with {@link #getMatchDistance()}.
+	 */
+	public abstract int findMatch(int position);
+
+	public int getMatchDistance()
+	{
+		return matchDistance;
+	}
+
+	/**
+	 * Returns a link for the longest match at this position, or null if there is none.
+	 */
+	public EncodeLink findPatternFrom(int position)
+	{
+		int length = findMatch(position);
+		if (length < MIN_LINK_LENGTH)
+			return null;
+
+		return new EncodeLink(length, matchDistance);
+	}
+
+	protected final int getMaxMatchLength(int position)
+	{
+		int remainingBytes = source.length - position;
+		return (remainingBytes > MAX_LINK_LENGTH) ? MAX_LINK_LENGTH : remainingBytes;
+	}
+
+	protected static final int getMinWindowStart(int position)
+	{
+		return (position <= MAX_OFFSET) ? 0 : position - MAX_OFFSET;
+	}
+}
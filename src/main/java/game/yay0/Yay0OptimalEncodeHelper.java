@@ -0,0 +1,99 @@
+package game.yay0;
+
+import util.Logger;
+import util.Priority;
+
+/**
+ * Finds the minimum size encoding of the source by dynamic programming. The longest
+ * match is found for every position, and since any prefix of a match is also a valid
+ * link, the cheapest way to encode the remainder of the source can be computed working
+ * backwards from the end. Costs are measured in bits:
+ * copies cost one command bit and one chunk byte, links cost one command bit and two link
+ * bytes plus an additional chunk byte if they are longer than 17 bytes.
+ */
+public class Yay0OptimalEncodeHelper
+{
+	private static final int COPY_COST = 1 + 8;
+	private static final int SHORT_LINK_COST = 1 + 16;
+	private static final int LONG_LINK_COST = 1 + 16 + 8;
+
+	// longest link which does not require an extra length byte
+	private static final int MAX_SHORT_LINK_LENGTH = 17;
+
+	private final Yay0Encoder encoder;
+
+	public Yay0OptimalEncodeHelper(byte[] source, boolean logUpdates)
+	{
+		this(source, Yay0MatchFinder.MatchFinderType.HASH_CHAIN, logUpdates);
+	}
+
+	public Yay0OptimalEncodeHelper(byte[] source, Yay0MatchFinder.MatchFinderType finderType, boolean logUpdates)
+	{
+		Yay0MatchFinder finder = Yay0MatchFinder.create(finderType, source);
+		encoder = new Yay0Encoder(source.length);
+
+		int length = source.length;
+
+		// minimum cost to encode everything from each position to the end
+		int[] cost = new int[length + 1];
+
+		// chosen encoding at each position: length 1 is a copy, otherwise a link
+		short[] chosenLength = new short[length];
+		short[] chosenDistance = new short[length];
+
+		cost[length] = 0;
+		for (int pos = length - 1; pos >= 0; pos--) {
+			if (logUpdates && pos % 1024 == 0) {
+				String progress = String.format("(%.1f%%)", 100.0f * (length - pos) / length);
+				Logger.log("Compressing bytes... " + progress, Priority.UPDATE);
+			}
+
+			int bestCost = COPY_COST + cost[pos + 1];
+			int bestLength = 1;
+
+			int matchLength = finder.findMatch(pos);
+			if (matchLength >= Yay0MatchFinder.MIN_LINK_LENGTH) {
+				int shortEnd = Math.min(matchLength, MAX_SHORT_LINK_LENGTH);
+				for (int n = Yay0MatchFinder.MIN_LINK_LENGTH; n <= shortEnd; n++) {
+					// prefer longer links on ties, they produce fewer commands
+					int c = SHORT_LINK_COST + cost[pos + n];
+					if (c <= bestCost) {
+						bestCost = c;
+						bestLength = n;
+					}
+				}
+
+				for (int n = MAX_SHORT_LINK_LENGTH + 1; n <= matchLength; n++) {
+					int c = LONG_LINK_COST + cost[pos + n];
+					if (c <= bestCost) {
+						bestCost = c;
+						bestLength = n;
+					}
+				}
+
+				chosenDistance[pos] = (short) finder.getMatchDistance();
+			}
+
+			cost[pos] = bestCost;
+			chosenLength[pos] = (short) bestLength;
+		}
+
+		// replay the cheapest path from the start
+		int pos = 0;
+		while (pos < length) {
+			int n = chosenLength[pos];
+			if (n == 1)
+				encoder.addCopy(source[pos]);
+			else
+				encoder.addLink(n, chosenDistance[pos]);
+			pos += n;
+		}
+
+		encoder.flush();
+	}
+
+	public byte[] getFile()
+	{
+		return encoder.getFile();
+	}
+}
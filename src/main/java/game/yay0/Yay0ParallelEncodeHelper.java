@@ -0,0 +1,57 @@
+package game.yay0;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import game.yay0.Yay0MatchFinder.MatchFinderType;
+import util.Logger;
+import util.Priority;
+
+/**
+ * Compresses large inputs by splitting them into segments which are encoded concurrently
+ * on the common fork-join pool. Each segment can link back into the tail of the previous
+ * segment, so only matches crossing a segment boundary are lost. The commands for each
+ * segment are then appended in order to form a single Yay0 stream.
+ */
+public class Yay0ParallelEncodeHelper
+{
+	private static final int SEGMENT_SIZE = 256 * 1024;
+
+	private final Yay0Encoder encoder;
+
+	public Yay0ParallelEncodeHelper(byte[] source, boolean logUpdates)
+	{
+		int numSegments = (source.length + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+		Yay0Encoder[] segments = new Yay0Encoder[numSegments];
+		AtomicInteger finished = new AtomicInteger();
+
+		IntStream.range(0, numSegments).parallel().forEach((i) -> {
+			int start = i * SEGMENT_SIZE;
+			int end = Math.min(start + SEGMENT_SIZE, source.length);
+			int windowStart = Math.max(start - Yay0MatchFinder.MAX_OFFSET, 0);
+
+			byte[] segment = Arrays.copyOfRange(source, windowStart, end);
+			Yay0EncodeHelper helper = new Yay0EncodeHelper(segment, start - windowStart, MatchFinderType.HASH_CHAIN, false);
+			segments[i] = helper.encoder;
+
+			int count = finished.incrementAndGet();
+			if (logUpdates) {
+				String progress = String.format("(%.1f%%)", 100.0f * count / numSegments);
+				synchronized (finished) {
+					Logger.log("Compressing bytes... " + progress, Priority.UPDATE);
+				}
+			}
+		});
+
+		encoder = new Yay0Encoder(source.length);
+		for (Yay0Encoder segment : segments)
+			encoder.append(segment);
+		encoder.flush();
+	}
+
+	public byte[] getFile()
+	{
+		return encoder.getFile();
+	}
+}
@@ -0,0 +1,415 @@
+package patcher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+
+import app.Directories;
+import app.Environment;
+import game.yay0.Yay0Helper;
+import util.Logger;
+
+/**
+ * Content-addressed store for the outputs of build stages. Each output is keyed by a
+ * SHA-256 hash of the stage name, the tool version, and every input to the stage, so an
+ * entry can never be returned for inputs which differ from those it was built from.
+ * Entries are stored as individual files and tracked by a binary index recording their
+ * size and last use. When the cache is saved, the least recently used entries are evicted
+ * until the total size fits within the limit. Files which never reached the index, such as
+ * those from a build which did not finish, are indexed when the cache is next loaded.
+ * <p>
+ * All methods may be called concurrently. Concurrent requests for the same output share a
+ * single run of the stage.
+ */
+public class BuildCache
+{
+	private static final String FN_INDEX = "index.bin";
+	private static final int INDEX_MAGIC = 0x42434958; // BCIX
+	private static final int INDEX_VERSION = 1;
+
+	public static interface StageBuilder
+	{
+		public byte[] build() throws IOException;
+	}
+
+	private static final class CacheEntry
+	{
+		private final String key;
+		private final long size;
+		private volatile long lastUsed;
+
+		private CacheEntry(String key, long size, long lastUsed)
+		{
+			this.key = key;
+			this.size = size;
+			this.lastUsed = lastUsed;
+		}
+	}
+
+	private final File cacheDir;
+	private final long sizeLimit;
+
+	private final ConcurrentHashMap<String, CacheEntry> entries = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+	private final AtomicLong totalSize = new AtomicLong();
+	private volatile boolean modified = false;
+
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	private final AtomicInteger shared = new AtomicInteger();
+
+	public BuildCache(Directories dir, long sizeLimit) throws IOException
+	{
+		this.cacheDir = dir.toFile();
+		this.sizeLimit = sizeLimit;
+
+		FileUtils.forceMkdir(cacheDir);
+
+		File indexFile = new File(cacheDir, FN_INDEX);
+		if (indexFile.exists())
+			loadIndex(indexFile);
+
+		addUnindexedFiles();
+	}
+
+	/**
+	 * Computes the key for a stage output from all of the inputs to that stage.
+	 * The length of each input is included so inputs cannot run together.
+	 */
+	public static String getKey(String stage, byte[] ... inputs)
+	{
+		MessageDigest digest = getDigest();
+		digest.update(Environment.getVersionString().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(stage.getBytes(StandardCharsets.UTF_8));
+
+		for (byte[] input : inputs) {
+			int len = input.length;
+			digest.update(new byte[] { (byte) (len >> 24), (byte) (len >> 16), (byte) (len >> 8), (byte) len });
+			digest.update(input);
+		}
+
+		StringBuilder sb = new StringBuilder(64);
+		for (byte b : digest.digest())
+			sb.append(String.format("%02x", b));
+		return sb.toString();
+	}
+
+	private static MessageDigest getDigest()
+	{
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available!", e);
+		}
+	}
+
+	/**
+	 * Returns the cached output of a stage, running the builder only if there is no entry
+	 * for these inputs. If another thread is already building the same output, waits for
+	 * its result instead.
+	 */
+	public byte[] get(String stage, StageBuilder builder, byte[] ... inputs) throws IOException
+	{
+		String key = getKey(stage, inputs);
+
+		byte[] cached = read(key);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached;
+		}
+
+		CompletableFuture<byte[]> future = new CompletableFuture<>();
+		CompletableFuture<byte[]> existing = pending.putIfAbsent(key, future);
+		if (existing != null) {
+			shared.incrementAndGet();
+			return await(existing);
+		}
+
+		try {
+			// may have been stored between the first lookup and claiming the key
+			cached = read(key);
+			if (cached != null) {
+				hits.incrementAndGet();
+				future.complete(cached);
+				return cached;
+			}
+
+			misses.incrementAndGet();
+			byte[] output = builder.build();
+			put(key, output);
+			future.complete(output);
+			return output;
+		}
+		catch (IOException | RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			pending.remove(key, future);
+		}
+	}
+
+	private static byte[] await(CompletableFuture<byte[]> future) throws IOException
+	{
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof UncheckedIOException)
+				throw ((UncheckedIOException) cause).getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Yay0 compresses data, reusing the result of any previous compression of the same bytes.
+	 * Used for battle data, sprite sheets, and images.
+	 */
+	public byte[] compress(byte[] data) throws IOException
+	{
+		return get("Yay0", () -> Yay0Helper.encode(data), data);
+	}
+
+	/**
+	 * @return the cached output for this key, or null if there is none
+	 */
+	public byte[] get(String key) throws IOException
+	{
+		byte[] cached = read(key);
+		if (cached != null)
+			hits.incrementAndGet();
+		else
+			misses.incrementAndGet();
+		return cached;
+	}
+
+	private byte[] read(String key) throws IOException
+	{
+		CacheEntry entry = entries.get(key);
+		if (entry == null)
+			return null;
+
+		File f = getEntryFile(key);
+		if (f.exists() && f.length() == entry.size) {
+			entry.lastUsed = System.currentTimeMillis();
+			modified = true;
+			return FileUtils.readFileToByteArray(f);
+		}
+
+		// file was removed or damaged from under us
+		if (entries.remove(key, entry)) {
+			totalSize.addAndGet(-entry.size);
+			modified = true;
+		}
+		return null;
+	}
+
+	public void put(String key, byte[] data) throws IOException
+	{
+		File f = getEntryFile(key);
+		File temp = new File(f.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			FileUtils.writeByteArrayToFile(temp, data);
+			Files.move(temp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException | RuntimeException e) {
+			FileUtils.deleteQuietly(temp);
+			throw e;
+		}
+
+		CacheEntry old = entries.put(key, new CacheEntry(key, data.length, System.currentTimeMillis()));
+		totalSize.addAndGet(data.length - (old == null ? 0 : old.size));
+		modified = true;
+	}
+
+	private File getEntryFile(String key)
+	{
+		return new File(cacheDir, key.substring(0, 2) + File.separator + key);
+	}
+
+	public int getHits()
+	{
+		return hits.get();
+	}
+
+	public int getMisses()
+	{
+		return misses.get();
+	}
+
+	public int getShared()
+	{
+		return shared.get();
+	}
+
+	public long getTotalSize()
+	{
+		return totalSize.get();
+	}
+
+	public String getStatistics()
+	{
+		return String.format("%d hits, %d misses, %d shared with concurrent requests, %d entries using %.1f MB",
+			hits.get(), misses.get(), shared.get(), entries.size(), totalSize.get() / (1024.0 * 1024.0));
+	}
+
+	public static void clear(Directories dir) throws IOException
+	{
+		FileUtils.deleteDirectory(dir.toFile());
+	}
+
+	/**
+	 * Evicts least recently used entries until the cache fits within its size limit,
+	 * then writes the index.
+	 */
+	public synchronized void save() throws IOException
+	{
+		evict();
+
+		if (!modified)
+			return;
+
+		File indexFile = new File(cacheDir, FN_INDEX);
+		File tempFile = new File(cacheDir, FN_INDEX + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			List<CacheEntry> list = new ArrayList<>(entries.values());
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(INDEX_VERSION);
+			out.writeInt(list.size());
+			for (CacheEntry entry : list) {
+				out.writeUTF(entry.key);
+				out.writeLong(entry.size);
+				out.writeLong(entry.lastUsed);
+			}
+		}
+
+		Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		modified = false;
+	}
+
+	private void evict()
+	{
+		if (totalSize.get() <= sizeLimit)
+			return;
+
+		List<CacheEntry> list = new ArrayList<>(entries.values());
+		list.sort((a, b) -> Long.compare(a.lastUsed, b.lastUsed));
+
+		int evicted = 0;
+		for (CacheEntry entry : list) {
+			if (totalSize.get() <= sizeLimit)
+				break;
+
+			if (entries.remove(entry.key, entry)) {
+				totalSize.addAndGet(-entry.size);
+				getEntryFile(entry.key).delete();
+				evicted++;
+			}
+		}
+
+		modified = true;
+		Logger.logf("Evicted %d entries from build cache.", evicted);
+	}
+
+	/**
+	 * Adds entries for files written by a build which ended before the index was saved,
+	 * so they can still be used and evicted. Leftover temporary files are deleted.
+	 */
+	private void addUnindexedFiles()
+	{
+		File[] subdirs = cacheDir.listFiles(File::isDirectory);
+		if (subdirs == null)
+			return;
+
+		int added = 0;
+		for (File subdir : subdirs) {
+			File[] files = subdir.listFiles(File::isFile);
+			if (files == null)
+				continue;
+
+			for (File f : files) {
+				String key = f.getName();
+				if (key.endsWith(".tmp")) {
+					FileUtils.deleteQuietly(f);
+					continue;
+				}
+
+				if (!isKey(key) || !key.startsWith(subdir.getName()) || entries.containsKey(key))
+					continue;
+
+				entries.put(key, new CacheEntry(key, f.length(), f.lastModified()));
+				totalSize.addAndGet(f.length());
+				added++;
+			}
+		}
+
+		if (added > 0) {
+			modified = true;
+			Logger.logf("Added %d unindexed entries to build cache.", added);
+		}
+	}
+
+	private static boolean isKey(String name)
+	{
+		if (name.length() != 64)
+			return false;
+
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if ((c < '0' || c > '9') && (c < 'a' || c > 'f'))
+				return false;
+		}
+		return true;
+	}
+
+	private void loadIndex(File indexFile)
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION)
+				return;
+
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				long size = in.readLong();
+				long lastUsed = in.readLong();
+				entries.put(key, new CacheEntry(key, size, lastUsed));
+				totalSize.addAndGet(size);
+			}
+		}
+		catch (IOException e) {
+			// a damaged index only means rebuilding everything
+			Logger.logWarning("Could not read build cache index: " + e.getMessage());
+			entries.clear();
+			totalSize.set(0);
+		}
+	}
+}
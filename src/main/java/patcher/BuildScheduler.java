@@ -0,0 +1,221 @@
+package patcher;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import util.Logger;
+
+/**
+ * Runs build phases on a work-stealing pool, ordered only by the resources they read and write.
+ * Phases are added in the order they would run serially. A phase waits for the most recent
+ * earlier writer of every resource it reads or writes, and a phase writing a resource also
+ * waits for every earlier phase reading it. Phases which write to the ROM should declare
+ * {@link #ROM} so those writes keep their serial order.
+ */
+public class BuildScheduler
+{
+	public static final String ROM = "ROM";
+
+	public static interface PhaseTask
+	{
+		public void run() throws IOException;
+	}
+
+	public static final class Phase
+	{
+		private final String name;
+		private final PhaseTask task;
+		private final List<String> reads = new ArrayList<>();
+		private final List<String> writes = new ArrayList<>();
+
+		private final List<Phase> dependencies = new LinkedList<>();
+		private CompletableFuture<Void> future;
+		private volatile long startTime;
+		private volatile long endTime;
+
+		private Phase(String name, PhaseTask task)
+		{
+			this.name = name;
+			this.task = task;
+		}
+
+		public Phase reads(String ... resources)
+		{
+			reads.addAll(Arrays.asList(resources));
+			return this;
+		}
+
+		public Phase writes(String ... resources)
+		{
+			writes.addAll(Arrays.asList(resources));
+			return this;
+		}
+
+		private long getDuration()
+		{
+			return endTime - startTime;
+		}
+	}
+
+	private final List<Phase> phases = new ArrayList<>();
+	private final int parallelism;
+	private long runStartTime;
+	private long runEndTime;
+
+	public BuildScheduler(boolean parallel)
+	{
+		parallelism = parallel ? Runtime.getRuntime().availableProcessors() : 1;
+	}
+
+	public Phase addPhase(String name, PhaseTask task)
+	{
+		Phase phase = new Phase(name, task);
+		phases.add(phase);
+		return phase;
+	}
+
+	private void resolveDependencies()
+	{
+		HashMap<String, Phase> lastWriter = new HashMap<>();
+		HashMap<String, List<Phase>> readers = new HashMap<>();
+
+		for (Phase phase : phases) {
+			for (String res : phase.reads) {
+				addDependency(phase, lastWriter.get(res));
+				readers.computeIfAbsent(res, (k) -> new LinkedList<>()).add(phase);
+			}
+
+			for (String res : phase.writes) {
+				addDependency(phase, lastWriter.get(res));
+
+				List<Phase> earlierReaders = readers.remove(res);
+				if (earlierReaders != null) {
+					for (Phase reader : earlierReaders)
+						addDependency(phase, reader);
+				}
+
+				lastWriter.put(res, phase);
+			}
+		}
+	}
+
+	private static void addDependency(Phase phase, Phase dependency)
+	{
+		if (dependency != null && dependency != phase && !phase.dependencies.contains(dependency))
+			phase.dependencies.add(dependency);
+	}
+
+	/**
+	 * Runs all phases and waits for them to finish. If any phase fails, phases depending
+	 * on it are skipped and the first failure is rethrown once the others have finished.
+	 */
+	public void run() throws IOException
+	{
+		resolveDependencies();
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		runStartTime = System.nanoTime();
+
+		try {
+			for (Phase phase : phases) {
+				CompletableFuture<?>[] deps = new CompletableFuture<?>[phase.dependencies.size()];
+				int i = 0;
+				for (Phase dep : phase.dependencies)
+					deps[i++] = dep.future;
+
+				phase.future = CompletableFuture.allOf(deps).thenRunAsync(() -> execute(phase), pool);
+			}
+
+			CompletableFuture<?>[] all = new CompletableFuture<?>[phases.size()];
+			for (int i = 0; i < phases.size(); i++)
+				all[i] = phases.get(i).future;
+
+			CompletableFuture.allOf(all).join();
+		}
+		catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException ioe)
+				throw ioe;
+			if (cause instanceof RuntimeException re)
+				throw re;
+			if (cause instanceof Error err)
+				throw err;
+			throw e;
+		}
+		finally {
+			runEndTime = System.nanoTime();
+			pool.shutdown();
+		}
+	}
+
+	private static void execute(Phase phase)
+	{
+		phase.startTime = System.nanoTime();
+		try {
+			phase.task.run();
+		}
+		catch (IOException e) {
+			throw new CompletionException(e);
+		}
+		finally {
+			phase.endTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Prints the time taken by each phase along with the critical path: the chain of
+	 * dependent phases with the greatest total duration, which bounds the wall time.
+	 */
+	public void printReport()
+	{
+		HashMap<Phase, Long> pathLength = new HashMap<>();
+		HashMap<Phase, Phase> pathPrev = new HashMap<>();
+
+		Phase last = null;
+		for (Phase phase : phases) {
+			long longest = 0;
+			Phase prev = null;
+			for (Phase dep : phase.dependencies) {
+				long len = pathLength.get(dep);
+				if (len > longest) {
+					longest = len;
+					prev = dep;
+				}
+			}
+			pathLength.put(phase, longest + phase.getDuration());
+			pathPrev.put(phase, prev);
+
+			if (last == null || pathLength.get(phase) > pathLength.get(last))
+				last = phase;
+		}
+
+		for (Phase phase : phases) {
+			System.out.printf("%11.3f ms   %s (started at %.3f ms)%n",
+				1e-6 * phase.getDuration(), phase.name, 1e-6 * (phase.startTime - runStartTime));
+		}
+
+		LinkedList<Phase> criticalPath = new LinkedList<>();
+		for (Phase phase = last; phase != null; phase = pathPrev.get(phase))
+			criticalPath.addFirst(phase);
+
+		StringBuilder sb = new StringBuilder();
+		for (Phase phase : criticalPath) {
+			if (sb.length() > 0)
+				sb.append(" -> ");
+			sb.append(phase.name);
+		}
+
+		if (last != null) {
+			Logger.logf("Critical path: %s", sb.toString());
+			System.out.printf("%11.3f ms   Critical path (wall time %.3f ms)%n",
+				1e-6 * pathLength.get(last), 1e-6 * (runEndTime - runStartTime));
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package patcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import app.StarRodException;
+
+/**
+ * Tracks free space within a file and places data in it. Free blocks are indexed by address,
+ * so neighbors can be coalesced when space is freed, and by size, so allocation can find the
+ * smallest block that fits. Freeing, reserving, and allocating are all O(log n) in the number
+ * of free blocks.
+ */
+public class FreeSpaceAllocator
+{
+	private static final class Block
+	{
+		private final long start;
+		private final long end;
+
+		private Block(long start, long end)
+		{
+			this.start = start;
+			this.end = end;
+		}
+
+		private long length()
+		{
+			return end - start;
+		}
+	}
+
+	// ascending by size, then by address
+	private static final Comparator<Block> SIZE_ORDER = (a, b) -> {
+		int cmp = Long.compare(a.length(), b.length());
+		return (cmp != 0) ? cmp : Long.compare(a.start, b.start);
+	};
+
+	private final TreeMap<Long, Block> blocksByStart = new TreeMap<>();
+	private final TreeSet<Block> blocksBySize = new TreeSet<>(SIZE_ORDER);
+
+	private long freeBytes = 0;
+	private int allocationCount = 0;
+	private long allocatedBytes = 0;
+	private long paddingBytes = 0;
+
+	private void insert(long start, long end)
+	{
+		if (end <= start)
+			return;
+
+		Block b = new Block(start, end);
+		blocksByStart.put(start, b);
+		blocksBySize.add(b);
+		freeBytes += b.length();
+	}
+
+	private void remove(Block b)
+	{
+		blocksByStart.remove(b.start);
+		blocksBySize.remove(b);
+		freeBytes -= b.length();
+	}
+
+	/**
+	 * @return a free region overlapping [start,end), or null if there is none
+	 */
+	public Region findOverlap(long start, long end)
+	{
+		// blocks are disjoint, so only the last one starting before end can overlap
+		Entry<Long, Block> e = blocksByStart.lowerEntry(end);
+		if (e == null || e.getValue().end <= start)
+			return null;
+
+		Block b = e.getValue();
+		return new Region(b.start, b.end);
+	}
+
+	public void free(Region r)
+	{
+		free(r.start, r.end);
+	}
+
+	/**
+	 * Adds [start,end) to the free space, merging it with adjacent free blocks.
+	 */
+	public void free(long start, long end)
+	{
+		if (end <= start)
+			return;
+
+		Region overlap = findOverlap(start, end);
+		if (overlap != null)
+			throw new StarRodException("Free region (%X, %X) overlaps existing free region (%X, %X)",
+				start, end, overlap.start, overlap.end);
+
+		Entry<Long, Block> prev = blocksByStart.lowerEntry(start);
+		if (prev != null && prev.getValue().end == start) {
+			start = prev.getValue().start;
+			remove(prev.getValue());
+		}
+
+		Block next = blocksByStart.get(end);
+		if (next != null) {
+			end = next.end;
+			remove(next);
+		}
+
+		insert(start, end);
+	}
+
+	/**
+	 * Removes [start,end) from the free space. Any part of it which is not free is ignored.
+	 */
+	public void reserve(long start, long end)
+	{
+		while (true) {
+			Entry<Long, Block> e = blocksByStart.lowerEntry(end);
+			if (e == null || e.getValue().end <= start)
+				break;
+
+			// remaining pieces lie entirely outside [start,end)
+			Block b = e.getValue();
+			remove(b);
+			insert(b.start, Math.min(b.end, start));
+			insert(Math.max(b.start, end), b.end);
+		}
+	}
+
+	/**
+	 * Finds the smallest free block which can hold size bytes at the given alignment,
+	 * and takes the space from it.
+	 * @param alignment must be a power of two
+	 * @return the start of the allocated space, or -1 if no block can hold it
+	 */
+	public long allocate(long size, int alignment)
+	{
+		Block smallest = new Block(Long.MIN_VALUE, Long.MIN_VALUE + size);
+
+		// blocks which are large enough but fail alignment lack at most (alignment - 1) bytes
+		for (Block b : blocksBySize.tailSet(smallest, true)) {
+			long alignedStart = (b.start + (alignment - 1)) & -alignment;
+			if (alignedStart + size > b.end)
+				continue;
+
+			remove(b);
+			insert(b.start, alignedStart);
+			insert(alignedStart + size, b.end);
+
+			allocationCount++;
+			allocatedBytes += size;
+			paddingBytes += alignedStart - b.start;
+			return alignedStart;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @return free regions in order of address
+	 */
+	public List<Region> getFreeRegions()
+	{
+		List<Region> regions = new ArrayList<>(blocksByStart.size());
+		for (Block b : blocksByStart.values())
+			regions.add(new Region(b.start, b.end));
+		return regions;
+	}
+
+	/**
+	 * @return the free region with the highest address, or null if there is no free space
+	 */
+	public Region getLastRegion()
+	{
+		Entry<Long, Block> e = blocksByStart.lastEntry();
+		return (e == null) ? null : new Region(e.getValue().start, e.getValue().end);
+	}
+
+	public int getBlockCount()
+	{
+		return blocksByStart.size();
+	}
+
+	public long getFreeBytes()
+	{
+		return freeBytes;
+	}
+
+	public long getLargestFreeBlock()
+	{
+		return blocksBySize.isEmpty() ? 0 : blocksBySize.last().length();
+	}
+
+	/**
+	 * @return fraction of free space outside of the largest free block
+	 */
+	public double getFragmentation()
+	{
+		return (freeBytes == 0) ? 0.0 : 1.0 - (double) getLargestFreeBlock() / freeBytes;
+	}
+
+	public String getStatistics()
+	{
+		return String.format("%X bytes free in %d blocks (largest %X, %.1f%% fragmented), %d allocations totaling %X bytes (%X bytes alignment padding)",
+			freeBytes, getBlockCount(), getLargestFreeBlock(), 100 * getFragmentation(),
+			allocationCount, allocatedBytes, paddingBytes);
+	}
+}
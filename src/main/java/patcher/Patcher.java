@@ -3,24 +3,18 @@ package patcher;
 import static app.Directories.*;
 import static app.config.Options.CaptureThumbnails;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -40,6 +34,7 @@ import game.globals.ItemModder;
 import game.globals.MoveModder;
 import game.map.Map;
 import game.map.MapIndex;
+import game.map.MapIndexStore;
 import game.map.config.MapConfigTable;
 import game.map.config.MapConfigTable.AreaConfig;
 import game.map.config.MapConfigTable.MapConfig;
@@ -66,16 +61,18 @@ import util.CaseInsensitiveMap;
 import util.Logger;
 import util.Pair;
 import util.Priority;
+import util.ThreadLocalMatcher;
 
 public class Patcher implements IGlobalDatabase
 {
-	private static final int OUT_BUFFER_SIZE_MB = 128; //XXX read this from config
 	private static final int MOD_PACKAGE_IDENTIFIER = 0x504D5352;
 
 	public static final int ROM_BASE = 0x02800000;
 	public static final int RAM_BASE = 0x80400000;
-	private List<Region> emptyRegions = new ArrayList<>();
+	private final FreeSpaceAllocator freeSpace = new FreeSpaceAllocator();
 	private LinkedHashMap<String, Timer> timerLookup;
+	private BuildScheduler scheduler;
+	private MapConfigTable mapTable;
 
 	private static final int ROM_BATTLE_DATA_START = 0x4219F0;
 	private static final int ROM_BATTLE_DATA_END = 0x79EF40;
@@ -92,14 +89,41 @@ public class Patcher implements IGlobalDatabase
 	private boolean addingUserGlobals = false;
 
 	private SpritePatcher spritePatcher;
+	private BuildCache buildCache;
 
 	public Patcher() throws IOException
 	{
 		ProjectDatabase.loadModGlobals();
-		patchROM();
+
+		// builds log heavily, let a background thread handle console and log file output
+		Logger.setAsynchronous(true);
+		try {
+			patchROM();
+		}
+		finally {
+			saveBuildCache();
+			Logger.setAsynchronous(false);
+		}
+
 		ProjectDatabase.clearModGlobals();
 	}
 
+	/**
+	 * Entries are written while the build runs, so the index is saved even if the build fails.
+	 */
+	private void saveBuildCache()
+	{
+		if (buildCache == null)
+			return;
+
+		try {
+			buildCache.save();
+		}
+		catch (IOException e) {
+			Logger.logWarning("Could not save build cache index: " + e.getMessage());
+		}
+	}
+
 	private void patchROM() throws IOException
 	{
 		timerLookup = new LinkedHashMap<>();
@@ -121,6 +145,13 @@ public class Patcher implements IGlobalDatabase
 		if (cfg.getBoolean(Options.ClearTextureCache))
 			FileUtils.deleteDirectory(Directories.MOD_IMG_CACHE.toFile());
 
+		removeLegacyCompressionCache();
+
+		if (cfg.getBoolean(Options.ClearBuildCache))
+			BuildCache.clear(Directories.MOD_BUILD_CACHE);
+
+		buildCache = new BuildCache(Directories.MOD_BUILD_CACHE, cfg.getInteger(Options.BuildCacheSize) * 1024L * 1024L);
+
 		if (cfg.getBoolean(CaptureThumbnails)) {
 			Logger.log("Capturing missing map thumbnails...", Priority.MILESTONE);
 			MapEditor editor = new MapEditor(false);
@@ -143,7 +174,7 @@ public class Patcher implements IGlobalDatabase
 
 		// ======== Phase 1: build data files from patches and run pre-processor
 
-		rp = Environment.project.getTargetRomPatcher(OUT_BUFFER_SIZE_MB * 1024 * 1024);
+		rp = Environment.project.getTargetRomPatcher();
 		SubscriptionManager.initialize();
 
 		FileUtils.forceMkdir(MOD_MAP_TEMP.toFile());
@@ -152,46 +183,60 @@ public class Patcher implements IGlobalDatabase
 		FileUtils.forceMkdir(MOD_FORMA_TEMP.toFile());
 		FileUtils.cleanDirectory(MOD_FORMA_TEMP.toFile());
 
-		Logger.log("Building string data...", Priority.MILESTONE);
-		StringPatcher stringPatcher = new StringPatcher();
-		stringPatcher.readAllStrings();
-		stringIDMap = stringPatcher.getStringIDMap();
-		recordTime("Strings Built");
-
 		// prepare tables for maps and battles
 
+		StringPatcher stringPatcher = new StringPatcher(buildCache);
 		MapPatcher mapPatcher = new MapPatcher(this);
 		BattlePatcher battlePatcher = new BattlePatcher(this);
 		AuxBattlePatcher auxPatcher = new AuxBattlePatcher(this);
 		spritePatcher = new SpritePatcher(this);
-		CompressedImagePatcher imgPatcher = new CompressedImagePatcher();
+		CompressedImagePatcher imgPatcher = new CompressedImagePatcher(buildCache);
 		PartnerWorldPatcher partnerPatcher = new PartnerWorldPatcher(this);
-		Logger.log("Reading map config files...", Priority.MILESTONE);
-		MapConfigTable mapTable = mapPatcher.readConfigs();
-		recordTime("Map Configs Read");
+
+		// these phases only read mod files, so they may run concurrently
+		scheduler = new BuildScheduler(cfg.getBoolean(Options.ParallelBuild));
+
+		scheduler.addPhase("Strings Built", () -> {
+			Logger.log("Building string data...", Priority.MILESTONE);
+			stringPatcher.readAllStrings();
+			stringIDMap = stringPatcher.getStringIDMap();
+		}).writes("Strings");
+
+		scheduler.addPhase("Map Configs Read", () -> {
+			Logger.log("Reading map config files...", Priority.MILESTONE);
+			mapTable = mapPatcher.readConfigs();
+		}).writes("MapTable");
 
 		if (cfg.getBoolean(Options.AutoBuildMapAssets)) {
-			Logger.log("Checking for missing assets...", Priority.MILESTONE);
-			mapPatcher.buildMissing(mapTable);
+			scheduler.addPhase("Map Assets Built", () -> {
+				Logger.log("Checking for missing assets...", Priority.MILESTONE);
+				mapPatcher.buildMissing(mapTable);
+			}).reads("MapTable").writes("MapAssets");
 		}
 
-		Logger.log("Indexing map objects...", Priority.MILESTONE);
-		indexMapObjects(cfg, mapTable);
-		recordTime("Maps Indexed");
+		scheduler.addPhase("Maps Indexed", () -> {
+			Logger.log("Indexing map objects...", Priority.MILESTONE);
+			indexMapObjects(cfg, mapTable);
+		}).reads("MapAssets").writes("MapTable", "MapIndex");
+
+		scheduler.addPhase("Animations Indexed", () -> {
+			Logger.log("Indexing animations...", Priority.MILESTONE);
+			boolean allowDuplicateNames = cfg.getBoolean(Options.AllowDuplicateSpriteNames);
+			spritePatcher.indexAnimations(allowDuplicateNames);
+		}).writes("Animations");
 
-		Logger.log("Indexing animations...", Priority.MILESTONE);
-		boolean allowDuplicateNames = cfg.getBoolean(Options.AllowDuplicateSpriteNames);
-		spritePatcher.indexAnimations(allowDuplicateNames);
-		recordTime("Animations Indexed");
+		scheduler.addPhase("Battle Configs Read", () -> {
+			Logger.log("Reading battle config files...", Priority.MILESTONE);
+			battlePatcher.readConfigs();
+		}).writes("BattleConfigs");
+
+		scheduler.run();
+		recordTime("Inputs Read");
 
 		Logger.log("Writing map config table...", Priority.MILESTONE);
 		int mapConfigTableBase = mapPatcher.writeConfigTable(mapTable);
 		recordTime("Map Configs Patched");
 
-		Logger.log("Reading battle config files...", Priority.MILESTONE);
-		battlePatcher.readConfigs();
-		recordTime("Battle Configs Read");
-
 		// add table pointers to global pointers map
 		globalConstantMap = new HashMap<>();
 		globalPointerMap = new LinkedHashMap<>();
@@ -368,7 +413,7 @@ public class Patcher implements IGlobalDatabase
 
 		if (cfg.getBoolean(Options.BuildTextures)) {
 			Logger.log("Building texture archives...", Priority.MILESTONE);
-			imgPatcher.buildTextureArchives();
+			CompressedImagePatcher.buildTextureArchives();
 		}
 
 		if (cfg.getBoolean(Options.BuildBackgrounds)) {
@@ -405,10 +450,11 @@ public class Patcher implements IGlobalDatabase
 		// ======== Phase 5: finishing touches
 
 		Logger.log("Calculating new CRC values...", Priority.MILESTONE);
-		recalculateCRCs(rp.getBuffer());
+		recalculateCRCs(rp.getImage());
 
 		System.out.println("------------- EMPTY --------------");
-		for (Region r : emptyRegions) {
+		Logger.log("Free space: " + freeSpace.getStatistics());
+		for (Region r : freeSpace.getFreeRegions()) {
 			Logger.logf("Empty region from %08X to %08X (%X bytes)", r.start, r.end, r.length());
 			//	raf.seek(r.start);
 			//	raf.write(new byte[r.length()]);
@@ -420,12 +466,15 @@ public class Patcher implements IGlobalDatabase
 		System.out.println("------------- TIMING -------------");
 		printTimes();
 
+		System.out.println("Build cache: " + buildCache.getStatistics());
+
 		rp.writeFile();
 
 		cfg.setString(Options.CompileVersion, Environment.getVersionString()); // another successful compile. great job!
 		cfg.setBoolean(Options.ClearMapCache, false);
 		cfg.setBoolean(Options.ClearSpriteCache, false);
 		cfg.setBoolean(Options.ClearTextureCache, false);
+		cfg.setBoolean(Options.ClearBuildCache, false);
 		cfg.saveConfigFile();
 
 		Logger.log("Done editing " + Environment.project.getTargetRom(), Priority.MILESTONE);
@@ -654,7 +703,7 @@ public class Patcher implements IGlobalDatabase
 	}
 
 	public static final Pattern PatternMessageID = Pattern.compile("([0-9A-F]+)-([0-9A-F]+)");
-	public static final Matcher MatcherMessageID = PatternMessageID.matcher("");
+	public static final ThreadLocalMatcher MatcherMessageID = new ThreadLocalMatcher(PatternMessageID);
 
 	@Override
 	public int resolveStringID(String s) throws InvalidInputException
@@ -696,7 +745,7 @@ public class Patcher implements IGlobalDatabase
 	 * But it works.
 	 * @throws IOException
 	 */
-	private void recalculateCRCs(ByteBuffer bb) throws IOException
+	private void recalculateCRCs(RomImage bb) throws IOException
 	{
 		long t1, t2, t3;
 		long t4, t5, t6;
@@ -734,17 +783,14 @@ public class Patcher implements IGlobalDatabase
 
 	public static void packageMod(File rom) throws IOException
 	{
-		LinkedList<Integer> diffStarts = new LinkedList<>();
-		LinkedList<Integer> diffLengths = new LinkedList<>();
-
 		Config cfg = Environment.project.config;
 
 		String modName = cfg.getString(Options.ModVersionString);
 		if (modName.isEmpty())
 			modName = Options.ModVersionString.defaultValue;
 
-		byte[] base = Environment.getBaseRomBytes();
-		byte[] patched = FileUtils.readFileToByteArray(rom);
+		ByteBuffer base = ByteBuffer.wrap(Environment.getBaseRomBytes());
+		ByteBuffer patched = RomDiff.read(rom);
 
 		/*
 		Delta delta = new Delta();
@@ -754,83 +800,36 @@ public class Patcher implements IGlobalDatabase
 		Logger.log("Wrote XDELTA file to " + outXDelta, Priority.IMPORTANT);
 		 */
 
-		if (patched.length < base.length)
+		if (patched.limit() < base.limit())
 			throw new RuntimeException("Patched ROM should not be smaller than base ROM!");
 
 		Logger.log("Starting mod packaging: " + new java.util.Date().toString(), Priority.IMPORTANT);
 
-		boolean mismatching = false;
-		int mismatchStart = -1;
-		int lastEnd = Integer.MIN_VALUE;
-
 		Logger.log("Finding differences between base ROM and patched ROM...", Priority.MILESTONE);
+		RomDiff diff = RomDiff.compute(base, patched);
+		Logger.log("Found " + diff.getCount() + " different byte sequences.", Priority.MILESTONE);
 
-		for (int pos = 0; pos < base.length; pos++) {
-			if (base[pos] != patched[pos]) {
-				if (!mismatching) {
-					if (pos < lastEnd + 8) {
-						diffLengths.removeLast();
-						mismatchStart = diffStarts.removeLast();
-					}
-					else {
-						mismatchStart = pos;
-					}
-
-					mismatching = true;
-				}
-			}
-			else {
-				if (mismatching) {
-					diffStarts.add(mismatchStart);
-					diffLengths.add(pos - mismatchStart);
-					lastEnd = pos;
-					mismatching = false;
-				}
-			}
-		}
-
-		if (patched.length > base.length) {
-			if (mismatching) {
-				diffStarts.add(mismatchStart);
-				diffLengths.add(patched.length - mismatchStart);
-			}
-			else {
-				diffStarts.add(base.length);
-				diffLengths.add(patched.length - base.length);
-			}
-		}
-
-		Logger.log("Found " + diffStarts.size() + " different byte sequences.", Priority.MILESTONE);
-
-		int totalSize = 8 + 8 * diffStarts.size();
-		for (int len : diffLengths)
-			totalSize += len;
-
-		Logger.log("Copying differences to diff file...", Priority.MILESTONE);
-
-		ByteBuffer buf = ByteBuffer.allocate(totalSize);
-		buf.putInt(MOD_PACKAGE_IDENTIFIER);
-		buf.putInt(diffStarts.size());
-
-		for (int i = 0; i < diffStarts.size(); i++) {
-			buf.putInt(diffStarts.get(i));
-			buf.putInt(diffLengths.get(i));
-			buf.put(patched, diffStarts.get(i), diffLengths.get(i));
-		}
-
-		byte[] diffBytes = buf.array();
+		File outMod = new File(MOD_OUT + modName + ".mod");
 
 		if (cfg.getBoolean(Options.CompressModPackage)) {
+			Logger.log("Copying differences to diff file...", Priority.MILESTONE);
+			byte[] diffBytes = diff.toPackage(MOD_PACKAGE_IDENTIFIER);
+			int totalSize = diffBytes.length;
+
 			Logger.log("Compressing diff file...", Priority.MILESTONE);
-			diffBytes = Yay0Helper.encode(diffBytes, true);
+			diffBytes = Yay0Helper.encodeParallel(diffBytes, true);
 			Logger.logf("Compressed %08X -> %08X (%04.2f%%)",
 				totalSize,
 				diffBytes.length,
 				100 * (float) diffBytes.length / totalSize);
+
+			FileUtils.writeByteArrayToFile(outMod, diffBytes);
+		}
+		else {
+			Logger.log("Copying differences to diff file...", Priority.MILESTONE);
+			diff.writePackage(MOD_PACKAGE_IDENTIFIER, outMod);
 		}
 
-		File outMod = new File(MOD_OUT + modName + ".mod");
-		FileUtils.writeByteArrayToFile(outMod, diffBytes);
 		Logger.log("Wrote MOD file to " + outMod, Priority.IMPORTANT);
 		Logger.log("Mod package complete. " + new java.util.Date().toString(), Priority.IMPORTANT);
 	}
@@ -846,8 +845,17 @@ public class Patcher implements IGlobalDatabase
 
 	public void addEmptyRegion(Region r)
 	{
-		//TODO
-		emptyRegions.add(r);
+		freeSpace.free(r);
+	}
+
+	/**
+	 * Finds space for data which can be loaded from anywhere in the ROM, preferring the
+	 * smallest empty region which can hold it before appending to the end of the ROM.
+	 */
+	public int allocateSpace(int size)
+	{
+		long offset = freeSpace.allocate(size, 16);
+		return (offset < 0) ? rp.nextAlignedOffset() : (int) offset;
 	}
 
 	@Override
@@ -856,6 +864,11 @@ public class Patcher implements IGlobalDatabase
 		return rp;
 	}
 
+	public BuildCache getBuildCache()
+	{
+		return buildCache;
+	}
+
 	public int getBattleDataPos(int sizeNeeded)
 	{
 		if (nextBattleDataPos == -1)
@@ -863,8 +876,11 @@ public class Patcher implements IGlobalDatabase
 
 		int offset = nextBattleDataPos;
 		if (offset + sizeNeeded > ROM_BATTLE_DATA_END) {
-			addEmptyRegion(new Region(offset, ROM_BATTLE_DATA_END));
-			offset = rp.nextAlignedOffset();
+			// battle data region is full, everything else goes wherever it fits
+			if (offset < ROM_BATTLE_DATA_END)
+				addEmptyRegion(new Region(offset, ROM_BATTLE_DATA_END));
+			nextBattleDataPos = ROM_BATTLE_DATA_END;
+			return allocateSpace(sizeNeeded);
 		}
 		nextBattleDataPos = offset + sizeNeeded;
 
@@ -899,8 +915,31 @@ public class Patcher implements IGlobalDatabase
 		timerLookup.put(name, new Timer(name));
 	}
 
+	/**
+	 * Compressed sprites and images used to be cached by name in the sprite and image cache
+	 * directories, next to a checksums.txt index. They are kept in the build cache now, so
+	 * remove whatever the old cache left behind. The sprite index cache is kept.
+	 */
+	private static void removeLegacyCompressionCache() throws IOException
+	{
+		FileUtils.deleteDirectory(MOD_IMG_CACHE.toFile());
+
+		for (Directories dir : new Directories[] { MOD_SPR_NPC_CACHE, MOD_SPR_PLR_CACHE }) {
+			if (!new File(dir + FN_SPRITE_CACHE).exists())
+				continue;
+
+			Logger.log("Removing old compressed sprite cache: " + dir);
+			for (File f : dir.toFile().listFiles()) {
+				if (!f.getName().equals("cache.bin"))
+					FileUtils.forceDelete(f);
+			}
+		}
+	}
+
 	private void printTimes()
 	{
+		scheduler.printReport();
+
 		ArrayList<Timer> timers = new ArrayList<>(timerLookup.values());
 		timers.add(new Timer("Done"));
 
@@ -914,8 +953,9 @@ public class Patcher implements IGlobalDatabase
 	private void indexMapObjects(Config cfg, MapConfigTable mapTable) throws IOException
 	{
 		indexedMaps = new LinkedHashMap<>();
-		HashMap<String, MapIndex> cache = loadMapCache();
-		buildMapIndex(cache, mapTable);
+		try (MapIndexStore store = new MapIndexStore(MapIndex.getFile())) {
+			buildMapIndex(store, mapTable);
+		}
 
 		for (AreaConfig area : mapTable.areas) {
 			for (MapConfig mapCfg : area.maps) {
@@ -938,86 +978,69 @@ public class Patcher implements IGlobalDatabase
 		Logger.log("Loaded map index.");
 	}
 
-	private HashMap<String, MapIndex> loadMapCache()
+	private void buildMapIndex(MapIndexStore store, MapConfigTable mapTable) throws IOException
 	{
-		HashMap<String, MapIndex> cache = new HashMap<>();
-
-		File indexFile = MapIndex.getFile();
-		if (!indexFile.exists())
-			return cache;
-
-		try (ObjectInputStream in = new ObjectInputStream(
-			new BufferedInputStream(new FileInputStream(indexFile)))) {
-			String versionString = in.readUTF();
-			if (!versionString.equals(Environment.getVersionString()))
-				return cache;
-
-			int numMaps = in.readInt();
+		// list saved maps once rather than searching the save directory for every map
+		HashMap<String, List<File>> savedMaps = new HashMap<>();
+		for (File f : IOUtils.getFilesWithExtension(MOD_MAP_SAVE, Map.EXTENSION.substring(1), true))
+			savedMaps.computeIfAbsent(f.getName(), (k) -> new ArrayList<>()).add(f);
 
-			for (int i = 0; i < numMaps; i++) {
-				MapIndex index = (MapIndex) in.readObject();
-				String name = index.getMapName();
-				if (!name.isEmpty())
-					cache.put(name, index);
-			}
-
-		}
-		catch (IOException | ClassNotFoundException e) {
-			Logger.printStackTrace(e);
-			return cache;
-		}
-		return cache;
-	}
+		LinkedHashMap<String, File> mapFiles = new LinkedHashMap<>();
+		LinkedHashMap<String, File> staleFiles = new LinkedHashMap<>();
 
-	private void buildMapIndex(HashMap<String, MapIndex> cache, MapConfigTable mapTable) throws IOException
-	{
 		for (AreaConfig area : mapTable.areas) {
 			for (MapConfig mapCfg : area.maps)
-				indexMap(cache, mapCfg);
+				findMapFile(savedMaps, mapCfg, mapFiles);
 
 			for (MapConfig mapCfg : area.stages)
-				indexMap(cache, mapCfg);
+				findMapFile(savedMaps, mapCfg, mapFiles);
 		}
 
-		try (ObjectOutputStream out = new ObjectOutputStream(
-			new BufferedOutputStream(new FileOutputStream(MapIndex.getFile())))) {
-			Collection<MapIndex> indices = indexedMaps.values();
-			out.writeUTF(Environment.getVersionString());
-			out.writeInt(indices.size());
-			for (MapIndex index : indices)
-				out.writeObject(index);
+		for (Entry<String, File> e : mapFiles.entrySet()) {
+			MapIndex cached = store.get(e.getKey());
+			if (cached == null || cached.sourceLastModified() != e.getValue().lastModified())
+				staleFiles.put(e.getKey(), e.getValue());
 		}
+
+		if (!staleFiles.isEmpty())
+			Logger.logf("Indexing %d modified maps...", staleFiles.size());
+
+		// only modified maps are loaded, and loading is independent for each map
+		List<MapIndex> loaded = staleFiles.values().parallelStream()
+			.map((f) -> new MapIndex(Map.loadMap(f)))
+			.collect(Collectors.toList());
+
+		for (MapIndex index : loaded)
+			store.put(index);
+
+		for (String name : mapFiles.keySet())
+			indexedMaps.put(name, store.get(name));
+
+		store.retainAll(mapFiles.keySet());
 	}
 
-	private void indexMap(HashMap<String, MapIndex> cache, MapConfig cfg)
+	private void findMapFile(HashMap<String, List<File>> savedMaps, MapConfig cfg, LinkedHashMap<String, File> mapFiles)
 	{
-		File[] matches = IOUtils.getFileWithin(MOD_MAP_SAVE, cfg.name + Map.EXTENSION, true);
-		if (matches.length > 1)
-			throw new StarRodException("Found multiple files named " + cfg.name + Map.EXTENSION + " in " + MOD_MAP_SAVE);
+		String filename = cfg.name + Map.EXTENSION;
+		List<File> matches = savedMaps.getOrDefault(filename, Collections.emptyList());
+		if (matches.size() > 1)
+			throw new StarRodException("Found multiple files named " + filename + " in " + MOD_MAP_SAVE);
 
 		File mapFile;
-		if (matches.length == 0)
-			mapFile = new File(MOD_MAP_SRC + cfg.name + Map.EXTENSION);
+		if (matches.size() == 0)
+			mapFile = new File(MOD_MAP_SRC + filename);
 		else
-			mapFile = matches[0];
+			mapFile = matches.get(0);
 
 		if (!mapFile.exists())
 			return;
 
-		MapIndex cached = cache.get(cfg.name);
-		if (cached != null && cached.sourceLastModified() == mapFile.lastModified()) {
-			indexedMaps.put(cfg.name, cached);
-			return;
-		}
-
-		Map map = Map.loadMap(mapFile);
-
-		if (indexedMaps.containsKey(cfg.name)) {
+		if (mapFiles.containsKey(cfg.name)) {
 			Logger.logWarning("Map index already contains entry for " + cfg.name + "! Ignoring duplicate entry.");
 			return;
 		}
 
-		indexedMaps.put(cfg.name, new MapIndex(map));
+		mapFiles.put(cfg.name, mapFile);
 	}
 
 	@Override
@@ -0,0 +1,206 @@
+package patcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Runs of bytes which differ between the base ROM and a patched ROM, along with the
+ * serialization used by mod packages. Differences separated by fewer than 8 matching
+ * bytes are merged into a single run, and anything past the end of the base ROM is
+ * always included as a final run.
+ */
+public class RomDiff
+{
+	private static final int MERGE_DISTANCE = 8;
+
+	private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+	private final ByteBuffer patched;
+	private int[] starts = new int[64];
+	private int[] lengths = new int[64];
+	private int count = 0;
+
+	private RomDiff(ByteBuffer patched)
+	{
+		this.patched = patched;
+	}
+
+	/**
+	 * Reads a ROM into a heap buffer. ROMs in the output directory are rewritten by the next build,
+	 * which fails on Windows while a mapping of the file is still waiting to be collected.
+	 */
+	public static ByteBuffer read(File f) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("ROM is too large: " + f.getName());
+
+			ByteBuffer bb = ByteBuffer.allocate((int) size);
+			while (bb.hasRemaining()) {
+				if (channel.read(bb, bb.position()) < 0)
+					throw new IOException("Unexpected end of file: " + f.getName());
+			}
+			bb.flip();
+			return bb;
+		}
+	}
+
+	public static RomDiff compute(ByteBuffer base, ByteBuffer patched)
+	{
+		int baseLength = base.limit();
+		int patchedLength = patched.limit();
+
+		if (patchedLength < baseLength)
+			throw new IllegalArgumentException("Patched ROM should not be smaller than base ROM!");
+
+		RomDiff diff = new RomDiff(patched);
+		int lastEnd = Integer.MIN_VALUE;
+		int pos = 0;
+
+		while ((pos = findMismatch(base, patched, pos, baseLength)) < baseLength) {
+			int end = findMatch(base, patched, pos, baseLength);
+
+			int start = pos;
+			if (pos < lastEnd + MERGE_DISTANCE) {
+				diff.count--;
+				start = diff.starts[diff.count];
+			}
+
+			diff.add(start, end - start);
+			lastEnd = end;
+			pos = end;
+		}
+
+		if (patchedLength > baseLength) {
+			if (diff.count > 0 && lastEnd == baseLength)
+				diff.lengths[diff.count - 1] = patchedLength - diff.starts[diff.count - 1];
+			else
+				diff.add(baseLength, patchedLength - baseLength);
+		}
+
+		return diff;
+	}
+
+	/**
+	 * @return first position at or after <code>pos</code> where the buffers differ, or <code>end</code>
+	 */
+	private static int findMismatch(ByteBuffer a, ByteBuffer b, int pos, int end)
+	{
+		while (pos + 8 <= end) {
+			long x = a.getLong(pos) ^ b.getLong(pos);
+			if (x != 0)
+				return pos + (Long.numberOfLeadingZeros(x) >>> 3);
+			pos += 8;
+		}
+
+		while (pos < end && a.get(pos) == b.get(pos))
+			pos++;
+		return pos;
+	}
+
+	/**
+	 * @return first position at or after <code>pos</code> where the buffers agree, or <code>end</code>
+	 */
+	private static int findMatch(ByteBuffer a, ByteBuffer b, int pos, int end)
+	{
+		while (pos + 8 <= end) {
+			long x = a.getLong(pos) ^ b.getLong(pos);
+
+			// set the high bit of every byte which is zero in x, without borrows between bytes
+			long zeros = ~(((x & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | x | LOW_SEVEN_BITS);
+			if (zeros != 0)
+				return pos + (Long.numberOfLeadingZeros(zeros) >>> 3);
+			pos += 8;
+		}
+
+		while (pos < end && a.get(pos) != b.get(pos))
+			pos++;
+		return pos;
+	}
+
+	private void add(int start, int length)
+	{
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, 2 * count);
+			lengths = Arrays.copyOf(lengths, 2 * count);
+		}
+		starts[count] = start;
+		lengths[count] = length;
+		count++;
+	}
+
+	public int getCount()
+	{
+		return count;
+	}
+
+	public int getStart(int i)
+	{
+		return starts[i];
+	}
+
+	public int getLength(int i)
+	{
+		return lengths[i];
+	}
+
+	public int getPackageSize()
+	{
+		int totalSize = 8 + 8 * count;
+		for (int i = 0; i < count; i++)
+			totalSize += lengths[i];
+		return totalSize;
+	}
+
+	/**
+	 * Serializes the package into memory: the identifier, the number of runs,
+	 * then the offset, length, and contents of each run.
+	 */
+	public byte[] toPackage(int identifier)
+	{
+		ByteBuffer buf = ByteBuffer.allocate(getPackageSize());
+		buf.putInt(identifier);
+		buf.putInt(count);
+
+		for (int i = 0; i < count; i++) {
+			buf.putInt(starts[i]);
+			buf.putInt(lengths[i]);
+			buf.put(patched.slice(starts[i], lengths[i]));
+		}
+
+		return buf.array();
+	}
+
+	/**
+	 * Streams the same package produced by {@link #toPackage(int)} to a file,
+	 * copying each run directly from the patched ROM.
+	 */
+	public void writePackage(int identifier, File out) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(8);
+
+		try (FileChannel channel = FileChannel.open(out.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			header.putInt(identifier).putInt(count).flip();
+			writeFully(channel, header);
+
+			for (int i = 0; i < count; i++) {
+				header.clear();
+				header.putInt(starts[i]).putInt(lengths[i]).flip();
+				writeFully(channel, header);
+				writeFully(channel, patched.slice(starts[i], lengths[i]));
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer bb) throws IOException
+	{
+		while (bb.hasRemaining())
+			channel.write(bb);
+	}
+}
@@ -0,0 +1,272 @@
+package patcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A growable big-endian view of the output ROM. Reads fall through to a read-only base image
+ * (usually a memory-mapped base ROM) until a page is first written, at which point a private
+ * copy of that page is made. Only modified pages are held in memory.
+ */
+public class RomImage
+{
+	public static final int PAGE_BITS = 12;
+	public static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private final ByteBuffer base;
+	private final int baseSize;
+
+	private byte[][] pages;
+	private int dirtyPageCount;
+	private int position;
+
+	public RomImage(ByteBuffer base)
+	{
+		this.base = base;
+		this.baseSize = base.limit();
+		pages = new byte[getPageCount(baseSize) * 2][];
+	}
+
+	private static int getPageCount(int size)
+	{
+		return (size + PAGE_MASK) >>> PAGE_BITS;
+	}
+
+	private byte[] getPage(int index)
+	{
+		return (index < pages.length) ? pages[index] : null;
+	}
+
+	private byte[] getWritablePage(int index)
+	{
+		if (index >= pages.length)
+			pages = Arrays.copyOf(pages, Math.max(index + 1, pages.length * 2));
+
+		byte[] page = pages[index];
+		if (page == null) {
+			page = new byte[PAGE_SIZE];
+			int pageStart = index << PAGE_BITS;
+			if (pageStart < baseSize)
+				base.get(pageStart, page, 0, Math.min(PAGE_SIZE, baseSize - pageStart));
+			pages[index] = page;
+			dirtyPageCount++;
+		}
+		return page;
+	}
+
+	public int getBaseSize()
+	{
+		return baseSize;
+	}
+
+	public int getDirtyPageCount()
+	{
+		return dirtyPageCount;
+	}
+
+	public int position()
+	{
+		return position;
+	}
+
+	public void position(int pos)
+	{
+		if (pos < 0)
+			throw new IllegalArgumentException("Invalid ROM position: " + pos);
+		position = pos;
+	}
+
+	private byte getByteAt(int pos)
+	{
+		byte[] page = getPage(pos >>> PAGE_BITS);
+		if (page != null)
+			return page[pos & PAGE_MASK];
+		else if (pos < baseSize)
+			return base.get(pos);
+		else
+			return 0;
+	}
+
+	private void putByteAt(int pos, byte b)
+	{
+		getWritablePage(pos >>> PAGE_BITS)[pos & PAGE_MASK] = b;
+	}
+
+	public byte get()
+	{
+		return getByteAt(position++);
+	}
+
+	public short getShort()
+	{
+		int v = (getByteAt(position) & 0xFF) << 8 | (getByteAt(position + 1) & 0xFF);
+		position += 2;
+		return (short) v;
+	}
+
+	public int getInt()
+	{
+		int pos = position;
+		int v = (getByteAt(pos) & 0xFF) << 24
+			| (getByteAt(pos + 1) & 0xFF) << 16
+			| (getByteAt(pos + 2) & 0xFF) << 8
+			| (getByteAt(pos + 3) & 0xFF);
+		position += 4;
+		return v;
+	}
+
+	public void get(byte[] dst)
+	{
+		get(dst, 0, dst.length);
+	}
+
+	public void get(byte[] dst, int offset, int length)
+	{
+		while (length > 0) {
+			int pageOffset = position & PAGE_MASK;
+			int n = Math.min(length, PAGE_SIZE - pageOffset);
+			byte[] page = getPage(position >>> PAGE_BITS);
+
+			if (page != null) {
+				System.arraycopy(page, pageOffset, dst, offset, n);
+			}
+			else {
+				int fromBase = Math.max(0, Math.min(n, baseSize - position));
+				if (fromBase > 0)
+					base.get(position, dst, offset, fromBase);
+				Arrays.fill(dst, offset + fromBase, offset + n, (byte) 0);
+			}
+
+			position += n;
+			offset += n;
+			length -= n;
+		}
+	}
+
+	public void put(byte b)
+	{
+		putByteAt(position++, b);
+	}
+
+	public void putShort(short v)
+	{
+		putByteAt(position, (byte) (v >> 8));
+		putByteAt(position + 1, (byte) v);
+		position += 2;
+	}
+
+	public void putInt(int v)
+	{
+		int pageOffset = position & PAGE_MASK;
+		if (pageOffset <= PAGE_SIZE - 4) {
+			byte[] page = getWritablePage(position >>> PAGE_BITS);
+			page[pageOffset] = (byte) (v >> 24);
+			page[pageOffset + 1] = (byte) (v >> 16);
+			page[pageOffset + 2] = (byte) (v >> 8);
+			page[pageOffset + 3] = (byte) v;
+		}
+		else {
+			putByteAt(position, (byte) (v >> 24));
+			putByteAt(position + 1, (byte) (v >> 16));
+			putByteAt(position + 2, (byte) (v >> 8));
+			putByteAt(position + 3, (byte) v);
+		}
+		position += 4;
+	}
+
+	public void putLong(long v)
+	{
+		putInt((int) (v >> 32));
+		putInt((int) v);
+	}
+
+	public void putFloat(float f)
+	{
+		putInt(Float.floatToRawIntBits(f));
+	}
+
+	public void putDouble(double d)
+	{
+		putLong(Double.doubleToRawLongBits(d));
+	}
+
+	public void put(byte[] src)
+	{
+		put(src, 0, src.length);
+	}
+
+	public void put(byte[] src, int offset, int length)
+	{
+		while (length > 0) {
+			int pageOffset = position & PAGE_MASK;
+			int n = Math.min(length, PAGE_SIZE - pageOffset);
+			System.arraycopy(src, offset, getWritablePage(position >>> PAGE_BITS), pageOffset, n);
+
+			position += n;
+			offset += n;
+			length -= n;
+		}
+	}
+
+	/**
+	 * Copies the remaining bytes of a buffer, advancing its position to the limit.
+	 */
+	public void put(ByteBuffer src)
+	{
+		while (src.hasRemaining()) {
+			int pageOffset = position & PAGE_MASK;
+			int n = Math.min(src.remaining(), PAGE_SIZE - pageOffset);
+			src.get(getWritablePage(position >>> PAGE_BITS), pageOffset, n);
+			position += n;
+		}
+	}
+
+	/**
+	 * Streams the first <code>length</code> bytes of the image to a file. Runs of unmodified
+	 * pages are written straight from the base image, so only dirty pages are copied.
+	 */
+	public void writeTo(File out, int length) throws IOException
+	{
+		ByteBuffer zeros = ByteBuffer.allocate(PAGE_SIZE);
+
+		try (FileChannel channel = FileChannel.open(out.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			int pos = 0;
+			while (pos < length) {
+				int pageEnd = Math.min(length, (pos | PAGE_MASK) + 1);
+				byte[] page = getPage(pos >>> PAGE_BITS);
+
+				if (page != null) {
+					writeFully(channel, ByteBuffer.wrap(page, pos & PAGE_MASK, pageEnd - pos));
+					pos = pageEnd;
+				}
+				else if (pos < baseSize) {
+					// coalesce clean pages into a single write from the base image
+					int runEnd = pageEnd;
+					while (runEnd < length && runEnd < baseSize && getPage(runEnd >>> PAGE_BITS) == null)
+						runEnd = Math.min(length, runEnd + PAGE_SIZE);
+					runEnd = Math.min(runEnd, baseSize);
+
+					writeFully(channel, base.slice(pos, runEnd - pos));
+					pos = runEnd;
+				}
+				else {
+					zeros.clear().limit(pageEnd - pos);
+					writeFully(channel, zeros);
+					pos = pageEnd;
+				}
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer bb) throws IOException
+	{
+		while (bb.hasRemaining())
+			channel.write(bb);
+	}
+}
@@ -7,7 +7,6 @@ import java.nio.ByteBuffer;
 import app.Environment;
 import app.StarRodException;
 import app.config.Options;
-import app.input.IOUtils;
 
 public class RomPatcher
 {
@@ -18,20 +17,22 @@ public class RomPatcher
 	public static final int RAM_BASE = 0x80400000;
 
 	private final File file;
-	private final ByteBuffer fileBuffer;
+	private final RomImage fileBuffer;
 	private ConflictTree conflicts = new ConflictTree();
 	private String currentSource = null;
 	private int lastPos = 0;
 
-	public RomPatcher(int bufferSize, File sourceFile) throws IOException
+	/**
+	 * @param base read-only contents of the unmodified ROM, typically memory-mapped
+	 * @param targetFile output file written by {@link #writeFile()}
+	 */
+	public RomPatcher(ByteBuffer base, File targetFile)
 	{
-		this.file = sourceFile;
-		fileBuffer = ByteBuffer.allocateDirect(bufferSize);
+		this.file = targetFile;
+		fileBuffer = new RomImage(base);
 		conflicts = new ConflictTree();
 
-		ByteBuffer sourceBuffer = IOUtils.getDirectBuffer(sourceFile);
-		fileBuffer.put(sourceBuffer);
-		lastPos = fileBuffer.position();
+		lastPos = fileBuffer.getBaseSize();
 	}
 
 	public void print()
@@ -51,15 +52,14 @@ public class RomPatcher
 	}
 
 	//TODO be careful with this!
-	public ByteBuffer getBuffer()
+	public RomImage getImage()
 	{
 		return fileBuffer;
 	}
 
 	public void writeFile() throws IOException
 	{
-		fileBuffer.limit(nextAlignedOffset());
-		IOUtils.writeBufferToFile(fileBuffer, file);
+		fileBuffer.writeTo(file, nextAlignedOffset());
 	}
 
 	public void seek(String source, int offset)
@@ -0,0 +1,151 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An int array which can be compressed while it is not needed. Values are delta encoded as
+ * zig-zag varints before deflating, which suits coordinates and colors stored next to similar ones.
+ * The array is decompressed again the next time it is accessed.
+ */
+public class CompressibleIntArray
+{
+	// header and length field of an array on a 64-bit JVM with compressed references
+	private static final int ARRAY_HEADER = 16;
+
+	private final int length;
+	private int[] values;
+	private byte[] compressed;
+
+	/**
+	 * Takes ownership of the array.
+	 */
+	public CompressibleIntArray(int[] values)
+	{
+		this.length = values.length;
+		this.values = values;
+	}
+
+	public int length()
+	{
+		return length;
+	}
+
+	public boolean isCompressed()
+	{
+		return values == null;
+	}
+
+	/**
+	 * @return the values, decompressing them if necessary
+	 */
+	public int[] get()
+	{
+		if (values == null) {
+			values = decode(inflate(compressed));
+			compressed = null;
+		}
+		return values;
+	}
+
+	public void compress()
+	{
+		if (values == null)
+			return;
+
+		compressed = deflate(encode(values));
+		values = null;
+	}
+
+	/**
+	 * @return approximate number of bytes held
+	 */
+	public long getMemoryUsage()
+	{
+		if (values == null)
+			return ARRAY_HEADER + compressed.length;
+		else
+			return ARRAY_HEADER + 4L * values.length;
+	}
+
+	private static byte[] encode(int[] values)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(values.length + 16);
+		int last = 0;
+		for (int v : values) {
+			int delta = v - last;
+			int zigzag = (delta << 1) ^ (delta >> 31);
+			while ((zigzag & ~0x7F) != 0) {
+				out.write((zigzag & 0x7F) | 0x80);
+				zigzag >>>= 7;
+			}
+			out.write(zigzag);
+			last = v;
+		}
+		return out.toByteArray();
+	}
+
+	private int[] decode(byte[] bytes)
+	{
+		int[] decoded = new int[length];
+		int pos = 0;
+		int last = 0;
+		for (int i = 0; i < length; i++) {
+			int zigzag = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = bytes[pos++];
+				zigzag |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((b & 0x80) != 0);
+
+			last += (zigzag >>> 1) ^ -(zigzag & 1);
+			decoded[i] = last;
+		}
+		return decoded;
+	}
+
+	private static byte[] deflate(byte[] bytes)
+	{
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		deflater.setInput(bytes);
+		deflater.finish();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+		byte[] buffer = new byte[4096];
+		while (!deflater.finished()) {
+			int count = deflater.deflate(buffer);
+			out.write(buffer, 0, count);
+		}
+		deflater.end();
+		return out.toByteArray();
+	}
+
+	private static byte[] inflate(byte[] bytes)
+	{
+		Inflater inflater = new Inflater();
+		inflater.setInput(bytes);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(2 * bytes.length + 16);
+		byte[] buffer = new byte[4096];
+		try {
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if (count == 0 && inflater.needsInput())
+					throw new IllegalStateException("Compressed array is truncated.");
+				out.write(buffer, 0, count);
+			}
+		}
+		catch (DataFormatException e) {
+			throw new IllegalStateException("Compressed array is corrupt: " + e.getMessage());
+		}
+		finally {
+			inflater.end();
+		}
+		return out.toByteArray();
+	}
+}
@@ -34,12 +34,18 @@ public class LogFile implements Logger.Listener, AutoCloseable
 	public void post(Message msg)
 	{
 		pw.println(msg.text);
+	}
+
+	@Override
+	public void flush()
+	{
 		pw.flush();
 	}
 
 	@Override
 	public void close()
 	{
+		Logger.flush();
 		Logger.removeListener(this);
 		pw.close();
 	}
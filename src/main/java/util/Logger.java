@@ -3,18 +3,34 @@ package util;
 import static util.Priority.MILESTONE;
 import static util.Priority.STANDARD;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 public abstract class Logger
 {
-	private static List<ListenerReference> listeners = new LinkedList<>();
-	private static Priority minListenerPriority = STANDARD;
+	private static List<ListenerReference> listeners = new CopyOnWriteArrayList<>();
+	private static volatile Priority minListenerPriority = STANDARD;
 
-	private static Listener progressListener;
+	private static volatile Listener progressListener;
 
-	private static Priority defaultPriority = STANDARD;
-	private static boolean enabled = true;
+	private static volatile Priority defaultPriority = STANDARD;
+	private static volatile boolean enabled = true;
+
+	// asynchronous mode
+	private static final int QUEUE_SIZE = 1 << 14;
+	private static final int MAX_BATCH_SIZE = 1024;
+
+	private static volatile RingBuffer queue = null;
+	private static volatile Thread consumer = null;
+	private static volatile boolean consumerWaiting = false;
+	private static volatile boolean stopRequested = false;
+	private static volatile long deliveredCount = 0;
+	private static boolean addedShutdownHook = false;
 
 	public static final class Message
 	{
@@ -31,6 +47,12 @@ public abstract class Logger
 	public static interface Listener
 	{
 		void post(Message msg);
+
+		/**
+		 * Called after each batch of messages has been posted.
+		 */
+		default void flush()
+		{}
 	}
 
 	private static final class ListenerReference
@@ -47,13 +69,10 @@ public abstract class Logger
 
 	public static void addListener(Listener listener)
 	{
-		listeners.add(new ListenerReference(listener, defaultPriority));
-
-		if (minListenerPriority.greaterThan(defaultPriority))
-			minListenerPriority = defaultPriority;
+		addListener(listener, defaultPriority);
 	}
 
-	public static void addListener(Listener listener, Priority p)
+	public static synchronized void addListener(Listener listener, Priority p)
 	{
 		listeners.add(new ListenerReference(listener, p));
 
@@ -61,15 +80,16 @@ public abstract class Logger
 			minListenerPriority = p;
 	}
 
-	public static void removeListener(Listener listener)
+	public static synchronized void removeListener(Listener listener)
 	{
-		listeners.remove(listener);
+		listeners.removeIf((ref) -> ref.listener == listener);
 
-		minListenerPriority = MILESTONE;
+		Priority min = MILESTONE;
 		for (ListenerReference r : listeners) {
-			if (minListenerPriority.greaterThan(r.priority))
-				minListenerPriority = r.priority;
+			if (min.greaterThan(r.priority))
+				min = r.priority;
 		}
+		minListenerPriority = min;
 	}
 
 	public static void setProgressListener(Listener listener)
@@ -82,23 +102,301 @@ public abstract class Logger
 		progressListener = null;
 	}
 
+	/**
+	 * Messages which have been logged but not yet formatted or delivered.
+	 * Formatting is only deferred when every argument is immutable, otherwise the
+	 * message could show state from after it was logged.
+	 */
+	private static final class PendingMessage
+	{
+		private final String format;
+		private final Object[] args;
+		private final Priority priority;
+
+		private PendingMessage(String format, Object[] args, Priority priority)
+		{
+			if (args != null && !isImmutable(args)) {
+				format = String.format(format, args);
+				args = null;
+			}
+
+			this.format = format;
+			this.args = args;
+			this.priority = priority;
+		}
+
+		private static boolean isImmutable(Object[] args)
+		{
+			for (Object arg : args) {
+				if (arg == null || arg instanceof String || arg instanceof Enum)
+					continue;
+				if (arg instanceof Integer || arg instanceof Long || arg instanceof Float || arg instanceof Double
+					|| arg instanceof Short || arg instanceof Byte || arg instanceof Character || arg instanceof Boolean)
+					continue;
+				return false;
+			}
+			return true;
+		}
+
+		private String getText()
+		{
+			return (args == null) ? format : String.format(format, args);
+		}
+	}
+
+	/**
+	 * Bounded multi-producer ring buffer. Each slot has a sequence number which tells producers
+	 * when the slot is free and the consumer when it has been filled, so neither side locks.
+	 * Only the logging thread may call {@link #poll()}.
+	 */
+	private static final class RingBuffer
+	{
+		private final int mask;
+		private final AtomicReferenceArray<PendingMessage> slots;
+		private final AtomicLongArray sequences;
+		private final AtomicLong tail = new AtomicLong();
+		private volatile long head = 0;
+
+		private RingBuffer(int capacity)
+		{
+			mask = capacity - 1;
+			slots = new AtomicReferenceArray<>(capacity);
+			sequences = new AtomicLongArray(capacity);
+			for (int i = 0; i < capacity; i++)
+				sequences.set(i, i);
+		}
+
+		private boolean offer(PendingMessage msg)
+		{
+			long pos = tail.get();
+			while (true) {
+				int i = (int) (pos & mask);
+				long diff = sequences.get(i) - pos;
+
+				if (diff == 0) {
+					if (tail.compareAndSet(pos, pos + 1)) {
+						slots.set(i, msg);
+						sequences.set(i, pos + 1);
+						return true;
+					}
+					pos = tail.get();
+				}
+				else if (diff < 0)
+					return false; // full
+				else
+					pos = tail.get();
+			}
+		}
+
+		private PendingMessage poll()
+		{
+			long pos = head;
+			int i = (int) (pos & mask);
+			if (sequences.get(i) != pos + 1)
+				return null;
+
+			PendingMessage msg = slots.get(i);
+			slots.set(i, null);
+			sequences.set(i, pos + mask + 1);
+			head = pos + 1;
+			return msg;
+		}
+
+		private long getPublishedCount()
+		{
+			return tail.get();
+		}
+	}
+
+	/**
+	 * In asynchronous mode, logging only places the message in a queue. A background thread
+	 * formats queued messages and delivers them in batches, so the console and log files are
+	 * written once per batch rather than once per message. Errors and {@link #flush()}
+	 * wait for all earlier messages to be delivered. Disabling asynchronous mode delivers
+	 * any remaining messages before returning.
+	 */
+	public static synchronized void setAsynchronous(boolean async)
+	{
+		if (async == (consumer != null))
+			return;
+
+		if (async) {
+			queue = new RingBuffer(QUEUE_SIZE);
+			deliveredCount = 0;
+			stopRequested = false;
+
+			consumer = new Thread(Logger::consume, "Logger");
+			consumer.setDaemon(true);
+			consumer.start();
+
+			if (!addedShutdownHook) {
+				Runtime.getRuntime().addShutdownHook(new Thread(Logger::flush));
+				addedShutdownHook = true;
+			}
+		}
+		else {
+			Thread t = consumer;
+			stopRequested = true;
+			LockSupport.unpark(t);
+
+			try {
+				t.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			consumer = null;
+			queue = null;
+		}
+	}
+
+	/**
+	 * Blocks until every message logged before this call has been delivered.
+	 */
+	public static void flush()
+	{
+		RingBuffer q = queue;
+		Thread t = consumer;
+		if (q == null || t == null || Thread.currentThread() == t)
+			return;
+
+		long target = q.getPublishedCount();
+		while (deliveredCount < target && t.isAlive()) {
+			LockSupport.unpark(t);
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+	}
+
+	private static void consume()
+	{
+		RingBuffer q = queue;
+		StringBuilder console = new StringBuilder();
+		int delivered = 0;
+
+		while (true) {
+			PendingMessage msg = q.poll();
+
+			if (msg != null) {
+				// a bad format string or listener must not stop the logging thread
+				String text;
+				try {
+					text = msg.getText();
+				}
+				catch (Throwable e) {
+					text = msg.format;
+				}
+
+				try {
+					deliver(text, msg.priority, console);
+				}
+				catch (Throwable e) {
+					console.append("> ERROR: Log listener failed: ").append(e).append(System.lineSeparator());
+				}
+				delivered++;
+				if (delivered < MAX_BATCH_SIZE)
+					continue;
+			}
+
+			if (delivered > 0) {
+				endBatch(console);
+				deliveredCount = q.head;
+				delivered = 0;
+				continue;
+			}
+
+			// queue is empty
+			if (stopRequested && q.head == q.getPublishedCount())
+				return;
+
+			consumerWaiting = true;
+			if (q.sequences.get((int) (q.head & q.mask)) != q.head + 1)
+				LockSupport.park();
+			consumerWaiting = false;
+		}
+	}
+
+	private static void endBatch(StringBuilder console)
+	{
+		if (console.length() > 0) {
+			System.out.print(console);
+			System.out.flush();
+			console.setLength(0);
+		}
+
+		for (ListenerReference ref : listeners) {
+			try {
+				ref.listener.flush();
+			}
+			catch (Throwable e) {
+				System.out.println("> ERROR: Log listener failed to flush: " + e);
+			}
+		}
+	}
+
 	private static void broadcast(String text, Priority p)
+	{
+		broadcast(text, null, p);
+	}
+
+	private static void broadcast(String format, Object[] args, Priority p)
 	{
 		if (!enabled)
 			return;
 
+		RingBuffer q = queue;
+		Thread t = consumer;
+
+		if (q == null || t == null || Thread.currentThread() == t || !t.isAlive()) {
+			deliverNow(format, args, p);
+			return;
+		}
+
+		PendingMessage msg = new PendingMessage(format, args, p);
+		while (!q.offer(msg)) {
+			// queue is full, wait for the logging thread to catch up
+			if (!t.isAlive()) {
+				deliverNow(msg.format, msg.args, p);
+				return;
+			}
+			LockSupport.unpark(t);
+			Thread.yield();
+		}
+
+		if (consumerWaiting)
+			LockSupport.unpark(t);
+
+		if (p == Priority.ERROR)
+			flush();
+	}
+
+	private static void deliverNow(String format, Object[] args, Priority p)
+	{
+		String text = (args == null) ? format : String.format(format, args);
+		deliver(text, p, null);
+		for (ListenerReference ref : listeners)
+			ref.listener.flush();
+	}
+
+	/**
+	 * Sends a message to the console and listeners. Console output is appended to
+	 * <code>console</code> if it is not null, otherwise it is printed immediately.
+	 */
+	private static void deliver(String text, Priority p, StringBuilder console)
+	{
 		Message msg = new Message(text, p);
+		Listener progress = progressListener;
 
 		switch (p) {
 			case UPDATE:
 				// update messages are only intended for the progress listener
-				if (progressListener != null)
-					progressListener.post(msg);
+				if (progress != null)
+					progress.post(msg);
 				return;
 			case MILESTONE:
 				// progress listener also recieves milestone messages
-				if (progressListener != null)
-					progressListener.post(msg);
+				if (progress != null)
+					progress.post(msg);
 				break;
 			case WARNING:
 				text = "WARNING: " + text;
@@ -110,10 +408,11 @@ public abstract class Logger
 		}
 
 		if (!p.lessThan(defaultPriority)) {
-			if (text == null || text.isEmpty())
-				System.out.println(">");
+			String line = (text == null || text.isEmpty()) ? ">" : "> " + text;
+			if (console != null)
+				console.append(line).append(System.lineSeparator());
 			else
-				System.out.println("> " + text);
+				System.out.println(line);
 		}
 
 		if (p.lessThan(minListenerPriority))
@@ -132,7 +431,7 @@ public abstract class Logger
 
 	public static void logfError(String format, Object ... args)
 	{
-		broadcast(String.format(format, args), Priority.ERROR);
+		broadcast(format, args, Priority.ERROR);
 	}
 
 	public static void logWarning(String message)
@@ -142,7 +441,7 @@ public abstract class Logger
 
 	public static void logfWarning(String format, Object ... args)
 	{
-		broadcast(String.format(format, args), Priority.WARNING);
+		broadcast(format, args, Priority.WARNING);
 	}
 
 	public static void log(String message)
@@ -152,7 +451,7 @@ public abstract class Logger
 
 	public static void logf(String format, Object ... args)
 	{
-		broadcast(String.format(format, args), Priority.STANDARD);
+		broadcast(format, args, Priority.STANDARD);
 	}
 
 	public static void logDetail(String message)
@@ -162,7 +461,7 @@ public abstract class Logger
 
 	public static void logfDetail(String format, Object ... args)
 	{
-		broadcast(String.format(format, args), Priority.DETAIL);
+		broadcast(format, args, Priority.DETAIL);
 	}
 
 	public static void log(String message, Priority p)
@@ -200,5 +499,7 @@ public abstract class Logger
 		broadcast(t.getMessage(), Priority.IMPORTANT);
 		for (StackTraceElement ele : stackTrace)
 			broadcast("  at " + ele, Priority.IMPORTANT);
+
+		flush();
 	}
 }
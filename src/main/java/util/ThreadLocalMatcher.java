@@ -0,0 +1,105 @@
+package util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drop-in replacement for a shared static {@link Matcher}. Each thread gets its own matcher
+ * for the pattern, so parsers which reset and query a static matcher may be called from any
+ * number of threads. As with a plain matcher, results are only valid until the next reset
+ * from the same thread.
+ */
+public class ThreadLocalMatcher
+{
+	private final Pattern pattern;
+	private final ThreadLocal<Matcher> local;
+
+	public ThreadLocalMatcher(Pattern pattern)
+	{
+		this.pattern = pattern;
+		local = ThreadLocal.withInitial(() -> pattern.matcher(""));
+	}
+
+	public Pattern pattern()
+	{
+		return pattern;
+	}
+
+	/**
+	 * @return the matcher owned by the calling thread
+	 */
+	public Matcher get()
+	{
+		return local.get();
+	}
+
+	public Matcher reset(CharSequence input)
+	{
+		return local.get().reset(input);
+	}
+
+	public boolean matches()
+	{
+		return local.get().matches();
+	}
+
+	public boolean find()
+	{
+		return local.get().find();
+	}
+
+	public String group()
+	{
+		return local.get().group();
+	}
+
+	public String group(int group)
+	{
+		return local.get().group(group);
+	}
+
+	public String group(String name)
+	{
+		return local.get().group(name);
+	}
+
+	public int groupCount()
+	{
+		return local.get().groupCount();
+	}
+
+	public int start()
+	{
+		return local.get().start();
+	}
+
+	public int end()
+	{
+		return local.get().end();
+	}
+
+	public String replaceAll(String replacement)
+	{
+		return local.get().replaceAll(replacement);
+	}
+
+	public Matcher appendReplacement(StringBuilder sb, String replacement)
+	{
+		return local.get().appendReplacement(sb, replacement);
+	}
+
+	public Matcher appendReplacement(StringBuffer sb, String replacement)
+	{
+		return local.get().appendReplacement(sb, replacement);
+	}
+
+	public StringBuilder appendTail(StringBuilder sb)
+	{
+		return local.get().appendTail(sb);
+	}
+
+	public StringBuffer appendTail(StringBuffer sb)
+	{
+		return local.get().appendTail(sb);
+	}
+}
@@ -0,0 +1,195 @@
+package util.xml;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import app.input.InputFileException;
+import util.xml.XmlWrapper.XmlReader;
+import util.xml.XmlWrapper.XmlSerializable;
+
+/**
+ * Reads an XML file with a pull parser instead of building a DOM for the whole document.
+ * Callers step through the children of an element with {@link #nextChild()}, then either
+ * {@link #enter()} the child to step through its own children, read it with
+ * {@link #readElement()}, or {@link #skipElement()}. Elements which are read are detached
+ * from any document, so they can be passed to existing {@link XmlSerializable#fromXML}
+ * methods and are collected as soon as the caller drops them. Only the element currently
+ * being read is ever held in memory, so the root element has its attributes but none of
+ * its children.
+ */
+public class XmlStreamReader extends XmlReader implements Closeable
+{
+	// factories are not guaranteed to be thread-safe and creating one involves a service lookup,
+	// so keep one factory per thread
+	private static final ThreadLocal<XMLInputFactory> FACTORIES = ThreadLocal.withInitial(() -> {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	});
+
+	private final InputStream in;
+	private final XMLStreamReader reader;
+	private final Document owner;
+
+	/**
+	 * Opens the file and reads the attributes of its root element.
+	 * The reader is then positioned to step through the children of the root.
+	 */
+	public XmlStreamReader(File xmlFile) throws IOException
+	{
+		super(xmlFile, (Element) null);
+
+		in = new BufferedInputStream(new FileInputStream(xmlFile));
+		try {
+			reader = FACTORIES.get().createXMLStreamReader(in);
+			owner = getDocumentBuilder().newDocument();
+
+			while (reader.next() != XMLStreamConstants.START_ELEMENT)
+				;
+			setRootElement(createElement());
+		}
+		catch (XMLStreamException | RuntimeException e) {
+			in.close();
+			throw (e instanceof InputFileException) ? (InputFileException) e : new InputFileException(xmlFile, e.getMessage());
+		}
+	}
+
+	/**
+	 * Advances to the next child of the element being stepped through.
+	 * If this returns true, the child must be consumed with {@link #enter()},
+	 * {@link #readElement()}, or {@link #skipElement()} before calling this again.
+	 * @return false once the end of the element is reached
+	 */
+	public boolean nextChild()
+	{
+		try {
+			while (true) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						return true;
+					case XMLStreamConstants.END_ELEMENT:
+					case XMLStreamConstants.END_DOCUMENT:
+						return false;
+				}
+			}
+		}
+		catch (XMLStreamException e) {
+			throw new InputFileException(getSourceFile(), e.getMessage());
+		}
+	}
+
+	/**
+	 * @return name of the child found by {@link #nextChild()}
+	 */
+	public String getElementName()
+	{
+		return reader.getLocalName();
+	}
+
+	public boolean isElement(XmlKey key)
+	{
+		return key.toString().equals(reader.getLocalName());
+	}
+
+	/**
+	 * Steps into the current child, so {@link #nextChild()} will iterate over its children.
+	 * @return the child, with its attributes but none of its children
+	 */
+	public Element enter()
+	{
+		return createElement();
+	}
+
+	/**
+	 * Reads the current child and all of its descendants.
+	 */
+	public Element readElement()
+	{
+		Element elem = createElement();
+		Element current = elem;
+
+		try {
+			while (true) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						Element child = createElement();
+						current.appendChild(child);
+						current = child;
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						if (current == elem)
+							return elem;
+						current = (Element) current.getParentNode();
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+						if (!reader.isWhiteSpace())
+							current.appendChild(owner.createTextNode(reader.getText()));
+						break;
+				}
+			}
+		}
+		catch (XMLStreamException e) {
+			throw new InputFileException(getSourceFile(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Skips the current child and all of its descendants.
+	 */
+	public void skipElement()
+	{
+		try {
+			int depth = 0;
+			while (true) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						depth++;
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						if (depth-- == 0)
+							return;
+						break;
+				}
+			}
+		}
+		catch (XMLStreamException e) {
+			throw new InputFileException(getSourceFile(), e.getMessage());
+		}
+	}
+
+	private Element createElement()
+	{
+		Element elem = owner.createElement(reader.getLocalName());
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+			elem.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		return elem;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try {
+			reader.close();
+		}
+		catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+		finally {
+			in.close();
+		}
+	}
+}
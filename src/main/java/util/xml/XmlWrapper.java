@@ -3,7 +3,9 @@ package util.xml;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -36,21 +38,35 @@ public class XmlWrapper
 
 	public static class XmlReader
 	{
+		// factories are expensive to create and builders are not thread-safe, so keep one builder per thread
+		private static final ThreadLocal<DocumentBuilder> BUILDERS = ThreadLocal.withInitial(() -> {
+			try {
+				return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			}
+			catch (ParserConfigurationException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
 		private final File xmlFile;
 		private Element rootElement;
 
 		public XmlReader(File xmlFile)
+		{
+			this(xmlFile, (InputStream) null);
+		}
+
+		/**
+		 * Parses XML from a stream instead of a file. The file is only used to report errors.
+		 */
+		public XmlReader(File xmlFile, InputStream in)
 		{
 			this.xmlFile = xmlFile;
 			Document document;
 
 			try {
-				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-				DocumentBuilder builder = factory.newDocumentBuilder();
-				document = builder.parse(xmlFile);
-			}
-			catch (ParserConfigurationException e) {
-				throw new InputFileException(xmlFile, e.getMessage());
+				DocumentBuilder builder = getDocumentBuilder();
+				document = (in == null) ? builder.parse(xmlFile) : builder.parse(in);
 			}
 			catch (SAXException e) {
 				throw new InputFileException(xmlFile, e.getMessage());
@@ -63,6 +79,27 @@ public class XmlWrapper
 			rootElement = document.getDocumentElement();
 		}
 
+		/**
+		 * For readers which provide their own elements instead of parsing a whole document.
+		 */
+		protected XmlReader(File xmlFile, Element rootElement)
+		{
+			this.xmlFile = xmlFile;
+			this.rootElement = rootElement;
+		}
+
+		protected void setRootElement(Element rootElement)
+		{
+			this.rootElement = rootElement;
+		}
+
+		protected static DocumentBuilder getDocumentBuilder()
+		{
+			DocumentBuilder builder = BUILDERS.get();
+			builder.reset();
+			return builder;
+		}
+
 		public File getSourceFile()
 		{
 			return xmlFile;
@@ -491,8 +528,22 @@ public class XmlWrapper
 			}
 		}
 
+		/**
+		 * Writes to an in-memory destination instead of a file, {@link #save()} only flushes.
+		 */
+		public XmlWriter(Writer out)
+		{
+			pw = new PrintWriter(out);
+			pw.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		}
+
 		public void save()
 		{
+			if (pw != null && temp == null) {
+				pw.flush();
+				return;
+			}
+
 			if (pw != null) {
 				pw.close();
 